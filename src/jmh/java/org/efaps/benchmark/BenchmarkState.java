@@ -0,0 +1,351 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.efaps.admin.datamodel.Type;
+import org.efaps.db.Context;
+import org.efaps.db.Instance;
+import org.efaps.eql2.EQL2;
+import org.efaps.eql2.IPrintQueryStatement;
+import org.efaps.init.StartupException;
+import org.efaps.mock.Mocks;
+import org.efaps.mock.datamodel.Attribute;
+import org.efaps.mock.datamodel.IDataModel;
+import org.efaps.mock.datamodel.SQLTable;
+import org.efaps.test.AbstractTest;
+import org.efaps.test.EFapsQueryHandler;
+import org.efaps.util.EFapsException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import acolyte.jdbc.CompositeHandler;
+import acolyte.jdbc.QueryResult;
+import acolyte.jdbc.RowLists;
+import acolyte.jdbc.StatementHandler;
+import acolyte.jdbc.UpdateResult;
+
+/**
+ * State for the benchmarks: starts eFaps against the Acolyte mock JDBC
+ * driver like {@link AbstractTest} does and creates a synthetic type with
+ * {@link #width} String attributes and {@link #depth} levels of child types.
+ * Every select on the table of the synthetic type returns {@link #rows}
+ * rows, all other statements are answered by the {@link EFapsQueryHandler}
+ * and the {@link Mocks}.
+ *
+ * @author The eFaps Team
+ */
+@State(Scope.Thread)
+public class BenchmarkState
+{
+
+    /** Name of the type column of the synthetic type. */
+    private static final String TYPECOLUMN = "TYPE";
+
+    /** Is eFaps started. */
+    private static boolean STARTED;
+
+    /** Number of String attributes of the synthetic type. */
+    @Param({ "5", "20" })
+    private int width;
+
+    /** Number of levels of child types below the synthetic type. */
+    @Param({ "0", "3" })
+    private int depth;
+
+    /** Number of rows returned for a select. */
+    @Param({ "100", "10000" })
+    private int rows;
+
+    /** Name of the synthetic type. */
+    private String typeName;
+
+    /** Name of the table of the synthetic type. */
+    private String tableName;
+
+    /** Names of the attributes of the synthetic type. */
+    private final List<String> attributeNames = new ArrayList<>();
+
+    /** Ids of the synthetic type and its child types. */
+    private final List<Long> typeIds = new ArrayList<>();
+
+    /** The print statement selecting all attributes. */
+    private String printStmt;
+
+    /** The parsed print statement. */
+    private IPrintQueryStatement parsedPrintStmt;
+
+    /** Instances of a type with access check. */
+    private final List<Instance> accessInstances = new ArrayList<>();
+
+    /**
+     * Start eFaps, create the synthetic type and open a Context.
+     *
+     * @throws StartupException on error
+     * @throws EFapsException on error
+     */
+    @Setup(Level.Trial)
+    public void setup()
+        throws StartupException, EFapsException
+    {
+        BenchmarkState.start();
+        BenchmarkState.register(this);
+        final String suffix = String.valueOf(AbstractTest.nextLong());
+        typeName = "BenchmarkType" + suffix;
+        tableName = "T_BENCHMARK" + suffix;
+
+        final var type = org.efaps.mock.datamodel.Type.builder()
+                        .withName(typeName)
+                        .build();
+        typeIds.add(type.getId());
+        Long parentId = type.getId();
+        for (int i = 0; i < depth; i++) {
+            final var child = org.efaps.mock.datamodel.Type.builder()
+                            .withName(typeName + "Child" + i)
+                            .withParentTypeId(parentId)
+                            .build();
+            typeIds.add(child.getId());
+            parentId = child.getId();
+        }
+        final SQLTable table = SQLTable.builder()
+                        .withName("BenchmarkSQLTable" + suffix)
+                        .withSqlTableName(tableName)
+                        .withTypeColumn(BenchmarkState.TYPECOLUMN)
+                        .build();
+        Attribute.builder()
+                        .withName("ID")
+                        .withDataModelTypeId(type.getId())
+                        .withSqlTableId(table.getId())
+                        .withAttributeTypeId(IDataModel.LongType.getId())
+                        .build();
+        Attribute.builder()
+                        .withName("Type")
+                        .withDataModelTypeId(type.getId())
+                        .withSqlTableId(table.getId())
+                        .withSqlColumnName(BenchmarkState.TYPECOLUMN)
+                        .withAttributeTypeId(IDataModel.TypeType.getId())
+                        .build();
+        for (int i = 0; i < width; i++) {
+            final Attribute attr = Attribute.builder()
+                            .withName("Attribute" + i)
+                            .withDataModelTypeId(type.getId())
+                            .withSqlTableId(table.getId())
+                            .withAttributeTypeId(IDataModel.StringType.getId())
+                            .build();
+            attributeNames.add(attr.getName());
+        }
+        final StringBuilder bldr = new StringBuilder().append("print query type ").append(typeName)
+                        .append(" select ");
+        for (int i = 0; i < attributeNames.size(); i++) {
+            bldr.append(i == 0 ? "" : ", ").append("attribute[").append(attributeNames.get(i)).append("]");
+        }
+        printStmt = bldr.toString();
+        parsedPrintStmt = (IPrintQueryStatement) EQL2.parse(printStmt);
+
+        Context.begin("Administrator");
+        final Type accessType = Type.get(Mocks.AccessType.getId());
+        for (long i = 1; i <= rows; i++) {
+            accessInstances.add(Instance.get(accessType, i));
+        }
+    }
+
+    /**
+     * Close the Context.
+     *
+     * @throws EFapsException on error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown()
+        throws EFapsException
+    {
+        Context.rollback();
+    }
+
+    /**
+     * Gets the print statement selecting all attributes.
+     *
+     * @return the print statement
+     */
+    public String getPrintStmt()
+    {
+        return printStmt;
+    }
+
+    /**
+     * Gets the parsed print statement.
+     *
+     * @return the parsed print statement
+     */
+    public IPrintQueryStatement getParsedPrintStmt()
+    {
+        return parsedPrintStmt;
+    }
+
+    /**
+     * Gets the name of the synthetic type.
+     *
+     * @return the type name
+     */
+    public String getTypeName()
+    {
+        return typeName;
+    }
+
+    /**
+     * Gets the names of the attributes of the synthetic type.
+     *
+     * @return the attribute names
+     */
+    public List<String> getAttributeNames()
+    {
+        return attributeNames;
+    }
+
+    /**
+     * Gets the instances of a type with access check.
+     *
+     * @return the instances
+     */
+    public List<Instance> getAccessInstances()
+    {
+        return accessInstances;
+    }
+
+    /**
+     * Answer a select on the table of the synthetic type. The columns are
+     * read from the select: ids for the ID column, type ids for the type
+     * column and strings for all other columns.
+     *
+     * @param _sql the SQL statement
+     * @return the result, <code>null</code> if the statement is not for the
+     *         table of the synthetic type
+     */
+    private QueryResult getResult(final String _sql)
+    {
+        QueryResult ret = null;
+        if (tableName != null && _sql.contains(" from " + tableName + " ")) {
+            final String[] columns = _sql.substring(_sql.indexOf("select ") + 7, _sql.indexOf(" from "))
+                            .replace("distinct ", "").split(",");
+            final Class<?>[] classes = new Class<?>[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                classes[i] = columns[i].endsWith(".ID") || columns[i].endsWith("." + BenchmarkState.TYPECOLUMN)
+                                ? Long.class : String.class;
+            }
+            final List<Object[]> values = new ArrayList<>(rows);
+            for (int row = 0; row < rows; row++) {
+                final Object[] value = new Object[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    if (columns[i].endsWith(".ID")) {
+                        value[i] = (long) row + 1;
+                    } else if (columns[i].endsWith("." + BenchmarkState.TYPECOLUMN)) {
+                        value[i] = typeIds.get(row % typeIds.size());
+                    } else {
+                        value[i] = "Value " + row + "-" + i;
+                    }
+                }
+                values.add(value);
+            }
+            ret = BenchmarkState.asResult(classes, values);
+        }
+        return ret;
+    }
+
+    /**
+     * Create a result with the given number of columns. The row lists of
+     * Acolyte are typed by the number of columns, therefore reflection is
+     * used.
+     *
+     * @param _classes classes of the columns
+     * @param _values the rows
+     * @return the result
+     */
+    private static QueryResult asResult(final Class<?>[] _classes,
+                                        final List<Object[]> _values)
+    {
+        try {
+            final Method factory = Arrays.stream(RowLists.class.getMethods())
+                            .filter(method -> method.getName().equals("rowList" + _classes.length)
+                                            && method.getParameterCount() == _classes.length
+                                            && Class.class.equals(method.getParameterTypes()[0]))
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException("No row list for " + _classes.length
+                                            + " columns"));
+            Object rowList = factory.invoke(null, (Object[]) _classes);
+            final Method append = Arrays.stream(rowList.getClass().getMethods())
+                            .filter(method -> "append".equals(method.getName())
+                                            && method.getParameterCount() == _classes.length)
+                            .findFirst()
+                            .orElseThrow();
+            for (final Object[] value : _values) {
+                rowList = append.invoke(rowList, value);
+            }
+            return (QueryResult) rowList.getClass().getMethod("asResult").invoke(rowList);
+        } catch (final IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Start eFaps once per JVM and register the handler answering the
+     * selects on the synthetic types.
+     *
+     * @throws StartupException on error
+     */
+    private static synchronized void start()
+        throws StartupException
+    {
+        if (!BenchmarkState.STARTED) {
+            BenchmarkState.STARTED = true;
+            new Starter().prepareSuite();
+        }
+    }
+
+    /**
+     * Register the handler for the given state.
+     *
+     * @param _state the state
+     */
+    private static void register(final BenchmarkState _state)
+    {
+        final StatementHandler handler = new CompositeHandler().withQueryDetection("^ select ")
+                        .withQueryHandler((_sql, _parameters) -> {
+                            final QueryResult result = _state.getResult(_sql.trim());
+                            return result == null ? EFapsQueryHandler.get().apply(_sql, _parameters) : result;
+                        })
+                        .withUpdateHandler((_sql, _parameters) -> {
+                            EFapsQueryHandler.get().apply(_sql, _parameters);
+                            return UpdateResult.One;
+                        });
+        acolyte.jdbc.Driver.register("my-handler-id", handler);
+    }
+
+    /**
+     * Used to start eFaps like the tests do.
+     */
+    private static final class Starter
+        extends AbstractTest
+    {
+    }
+}
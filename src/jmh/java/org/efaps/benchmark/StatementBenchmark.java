@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.benchmark;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.efaps.admin.access.AccessTypeEnums;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.db.Instance;
+import org.efaps.db.MultiPrintQuery;
+import org.efaps.db.QueryBuilder;
+import org.efaps.db.stmt.PrintStmt;
+import org.efaps.db.stmt.print.QueryPrint;
+import org.efaps.db.stmt.runner.SQLRunner;
+import org.efaps.db.stmt.selection.Evaluator;
+import org.efaps.eql.EQL;
+import org.efaps.eql2.StmtFlag;
+import org.efaps.mock.Mocks;
+import org.efaps.util.EFapsException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the steps of a statement: parsing the EQL, creating the
+ * SQL, reading the rows with the {@link Evaluator}, checking the access and
+ * executing a {@link MultiPrintQuery}.
+ *
+ * @author The eFaps Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementBenchmark
+{
+
+    /**
+     * Parse the print statement.
+     *
+     * @param _state the state
+     * @return the parsed statement
+     */
+    @Benchmark
+    public Object parse(final BenchmarkState _state)
+    {
+        return EQL.getStatement(_state.getPrintStmt());
+    }
+
+    /**
+     * Create the SQL for the parsed print statement.
+     *
+     * @param _state the state
+     * @return the SQL runner
+     * @throws EFapsException on error
+     */
+    @Benchmark
+    public Object prepare(final BenchmarkState _state)
+        throws EFapsException
+    {
+        final SQLRunner runner = new SQLRunner();
+        runner.prepare(new QueryPrint(_state.getParsedPrintStmt(), EnumSet.noneOf(StmtFlag.class)));
+        return runner;
+    }
+
+    /**
+     * Execute the print statement and read all values with the Evaluator.
+     *
+     * @param _state the state
+     * @param _blackhole the blackhole
+     * @throws EFapsException on error
+     */
+    @Benchmark
+    public void evaluate(final BenchmarkState _state,
+                         final Blackhole _blackhole)
+        throws EFapsException
+    {
+        final Evaluator eval = PrintStmt.get(_state.getParsedPrintStmt()).evaluate();
+        final int columns = _state.getAttributeNames().size();
+        while (eval.next()) {
+            for (int i = 1; i <= columns; i++) {
+                _blackhole.consume(eval.<Object>get(i));
+            }
+        }
+    }
+
+    /**
+     * Check the access for a list of instances.
+     *
+     * @param _state the state
+     * @return the access
+     * @throws EFapsException on error
+     */
+    @Benchmark
+    public Map<Instance, Boolean> checkAccess(final BenchmarkState _state)
+        throws EFapsException
+    {
+        return Type.get(Mocks.AccessType.getId()).checkAccess(_state.getAccessInstances(),
+                        AccessTypeEnums.SHOW.getAccessType());
+    }
+
+    /**
+     * Execute a MultiPrintQuery and read all values.
+     *
+     * @param _state the state
+     * @param _blackhole the blackhole
+     * @throws EFapsException on error
+     */
+    @Benchmark
+    public void multiPrintQuery(final BenchmarkState _state,
+                                final Blackhole _blackhole)
+        throws EFapsException
+    {
+        final MultiPrintQuery multi = new QueryBuilder(Type.get(_state.getTypeName())).getPrint();
+        multi.addAttribute(_state.getAttributeNames().toArray(new String[0]));
+        multi.executeWithoutAccessCheck();
+        while (multi.next()) {
+            for (final String attrName : _state.getAttributeNames()) {
+                _blackhole.consume(multi.<Object>getAttribute(attrName));
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.efaps.db.wrapper.SQLSelect;
 import org.efaps.util.EFapsException;
 import org.efaps.util.cache.CacheReloadException;
 import org.efaps.util.cache.InfinispanCache;
+import org.efaps.util.cache.NearCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -171,11 +172,12 @@ public final class AccessType
     public static AccessType getAccessType(final long _id)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<Long, AccessType>getCache(AccessType.IDCACHE);
-        if (!cache.containsKey(_id)) {
-            AccessType.getAccessTypeFromDB(AccessType.SQL_ID, _id);
-        }
-        return cache.get(_id);
+        return NearCache.<Long, AccessType>get(AccessType.IDCACHE).get(_id, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                AccessType.getAccessTypeFromDB(AccessType.SQL_ID, key);
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -189,11 +191,12 @@ public final class AccessType
     public static AccessType getAccessType(final String _name)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<String, AccessType>getCache(AccessType.NAMECACHE);
-        if (!cache.containsKey(_name)) {
-            AccessType.getAccessTypeFromDB(AccessType.SQL_NAME, _name);
-        }
-        return cache.get(_name);
+        return NearCache.<String, AccessType>get(AccessType.NAMECACHE).get(_name, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                AccessType.getAccessTypeFromDB(AccessType.SQL_NAME, key);
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -207,11 +210,12 @@ public final class AccessType
     public static AccessType getAccessType(final UUID _uuid)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<UUID, AccessType>getCache(AccessType.UUIDCACHE);
-        if (!cache.containsKey(_uuid)) {
-            AccessType.getAccessTypeFromDB(AccessType.SQL_UUID, String.valueOf(_uuid));
-        }
-        return cache.get(_uuid);
+        return NearCache.<UUID, AccessType>get(AccessType.UUIDCACHE).get(_uuid, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                AccessType.getAccessTypeFromDB(AccessType.SQL_UUID, String.valueOf(key));
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -61,6 +61,7 @@ public final class AccessCache
     {
         InfinispanCache.get().<UUID, AccessType>initCache(AccessCache.PERMISSIONCACHE, AccessCache.LOG);
         InfinispanCache.get().<Long, AccessType>initCache(AccessCache.STATUSCACHE, AccessCache.LOG);
+        AccessMatrix.reset();
     }
 
     /**
@@ -86,6 +87,7 @@ public final class AccessCache
     {
         AccessCache.LOG.debug("Registered Update for: {}", _instance);
         AccessCache.getStatusCache().remove(_instance.getKey());
+        AccessMatrix.registerUpdate(_instance);
     }
 
     /**
@@ -0,0 +1,491 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.access.user;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.datamodel.Status;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.admin.user.Person;
+import org.efaps.ci.CIAdminAccess;
+import org.efaps.ci.CIAttribute;
+import org.efaps.ci.CIType;
+import org.efaps.db.Context;
+import org.efaps.db.Instance;
+import org.efaps.db.MultiPrintQuery;
+import org.efaps.db.QueryBuilder;
+import org.efaps.util.EFapsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.transaction.RollbackException;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+
+/**
+ * In memory representation of the access definitions. The relations
+ * AccessSet2UserAbstract, AccessSet2DataModelType, AccessSet2Type and
+ * AccessSet2Status are loaded with one query each. Users and types are
+ * mapped to a bitset of access sets, so that a {@link PermissionSet} is
+ * evaluated without SQL. If a relation is changed only that relation is
+ * loaded again on the next evaluation after the changing transaction was
+ * committed. Activated by
+ * "core.access.matrix.active", defaults to false.
+ *
+ * @author The eFaps Team
+ */
+public final class AccessMatrix
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(AccessMatrix.class);
+
+    /**
+     * Index of the access sets inside the bitsets. Only grows, so that the
+     * index is stable for the parts of a matrix that are not reloaded.
+     */
+    private static final Map<Long, Integer> SET2IDX = new ConcurrentHashMap<>();
+
+    /**
+     * Relations that must be reloaded.
+     */
+    private static final Set<Relation> DIRTY = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Relations changed by transactions that are not completed yet.
+     */
+    private static final Map<Transaction, Set<Relation>> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * Is the matrix used for the evaluation.
+     */
+    private static Boolean ACTIVE;
+
+    /**
+     * The current matrix.
+     */
+    private static volatile AccessMatrix MATRIX;
+
+    /**
+     * Mapping of the user or type id to the indexes of the access sets.
+     */
+    private final Map<Relation, Map<Long, BitSet>> sets;
+
+    /**
+     * Mapping of the index of an access set to the access type or status ids.
+     */
+    private final Map<Relation, Map<Integer, long[]>> ids;
+
+    /**
+     * Instantiates a new access matrix.
+     *
+     * @param _sets the mapping to the access sets
+     * @param _ids the mapping of the access sets to ids
+     */
+    private AccessMatrix(final Map<Relation, Map<Long, BitSet>> _sets,
+                         final Map<Relation, Map<Integer, long[]>> _ids)
+    {
+        sets = _sets;
+        ids = _ids;
+    }
+
+    /**
+     * Get a copy of this matrix with the given relation loaded from the
+     * database.
+     *
+     * @param _relation relation to be loaded
+     * @return the new matrix
+     * @throws EFapsException on error
+     */
+    private AccessMatrix load(final Relation _relation)
+        throws EFapsException
+    {
+        final List<long[]> rows = new ArrayList<>();
+        final MultiPrintQuery multi = new QueryBuilder(_relation.ciType).getPrint();
+        multi.addAttribute(_relation.accessSetLink, _relation.link);
+        multi.executeWithoutAccessCheck();
+        while (multi.next()) {
+            final Long accessSetId = multi.getAttribute(_relation.accessSetLink);
+            final Long linkId = multi.getAttribute(_relation.link);
+            if (accessSetId != null && linkId != null) {
+                rows.add(new long[] { accessSetId, linkId });
+            }
+        }
+        return with(_relation, rows);
+    }
+
+    /**
+     * Get a copy of this matrix with the given relation replaced by the
+     * given rows.
+     *
+     * @param _relation relation to be replaced
+     * @param _rows pairs of access set id and linked id
+     * @return the new matrix
+     */
+    AccessMatrix with(final Relation _relation,
+                      final List<long[]> _rows)
+    {
+        final Map<Long, BitSet> link2sets = new HashMap<>();
+        final Map<Integer, Set<Long>> set2ids = new HashMap<>();
+        for (final long[] row : _rows) {
+            final int idx = AccessMatrix.SET2IDX.computeIfAbsent(row[0], id -> AccessMatrix.SET2IDX.size());
+            if (_relation.keyedByLink) {
+                link2sets.computeIfAbsent(row[1], id -> new BitSet()).set(idx);
+            } else {
+                set2ids.computeIfAbsent(idx, id -> new HashSet<>()).add(row[1]);
+            }
+        }
+        final Map<Relation, Map<Long, BitSet>> newSets = new EnumMap<>(Relation.class);
+        newSets.putAll(sets);
+        final Map<Relation, Map<Integer, long[]>> newIds = new EnumMap<>(Relation.class);
+        newIds.putAll(ids);
+        if (_relation.keyedByLink) {
+            newSets.put(_relation, link2sets);
+            LOG.debug("Loaded {} for AccessMatrix with {} entries", _relation, link2sets.size());
+        } else {
+            final Map<Integer, long[]> values = new HashMap<>();
+            set2ids.forEach((idx, linkIds) -> values.put(idx, linkIds.stream().mapToLong(Long::longValue)
+                            .toArray()));
+            newIds.put(_relation, values);
+            LOG.debug("Loaded {} for AccessMatrix with {} entries", _relation, values.size());
+        }
+        return new AccessMatrix(newSets, newIds);
+    }
+
+    /**
+     * Gets the access sets of the given users that are also assigned to the
+     * given type.
+     *
+     * @param _userIds the user ids
+     * @param _typeId the type id
+     * @return the access set indexes
+     */
+    BitSet getAccessSets(final Set<Long> _userIds,
+                         final long _typeId)
+    {
+        final BitSet ret = new BitSet();
+        final Map<Long, BitSet> user2sets = sets.get(Relation.USER);
+        for (final Long userId : _userIds) {
+            final BitSet userSets = user2sets.get(userId);
+            if (userSets != null) {
+                ret.or(userSets);
+            }
+        }
+        final BitSet typeSets = sets.get(Relation.TYPE).get(_typeId);
+        if (typeSets == null) {
+            ret.clear();
+        } else {
+            ret.and(typeSets);
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the ids of the given relation for the given access sets.
+     *
+     * @param _relation the relation
+     * @param _accessSets the access set indexes
+     * @return the ids
+     */
+    Set<Long> getIds(final Relation _relation,
+                     final BitSet _accessSets)
+    {
+        final Set<Long> ret = new HashSet<>();
+        final Map<Integer, long[]> set2ids = ids.get(_relation);
+        for (int idx = _accessSets.nextSetBit(0); idx >= 0; idx = _accessSets.nextSetBit(idx + 1)) {
+            final long[] linkIds = set2ids.get(idx);
+            if (linkIds != null) {
+                for (final long linkId : linkIds) {
+                    ret.add(linkId);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Evaluate the given PermissionSet against the matrix.
+     *
+     * @param _permissionSet the PermissionSet
+     * @throws EFapsException on error
+     */
+    public static void eval(final PermissionSet _permissionSet)
+        throws EFapsException
+    {
+        final AccessMatrix matrix = AccessMatrix.get();
+        final Person person = Person.get(_permissionSet.getPersonId());
+        final Set<Long> userIds = new HashSet<>(person.getRoles());
+        userIds.addAll(person.getGroups());
+        userIds.add(person.getId());
+
+        final BitSet accessSets = matrix.getAccessSets(userIds, _permissionSet.getTypeId());
+        for (final Long accessTypeId : matrix.getIds(Relation.ACCESSTYPE, accessSets)) {
+            _permissionSet.addAccessTypeId(accessTypeId);
+        }
+
+        final Type type = Type.get(_permissionSet.getTypeId());
+        if (type.isCheckStatus()) {
+            for (final Long statusId : matrix.getIds(Relation.STATUS, accessSets)) {
+                final Status status = Status.get(statusId);
+                if (status.getStatusGroup().getId() == type.getStatusAttribute().getLink().getId()) {
+                    _permissionSet.addStatusId(statusId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the current matrix, loading or reloading the relations if
+     * necessary.
+     *
+     * @return the access matrix
+     * @throws EFapsException on error
+     */
+    private static AccessMatrix get()
+        throws EFapsException
+    {
+        AccessMatrix ret = AccessMatrix.MATRIX;
+        if (ret == null || !AccessMatrix.DIRTY.isEmpty()) {
+            synchronized (AccessMatrix.class) {
+                ret = AccessMatrix.MATRIX;
+                final List<Relation> toLoad = new ArrayList<>();
+                if (ret == null) {
+                    ret = new AccessMatrix(Collections.emptyMap(), Collections.emptyMap());
+                    toLoad.addAll(List.of(Relation.values()));
+                    AccessMatrix.DIRTY.clear();
+                } else {
+                    for (final Relation relation : Relation.values()) {
+                        if (AccessMatrix.DIRTY.remove(relation)) {
+                            toLoad.add(relation);
+                        }
+                    }
+                }
+                for (final Relation relation : toLoad) {
+                    ret = ret.load(relation);
+                }
+                AccessMatrix.MATRIX = ret;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Register the update of an instance. If the instance belongs to one of
+     * the relations of the matrix, the relation is reloaded on the next
+     * evaluation after the current transaction was committed and the cached
+     * PermissionSets are removed.
+     *
+     * @param _instance the instance
+     */
+    public static void registerUpdate(final Instance _instance)
+    {
+        if (AccessMatrix.MATRIX != null && _instance.getType() != null) {
+            final Set<Relation> relations = EnumSet.noneOf(Relation.class);
+            for (final Relation relation : Relation.values()) {
+                if (_instance.getType().isCIType(relation.ciType)) {
+                    relations.add(relation);
+                }
+            }
+            if (!relations.isEmpty()) {
+                AccessMatrix.registerUpdate(relations);
+            }
+        }
+    }
+
+    /**
+     * Register the change of the given relations. Inside of a transaction
+     * the relations are marked as dirty after the transaction was committed,
+     * so that no other transaction loads the uncommitted state and the
+     * matrix is not reloaded without the change. Without a transaction they
+     * are marked immediately.
+     *
+     * @param _relations the changed relations
+     */
+    static void registerUpdate(final Set<Relation> _relations)
+    {
+        LOG.debug("Registered change of {} for AccessMatrix", _relations);
+        boolean registered = false;
+        try {
+            if (Context.isThreadActive() && Context.isTMActive()) {
+                final Transaction transaction = Context.getThreadContext().getTransaction();
+                final Set<Relation> pending = AccessMatrix.PENDING.get(transaction);
+                if (pending == null) {
+                    final Set<Relation> relations = ConcurrentHashMap.newKeySet();
+                    relations.addAll(_relations);
+                    transaction.registerSynchronization(new Synchronization()
+                    {
+
+                        @Override
+                        public void beforeCompletion()
+                        {
+                            // nothing to do
+                        }
+
+                        @Override
+                        public void afterCompletion(final int _status)
+                        {
+                            AccessMatrix.PENDING.remove(transaction);
+                            if (_status == jakarta.transaction.Status.STATUS_COMMITTED) {
+                                AccessMatrix.markDirty(relations);
+                            }
+                        }
+                    });
+                    AccessMatrix.PENDING.put(transaction, relations);
+                } else {
+                    pending.addAll(_relations);
+                }
+                registered = true;
+            }
+        } catch (final EFapsException | RollbackException | SystemException | IllegalStateException e) {
+            LOG.warn("Could not register the change for the end of the transaction", e);
+        }
+        if (!registered) {
+            AccessMatrix.markDirty(_relations);
+        }
+    }
+
+    /**
+     * Mark the given relations as dirty and remove the cached
+     * PermissionSets.
+     *
+     * @param _relations the relations
+     */
+    private static void markDirty(final Set<Relation> _relations)
+    {
+        AccessMatrix.DIRTY.addAll(_relations);
+        AccessCache.getPermissionCache().clear();
+    }
+
+    /**
+     * Is the given relation marked to be reloaded.
+     *
+     * @param _relation the relation
+     * @return true, if dirty
+     */
+    static boolean isDirty(final Relation _relation)
+    {
+        return AccessMatrix.DIRTY.contains(_relation);
+    }
+
+    /**
+     * Load the matrix, so that the first evaluation does not have to.
+     *
+     * @throws EFapsException on error
+     */
+    public static void preload()
+        throws EFapsException
+    {
+        AccessMatrix.get();
+    }
+
+    /**
+     * Drop the matrix, it is loaded completely on the next evaluation.
+     */
+    public static void reset()
+    {
+        synchronized (AccessMatrix.class) {
+            AccessMatrix.MATRIX = null;
+            AccessMatrix.SET2IDX.clear();
+            AccessMatrix.DIRTY.clear();
+        }
+    }
+
+    /**
+     * Is the matrix used for the evaluation.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        if (AccessMatrix.ACTIVE == null) {
+            AccessMatrix.ACTIVE = ConfigProvider.getConfig()
+                            .getOptionalValue("core.access.matrix.active", Boolean.class).orElse(false);
+        }
+        return AccessMatrix.ACTIVE;
+    }
+
+    /**
+     * Gets an empty matrix.
+     *
+     * @return the access matrix
+     */
+    static AccessMatrix empty()
+    {
+        return new AccessMatrix(new EnumMap<>(Relation.class), new EnumMap<>(Relation.class));
+    }
+
+    /**
+     * The relations of the matrix.
+     */
+    enum Relation
+    {
+        /** User to access sets. */
+        USER(CIAdminAccess.AccessSet2UserAbstract, CIAdminAccess.AccessSet2UserAbstract.AccessSetLink,
+                        CIAdminAccess.AccessSet2UserAbstract.UserAbstractLink, true),
+        /** DataModel type to access sets. */
+        TYPE(CIAdminAccess.AccessSet2DataModelType, CIAdminAccess.AccessSet2DataModelType.AccessSetLink,
+                        CIAdminAccess.AccessSet2DataModelType.DataModelTypeLink, true),
+        /** Access set to access types. */
+        ACCESSTYPE(CIAdminAccess.AccessSet2Type, CIAdminAccess.AccessSet2Type.AccessSetLink,
+                        CIAdminAccess.AccessSet2Type.AccessTypeLink, false),
+        /** Access set to status. */
+        STATUS(CIAdminAccess.AccessSet2Status, CIAdminAccess.AccessSet2Status.AccessSetLink,
+                        CIAdminAccess.AccessSet2Status.SatusLink, false);
+
+        /** Type of the relation. */
+        private final CIType ciType;
+
+        /** Link to the access set. */
+        private final CIAttribute accessSetLink;
+
+        /** Link to the other object. */
+        private final CIAttribute link;
+
+        /** Keyed by the linked id (else by the access set index). */
+        private final boolean keyedByLink;
+
+        /**
+         * @param _ciType type of the relation
+         * @param _accessSetLink link to the access set
+         * @param _link link to the other object
+         * @param _keyedByLink keyed by the linked id
+         */
+        Relation(final CIType _ciType,
+                 final CIAttribute _accessSetLink,
+                 final CIAttribute _link,
+                 final boolean _keyedByLink)
+        {
+            ciType = _ciType;
+            accessSetLink = _accessSetLink;
+            link = _link;
+            keyedByLink = _keyedByLink;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.access.user;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.access.AccessType;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.admin.event.EventDefinition;
+import org.efaps.admin.event.EventType;
+import org.efaps.db.Instance;
+import org.efaps.util.EFapsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the access for a list of instances without executing the
+ * ACCESSCHECK events. One {@link PermissionSet} is evaluated per type and
+ * the status of all instances of a type that checks the status is read with
+ * one batch by {@link Evaluation#evalStatus(java.util.Collection)}. The result
+ * is a bitset with one bit per position in the list of instances. Only used
+ * for types whose ACCESSCHECK events are all listed in
+ * "core.access.bulk.programs" (defaults to the simple access check on types),
+ * because those events evaluate the same PermissionSets. The instances of
+ * other types are checked by their events. Activated by
+ * "core.access.bulk.active", defaults to false.
+ *
+ * @author The eFaps Team
+ */
+public final class BulkAccess
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(BulkAccess.class);
+
+    /**
+     * ESJP doing the access check on types by PermissionSets.
+     */
+    private static final String SIMPLEACCESSCHECK = "org.efaps.esjp.admin.access.SimpleAccessCheckOnType";
+
+    /**
+     * Settings read from the configuration, published at once so that the
+     * flag and the programs are always seen together.
+     */
+    private static volatile Settings SETTINGS;
+
+    /**
+     * Instantiates a new bulk access.
+     */
+    private BulkAccess()
+    {
+    }
+
+    /**
+     * Check the access for the given instances. The instances of types the
+     * bulk check is not applicable for are checked by the events of their
+     * type.
+     *
+     * @param _instances the instances
+     * @param _accessType the access type
+     * @return bitset with the bit of the position of every instance with access
+     * @throws EFapsException on error
+     */
+    public static BitSet check(final List<Instance> _instances,
+                               final AccessType _accessType)
+        throws EFapsException
+    {
+        final BitSet ret = new BitSet(_instances.size());
+        final Map<Type, List<Integer>> type2positions = new LinkedHashMap<>();
+        for (int i = 0; i < _instances.size(); i++) {
+            final Instance instance = _instances.get(i);
+            if (instance != null && instance.isValid()) {
+                type2positions.computeIfAbsent(instance.getType(), type -> new ArrayList<>()).add(i);
+            }
+        }
+        for (final Map.Entry<Type, List<Integer>> entry : type2positions.entrySet()) {
+            final List<Integer> positions = entry.getValue();
+            if (BulkAccess.isApplicable(entry.getKey())) {
+                BulkAccess.check(_instances, positions, entry.getKey(), _accessType, ret);
+            } else {
+                for (final Integer pos : positions) {
+                    final Instance instance = _instances.get(pos);
+                    if (instance.getType().hasAccess(instance, _accessType)) {
+                        ret.set(pos);
+                    }
+                }
+            }
+        }
+        LOG.debug("Checked {} access for {} instances of {} types: {} granted", _accessType.getName(),
+                        _instances.size(), type2positions.size(), ret.cardinality());
+        return ret;
+    }
+
+    /**
+     * Check the access for the instances of one type by its PermissionSet.
+     *
+     * @param _instances the instances
+     * @param _positions the positions of the instances of the type
+     * @param _type the type
+     * @param _accessType the access type
+     * @param _access bitset the positions with access are set in
+     * @throws EFapsException on error
+     */
+    private static void check(final List<Instance> _instances,
+                              final List<Integer> _positions,
+                              final Type _type,
+                              final AccessType _accessType,
+                              final BitSet _access)
+        throws EFapsException
+    {
+        final PermissionSet permissionSet = Evaluation.getPermissionSet(_instances.get(_positions.get(0)), true);
+        if (permissionSet.getAccessTypeIds().contains(_accessType.getId())) {
+            if (_type.isCheckStatus()) {
+                final List<Instance> instances = new ArrayList<>(_positions.size());
+                _positions.forEach(pos -> instances.add(_instances.get(pos)));
+                Evaluation.evalStatus(instances);
+                final var cache = AccessCache.getStatusCache();
+                for (final Integer pos : _positions) {
+                    final Long statusId = cache.get(_instances.get(pos).getKey());
+                    if (statusId != null && permissionSet.getStatusIds().contains(statusId)) {
+                        _access.set(pos);
+                    }
+                }
+            } else {
+                _positions.forEach(_access::set);
+            }
+        }
+    }
+
+    /**
+     * Can the access for the given type be checked by this class.
+     *
+     * @param _type the type
+     * @return true, if active and all ACCESSCHECK events of the type are
+     *         listed in the replaceable programs
+     */
+    public static boolean isApplicable(final Type _type)
+    {
+        boolean ret = false;
+        if (BulkAccess.isActive()) {
+            final List<EventDefinition> events = _type.getEvents(EventType.ACCESSCHECK);
+            final List<String> programs = BulkAccess.getSettings().programs();
+            ret = events != null && !events.isEmpty()
+                            && events.stream().allMatch(event -> programs.contains(event.getResourceName()));
+        }
+        return ret;
+    }
+
+    /**
+     * Can the access for at least one of the given instances be checked by
+     * this class. The access for the other instances is checked by the
+     * events of their types.
+     *
+     * @param _instances the instances
+     * @return true, if applicable for the type of at least one instance
+     */
+    public static boolean isApplicable(final Collection<Instance> _instances)
+    {
+        boolean ret = false;
+        if (BulkAccess.isActive() && _instances != null) {
+            ret = _instances.stream()
+                            .filter(instance -> instance != null && instance.isValid())
+                            .map(Instance::getType)
+                            .distinct()
+                            .anyMatch(BulkAccess::isApplicable);
+        }
+        return ret;
+    }
+
+    /**
+     * Is the bulk access check active.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        return BulkAccess.getSettings().active();
+    }
+
+    /**
+     * Gets the settings, read from the configuration on first use.
+     *
+     * @return the settings
+     */
+    private static Settings getSettings()
+    {
+        Settings ret = BulkAccess.SETTINGS;
+        if (ret == null) {
+            synchronized (BulkAccess.class) {
+                ret = BulkAccess.SETTINGS;
+                if (ret == null) {
+                    final Config config = ConfigProvider.getConfig();
+                    ret = new Settings(config.getOptionalValue("core.access.bulk.active", Boolean.class)
+                                    .orElse(false),
+                                    config.getOptionalValues("core.access.bulk.programs", String.class)
+                                                    .orElse(Collections.singletonList(BulkAccess.SIMPLEACCESSCHECK)));
+                    BulkAccess.SETTINGS = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Replace the settings read from the configuration. Used by the tests.
+     *
+     * @param _active is the bulk access check active
+     * @param _programs programs of ACCESSCHECK events that can be replaced
+     */
+    static void configure(final boolean _active,
+                          final List<String> _programs)
+    {
+        synchronized (BulkAccess.class) {
+            BulkAccess.SETTINGS = new Settings(_active, _programs);
+        }
+    }
+
+    /**
+     * Settings of the bulk access check.
+     *
+     * @param active is the bulk access check active
+     * @param programs programs of ACCESSCHECK events that can be replaced
+     */
+    private record Settings(boolean active,
+                            List<String> programs)
+    {
+
+        /**
+         * Instantiates new settings.
+         *
+         * @param active is the bulk access check active
+         * @param programs programs of ACCESSCHECK events that can be replaced
+         */
+        private Settings
+        {
+            programs = List.copyOf(programs);
+        }
+    }
+}
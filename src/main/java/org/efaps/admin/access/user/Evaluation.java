@@ -111,6 +111,23 @@ public final class Evaluation
         throws EFapsException
     {
         Evaluation.LOG.debug("Evaluating PermissionSet {}", _permissionSet);
+        if (AccessMatrix.isActive()) {
+            AccessMatrix.eval(_permissionSet);
+        } else {
+            Evaluation.evalByQuery(_permissionSet);
+        }
+        Evaluation.LOG.debug("Evaluated PermissionSet {}", _permissionSet);
+    }
+
+    /**
+     * Eval the PermissionSet by querying the access definitions.
+     *
+     * @param _permissionSet the PermissionSet
+     * @throws EFapsException on error
+     */
+    private static void evalByQuery(final PermissionSet _permissionSet)
+        throws EFapsException
+    {
         final Person person = Person.get(_permissionSet.getPersonId());
         final Set<Long> ids = new HashSet<>(person.getRoles());
         ids.addAll(person.getGroups());
@@ -154,7 +171,6 @@ public final class Evaluation
                 }
             }
         }
-        Evaluation.LOG.debug("Evaluated PermissionSet {}", _permissionSet);
     }
 
     /**
@@ -16,6 +16,7 @@
 package org.efaps.admin.common;
 
 import java.io.Serializable;
+import java.text.FieldPosition;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -380,6 +381,48 @@ public final class MsgPhrase
         return frmt.format(_object);
     }
 
+    /**
+     * Format a list of argument arrays, e.g. a column of a table, with one
+     * formatter.
+     *
+     * @param _rows argument arrays to be passed on to the Messageformatter
+     * @return formatted Strings in the order of the given rows
+     * @throws EFapsException on error
+     */
+    public List<String> formatAll(final List<Object[]> _rows)
+        throws EFapsException
+    {
+        return formatAll(Context.getThreadContext().getLanguage(), Context.getThreadContext().getCompany(), _rows);
+    }
+
+    /**
+     * Format a list of argument arrays, e.g. a column of a table, with one
+     * formatter.
+     *
+     * @param _language Language
+     * @param _company  Company
+     * @param _rows argument arrays to be passed on to the Messageformatter
+     * @return formatted Strings in the order of the given rows
+     * @throws EFapsException on error
+     */
+    public List<String> formatAll(final String _language,
+                                  final Company _company,
+                                  final List<Object[]> _rows)
+        throws EFapsException
+    {
+        final List<String> ret = new ArrayList<>(_rows.size());
+        if (!_rows.isEmpty()) {
+            final ExtendedMessageFormat frmt = MsgFormat.getFormat(getLabel(_language, _company));
+            final StringBuffer buffer = new StringBuffer();
+            final FieldPosition pos = new FieldPosition(0);
+            for (final Object[] row : _rows) {
+                buffer.setLength(0);
+                ret.add(frmt.format(row, buffer, pos).toString());
+            }
+        }
+        return ret;
+    }
+
     @Override
     public boolean equals(final Object _obj)
     {
@@ -20,11 +20,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Formatter;
+import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.db.Context;
+import org.efaps.db.databases.SequenceAllocator;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
 import org.efaps.util.EFapsException;
@@ -119,6 +124,16 @@ public final class NumberGenerator
      */
     private static final String NAME_SUFFIX = "_seq";
 
+    /**
+     * Number of values reserved at once.
+     */
+    private static Integer BLOCKSIZE;
+
+    /**
+     * Names or UUIDs of the NumberGenerators that never reserve values.
+     */
+    private static List<String> GAPFREE;
+
     /**
      * Id of this NumberGenerator.
      */
@@ -166,6 +181,35 @@ public final class NumberGenerator
         return NumberGenerator.NAME_PREFIX + this.id + NumberGenerator.NAME_SUFFIX;
     }
 
+    /**
+     * Get the number of values reserved at once for this NumberGenerator.
+     * Set by "core.numgen.blockSize" (defaults to 1, nothing is reserved).
+     * NumberGenerators listed by name or UUID in "core.numgen.gapFree" never
+     * reserve values, because reserved values that are not used get lost
+     * on a restart. The blocks are reserved in the database, see
+     * {@link SequenceAllocator}, so they can be used in a cluster. A
+     * sequence that was used with blocks keeps its increment until it is set
+     * by {@link #setVal(String)}.
+     *
+     * @return the block size
+     */
+    public int getBlockSize()
+    {
+        final int ret;
+        if (NumberGenerator.BLOCKSIZE == null) {
+            final Config config = ConfigProvider.getConfig();
+            NumberGenerator.GAPFREE = config.getOptionalValues("core.numgen.gapFree", String.class)
+                            .orElse(Collections.emptyList());
+            NumberGenerator.BLOCKSIZE = config.getOptionalValue("core.numgen.blockSize", Integer.class).orElse(1);
+        }
+        if (NumberGenerator.GAPFREE.contains(this.name) || NumberGenerator.GAPFREE.contains(this.uuid.toString())) {
+            ret = 1;
+        } else {
+            ret = NumberGenerator.BLOCKSIZE;
+        }
+        return ret;
+    }
+
     /**
      * Method to get the next value for this sequence. To get the long value use
      * {@link #getNextValAsLong()}
@@ -192,8 +236,8 @@ public final class NumberGenerator
     {
         final Object[] args = new Object[_args.length + 1];
         try {
-            final long val = Context.getDbType().nextSequence(Context.getThreadContext().getConnectionResource(),
-                            getDBName());
+            final long val = SequenceAllocator.next(Context.getDbType(),
+                            Context.getThreadContext().getConnectionResource(), getDBName(), getBlockSize());
             args[0] = val;
         } catch (final SQLException e) {
             throw new EFapsException(NumberGenerator.class, " getNextVal()", e);
@@ -221,8 +265,8 @@ public final class NumberGenerator
     {
         long ret = 0;
         try {
-            ret = Context.getDbType().nextSequence(Context.getThreadContext().getConnectionResource(),
-                            getDBName());
+            ret = SequenceAllocator.next(Context.getDbType(), Context.getThreadContext().getConnectionResource(),
+                            getDBName(), getBlockSize());
         } catch (final SQLException e) {
             throw new EFapsException(NumberGenerator.class, " getNextValAsLong()", e);
         }
@@ -245,6 +289,7 @@ public final class NumberGenerator
             con = Context.getConnection();
             Context.getDbType().setSequence(con, getDBName(), Long.parseLong(_value));
             con.commit();
+            SequenceAllocator.reset(getDBName());
         } catch (final SQLException e) {
             throw new EFapsException(NumberGenerator.class, "setVal()", e);
         } finally {
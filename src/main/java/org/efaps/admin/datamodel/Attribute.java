@@ -39,10 +39,12 @@ import org.efaps.ci.CIAdminDataModel;
 import org.efaps.ci.CIAdminUser;
 import org.efaps.db.Context;
 import org.efaps.db.databases.information.ColumnInformation;
+import org.efaps.db.transaction.ConnectionResource;
 import org.efaps.db.wrapper.SQLInsert;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
 import org.efaps.db.wrapper.SQLUpdate;
+import org.efaps.eql.StatementCache;
 import org.efaps.util.EFapsException;
 import org.efaps.util.cache.CacheReloadException;
 import org.efaps.util.cache.InfinispanCache;
@@ -761,6 +763,22 @@ public class Attribute
         return ret;
     }
 
+    /**
+     * Gets a decoder that reads the values like
+     * {@link #value(List, boolean)} with the attribute type and the events
+     * already resolved.
+     *
+     * @param _eventoff must the READ_VALUE events be skipped
+     * @return the decoder
+     * @throws EFapsException on error
+     */
+    public AttributeDecoder getDecoder(final boolean _eventoff)
+        throws EFapsException
+    {
+        return new AttributeDecoder(this, AttributeType.get(attributeTypeId).getDbAttrType(),
+                        _eventoff ? null : getEvents(EventType.READ_VALUE));
+    }
+
     /**
      * @return the key for the DBProperties value
      */
@@ -823,6 +841,8 @@ public class Attribute
         InfinispanCache.get().<String, Attribute>initCache(Attribute.NAMECACHE, Attribute.LOG);
         InfinispanCache.get().<Long, Attribute>getCache(Attribute.IDCACHE).clear();
         InfinispanCache.get().<Long, Attribute>initCache(Attribute.IDCACHE, Attribute.LOG);
+        StatementCache.invalidate();
+        ConnectionResource.invalidateStatements();
     }
 
     /**
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.datamodel;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.efaps.admin.datamodel.attributetype.IAttributeType;
+import org.efaps.admin.event.EventDefinition;
+import org.efaps.admin.event.Parameter;
+import org.efaps.admin.event.Parameter.ParameterValues;
+import org.efaps.admin.event.Return;
+import org.efaps.admin.event.Return.ReturnValues;
+import org.efaps.util.EFapsException;
+
+/**
+ * Reads the values of an {@link Attribute} from the database like
+ * {@link Attribute#value(List, boolean)}, but with the attribute type and
+ * the events for {@link org.efaps.admin.event.EventType#READ_VALUE} resolved
+ * once, so that reading the value of a row does not need any cache lookup.
+ * Created by {@link Attribute#getDecoder(boolean)} when a statement is
+ * prepared.
+ *
+ * @author The eFaps Team
+ */
+public final class AttributeDecoder
+{
+
+    /**
+     * The attribute.
+     */
+    private final Attribute attribute;
+
+    /**
+     * The type used to read the value.
+     */
+    private final IAttributeType dbAttrType;
+
+    /**
+     * Events to be executed, <code>null</code> if there are none.
+     */
+    private final List<EventDefinition> events;
+
+    /**
+     * Instantiates a new decoder.
+     *
+     * @param _attribute the attribute
+     * @param _dbAttrType the type used to read the value
+     * @param _events events to be executed, <code>null</code> if none
+     */
+    AttributeDecoder(final Attribute _attribute,
+                     final IAttributeType _dbAttrType,
+                     final List<EventDefinition> _events)
+    {
+        attribute = _attribute;
+        dbAttrType = _dbAttrType;
+        events = _events == null || _events.isEmpty() ? null : _events;
+    }
+
+    /**
+     * Read the value.
+     *
+     * @param _object the object from the database, an array of objects if
+     *            the attribute has more than one column
+     * @return the value
+     * @throws EFapsException on error
+     */
+    public Object decode(final Object _object)
+        throws EFapsException
+    {
+        Object ret = dbAttrType.readValue(attribute, Collections.singletonList(_object));
+        if (events != null) {
+            final Parameter param = new Parameter();
+            param.put(ParameterValues.CLASS, attribute);
+            param.put(ParameterValues.OTHERS, ret);
+            for (final EventDefinition event : events) {
+                final Return aRet = event.execute(param);
+                if (aRet.contains(ReturnValues.VALUES)) {
+                    ret = aRet.get(ReturnValues.VALUES);
+                }
+            }
+        }
+        return ret;
+    }
+}
@@ -26,6 +26,7 @@ import java.util.UUID;
 
 import org.efaps.db.Context;
 import org.efaps.db.databases.information.TableInformation;
+import org.efaps.db.transaction.ConnectionResource;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
 import org.efaps.util.EFapsException;
@@ -371,6 +372,7 @@ public final class SQLTable
         InfinispanCache.get().<UUID, SQLTable>initCache(SQLTable.UUIDCACHE, SQLTable.LOG);
         InfinispanCache.get().<Long, SQLTable>initCache(SQLTable.IDCACHE, SQLTable.LOG);
         InfinispanCache.get().<String, SQLTable>initCache(SQLTable.NAMECACHE, SQLTable.LOG);
+        ConnectionResource.invalidateStatements();
     }
 
     /**
@@ -38,6 +38,7 @@ import org.efaps.util.EFapsException;
 import org.efaps.util.cache.CacheObjectInterface;
 import org.efaps.util.cache.CacheReloadException;
 import org.efaps.util.cache.InfinispanCache;
+import org.efaps.util.cache.NearCache;
 import org.infinispan.protostream.annotations.ProtoFactory;
 import org.infinispan.protostream.annotations.ProtoField;
 import org.slf4j.Logger;
@@ -365,11 +366,12 @@ public final class Status
     public static Status get(final long _id)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<Long, Status>getCache(Status.IDCACHE4STATUS);
-        if (!cache.containsKey(_id)) {
-            Status.getStatusFromDB(Status.SQL_ID4STATUS, _id);
-        }
-        return cache.get(_id);
+        return NearCache.<Long, Status>get(Status.IDCACHE4STATUS).get(_id, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                Status.getStatusFromDB(Status.SQL_ID4STATUS, key);
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -382,11 +384,12 @@ public final class Status
     public static StatusGroup get(final String _typeName)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<String, StatusGroup>getCache(Status.NAMECACHE4GRP);
-        if (!cache.containsKey(_typeName)) {
-            Status.getStatusGroupFromDB(Status.SQL_NAME4GRP, _typeName);
-        }
-        return cache.get(_typeName);
+        return NearCache.<String, StatusGroup>get(Status.NAMECACHE4GRP).get(_typeName, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                Status.getStatusGroupFromDB(Status.SQL_NAME4GRP, key);
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -399,11 +402,12 @@ public final class Status
     public static StatusGroup get(final UUID _uuid)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<UUID, StatusGroup>getCache(Status.UUIDCACHE4GRP);
-        if (!cache.containsKey(_uuid)) {
-            Status.getStatusGroupFromDB(Status.SQL_UUID4GRP, String.valueOf(_uuid));
-        }
-        return cache.get(_uuid);
+        return NearCache.<UUID, StatusGroup>get(Status.UUIDCACHE4GRP).get(_uuid, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                Status.getStatusGroupFromDB(Status.SQL_UUID4GRP, String.valueOf(key));
+            }
+            return cache.get(key);
+        });
     }
 
     /**
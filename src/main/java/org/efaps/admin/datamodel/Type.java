@@ -20,6 +20,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -37,6 +38,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.efaps.admin.access.AccessSet;
 import org.efaps.admin.access.AccessType;
+import org.efaps.admin.access.user.BulkAccess;
 import org.efaps.admin.datamodel.attributetype.AssociationLinkType;
 import org.efaps.admin.datamodel.attributetype.BitEnumType;
 import org.efaps.admin.datamodel.attributetype.CompanyLinkType;
@@ -66,13 +68,16 @@ import org.efaps.db.InstanceQuery;
 import org.efaps.db.MultiPrintQuery;
 import org.efaps.db.QueryBuilder;
 import org.efaps.db.QueryCache;
+import org.efaps.db.transaction.ConnectionResource;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
+import org.efaps.eql.StatementCache;
 import org.efaps.util.EFapsException;
 import org.efaps.util.IFormatedLog;
 import org.efaps.util.LogMsg;
 import org.efaps.util.cache.CacheReloadException;
 import org.efaps.util.cache.InfinispanCache;
+import org.efaps.util.cache.NearCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -383,6 +388,13 @@ public class Type
 
     private boolean typeFormChecked = false;
 
+    /**
+     * Metadata used to build statements, built on first use.
+     *
+     * @see #getMetadata()
+     */
+    private transient TypeMetadata metadata;
+
     /**
      * This is the constructor for class Type. Every instance of class Type must
      * have a name (parameter <i>_name</i>).
@@ -502,6 +514,7 @@ public class Type
                     associationAttributeName = attribute.getName();
                 }
                 attributeIds.add(attribute.getId());
+                metadata = null;
                 if (attribute.getTable() != null) {
                     tableIds.add(attribute.getTable().getId());
                     attribute.getTable().addType(getId());
@@ -784,7 +797,13 @@ public class Type
         throws EFapsException
     {
         Map<Instance, Boolean> ret = new HashMap<>();
-        if (_instances != null && !_instances.isEmpty() && _instances.size() == 1) {
+        if (_instances != null && !_instances.isEmpty() && BulkAccess.isApplicable(_instances)) {
+            final List<Instance> instances = new ArrayList<>(_instances);
+            final BitSet access = BulkAccess.check(instances, _accessType);
+            for (int i = 0; i < instances.size(); i++) {
+                ret.put(instances.get(i), access.get(i));
+            }
+        } else if (_instances != null && !_instances.isEmpty() && _instances.size() == 1) {
             final Instance instance = _instances.iterator().next();
             ret.put(instance, hasAccess(instance, _accessType));
         } else {
@@ -807,6 +826,36 @@ public class Type
         return ret;
     }
 
+    /**
+     * Method to check the access right for a list of instances. If the
+     * {@link BulkAccess} is applicable for the type of an instance the
+     * ACCESSCHECK events of that type are not executed.
+     *
+     * @param _instances list of instances
+     * @param _accessType access type
+     * @throws EFapsException on error
+     * @return bitset with the bit of the position of every instance with
+     *         access
+     */
+    public BitSet evalAccess(final List<Instance> _instances,
+                             final AccessType _accessType)
+        throws EFapsException
+    {
+        final BitSet ret;
+        if (BulkAccess.isApplicable(_instances)) {
+            ret = BulkAccess.check(_instances, _accessType);
+        } else {
+            ret = new BitSet(_instances.size());
+            final Map<Instance, Boolean> access = checkAccess(_instances, _accessType);
+            for (int i = 0; i < _instances.size(); i++) {
+                if (Boolean.TRUE.equals(access.get(_instances.get(i)))) {
+                    ret.set(i);
+                }
+            }
+        }
+        return ret;
+    }
+
     /**
      * @param _accessSet AccessSet to add to this Type
      */
@@ -1013,17 +1062,31 @@ public class Type
         throws CacheReloadException
     {
         final Set<Type> ret = new LinkedHashSet<>();
-        for (final Long id : childTypeIds) {
+        for (final long id : getMetadata().getDescendantTypeIds()) {
             Type child = Type.get(id);
             if (child == null) {
                 child = Type.get(id);
             }
             ret.add(child);
-            ret.addAll(child.getChildTypes());
         }
         return Collections.unmodifiableSet(ret);
     }
 
+    /**
+     * Gets the metadata used to build statements for this type.
+     *
+     * @return the metadata
+     * @throws CacheReloadException on error
+     */
+    public TypeMetadata getMetadata()
+        throws CacheReloadException
+    {
+        if (metadata == null) {
+            metadata = TypeMetadata.of(this);
+        }
+        return metadata;
+    }
+
     protected Set<Long> getChildTypeIds()
     {
         return childTypeIds;
@@ -1033,6 +1096,7 @@ public class Type
     {
         this.childTypeIds = childTypeIds;
         this.checked4Children = true;
+        this.metadata = null;
     }
 
     public boolean hasChildren()
@@ -1485,6 +1549,8 @@ public class Type
         InfinispanCache.get().<String, Type>initCache(Type.NAMECACHE, Type.LOG);
         InfinispanCache.get().<String, Object>initCache(EnumType.CACHE, Type.LOG);
         QueryCache.initialize();
+        StatementCache.invalidate();
+        ConnectionResource.invalidateStatements();
     }
 
     /**
@@ -1509,11 +1575,12 @@ public class Type
     public static Type get(final long id)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<Long, Type>getCache(Type.IDCACHE);
-        if (!cache.containsKey(id)) {
-            Type.getTypeFromDB(Type.SQL_ID, id);
-        }
-        return cache.get(id);
+        return NearCache.<Long, Type>get(Type.IDCACHE).get(id, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                Type.getTypeFromDB(Type.SQL_ID, key);
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -1527,11 +1594,12 @@ public class Type
     public static Type get(final String _name)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<String, Type>getCache(Type.NAMECACHE);
-        if (!cache.containsKey(_name)) {
-            Type.getTypeFromDB(Type.SQL_NAME, _name);
-        }
-        return cache.get(_name);
+        return NearCache.<String, Type>get(Type.NAMECACHE).get(_name, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                Type.getTypeFromDB(Type.SQL_NAME, key);
+            }
+            return cache.get(key);
+        });
     }
 
     /**
@@ -1545,11 +1613,12 @@ public class Type
     public static Type get(final UUID _uuid)
         throws CacheReloadException
     {
-        final var cache = InfinispanCache.get().<UUID, Type>getCache(Type.UUIDCACHE);
-        if (!cache.containsKey(_uuid)) {
-            Type.getTypeFromDB(Type.SQL_UUID, _uuid.toString());
-        }
-        return cache.get(_uuid);
+        return NearCache.<UUID, Type>get(Type.UUIDCACHE).get(_uuid, (cache, key) -> {
+            if (!cache.containsKey(key)) {
+                Type.getTypeFromDB(Type.SQL_UUID, key.toString());
+            }
+            return cache.get(key);
+        });
     }
 
     /**
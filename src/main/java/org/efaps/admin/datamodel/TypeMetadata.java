@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.datamodel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.efaps.util.cache.CacheReloadException;
+
+/**
+ * Immutable information about a {@link Type} that is needed every time a
+ * statement for the type is built: the ids of all child types, the
+ * attributes that must be set on insert and update and the tables an
+ * insert must write to. Built once per type on first use by
+ * {@link Type#getMetadata()}.
+ *
+ * @author The eFaps Team
+ */
+public final class TypeMetadata
+{
+
+    /**
+     * Ids of all child types, including the children of the children.
+     */
+    private final long[] descendantTypeIds;
+
+    /**
+     * Ids of the types instances can be of: the type itself if it is not
+     * abstract, else all child types that are not abstract.
+     */
+    private final long[] concreteTypeIds;
+
+    /**
+     * Ids of the type and of all child types as strings, as used for the
+     * criteria on the type column.
+     */
+    private final List<String> typeIdValues;
+
+    /**
+     * Attributes that must be set on insert.
+     */
+    private final List<Attribute> createAttributes;
+
+    /**
+     * Attributes that must be set on update.
+     */
+    private final List<Attribute> updateAttributes;
+
+    /**
+     * Tables of the attributes.
+     */
+    private final List<SQLTable> tables;
+
+    /**
+     * Instantiates new metadata.
+     *
+     * @param _type the type
+     * @throws CacheReloadException on error
+     */
+    private TypeMetadata(final Type _type)
+        throws CacheReloadException
+    {
+        final List<Long> descendants = new ArrayList<>();
+        TypeMetadata.addDescendants(_type, descendants);
+        descendantTypeIds = descendants.stream().mapToLong(Long::longValue).toArray();
+
+        final List<String> values = new ArrayList<>();
+        values.add(String.valueOf(_type.getId()));
+        final List<Long> concrete = new ArrayList<>();
+        if (!_type.isAbstract()) {
+            concrete.add(_type.getId());
+        }
+        for (final Long id : descendants) {
+            values.add(String.valueOf(id));
+            if (_type.isAbstract() && !Type.get(id).isAbstract()) {
+                concrete.add(id);
+            }
+        }
+        concreteTypeIds = concrete.stream().mapToLong(Long::longValue).toArray();
+        typeIdValues = Collections.unmodifiableList(values);
+
+        final List<Attribute> create = new ArrayList<>();
+        final List<Attribute> update = new ArrayList<>();
+        final Set<SQLTable> tablesTmp = new LinkedHashSet<>();
+        for (final Attribute attr : _type.getAttributes().values()) {
+            final AttributeType attrType = attr.getAttributeType();
+            if (attrType.isCreateUpdate() || attrType.isAlwaysUpdate()) {
+                create.add(attr);
+            }
+            if (attrType.isAlwaysUpdate()) {
+                update.add(attr);
+            }
+            tablesTmp.add(attr.getTable());
+        }
+        createAttributes = Collections.unmodifiableList(create);
+        updateAttributes = Collections.unmodifiableList(update);
+        tables = Collections.unmodifiableList(new ArrayList<>(tablesTmp));
+    }
+
+    /**
+     * Gets the ids of all child types, including the children of the
+     * children.
+     *
+     * @return the ids, must not be changed
+     */
+    public long[] getDescendantTypeIds()
+    {
+        return descendantTypeIds;
+    }
+
+    /**
+     * Gets the ids of the types instances can be of: the type itself if it
+     * is not abstract, else all child types that are not abstract.
+     *
+     * @return the ids, must not be changed
+     */
+    public long[] getConcreteTypeIds()
+    {
+        return concreteTypeIds;
+    }
+
+    /**
+     * Gets the ids of the type and of all child types as strings.
+     *
+     * @return the ids
+     */
+    public List<String> getTypeIdValues()
+    {
+        return typeIdValues;
+    }
+
+    /**
+     * Gets the attributes that must be set on insert.
+     *
+     * @return the attributes
+     */
+    public List<Attribute> getCreateAttributes()
+    {
+        return createAttributes;
+    }
+
+    /**
+     * Gets the attributes that must be set on update.
+     *
+     * @return the attributes
+     */
+    public List<Attribute> getUpdateAttributes()
+    {
+        return updateAttributes;
+    }
+
+    /**
+     * Gets the tables of the attributes.
+     *
+     * @return the tables
+     */
+    public List<SQLTable> getTables()
+    {
+        return tables;
+    }
+
+    /**
+     * Add the ids of all child types recursively.
+     *
+     * @param _type the type
+     * @param _ids list the ids are added to
+     * @throws CacheReloadException on error
+     */
+    private static void addDescendants(final Type _type,
+                                       final List<Long> _ids)
+        throws CacheReloadException
+    {
+        for (final Long id : _type.getChildTypeIds()) {
+            _ids.add(id);
+            TypeMetadata.addDescendants(Type.get(id), _ids);
+        }
+    }
+
+    /**
+     * Build the metadata for a type.
+     *
+     * @param _type the type
+     * @return the metadata
+     * @throws CacheReloadException on error
+     */
+    static TypeMetadata of(final Type _type)
+        throws CacheReloadException
+    {
+        return new TypeMetadata(_type);
+    }
+}
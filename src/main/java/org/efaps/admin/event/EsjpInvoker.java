@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.program.esjp.EFapsClassLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the method of an ESJP once into a {@link MethodHandle} and keeps
+ * it for the following invocations. The cache belongs to a generation of the
+ * {@link EFapsClassLoader} and is dropped as soon as the ESJPs were
+ * compiled again. If "core.esjp.reuseInstances" is set to true (defaults to
+ * false), ESJPs without instance fields are instantiated only once.
+ *
+ * @author The eFaps Team
+ */
+public final class EsjpInvoker
+{
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(EsjpInvoker.class);
+
+    /**
+     * Resolved invokers by class and method name.
+     */
+    private static volatile Map<Key, EsjpInvoker> INVOKERS = new ConcurrentHashMap<>();
+
+    /**
+     * Generation of the EFapsClassLoader the invokers belong to.
+     */
+    private static volatile long GENERATION = -1;
+
+    /**
+     * Reuse the instances of ESJPs without state.
+     */
+    private static Boolean REUSE;
+
+    /**
+     * Handle for the method with type (Object, Parameter)Return.
+     */
+    private final MethodHandle method;
+
+    /**
+     * Handle for the default constructor with type ()Object.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * The instance used for all invocations, <code>null</code> if a new
+     * instance is needed for every invocation.
+     */
+    private final Object instance;
+
+    /**
+     * Instantiates a new invoker.
+     *
+     * @param _method handle for the method
+     * @param _constructor handle for the constructor
+     * @param _instance the shared instance
+     */
+    private EsjpInvoker(final MethodHandle _method,
+                        final MethodHandle _constructor,
+                        final Object _instance)
+    {
+        method = _method;
+        constructor = _constructor;
+        instance = _instance;
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param _parameter the parameter
+     * @return the return of the method
+     * @throws Exception thrown by the constructor or the method, errors are
+     *             not caught
+     */
+    public Return invoke(final Parameter _parameter)
+        throws Exception
+    {
+        try {
+            final Object target = instance == null ? constructor.invokeExact() : instance;
+            return (Return) method.invokeExact(target, _parameter);
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * Get the invoker for the given method of the given ESJP.
+     *
+     * @param _className name of the class of the ESJP
+     * @param _methodName name of the method
+     * @return the invoker
+     * @throws ReflectiveOperationException if the class or method could not
+     *             be resolved
+     */
+    public static EsjpInvoker get(final String _className,
+                                  final String _methodName)
+        throws ReflectiveOperationException
+    {
+        final long generation = EFapsClassLoader.getGeneration();
+        if (generation != EsjpInvoker.GENERATION) {
+            synchronized (EsjpInvoker.class) {
+                if (generation != EsjpInvoker.GENERATION) {
+                    LOG.debug("Reset EsjpInvoker for EFapsClassLoader generation {}", generation);
+                    EsjpInvoker.INVOKERS = new ConcurrentHashMap<>();
+                    EsjpInvoker.GENERATION = generation;
+                }
+            }
+        }
+        final Map<Key, EsjpInvoker> invokers = EsjpInvoker.INVOKERS;
+        final Key key = new Key(_className, _methodName);
+        EsjpInvoker ret = invokers.get(key);
+        if (ret == null) {
+            ret = EsjpInvoker.resolve(_className, _methodName);
+            invokers.put(key, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Resolve the handles for the given method.
+     *
+     * @param _className name of the class of the ESJP
+     * @param _methodName name of the method
+     * @return the invoker
+     * @throws ReflectiveOperationException if the class or method could not
+     *             be resolved
+     */
+    private static EsjpInvoker resolve(final String _className,
+                                       final String _methodName)
+        throws ReflectiveOperationException
+    {
+        LOG.debug("Resolving method '{}' for Resource '{}'", _methodName, _className);
+        final Class<?> clazz = Class.forName(_className, true, EFapsClassLoader.getInstance());
+        final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        final MethodHandle method = lookup.unreflect(clazz.getMethod(_methodName, Parameter.class))
+                        .asType(MethodType.methodType(Return.class, Object.class, Parameter.class));
+        final MethodHandle constructor = lookup.unreflectConstructor(clazz.getDeclaredConstructor())
+                        .asType(MethodType.methodType(Object.class));
+        Object instance = null;
+        if (EsjpInvoker.isReuse() && EsjpInvoker.isStateless(clazz)) {
+            try {
+                instance = constructor.invokeExact();
+            } catch (final Throwable e) {
+                throw new ReflectiveOperationException("Could not instantiate " + _className, e);
+            }
+        }
+        return new EsjpInvoker(method, constructor, instance);
+    }
+
+    /**
+     * Checks if the given class and its super classes have no instance
+     * fields.
+     *
+     * @param _clazz the class
+     * @return true, if stateless
+     */
+    private static boolean isStateless(final Class<?> _clazz)
+    {
+        boolean ret = true;
+        Class<?> current = _clazz;
+        while (ret && current != null && !Object.class.equals(current)) {
+            for (final Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    ret = false;
+                    break;
+                }
+            }
+            current = current.getSuperclass();
+        }
+        return ret;
+    }
+
+    /**
+     * Checks if the instances of stateless ESJPs are reused.
+     *
+     * @return true, if reused
+     */
+    private static boolean isReuse()
+    {
+        if (EsjpInvoker.REUSE == null) {
+            EsjpInvoker.REUSE = ConfigProvider.getConfig()
+                            .getOptionalValue("core.esjp.reuseInstances", Boolean.class).orElse(false);
+        }
+        return EsjpInvoker.REUSE;
+    }
+
+    /**
+     * Key of the cache.
+     *
+     * @param className name of the class
+     * @param methodName name of the method
+     */
+    private record Key(String className,
+                       String methodName)
+    {
+    }
+}
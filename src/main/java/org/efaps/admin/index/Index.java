@@ -36,6 +36,11 @@ import org.efaps.util.EFapsException;
 public final class Index
 {
 
+    /**
+     * The cached directory provider.
+     */
+    private static volatile CachedProvider PROVIDER;
+
     /**
      * Instantiates a new index.
      */
@@ -91,38 +96,7 @@ public final class Index
     public static Directory getDirectory()
         throws EFapsException
     {
-        IDirectoryProvider provider = null;
-        if (EFapsSystemConfiguration.get().containsAttributeValue(KernelSettings.INDEXDIRECTORYPROVCLASS)) {
-            final String clazzname = EFapsSystemConfiguration.get().getAttributeValue(
-                            KernelSettings.INDEXDIRECTORYPROVCLASS);
-            try {
-                final Class<?> clazz = Class.forName(clazzname, false, EFapsClassLoader.getInstance());
-                provider = (IDirectoryProvider) clazz.getConstructor().newInstance();
-            } catch (final ClassNotFoundException | InstantiationException | IllegalAccessException
-                            | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
-                            | SecurityException e) {
-                throw new EFapsException(Index.class, "Could not instanciate IDirectoryProvider", e);
-            }
-        } else {
-            provider = new IDirectoryProvider()
-            {
-
-                @Override
-                public Directory getDirectory()
-                    throws EFapsException
-                {
-                    return new ByteBuffersDirectory();
-                }
-
-                @Override
-                public Directory getTaxonomyDirectory()
-                    throws EFapsException
-                {
-                    return null;
-                }
-            };
-        }
-        return provider.getDirectory();
+        return Index.getDirectoryProvider().getDirectory();
     }
 
     /**
@@ -134,38 +108,56 @@ public final class Index
     public static Directory getTaxonomyDirectory()
         throws EFapsException
     {
-        IDirectoryProvider provider = null;
-        if (EFapsSystemConfiguration.get().containsAttributeValue(KernelSettings.INDEXDIRECTORYPROVCLASS)) {
+        return Index.getDirectoryProvider().getTaxonomyDirectory();
+    }
+
+    /**
+     * Is a directory provider configured. If not, every call of
+     * {@link #getDirectory()} returns a new in memory directory.
+     *
+     * @return true, if configured
+     * @throws EFapsException on error
+     */
+    static boolean hasDirectoryProvider()
+        throws EFapsException
+    {
+        return EFapsSystemConfiguration.get().containsAttributeValue(KernelSettings.INDEXDIRECTORYPROVCLASS);
+    }
+
+    /**
+     * Gets the directory provider. The provider is instantiated only once
+     * for a class name and EFapsClassLoader, so that the directories can be
+     * shared by the writers and the searchers.
+     *
+     * @return the directory provider
+     * @throws EFapsException on error
+     */
+    private static IDirectoryProvider getDirectoryProvider()
+        throws EFapsException
+    {
+        final IDirectoryProvider ret;
+        if (Index.hasDirectoryProvider()) {
             final String clazzname = EFapsSystemConfiguration.get().getAttributeValue(
                             KernelSettings.INDEXDIRECTORYPROVCLASS);
-            try {
-                final Class<?> clazz = Class.forName(clazzname, false, EFapsClassLoader.getInstance());
-                provider = (IDirectoryProvider) clazz.getConstructor().newInstance();
-            } catch (final ClassNotFoundException | InstantiationException | IllegalAccessException
-                            | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
-                            | SecurityException e) {
-                throw new EFapsException(Index.class, "Could not instanciate IDirectoryProvider", e);
+            final EFapsClassLoader classLoader = EFapsClassLoader.getInstance();
+            final CachedProvider current = Index.PROVIDER;
+            if (current != null && current.className().equals(clazzname) && current.classLoader() == classLoader) {
+                ret = current.provider();
+            } else {
+                try {
+                    final Class<?> clazz = Class.forName(clazzname, false, classLoader);
+                    ret = (IDirectoryProvider) clazz.getConstructor().newInstance();
+                } catch (final ClassNotFoundException | InstantiationException | IllegalAccessException
+                                | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
+                                | SecurityException e) {
+                    throw new EFapsException(Index.class, "Could not instanciate IDirectoryProvider", e);
+                }
+                Index.PROVIDER = new CachedProvider(clazzname, classLoader, ret);
             }
         } else {
-            provider = new IDirectoryProvider()
-            {
-
-                @Override
-                public Directory getDirectory()
-                    throws EFapsException
-                {
-                    return null;
-                }
-
-                @Override
-                public Directory getTaxonomyDirectory()
-                    throws EFapsException
-                {
-                    return new ByteBuffersDirectory();
-                }
-            };
+            ret = new DefaultDirectoryProvider();
         }
-        return provider.getTaxonomyDirectory();
+        return ret;
     }
 
     /**
@@ -214,4 +206,40 @@ public final class Index
         }
         return ret;
     }
+
+    /**
+     * The cached directory provider.
+     *
+     * @param className name of the provider class
+     * @param classLoader the class loader the class was loaded with
+     * @param provider the provider
+     */
+    private record CachedProvider(String className,
+                                  ClassLoader classLoader,
+                                  IDirectoryProvider provider)
+    {
+    }
+
+    /**
+     * Provider used if no provider class is configured. Every call returns
+     * a new, empty in memory directory, so nothing is kept.
+     */
+    private static final class DefaultDirectoryProvider
+        implements IDirectoryProvider
+    {
+
+        @Override
+        public Directory getDirectory()
+            throws EFapsException
+        {
+            return new ByteBuffersDirectory();
+        }
+
+        @Override
+        public Directory getTaxonomyDirectory()
+            throws EFapsException
+        {
+            return new ByteBuffersDirectory();
+        }
+    }
 }
@@ -0,0 +1,611 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.admin.user.Company;
+import org.efaps.db.Context;
+import org.efaps.db.Instance;
+import org.efaps.util.EFapsException;
+import org.efaps.util.cache.InfinispanCache;
+import org.infinispan.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background consumer for the {@link Queue}. If active, the {@link Queue}
+ * puts the committed instances in the cache {@link #CACHENAME} of the
+ * pipeline. The queued instances are drained in bounded batches, grouped by
+ * company, language and type (and therefore by {@link IndexDefinition}) and
+ * written through long lived writers that are committed periodically.
+ * Writers that need the index exclusively must be executed with
+ * {@link #executeExclusive(WriterTask)}. Activated by
+ * "core.index.pipeline.active", defaults to false.
+ * <ul>
+ * <li>"core.index.pipeline.batchSize": maximum number of instances per
+ * batch, defaults to 500</li>
+ * <li>"core.index.pipeline.interval": milliseconds between two drains,
+ * defaults to 1000</li>
+ * <li>"core.index.pipeline.commitInterval": milliseconds between two
+ * commits, defaults to 5000</li>
+ * <li>"core.index.pipeline.user": user the pipeline runs with, defaults to
+ * the QuartzTrigger user</li>
+ * </ul>
+ *
+ * @author The eFaps Team
+ */
+public final class IndexPipeline
+{
+
+    /**
+     * Name of the Cache the instances are queued in for the pipeline, the
+     * key is the oid, the value is created by
+     * {@link #toQueueValue(long, String)}.
+     */
+    public static final String CACHENAME = IndexPipeline.class.getName() + ".Cache";
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(IndexPipeline.class);
+
+    /**
+     * Separator for the parts of a value of the queue.
+     */
+    private static final String SEPARATOR = ";";
+
+    /**
+     * The running pipeline.
+     */
+    private static volatile IndexPipeline PIPELINE;
+
+    /**
+     * Is the pipeline activated.
+     */
+    private static Boolean ACTIVE;
+
+    /**
+     * Listeners informed about commits with the id of the company.
+     */
+    private static final List<LongConsumer> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Lock guarding the index directories against writers of the pipeline
+     * and writers opened by {@link #executeExclusive(WriterTask)}.
+     */
+    private static final ReentrantLock WRITELOCK = new ReentrantLock();
+
+    /**
+     * The executor the pipeline runs in.
+     */
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Writers by company id.
+     */
+    private final Map<Long, Writers> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum number of instances per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Milliseconds between two commits.
+     */
+    private final long commitInterval;
+
+    /**
+     * User the pipeline runs with.
+     */
+    private final String user;
+
+    /**
+     * Number of indexed documents.
+     */
+    private final AtomicLong indexed = new AtomicLong();
+
+    /**
+     * Number of executed batches.
+     */
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Number of failed batches.
+     */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Documents per second of the last batch.
+     */
+    private volatile double throughput;
+
+    /**
+     * Time of the last commit.
+     */
+    private volatile long lastCommit = System.currentTimeMillis();
+
+    /**
+     * Instantiates a new index pipeline.
+     */
+    private IndexPipeline()
+    {
+        final var config = ConfigProvider.getConfig();
+        batchSize = config.getOptionalValue("core.index.pipeline.batchSize", Integer.class).orElse(500);
+        commitInterval = config.getOptionalValue("core.index.pipeline.commitInterval", Long.class).orElse(5000L);
+        user = config.getOptionalValue("core.index.pipeline.user", String.class)
+                        .orElse("df2f02a7-c556-49ad-b019-e13db66e1cbf");
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "eFaps-IndexPipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = config.getOptionalValue("core.index.pipeline.interval", Long.class).orElse(1000L);
+        executor.scheduleWithFixedDelay(this::run, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executed periodically by the executor.
+     */
+    private void run()
+    {
+        try {
+            Context.begin(user, Context.Inheritance.Local);
+            boolean commit = false;
+            final boolean shared;
+            try {
+                drain();
+                shared = Index.hasDirectoryProvider();
+                commit = true;
+            } finally {
+                if (commit) {
+                    Context.commit();
+                } else {
+                    Context.rollback();
+                }
+            }
+            if (System.currentTimeMillis() - lastCommit > commitInterval) {
+                if (shared) {
+                    commit();
+                } else {
+                    // the in memory directories are not shared, do not let them grow
+                    release();
+                }
+            }
+        } catch (final EFapsException | RuntimeException e) {
+            LOG.error("Catched error in IndexPipeline", e);
+        }
+    }
+
+    /**
+     * Drain the queue in batches. The instances of a batch are grouped by
+     * the company and language they were registered with and written with
+     * the company and language set in the context, like
+     * {@link Indexer#index(IndexContext, List)} does. Only the entries that
+     * were written are removed from the queue, entries of a group that
+     * failed are retried with the next run.
+     *
+     * @throws EFapsException on error
+     */
+    private void drain()
+        throws EFapsException
+    {
+        final var cache = InfinispanCache.get().<String, String>getCache(IndexPipeline.CACHENAME);
+        final Set<String> failed = new HashSet<>();
+        Map<String, String> entries = next(cache, failed);
+        while (!entries.isEmpty()) {
+            final long start = System.nanoTime();
+            final Map<String, Map<Type, Map<Instance, String>>> groups = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> entry : entries.entrySet()) {
+                final Instance instance = Instance.get(entry.getKey());
+                if (instance.isValid() && instance.getType() != null) {
+                    final String[] value = IndexPipeline.fromQueueValue(entry.getValue());
+                    groups.computeIfAbsent(value[0] + IndexPipeline.SEPARATOR + value[1],
+                                    key -> new LinkedHashMap<>())
+                                    .computeIfAbsent(instance.getType(), type -> new LinkedHashMap<>())
+                                    .put(instance, entry.getValue());
+                } else {
+                    cache.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            final Context context = Context.getThreadContext();
+            final Company currentCompany = context.getCompany();
+            final String currentLanguage = context.getLanguage();
+            IndexPipeline.WRITELOCK.lock();
+            try {
+                int count = 0;
+                for (final Map.Entry<String, Map<Type, Map<Instance, String>>> group : groups.entrySet()) {
+                    final String[] key = IndexPipeline.fromQueueValue(group.getKey());
+                    final long companyId = NumberUtils.toLong(key[0]);
+                    final String language = StringUtils.trimToNull(key[1]);
+                    context.setCompany(Company.get(companyId));
+                    context.setLanguage(language);
+                    for (final Map<Instance, String> instances : group.getValue().values()) {
+                        try {
+                            final Writers current = getWriters(companyId, language);
+                            count = count + Indexer.write(new ArrayList<>(instances.keySet()), current.writer(),
+                                            current.taxonomyWriter());
+                            // a newer registration during the write keeps its entry
+                            instances.forEach((instance, value) -> cache.remove(instance.getOid(), value));
+                        } catch (final EFapsException e) {
+                            failures.incrementAndGet();
+                            instances.keySet().forEach(instance -> failed.add(instance.getOid()));
+                            LOG.error("Could not index {} instances of type {}, retrying with the next run",
+                                            instances.size(), instances.keySet().iterator().next().getType(), e);
+                        }
+                    }
+                }
+                indexed.addAndGet(count);
+                batches.incrementAndGet();
+                final long duration = System.nanoTime() - start;
+                throughput = duration > 0 ? count * 1_000_000_000d / duration : 0;
+                LOG.debug("Indexed batch of {} documents in {}ms", count, duration / 1_000_000);
+            } finally {
+                context.setCompany(currentCompany);
+                context.setLanguage(currentLanguage);
+                IndexPipeline.WRITELOCK.unlock();
+            }
+            entries = next(cache, failed);
+        }
+    }
+
+    /**
+     * Get the next batch of entries from the queue. The entries stay in the
+     * queue until they were written.
+     *
+     * @param _cache the queue cache
+     * @param _failed oids that failed during this run
+     * @return the entries
+     */
+    private Map<String, String> next(final Cache<String, String> _cache,
+                                     final Set<String> _failed)
+    {
+        final Map<String, String> ret = new LinkedHashMap<>();
+        final Iterator<Map.Entry<String, String>> iter = _cache.entrySet().iterator();
+        while (iter.hasNext() && ret.size() < batchSize) {
+            final Map.Entry<String, String> entry = iter.next();
+            if (!_failed.contains(entry.getKey())) {
+                ret.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the writers for the given company and language. The company and
+     * the language must be set in the context, because the directories and
+     * the analyzer are resolved for them. Companies that share a directory
+     * share the writers, as only one writer can be opened for a directory.
+     * Writers opened for another language are closed, because the analyzer
+     * of a writer can not be changed.
+     *
+     * @param _companyId id of the company
+     * @param _language the language
+     * @return the writers
+     * @throws EFapsException on error
+     */
+    private Writers getWriters(final long _companyId,
+                               final String _language)
+        throws EFapsException
+    {
+        Writers ret = writers.get(_companyId);
+        if (ret != null && !Objects.equals(ret.language(), _language)) {
+            close(ret);
+            ret = null;
+        }
+        if (ret == null) {
+            final Directory directory = Index.getDirectory();
+            ret = writers.values().stream()
+                            .filter(current -> current.writer().getDirectory() == directory)
+                            .findFirst()
+                            .orElse(null);
+            if (ret != null && !Objects.equals(ret.language(), _language)) {
+                close(ret);
+                ret = null;
+            }
+            if (ret == null) {
+                try {
+                    ret = new Writers(new IndexWriter(directory, new IndexWriterConfig(Index.getAnalyzer())),
+                                    new DirectoryTaxonomyWriter(Index.getTaxonomyDirectory()), _language);
+                } catch (final IOException e) {
+                    throw new EFapsException(IndexPipeline.class, "getWriters", e);
+                }
+            }
+            writers.put(_companyId, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Commit and close the given writers and remove them for all companies.
+     *
+     * @param _writers the writers
+     */
+    private void close(final Writers _writers)
+    {
+        final List<Long> companyIds = writers.entrySet().stream()
+                        .filter(entry -> entry.getValue() == _writers)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+        companyIds.forEach(writers::remove);
+        try {
+            _writers.taxonomyWriter().commit();
+            _writers.writer().commit();
+            _writers.taxonomyWriter().close();
+            _writers.writer().close();
+        } catch (final IOException e) {
+            LOG.error("Could not close index writers", e);
+        }
+        companyIds.forEach(companyId -> LISTENERS.forEach(listener -> listener.accept(companyId)));
+    }
+
+    /**
+     * Commit all writers and inform the listeners.
+     */
+    private void commit()
+    {
+        final Set<Writers> committed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Map.Entry<Long, Writers> entry : writers.entrySet()) {
+            try {
+                final Writers current = entry.getValue();
+                if (committed.contains(current) || current.writer.hasUncommittedChanges()) {
+                    if (committed.add(current)) {
+                        current.taxonomyWriter.commit();
+                        current.writer.commit();
+                    }
+                    LISTENERS.forEach(listener -> listener.accept(entry.getKey()));
+                }
+            } catch (final IOException e) {
+                LOG.error("Could not commit index for company {}", entry.getKey(), e);
+            }
+        }
+        lastCommit = System.currentTimeMillis();
+    }
+
+    /**
+     * Commit and close all writers, so that the lock on their directories
+     * is released. The writers are opened again by the next batch.
+     */
+    private void release()
+    {
+        commit();
+        final Set<Writers> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Writers current : writers.values()) {
+            if (closed.add(current)) {
+                try {
+                    current.taxonomyWriter.close();
+                    current.writer.close();
+                } catch (final IOException e) {
+                    LOG.error("Could not close index writers", e);
+                }
+            }
+        }
+        writers.clear();
+    }
+
+    /**
+     * Stop the executor, commit and close the writers.
+     */
+    private void shutdown()
+    {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        release();
+    }
+
+    /**
+     * Execute a task that opens its own IndexWriter, e.g.
+     * {@link Indexer#index(IndexContext, List)} or the {@link Reindexer}.
+     * The writers of the pipeline are committed and closed before, so that
+     * the task can obtain the write lock, and the pipeline does not write
+     * until the task is finished.
+     *
+     * @param _task the task
+     * @throws EFapsException on error
+     */
+    public static void executeExclusive(final WriterTask _task)
+        throws EFapsException
+    {
+        IndexPipeline.WRITELOCK.lock();
+        try {
+            final IndexPipeline pipeline = IndexPipeline.PIPELINE;
+            if (pipeline != null) {
+                pipeline.release();
+            }
+            _task.execute();
+        } finally {
+            IndexPipeline.WRITELOCK.unlock();
+        }
+    }
+
+    /**
+     * Create the value for the queue. Besides the company and the language
+     * the value is unique for every registration, so that a registration
+     * made while the instance is written is not removed from the queue.
+     *
+     * @param _companyId id of the company
+     * @param _language the language
+     * @return the value
+     */
+    static String toQueueValue(final long _companyId,
+                               final String _language)
+    {
+        return _companyId + IndexPipeline.SEPARATOR + (_language == null ? "" : _language)
+                        + IndexPipeline.SEPARATOR + UUID.randomUUID();
+    }
+
+    /**
+     * Split a value of the queue.
+     *
+     * @param _value the value
+     * @return array with the company id and the language
+     */
+    static String[] fromQueueValue(final String _value)
+    {
+        final String[] parts = StringUtils.splitPreserveAllTokens(_value, IndexPipeline.SEPARATOR);
+        return new String[] { parts[0], parts.length > 1 ? parts[1] : "" };
+    }
+
+    /**
+     * Start the pipeline if it is activated and not running yet.
+     */
+    public static void start()
+    {
+        if (IndexPipeline.PIPELINE == null && IndexPipeline.isActive()) {
+            synchronized (IndexPipeline.class) {
+                if (IndexPipeline.PIPELINE == null) {
+                    LOG.info("Starting IndexPipeline");
+                    IndexPipeline.PIPELINE = new IndexPipeline();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the pipeline.
+     */
+    public static synchronized void stop()
+    {
+        if (IndexPipeline.PIPELINE != null) {
+            LOG.info("Stopping IndexPipeline");
+            IndexPipeline.PIPELINE.shutdown();
+            IndexPipeline.PIPELINE = null;
+        }
+    }
+
+    /**
+     * Is the pipeline activated.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        if (IndexPipeline.ACTIVE == null) {
+            IndexPipeline.ACTIVE = ConfigProvider.getConfig()
+                            .getOptionalValue("core.index.pipeline.active", Boolean.class).orElse(false);
+        }
+        return IndexPipeline.ACTIVE;
+    }
+
+    /**
+     * Register a listener that is informed with the id of the company after
+     * the index of the company was committed.
+     *
+     * @param _listener the listener
+     */
+    public static void addCommitListener(final LongConsumer _listener)
+    {
+        IndexPipeline.LISTENERS.add(_listener);
+    }
+
+    /**
+     * Gets the metrics of the pipeline.
+     *
+     * @return the metrics, <code>null</code> if the pipeline is not running
+     */
+    public static Metrics getMetrics()
+    {
+        final IndexPipeline pipeline = IndexPipeline.PIPELINE;
+        Metrics ret = null;
+        if (pipeline != null) {
+            ret = new Metrics(InfinispanCache.get().<String, String>getCache(IndexPipeline.CACHENAME).size(),
+                            pipeline.indexed.get(), pipeline.batches.get(), pipeline.failures.get(),
+                            pipeline.throughput, pipeline.lastCommit);
+        }
+        return ret;
+    }
+
+    /**
+     * Task that writes to the index with its own writers.
+     */
+    @FunctionalInterface
+    public interface WriterTask
+    {
+
+        /**
+         * Execute the task.
+         *
+         * @throws EFapsException on error
+         */
+        void execute()
+            throws EFapsException;
+    }
+
+    /**
+     * The writers for one index.
+     *
+     * @param writer the writer
+     * @param taxonomyWriter the taxonomy writer
+     * @param language the language the analyzer of the writer belongs to
+     */
+    private record Writers(IndexWriter writer,
+                           DirectoryTaxonomyWriter taxonomyWriter,
+                           String language)
+    {
+    }
+
+    /**
+     * Metrics of the pipeline.
+     *
+     * @param queued number of instances waiting in the queue (lag)
+     * @param indexed number of documents indexed since the start
+     * @param batches number of batches since the start
+     * @param failures number of failed batches since the start
+     * @param throughput documents per second of the last batch
+     * @param lastCommit time of the last commit
+     */
+    public record Metrics(int queued,
+                          long indexed,
+                          long batches,
+                          long failures,
+                          double throughput,
+                          long lastCommit)
+    {
+    }
+}
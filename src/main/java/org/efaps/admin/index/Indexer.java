@@ -17,7 +17,10 @@ package org.efaps.admin.index;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -44,9 +47,7 @@ import org.efaps.admin.program.esjp.EFapsClassLoader;
 import org.efaps.admin.user.Company;
 import org.efaps.db.Context;
 import org.efaps.db.Instance;
-import org.efaps.db.InstanceQuery;
 import org.efaps.db.MultiPrintQuery;
-import org.efaps.db.QueryBuilder;
 import org.efaps.util.EFapsException;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -108,19 +109,16 @@ public final class Indexer
     }
 
     /**
-     * Index or reindex using the Indexdefinitions.
+     * Index or reindex using the Indexdefinitions. Resumes an interrupted
+     * rebuild.
      *
      * @throws EFapsException the e faps exception
+     * @see Reindexer
      */
     public static void index()
         throws EFapsException
     {
-        final List<IndexDefinition> defs = IndexDefinition.get();
-        for (final IndexDefinition def : defs) {
-            final QueryBuilder queryBldr = new QueryBuilder(def.getUUID());
-            final InstanceQuery query = queryBldr.getQuery();
-            index(query.execute());
-        }
+        new Reindexer().execute();
     }
 
     /**
@@ -156,120 +154,156 @@ public final class Indexer
 
             Context.getThreadContext().setCompany(Company.get(_context.getCompanyId()));
             Context.getThreadContext().setLanguage(_context.getLanguage());
-            final IndexWriterConfig config = new IndexWriterConfig(_context.getAnalyzer());
-            try (
-                            IndexWriter writer = new IndexWriter(_context.getDirectory(), config);
-                            TaxonomyWriter taxonomyWriter = new DirectoryTaxonomyWriter(
-                                            _context.getTaxonomyDirectory());) {
+            try {
+                IndexPipeline.executeExclusive(() -> {
+                    final IndexWriterConfig config = new IndexWriterConfig(_context.getAnalyzer());
+                    try (
+                                    IndexWriter writer = new IndexWriter(_context.getDirectory(), config);
+                                    TaxonomyWriter taxonomyWriter = new DirectoryTaxonomyWriter(
+                                                    _context.getTaxonomyDirectory());) {
+                        Indexer.write(_instances, writer, taxonomyWriter);
+                    } catch (final IOException e) {
+                        throw new EFapsException(Indexer.class, "Catched", e);
+                    }
+                });
+                // the writers were committed on close, make the documents visible to the searches
+                SearcherManagers.refresh(_context.getCompanyId());
+            } finally {
+                Context.getThreadContext().setCompany(currentCompany);
+                Context.getThreadContext().setLanguage(currentLanguage);
+            }
+        }
+    }
 
-                final IndexDefinition def = IndexDefinition.get(_instances.get(0).getType().getUUID());
-                final MultiPrintQuery multi = new MultiPrintQuery(_instances);
-                for (final IndexField field : def.getFields()) {
-                    multi.addSelect(field.getSelect());
-                }
-                Attribute createdAttr = null;
-                if (!_instances.get(0).getType().getAttributes(CreatedType.class).isEmpty()) {
-                    createdAttr = _instances.get(0).getType().getAttributes(CreatedType.class).iterator().next();
-                    multi.addAttribute(createdAttr);
+    /**
+     * Write the documents for the given instances to the given writers. The
+     * given instances must be all of the same type! Documents of instances
+     * that do not exist anymore are deleted.
+     *
+     * @param _instances the instances
+     * @param _writer the writer
+     * @param _taxonomyWriter the taxonomy writer
+     * @return the number of documents written
+     * @throws EFapsException on error
+     */
+    public static int write(final List<Instance> _instances,
+                            final IndexWriter _writer,
+                            final TaxonomyWriter _taxonomyWriter)
+        throws EFapsException
+    {
+        int ret = 0;
+        try {
+            final Set<String> oids = _instances.stream().map(Instance::getOid)
+                            .collect(Collectors.toCollection(HashSet::new));
+            final IndexDefinition def = IndexDefinition.get(_instances.get(0).getType().getUUID());
+            final MultiPrintQuery multi = new MultiPrintQuery(_instances);
+            for (final IndexField field : def.getFields()) {
+                multi.addSelect(field.getSelect());
+            }
+            Attribute createdAttr = null;
+            if (!_instances.get(0).getType().getAttributes(CreatedType.class).isEmpty()) {
+                createdAttr = _instances.get(0).getType().getAttributes(CreatedType.class).iterator().next();
+                multi.addAttribute(createdAttr);
+            }
+            multi.addMsgPhrase(def.getMsgPhrase());
+            multi.executeWithoutAccessCheck();
+            while (multi.next()) {
+                final String oid = multi.getCurrentInstance().getOid();
+                oids.remove(oid);
+                final String type = multi.getCurrentInstance().getType().getLabel();
+                final DateTime created;
+                if (createdAttr == null) {
+                    created = new DateTime();
+                } else {
+                    created = multi.getAttribute(createdAttr);
                 }
-                multi.addMsgPhrase(def.getMsgPhrase());
-                multi.executeWithoutAccessCheck();
-                while (multi.next()) {
-                    final String oid = multi.getCurrentInstance().getOid();
-                    final String type = multi.getCurrentInstance().getType().getLabel();
-                    final DateTime created;
-                    if (createdAttr == null) {
-                        created = new DateTime();
-                    } else {
-                        created = multi.getAttribute(createdAttr);
-                    }
-                    LOG.debug("Indexing: oid: {} type: {} ", oid, type);
-                    final Document doc = new Document();
-                    doc.add(new FacetField(Dimension.DIMTYPE.name(), type));
-                    doc.add(new FacetField(Dimension.DIMCREATED.name(), String.valueOf(created.getYear()),
-                                    String.format("%02d", created.getMonthOfYear())));
-                    doc.add(new StringField(Key.OID.name(), oid, Store.YES));
-                    doc.add(new TextField(DBProperties.getProperty("index.Type"), type, Store.YES));
-                    doc.add(new NumericDocValuesField(Key.CREATED.name(), created.getMillis()));
-                    doc.add(new StringField(Key.CREATEDSTR.name(),
-                                    DateTools.dateToString(created.toDate(), DateTools.Resolution.DAY), Store.NO));
+                LOG.debug("Indexing: oid: {} type: {} ", oid, type);
+                final Document doc = new Document();
+                doc.add(new FacetField(Dimension.DIMTYPE.name(), type));
+                doc.add(new FacetField(Dimension.DIMCREATED.name(), String.valueOf(created.getYear()),
+                                String.format("%02d", created.getMonthOfYear())));
+                doc.add(new StringField(Key.OID.name(), oid, Store.YES));
+                doc.add(new TextField(DBProperties.getProperty("index.Type"), type, Store.YES));
+                doc.add(new NumericDocValuesField(Key.CREATED.name(), created.getMillis()));
+                doc.add(new StringField(Key.CREATEDSTR.name(),
+                                DateTools.dateToString(created.toDate(), DateTools.Resolution.DAY), Store.NO));
 
-                    final StringBuilder allBldr = new StringBuilder()
-                                    .append(type).append(" ");
+                final StringBuilder allBldr = new StringBuilder()
+                                .append(type).append(" ");
 
-                    for (final IndexField field : def.getFields()) {
-                        final String name = type + ":" + DBProperties.getProperty(field.getKey());
-                        Object value = multi.getSelect(field.getSelect());
-                        LOG.trace("  Field: {} as '{}' with: {}", field, name, value);
-                        if (value != null) {
-                            if (StringUtils.isNoneEmpty(field.getTransform())) {
-                                final Class<?> clazz = Class.forName(field.getTransform(),
-                                                false, EFapsClassLoader.getInstance());
-                                final ITransformer transformer = (ITransformer) clazz.getConstructor().newInstance();
-                                value = transformer.transform(value);
-                            }
-                            switch (field.getFieldType()) {
-                                case LONG:
-                                    long val = 0;
-                                    if (value instanceof String) {
-                                        val = NumberUtils.toLong((String) value);
-                                    } else if (value instanceof Number) {
-                                        val = ((Number) value).longValue();
-                                    }
-                                    doc.add(new NumericDocValuesField(name, val));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                case SEARCHLONG:
-                                    long val2 = 0;
-                                    if (value instanceof String) {
-                                        val2 = NumberUtils.toLong((String) value);
-                                    } else if (value instanceof Number) {
-                                        val2 = ((Number) value).longValue();
-                                    }
-                                    doc.add(new LongPoint(name, val2));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                case STRING:
-                                    doc.add(new StringField(name, String.valueOf(value), Store.YES));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                case SEARCHSTRING:
-                                    doc.add(new StringField(name, String.valueOf(value), Store.NO));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                case TEXT:
-                                    doc.add(new TextField(name, String.valueOf(value), Store.YES));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                case SEARCHTEXT:
-                                    doc.add(new TextField(name, String.valueOf(value), Store.NO));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                case STORED:
-                                    doc.add(new StoredField(name, String.valueOf(value)));
-                                    allBldr.append(value).append(" ");
-                                    break;
-                                default:
-                                    break;
-                            }
+                for (final IndexField field : def.getFields()) {
+                    final String name = type + ":" + DBProperties.getProperty(field.getKey());
+                    Object value = multi.getSelect(field.getSelect());
+                    LOG.trace("  Field: {} as '{}' with: {}", field, name, value);
+                    if (value != null) {
+                        if (StringUtils.isNoneEmpty(field.getTransform())) {
+                            final Class<?> clazz = Class.forName(field.getTransform(),
+                                            false, EFapsClassLoader.getInstance());
+                            final ITransformer transformer = (ITransformer) clazz.getConstructor().newInstance();
+                            value = transformer.transform(value);
+                        }
+                        switch (field.getFieldType()) {
+                            case LONG:
+                                long val = 0;
+                                if (value instanceof String) {
+                                    val = NumberUtils.toLong((String) value);
+                                } else if (value instanceof Number) {
+                                    val = ((Number) value).longValue();
+                                }
+                                doc.add(new NumericDocValuesField(name, val));
+                                allBldr.append(value).append(" ");
+                                break;
+                            case SEARCHLONG:
+                                long val2 = 0;
+                                if (value instanceof String) {
+                                    val2 = NumberUtils.toLong((String) value);
+                                } else if (value instanceof Number) {
+                                    val2 = ((Number) value).longValue();
+                                }
+                                doc.add(new LongPoint(name, val2));
+                                allBldr.append(value).append(" ");
+                                break;
+                            case STRING:
+                                doc.add(new StringField(name, String.valueOf(value), Store.YES));
+                                allBldr.append(value).append(" ");
+                                break;
+                            case SEARCHSTRING:
+                                doc.add(new StringField(name, String.valueOf(value), Store.NO));
+                                allBldr.append(value).append(" ");
+                                break;
+                            case TEXT:
+                                doc.add(new TextField(name, String.valueOf(value), Store.YES));
+                                allBldr.append(value).append(" ");
+                                break;
+                            case SEARCHTEXT:
+                                doc.add(new TextField(name, String.valueOf(value), Store.NO));
+                                allBldr.append(value).append(" ");
+                                break;
+                            case STORED:
+                                doc.add(new StoredField(name, String.valueOf(value)));
+                                allBldr.append(value).append(" ");
+                                break;
+                            default:
+                                break;
                         }
                     }
-                    doc.add(new StoredField(Key.MSGPHRASE.name(), multi.getMsgPhrase(def.getMsgPhrase())));
-                    doc.add(new TextField(Key.ALL.name(), allBldr.toString(), Store.NO));
-                    LOG.debug("Add Document: {}", doc);
-                    writer.updateDocument(new Term(Key.OID.name(), oid),
-                                    Index.getFacetsConfig().build(taxonomyWriter, doc));
                 }
-                writer.close();
-                taxonomyWriter.close();
-            } catch (final IOException | ClassNotFoundException | InstantiationException | IllegalAccessException
-                            | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
-                            | SecurityException e) {
-                throw new EFapsException(Indexer.class, "Catched", e);
-            } finally {
-                Context.getThreadContext().setCompany(currentCompany);
-                Context.getThreadContext().setLanguage(currentLanguage);
+                doc.add(new StoredField(Key.MSGPHRASE.name(), multi.getMsgPhrase(def.getMsgPhrase())));
+                doc.add(new TextField(Key.ALL.name(), allBldr.toString(), Store.NO));
+                LOG.debug("Add Document: {}", doc);
+                ret++;
+                _writer.updateDocument(new Term(Key.OID.name(), oid),
+                                Index.getFacetsConfig().build(_taxonomyWriter, doc));
+            }
+            for (final String oid : oids) {
+                LOG.debug("Delete Document: {}", oid);
+                _writer.deleteDocuments(new Term(Key.OID.name(), oid));
             }
+        } catch (final IOException | ClassNotFoundException | InstantiationException | IllegalAccessException
+                        | IllegalArgumentException | InvocationTargetException | NoSuchMethodException
+                        | SecurityException e) {
+            throw new EFapsException(Indexer.class, "Catched", e);
         }
+        return ret;
     }
 }
@@ -15,16 +15,32 @@
  */
 package org.efaps.admin.index;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.efaps.admin.EFapsSystemConfiguration;
 import org.efaps.admin.KernelSettings;
+import org.efaps.admin.user.Company;
+import org.efaps.db.Context;
 import org.efaps.db.Instance;
 import org.efaps.util.EFapsException;
 import org.efaps.util.cache.InfinispanCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.transaction.RollbackException;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.Transaction;
+
 /**
- * TODO comment!
+ * Queue of the instances that must be (re)indexed. The instances are queued
+ * after the transaction that changed them was committed, instances changed
+ * by a transaction that is rolled back are not queued. If the
+ * {@link IndexPipeline} is active the instances are queued in its cache
+ * ({@link IndexPipeline#CACHENAME}), else in the cache {@link #CACHENAME}
+ * with the oid as key and value.
  *
  * @author The eFaps Team
  */
@@ -38,6 +54,11 @@ public final class Queue
 
     private static final Logger LOG = LoggerFactory.getLogger(Queue.class);
 
+    /**
+     * Instances registered by running transactions, not queued yet.
+     */
+    private static final Map<Transaction, Map<String, String>> PENDING = new ConcurrentHashMap<>();
+
     /**
      * Instantiates a new queue.
      */
@@ -46,7 +67,8 @@ public final class Queue
     }
 
     /**
-     * Register update.
+     * Register update. If a transaction is running the instance is queued
+     * after it was committed.
      *
      * @param instance the _instance
      * @throws EFapsException the e faps exception
@@ -61,8 +83,17 @@ public final class Queue
 
                 if (instance != null && instance.getType() != null
                                 && IndexDefinition.get(instance.getType().getUUID()) != null) {
-                    final var cache = InfinispanCache.get().<String, String>getCache(CACHENAME);
-                    cache.put(instance.getOid(), instance.getOid());
+                    final String value;
+                    if (IndexPipeline.isActive()) {
+                        final Company company = Context.getThreadContext().getCompany();
+                        value = IndexPipeline.toQueueValue(company == null ? 0 : company.getId(),
+                                        Context.getThreadContext().getLanguage());
+                    } else {
+                        value = instance.getOid();
+                    }
+                    if (!Queue.registerPending(instance.getOid(), value)) {
+                        Queue.enqueue(Map.of(instance.getOid(), value));
+                    }
                     LOG.debug("Register for Update of {}", instance.getOid());
                 } else {
                     LOG.debug("Skipping register for Update for {}", instance.getOid());
@@ -72,4 +103,67 @@ public final class Queue
             LOG.error("Catched", e);
         }
     }
+
+    /**
+     * Register the instance for the end of the running transaction.
+     *
+     * @param _oid oid of the instance
+     * @param _value value for the cache
+     * @return true, if registered, false if no transaction is running
+     */
+    private static boolean registerPending(final String _oid,
+                                           final String _value)
+    {
+        boolean ret = false;
+        try {
+            if (Context.isThreadActive() && Context.isTMActive()) {
+                final Transaction transaction = Context.getThreadContext().getTransaction();
+                final Map<String, String> pending = Queue.PENDING.get(transaction);
+                if (pending == null) {
+                    final Map<String, String> oids = new LinkedHashMap<>();
+                    oids.put(_oid, _value);
+                    transaction.registerSynchronization(new Synchronization()
+                    {
+
+                        @Override
+                        public void beforeCompletion()
+                        {
+                            // nothing to do
+                        }
+
+                        @Override
+                        public void afterCompletion(final int _status)
+                        {
+                            Queue.PENDING.remove(transaction);
+                            if (_status == jakarta.transaction.Status.STATUS_COMMITTED) {
+                                Queue.enqueue(oids);
+                            }
+                        }
+                    });
+                    Queue.PENDING.put(transaction, oids);
+                } else {
+                    pending.put(_oid, _value);
+                }
+                ret = true;
+            }
+        } catch (final EFapsException | RollbackException | SystemException | IllegalStateException e) {
+            LOG.warn("Could not register the update for the end of the transaction", e);
+        }
+        return ret;
+    }
+
+    /**
+     * Put the given instances in the queue.
+     *
+     * @param _oids the oids with their values for the cache
+     */
+    private static void enqueue(final Map<String, String> _oids)
+    {
+        if (IndexPipeline.isActive()) {
+            InfinispanCache.get().<String, String>getCache(IndexPipeline.CACHENAME).putAll(_oids);
+            IndexPipeline.start();
+        } else {
+            InfinispanCache.get().<String, String>getCache(Queue.CACHENAME).putAll(_oids);
+        }
+    }
 }
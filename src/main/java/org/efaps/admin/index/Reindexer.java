@@ -0,0 +1,517 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.admin.user.Company;
+import org.efaps.db.Context;
+import org.efaps.db.Instance;
+import org.efaps.db.QueryBuilder;
+import org.efaps.util.EFapsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Full rebuild of the index for the company of the current context. The
+ * instances of each {@link IndexDefinition} are paged by ID, the pages are
+ * written in parallel by a bounded pool of workers (each with its own
+ * {@link Context}) through one shared {@link IndexWriter}. The highest ID
+ * up to which all pages were written is stored as commit data of the index,
+ * so an interrupted rebuild resumes after the last checkpoint.
+ * <ul>
+ * <li>"core.index.reindex.threads": number of workers, defaults to the
+ * number of processors</li>
+ * <li>"core.index.reindex.pageSize": instances per page, defaults to
+ * 1000</li>
+ * <li>"core.index.reindex.checkpointInterval": pages between two
+ * checkpoints, defaults to 20</li>
+ * </ul>
+ *
+ * @author The eFaps Team
+ */
+public class Reindexer
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(Reindexer.class);
+
+    /**
+     * Prefix for the keys of the commit data.
+     */
+    private static final String CHECKPOINT = "efaps.reindex.";
+
+    /**
+     * Value of the commit data for a completed IndexDefinition.
+     */
+    private static final String DONE = "done";
+
+    /**
+     * Number of workers.
+     */
+    private int threads;
+
+    /**
+     * Instances per page.
+     */
+    private int pageSize;
+
+    /**
+     * Pages between two checkpoints.
+     */
+    private int checkpointInterval;
+
+    /**
+     * Resume from the last checkpoint.
+     */
+    private boolean resume = true;
+
+    /**
+     * Number of written documents.
+     */
+    private final AtomicLong documents = new AtomicLong();
+
+    /**
+     * Number of written pages.
+     */
+    private final AtomicLong pages = new AtomicLong();
+
+    /**
+     * Start of the rebuild in nanoseconds.
+     */
+    private long started;
+
+    /**
+     * Instantiates a new reindexer.
+     */
+    public Reindexer()
+    {
+        final var config = ConfigProvider.getConfig();
+        threads = config.getOptionalValue("core.index.reindex.threads", Integer.class)
+                        .orElse(Runtime.getRuntime().availableProcessors());
+        pageSize = config.getOptionalValue("core.index.reindex.pageSize", Integer.class).orElse(1000);
+        checkpointInterval = config.getOptionalValue("core.index.reindex.checkpointInterval", Integer.class)
+                        .orElse(20);
+    }
+
+    /**
+     * Execute the rebuild.
+     *
+     * @return the result
+     * @throws EFapsException on error
+     */
+    public Result execute()
+        throws EFapsException
+    {
+        started = System.nanoTime();
+        final Context context = Context.getThreadContext();
+        final WorkerContext workerContext = new WorkerContext(context.getPerson().getName(),
+                        context.getCompany() == null ? 0 : context.getCompany().getId(), context.getLanguage());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "eFaps-Reindexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            IndexPipeline.executeExclusive(() -> rebuild(executor, workerContext));
+        } finally {
+            executor.shutdownNow();
+        }
+        SearcherManagers.refresh(workerContext.companyId());
+        final Result ret = getProgress();
+        LOG.info("Reindex finished: {} documents in {} pages, {}s, {} docs/s", ret.documents(), ret.pages(),
+                        TimeUnit.NANOSECONDS.toSeconds(ret.duration()), String.format("%.1f", ret.docsPerSecond()));
+        return ret;
+    }
+
+    /**
+     * Rebuild the index through one shared writer. Must be executed with
+     * {@link IndexPipeline#executeExclusive(IndexPipeline.WriterTask)}, so
+     * that the writers of the pipeline do not hold the write lock.
+     *
+     * @param _executor the executor
+     * @param _workerContext the context for the workers
+     * @throws EFapsException on error
+     */
+    protected void rebuild(final ExecutorService _executor,
+                           final WorkerContext _workerContext)
+        throws EFapsException
+    {
+        try (IndexWriter writer = new IndexWriter(Index.getDirectory(), new IndexWriterConfig(Index.getAnalyzer()));
+             DirectoryTaxonomyWriter taxonomyWriter = new DirectoryTaxonomyWriter(Index.getTaxonomyDirectory())) {
+            final Map<String, String> checkpoints = new HashMap<>();
+            if (resume && writer.getLiveCommitData() != null) {
+                writer.getLiveCommitData().forEach(entry -> checkpoints.put(entry.getKey(), entry.getValue()));
+            }
+            final Writers writers = new Writers(writer, taxonomyWriter, checkpoints);
+            for (final IndexDefinition def : IndexDefinition.get()) {
+                final String key = Reindexer.CHECKPOINT + def.getUUID();
+                if (Reindexer.DONE.equals(checkpoints.get(key))) {
+                    LOG.info("Skipping IndexDefinition {}, completed by a former run", def.getUUID());
+                } else {
+                    final long lastId = checkpoints.containsKey(key) ? Long.parseLong(checkpoints.get(key)) : 0;
+                    index(def, lastId, key, _executor, writers, _workerContext);
+                    checkpoints.put(key, Reindexer.DONE);
+                    writers.commit();
+                }
+            }
+            // the rebuild is complete, the next one starts from zero
+            checkpoints.keySet().removeIf(key -> key.startsWith(Reindexer.CHECKPOINT));
+            writers.commit();
+        } catch (final IOException e) {
+            throw new EFapsException(Reindexer.class, "execute", e);
+        }
+    }
+
+    /**
+     * Index the instances of one IndexDefinition. The pages are read
+     * sequentially and written in parallel. At most twice the number of
+     * workers pages are in flight.
+     *
+     * @param _def the IndexDefinition
+     * @param _lastId the ID to start after
+     * @param _key the key of the checkpoint
+     * @param _executor the executor
+     * @param _writers the writers
+     * @param _workerContext the context for the workers
+     * @throws EFapsException on error
+     */
+    protected void index(final IndexDefinition _def,
+                         final long _lastId,
+                         final String _key,
+                         final ExecutorService _executor,
+                         final Writers _writers,
+                         final WorkerContext _workerContext)
+        throws EFapsException
+    {
+        LOG.info("Reindexing IndexDefinition {} starting after ID {}", _def.getUUID(), _lastId);
+        final Semaphore inFlight = new Semaphore(threads * 2);
+        final Watermark watermark = new Watermark(_lastId);
+        final AtomicReference<EFapsException> failure = new AtomicReference<>();
+        final AtomicInteger sinceCheckpoint = new AtomicInteger();
+        long lastId = _lastId;
+        int seq = 0;
+        List<Instance> page = getPage(_def, lastId);
+        while (!page.isEmpty() && failure.get() == null) {
+            lastId = page.get(page.size() - 1).getId();
+            final int pageSeq = seq++;
+            final long pageLastId = lastId;
+            final List<Instance> instances = page;
+            inFlight.acquireUninterruptibly();
+            _executor.execute(() -> {
+                try {
+                    final long start = System.nanoTime();
+                    final int count = write(instances, _writers, _workerContext);
+                    documents.addAndGet(count);
+                    pages.incrementAndGet();
+                    LOG.debug("Page {} of {}: {} documents in {}ms", pageSeq, _def.getUUID(), count,
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    watermark.complete(pageSeq, pageLastId);
+                    if (sinceCheckpoint.incrementAndGet() >= checkpointInterval) {
+                        sinceCheckpoint.set(0);
+                        _writers.checkpoint(_key, watermark.get());
+                        final Result progress = getProgress();
+                        LOG.info("Reindex checkpoint for {} at ID {}: {} documents, {} docs/s", _def.getUUID(),
+                                        watermark.get(), progress.documents(),
+                                        String.format("%.1f", progress.docsPerSecond()));
+                    }
+                } catch (final EFapsException e) {
+                    failure.compareAndSet(null, e);
+                } catch (final RuntimeException e) {
+                    failure.compareAndSet(null, new EFapsException(Reindexer.class, "index", e));
+                } finally {
+                    inFlight.release();
+                }
+            });
+            page = getPage(_def, lastId);
+        }
+        // wait for all pages in flight
+        inFlight.acquireUninterruptibly(threads * 2);
+        inFlight.release(threads * 2);
+        _writers.checkpoint(_key, watermark.get());
+        if (failure.get() != null) {
+            LOG.error("Reindex of {} failed, resume possible after ID {}", _def.getUUID(), watermark.get());
+            throw failure.get();
+        }
+    }
+
+    /**
+     * Gets the progress of the running rebuild.
+     *
+     * @return the progress
+     */
+    public Result getProgress()
+    {
+        return new Result(documents.get(), pages.get(), System.nanoTime() - started);
+    }
+
+    /**
+     * Gets the next page of instances.
+     *
+     * @param _def the IndexDefinition
+     * @param _lastId the ID to start after
+     * @return the instances ordered by ID
+     * @throws EFapsException on error
+     */
+    protected List<Instance> getPage(final IndexDefinition _def,
+                                     final long _lastId)
+        throws EFapsException
+    {
+        final QueryBuilder queryBldr = new QueryBuilder(_def.getUUID());
+        queryBldr.addWhereAttrGreaterValue("ID", _lastId);
+        queryBldr.addOrderByAttributeAsc("ID");
+        queryBldr.setLimit(pageSize);
+        return queryBldr.getQuery().execute();
+    }
+
+    /**
+     * Write one page inside a new Context.
+     *
+     * @param _instances the instances
+     * @param _writers the writers
+     * @param _workerContext the context for the workers
+     * @return the number of written documents
+     * @throws EFapsException on error
+     */
+    protected int write(final List<Instance> _instances,
+                        final Writers _writers,
+                        final WorkerContext _workerContext)
+        throws EFapsException
+    {
+        int ret = 0;
+        Context.begin(_workerContext.userName(), Context.Inheritance.Local);
+        boolean commit = false;
+        try {
+            Context.getThreadContext().setCompany(Company.get(_workerContext.companyId()));
+            Context.getThreadContext().setLanguage(_workerContext.language());
+            // Indexer.write expects the instances of one type
+            final Map<Type, List<Instance>> groups = new LinkedHashMap<>();
+            for (final Instance instance : _instances) {
+                groups.computeIfAbsent(instance.getType(), type -> new ArrayList<>()).add(instance);
+            }
+            for (final List<Instance> instances : groups.values()) {
+                ret = ret + Indexer.write(instances, _writers.writer(), _writers.taxonomyWriter());
+            }
+            commit = true;
+        } finally {
+            if (commit) {
+                Context.commit();
+            } else {
+                Context.rollback();
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Sets the number of workers.
+     *
+     * @param _threads the number of workers
+     * @return this Reindexer
+     */
+    public Reindexer setThreads(final int _threads)
+    {
+        threads = _threads;
+        return this;
+    }
+
+    /**
+     * Sets the number of instances per page.
+     *
+     * @param _pageSize the page size
+     * @return this Reindexer
+     */
+    public Reindexer setPageSize(final int _pageSize)
+    {
+        pageSize = _pageSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of pages between two checkpoints.
+     *
+     * @param _checkpointInterval the checkpoint interval
+     * @return this Reindexer
+     */
+    public Reindexer setCheckpointInterval(final int _checkpointInterval)
+    {
+        checkpointInterval = _checkpointInterval;
+        return this;
+    }
+
+    /**
+     * Sets if the rebuild resumes from the last checkpoint.
+     *
+     * @param _resume resume from the last checkpoint
+     * @return this Reindexer
+     */
+    public Reindexer setResume(final boolean _resume)
+    {
+        resume = _resume;
+        return this;
+    }
+
+    /**
+     * The highest ID up to which all pages were written. Pages finish out of
+     * order, so a page only moves the watermark if all pages before it are
+     * finished.
+     */
+    private static final class Watermark
+    {
+
+        /** Finished pages waiting for their predecessors. */
+        private final Map<Integer, Long> finished = new TreeMap<>();
+
+        /** Next page expected to move the watermark. */
+        private int next;
+
+        /** The watermark. */
+        private long lastId;
+
+        /**
+         * @param _lastId the initial watermark
+         */
+        private Watermark(final long _lastId)
+        {
+            lastId = _lastId;
+        }
+
+        /**
+         * @param _seq sequence of the page
+         * @param _lastId last ID of the page
+         */
+        private synchronized void complete(final int _seq,
+                                           final long _lastId)
+        {
+            finished.put(_seq, _lastId);
+            while (finished.containsKey(next)) {
+                lastId = finished.remove(next);
+                next++;
+            }
+        }
+
+        /**
+         * @return the watermark
+         */
+        private synchronized long get()
+        {
+            return lastId;
+        }
+    }
+
+    /**
+     * The shared writers and the checkpoints stored with each commit.
+     *
+     * @param writer the writer
+     * @param taxonomyWriter the taxonomy writer
+     * @param checkpoints the checkpoints
+     */
+    protected record Writers(IndexWriter writer,
+                             DirectoryTaxonomyWriter taxonomyWriter,
+                             Map<String, String> checkpoints)
+    {
+
+        /**
+         * Store a checkpoint and commit.
+         *
+         * @param _key key of the checkpoint
+         * @param _lastId the ID up to which all instances are written
+         * @throws EFapsException on error
+         */
+        public synchronized void checkpoint(final String _key,
+                                            final long _lastId)
+            throws EFapsException
+        {
+            // workers may checkpoint out of order, the checkpoint never moves back
+            checkpoints.merge(_key, String.valueOf(_lastId),
+                            (current, value) -> Long.parseLong(current) > _lastId ? current : value);
+            commit();
+        }
+
+        /**
+         * Commit the taxonomy and the index including the checkpoints.
+         *
+         * @throws EFapsException on error
+         */
+        public synchronized void commit()
+            throws EFapsException
+        {
+            try {
+                taxonomyWriter.commit();
+                writer.setLiveCommitData(new HashMap<>(checkpoints).entrySet());
+                writer.commit();
+            } catch (final IOException e) {
+                throw new EFapsException(Reindexer.class, "commit", e);
+            }
+        }
+    }
+
+    /**
+     * The values used to open the Context of a worker.
+     *
+     * @param userName name of the user
+     * @param companyId id of the company
+     * @param language the language
+     */
+    protected record WorkerContext(String userName,
+                                   long companyId,
+                                   String language)
+    {
+    }
+
+    /**
+     * Result of a rebuild.
+     *
+     * @param documents number of written documents
+     * @param pages number of written pages
+     * @param duration duration in nanoseconds
+     */
+    public record Result(long documents,
+                         long pages,
+                         long duration)
+    {
+
+        /**
+         * Gets the documents per second.
+         *
+         * @return the documents per second
+         */
+        public double docsPerSecond()
+        {
+            return duration > 0 ? documents * 1_000_000_000d / duration : 0;
+        }
+    }
+}
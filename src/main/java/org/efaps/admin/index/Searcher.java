@@ -17,12 +17,15 @@ package org.efaps.admin.index;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.EnumUtils;
@@ -34,9 +37,8 @@ import org.apache.lucene.facet.FacetsConfig;
 import org.apache.lucene.facet.FacetsConfig.DimConfig;
 import org.apache.lucene.facet.LabelAndValue;
 import org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts;
-import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyReader;
-import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager.SearcherAndTaxonomy;
+import org.apache.lucene.facet.taxonomy.TaxonomyReader;
 import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
 import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
 import org.apache.lucene.queryparser.flexible.standard.config.StandardQueryConfigHandler;
@@ -109,77 +111,101 @@ public final class Searcher
             }
             final Query query = queryParser.parse(_search.getQuery(), "ALL");
 
-            final IndexReader reader = DirectoryReader.open(Index.getDirectory());
             Sort sort = _search.getSort();
             if (sort == null) {
                 sort  = new Sort(new SortField(Key.CREATED.name(), SortField.Type.LONG, true));
             }
 
             final FacetsConfig facetConfig = Index.getFacetsConfig();
-            final DirectoryTaxonomyReader taxoReader = new DirectoryTaxonomyReader(Index.getTaxonomyDirectory());
-
-            final IndexSearcher searcher = new IndexSearcher(reader);
-            final FacetsCollector fc = new FacetsCollector();
+            final SearcherAndTaxonomy searcherAndTaxonomy = SearcherManagers.acquire();
+            try {
+                collect(_search, ret, query, sort, facetConfig, searcherAndTaxonomy.searcher,
+                                searcherAndTaxonomy.taxonomyReader);
+            } finally {
+                SearcherManagers.release(searcherAndTaxonomy);
+            }
+            checkAccess();
+            ret.getElements().addAll(elements.values());
+        } catch (final IOException | QueryNodeException e) {
+            LOG.error("Catched Exception", e);
+        }
+        return ret;
+    }
 
-            final TopFieldDocs topFieldDocs = FacetsCollector.search(searcher, query, _search.getNumHits(), sort, fc);
+    /**
+     * Collect the hits and dimensions.
+     *
+     * @param _search the search
+     * @param _result the search result
+     * @param _query the query
+     * @param _sort the sort
+     * @param _facetConfig the facet config
+     * @param _searcher the searcher
+     * @param _taxoReader the taxonomy reader
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void collect(final ISearch _search,
+                         final SearchResult _result,
+                         final Query _query,
+                         final Sort _sort,
+                         final FacetsConfig _facetConfig,
+                         final IndexSearcher _searcher,
+                         final TaxonomyReader _taxoReader)
+        throws IOException
+    {
+        final FacetsCollector fc = new FacetsCollector();
+        final TopFieldDocs topFieldDocs = FacetsCollector.search(_searcher, _query, _search.getNumHits(), _sort, fc);
 
-            if (_search.getConfigs().contains(SearchConfig.ACTIVATE_DIMENSION)) {
-                final Facets facets = new FastTaxonomyFacetCounts(taxoReader, facetConfig, fc);
+        if (_search.getConfigs().contains(SearchConfig.ACTIVATE_DIMENSION)) {
+            final Facets facets = new FastTaxonomyFacetCounts(_taxoReader, _facetConfig, fc);
 
-                for (final FacetResult result : facets.getAllDims(1000)) {
-                    LOG.debug("FacetResult {}.", result);
-                    final DimConfig dimConfig = facetConfig.getDimConfig(result.dim);
-                    final Dimension retDim = new Dimension().setKey(result.dim);
-                    ret.getDimensions().add(retDim);
-                    for (final LabelAndValue labelValue : result.labelValues) {
-                        final DimValue dimValue = new DimValue().setLabel(labelValue.label)
-                                        .setValue(labelValue.value.intValue());
-                        dimValue.setPath(new String[] { retDim.getKey() });
-                        retDim.getValues().add(dimValue);
-                        if (dimConfig.hierarchical) {
-                            addSubDimension(facets, dimValue, result.dim, labelValue.label);
-                        }
+            for (final FacetResult result : facets.getAllDims(1000)) {
+                LOG.debug("FacetResult {}.", result);
+                final DimConfig dimConfig = _facetConfig.getDimConfig(result.dim);
+                final Dimension retDim = new Dimension().setKey(result.dim);
+                _result.getDimensions().add(retDim);
+                for (final LabelAndValue labelValue : result.labelValues) {
+                    final DimValue dimValue = new DimValue().setLabel(labelValue.label)
+                                    .setValue(labelValue.value.intValue());
+                    dimValue.setPath(new String[] { retDim.getKey() });
+                    retDim.getValues().add(dimValue);
+                    if (dimConfig.hierarchical) {
+                        addSubDimension(facets, dimValue, result.dim, labelValue.label);
                     }
                 }
             }
-            ret.setHitCount(topFieldDocs.totalHits.value);
-            if (ret.getHitCount() > 0) {
-                final ScoreDoc[] hits = topFieldDocs.scoreDocs;
+        }
+        _result.setHitCount(topFieldDocs.totalHits.value);
+        if (_result.getHitCount() > 0) {
+            final ScoreDoc[] hits = topFieldDocs.scoreDocs;
 
-                LOG.debug("Found {} hits.", hits.length);
-                for (int i = 0; i < hits.length; ++i) {
-                    final Document doc = searcher.doc(hits[i].doc);
-                    final String oid = doc.get(Key.OID.name());
-                    final String text = doc.get(Key.MSGPHRASE.name());
-                    LOG.debug("{}. {}\t {}", i + 1, oid, text);
-                    final Instance instance = Instance.get(oid);
-                    final List<Instance> list;
-                    if (typeMapping.containsKey(instance.getType())) {
-                        list = typeMapping.get(instance.getType());
-                    } else {
-                        list = new ArrayList<Instance>();
-                        typeMapping.put(instance.getType(), list);
-                    }
-                    list.add(instance);
-                    final Element element = new Element().setOid(oid).setText(text);
-                    for (final Entry<String, Collection<String>> entry : _search.getResultFields().entrySet()) {
-                        for (final String name : entry.getValue()) {
-                            final String value = doc.get(name);
-                            if (value != null) {
-                                element.addField(name, value);
-                            }
+            LOG.debug("Found {} hits.", hits.length);
+            for (int i = 0; i < hits.length; ++i) {
+                final Document doc = _searcher.doc(hits[i].doc);
+                final String oid = doc.get(Key.OID.name());
+                final String text = doc.get(Key.MSGPHRASE.name());
+                LOG.debug("{}. {}\t {}", i + 1, oid, text);
+                final Instance instance = Instance.get(oid);
+                final List<Instance> list;
+                if (typeMapping.containsKey(instance.getType())) {
+                    list = typeMapping.get(instance.getType());
+                } else {
+                    list = new ArrayList<Instance>();
+                    typeMapping.put(instance.getType(), list);
+                }
+                list.add(instance);
+                final Element element = new Element().setOid(oid).setText(text);
+                for (final Entry<String, Collection<String>> entry : _search.getResultFields().entrySet()) {
+                    for (final String name : entry.getValue()) {
+                        final String value = doc.get(name);
+                        if (value != null) {
+                            element.addField(name, value);
                         }
                     }
-                    elements.put(instance, element);
                 }
+                elements.put(instance, element);
             }
-            reader.close();
-            checkAccess();
-            ret.getElements().addAll(elements.values());
-        } catch (final IOException | QueryNodeException e) {
-            LOG.error("Catched Exception", e);
         }
-        return ret;
     }
 
     /**
@@ -219,12 +245,17 @@ public final class Searcher
         throws EFapsException
     {
         // check the access for the given instances
-        final Map<Instance, Boolean> accessmap = new HashMap<Instance, Boolean>();
+        final Set<Instance> granted = new HashSet<>();
+        boolean checked = false;
         for (final Entry<Type, List<Instance>> entry : typeMapping.entrySet()) {
-            accessmap.putAll(entry.getKey().checkAccess(entry.getValue(), AccessTypeEnums.SHOW.getAccessType()));
+            final BitSet access = entry.getKey().evalAccess(entry.getValue(), AccessTypeEnums.SHOW.getAccessType());
+            for (int i = access.nextSetBit(0); i >= 0; i = access.nextSetBit(i + 1)) {
+                granted.add(entry.getValue().get(i));
+            }
+            checked = checked || !entry.getValue().isEmpty();
         }
-        elements.entrySet().removeIf(entry -> accessmap.size() > 0 && (!accessmap.containsKey(entry.getKey())
-                        || !accessmap.get(entry.getKey())));
+        final boolean filter = checked;
+        elements.entrySet().removeIf(entry -> filter && !granted.contains(entry.getKey()));
     }
 
     /**
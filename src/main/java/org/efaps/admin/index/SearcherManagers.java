@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.index;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
+import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager.SearcherAndTaxonomy;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.db.Context;
+import org.efaps.util.EFapsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds one {@link SearcherTaxonomyManager} per company, so that the index
+ * and taxonomy readers are shared between searches instead of being opened
+ * for every search. A searcher is leased with {@link #acquire()} and must be
+ * returned with {@link #release(SearcherAndTaxonomy)}. The managers are
+ * refreshed after a commit of the {@link IndexPipeline}, after the writes of
+ * the {@link Indexer} and, if older than "core.index.search.refreshInterval"
+ * milliseconds (defaults to 1000), on acquire.
+ *
+ * @author The eFaps Team
+ */
+public final class SearcherManagers
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SearcherManagers.class);
+
+    /**
+     * Managers by company id.
+     */
+    private static final Map<Long, Entry> MANAGERS = new ConcurrentHashMap<>();
+
+    static {
+        IndexPipeline.addCommitListener(SearcherManagers::refresh);
+    }
+
+    /**
+     * Milliseconds a searcher may be used without checking for changes.
+     */
+    private static Long REFRESHINTERVAL;
+
+    /**
+     * Instantiates a new searcher managers.
+     */
+    private SearcherManagers()
+    {
+    }
+
+    /**
+     * Lease a searcher for the company of the current context.
+     *
+     * @return the searcher and taxonomy reader
+     * @throws EFapsException on error
+     */
+    public static SearcherAndTaxonomy acquire()
+        throws EFapsException
+    {
+        final Entry entry = SearcherManagers.getEntry(SearcherManagers.getCompanyId());
+        try {
+            if (System.currentTimeMillis() - entry.lastRefresh > SearcherManagers.getRefreshInterval()) {
+                entry.lastRefresh = System.currentTimeMillis();
+                entry.manager.maybeRefresh();
+            }
+            return entry.manager.acquire();
+        } catch (final IOException e) {
+            throw new EFapsException(SearcherManagers.class, "acquire", e);
+        }
+    }
+
+    /**
+     * Return a leased searcher.
+     *
+     * @param _searcher the searcher and taxonomy reader
+     * @throws EFapsException on error
+     */
+    public static void release(final SearcherAndTaxonomy _searcher)
+        throws EFapsException
+    {
+        final Entry entry = SearcherManagers.MANAGERS.get(SearcherManagers.getCompanyId());
+        try {
+            if (entry == null) {
+                _searcher.searcher.getIndexReader().decRef();
+                _searcher.taxonomyReader.decRef();
+            } else {
+                entry.manager.release(_searcher);
+            }
+        } catch (final IOException e) {
+            throw new EFapsException(SearcherManagers.class, "release", e);
+        }
+    }
+
+    /**
+     * Refresh the manager for the given company.
+     *
+     * @param _companyId id of the company
+     */
+    public static void refresh(final long _companyId)
+    {
+        final Entry entry = SearcherManagers.MANAGERS.get(_companyId);
+        if (entry != null) {
+            try {
+                entry.lastRefresh = System.currentTimeMillis();
+                entry.manager.maybeRefresh();
+            } catch (final IOException e) {
+                LOG.error("Could not refresh SearcherManager for company {}", _companyId, e);
+            }
+        }
+    }
+
+    /**
+     * Close all managers.
+     */
+    public static void close()
+    {
+        for (final Entry entry : SearcherManagers.MANAGERS.values()) {
+            try {
+                entry.manager.close();
+            } catch (final IOException e) {
+                LOG.error("Could not close SearcherManager", e);
+            }
+        }
+        SearcherManagers.MANAGERS.clear();
+    }
+
+    /**
+     * Gets the entry for the given company, opens the manager if necessary.
+     *
+     * @param _companyId id of the company
+     * @return the entry
+     * @throws EFapsException on error
+     */
+    private static Entry getEntry(final long _companyId)
+        throws EFapsException
+    {
+        Entry ret = SearcherManagers.MANAGERS.get(_companyId);
+        if (ret == null) {
+            synchronized (SearcherManagers.class) {
+                ret = SearcherManagers.MANAGERS.get(_companyId);
+                if (ret == null) {
+                    try {
+                        LOG.debug("Opening SearcherManager for company {}", _companyId);
+                        ret = new Entry(new SearcherTaxonomyManager(Index.getDirectory(),
+                                        Index.getTaxonomyDirectory(), null));
+                    } catch (final IOException e) {
+                        throw new EFapsException(SearcherManagers.class, "getEntry", e);
+                    }
+                    SearcherManagers.MANAGERS.put(_companyId, ret);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the id of the company of the current context.
+     *
+     * @return the company id, 0 if no company is set
+     * @throws EFapsException on error
+     */
+    private static long getCompanyId()
+        throws EFapsException
+    {
+        return Context.getThreadContext().getCompany() == null
+                        ? 0 : Context.getThreadContext().getCompany().getId();
+    }
+
+    /**
+     * Gets the refresh interval.
+     *
+     * @return the refresh interval
+     */
+    private static long getRefreshInterval()
+    {
+        if (SearcherManagers.REFRESHINTERVAL == null) {
+            SearcherManagers.REFRESHINTERVAL = ConfigProvider.getConfig()
+                            .getOptionalValue("core.index.search.refreshInterval", Long.class).orElse(1000L);
+        }
+        return SearcherManagers.REFRESHINTERVAL;
+    }
+
+    /**
+     * A manager and the time it was last refreshed.
+     */
+    private static final class Entry
+    {
+
+        /** The manager. */
+        private final SearcherTaxonomyManager manager;
+
+        /** Time of the last refresh. */
+        private volatile long lastRefresh = System.currentTimeMillis();
+
+        /**
+         * @param _manager the manager
+         */
+        private Entry(final SearcherTaxonomyManager _manager)
+        {
+            manager = _manager;
+        }
+    }
+}
@@ -19,8 +19,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.admin.AppConfigHandler;
 import org.efaps.ci.CIAdminProgram;
 import org.efaps.ci.CIType;
@@ -34,7 +36,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This Class extends the ClassLoader of java, to be able to load Classes on
- * demand from the eFaps Database.
+ * demand from the eFaps Database. If the {@link EsjpArchive} is active, the
+ * classes are loaded from the archive instead. The classloader is registered
+ * as parallel capable, so classes are loaded with a lock per class name.
  *
  * @author The eFaps Team
  *
@@ -46,7 +50,12 @@ public final class EFapsClassLoader
     /**
      * Classloader to be used for singleton.
      */
-    private static EFapsClassLoader CLASSLOADER;
+    private static volatile EFapsClassLoader CLASSLOADER;
+
+    /**
+     * Generation of the classloader, increased every time it is replaced.
+     */
+    private static final AtomicLong GENERATION = new AtomicLong();
 
     /**
      * Logger for this class.
@@ -68,6 +77,10 @@ public final class EFapsClassLoader
      */
     private final boolean offline;
 
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     /**
      * Constructor setting the Parent of the EFapsClassLoader in ClassLoader.
      *
@@ -167,19 +180,23 @@ public final class EFapsClassLoader
     public byte[] read(final String _resourceName)
     {
         byte[] ret = null;
-        EFapsClassLoader.LOG.debug("read ''", _resourceName);
+        EFapsClassLoader.LOG.debug("read '{}'", _resourceName);
         try {
-            final QueryBuilder queryBuilder = new QueryBuilder(this.classType);
-            queryBuilder.addWhereAttrEqValue("Name", _resourceName);
-            final InstanceQuery query = queryBuilder.getCachedQuery("esjp");
-            query.executeWithoutAccessCheck();
-            if (query.next()) {
-                final Checkout checkout = new Checkout(query.getCurrentValue());
-                final InputStream is = checkout.executeWithoutAccessCheck();
+            if (EsjpArchive.isActive()) {
+                ret = EsjpArchive.get(EFapsClassLoader.getTempFolder()).getClassData(_resourceName);
+            } else {
+                final QueryBuilder queryBuilder = new QueryBuilder(this.classType);
+                queryBuilder.addWhereAttrEqValue("Name", _resourceName);
+                final InstanceQuery query = queryBuilder.getCachedQuery("esjp");
+                query.executeWithoutAccessCheck();
+                if (query.next()) {
+                    final Checkout checkout = new Checkout(query.getCurrentValue());
+                    final InputStream is = checkout.executeWithoutAccessCheck();
 
-                ret = new byte[is.available()];
-                is.read(ret);
-                is.close();
+                    ret = new byte[is.available()];
+                    is.read(ret);
+                    is.close();
+                }
             }
         } catch (final EFapsException e) {
             EFapsClassLoader.LOG.error("could not access the Database for reading '{}' - {}", _resourceName, e);
@@ -225,12 +242,19 @@ public final class EFapsClassLoader
      *
      * @return the current EFapsClassLoader
      */
-    public static synchronized EFapsClassLoader getInstance()
+    public static EFapsClassLoader getInstance()
     {
-        if (EFapsClassLoader.CLASSLOADER == null) {
-            EFapsClassLoader.CLASSLOADER = new EFapsClassLoader(EFapsClassLoader.class.getClassLoader(), false);
+        EFapsClassLoader ret = EFapsClassLoader.CLASSLOADER;
+        if (ret == null) {
+            synchronized (EFapsClassLoader.class) {
+                ret = EFapsClassLoader.CLASSLOADER;
+                if (ret == null) {
+                    ret = new EFapsClassLoader(EFapsClassLoader.class.getClassLoader(), false);
+                    EFapsClassLoader.CLASSLOADER = ret;
+                }
+            }
         }
-        return EFapsClassLoader.CLASSLOADER;
+        return ret;
     }
 
     /**
@@ -249,6 +273,41 @@ public final class EFapsClassLoader
         return EFapsClassLoader.CLASSLOADER;
     }
 
+    /**
+     * Called after the ESJPs were compiled. The {@link EsjpArchive} is
+     * dropped. The current EFapsClassLoader is only replaced by a new one with
+     * the same parent if "core.esjp.reloadOnCompile" is set to true (defaults
+     * to false). Instances of ESJP classes that are still referenced on a
+     * running node then belong to the old loader and casting them to the
+     * classes of the new loader fails with a ClassCastException, so the
+     * replacement is meant for nodes that are not serving requests while
+     * compiling. Without it the compiled classes are used after a restart.
+     */
+    public static synchronized void reset()
+    {
+        if (EsjpArchive.isActive()) {
+            EsjpArchive.reset(EFapsClassLoader.getTempFolder());
+        }
+        if (EFapsClassLoader.CLASSLOADER != null && ConfigProvider.getConfig()
+                        .getOptionalValue("core.esjp.reloadOnCompile", Boolean.class).orElse(false)) {
+            EFapsClassLoader.CLASSLOADER = new EFapsClassLoader(EFapsClassLoader.CLASSLOADER.getParent(),
+                            EFapsClassLoader.CLASSLOADER.isOffline());
+            EFapsClassLoader.LOG.debug("Reset EFapsClassLoader to generation {}",
+                            EFapsClassLoader.GENERATION.incrementAndGet());
+        }
+    }
+
+    /**
+     * Gets the generation of the EFapsClassLoader. Caches of loaded classes
+     * must be dropped if the generation changes.
+     *
+     * @return the generation
+     */
+    public static long getGeneration()
+    {
+        return EFapsClassLoader.GENERATION.get();
+    }
+
     /**
      * To be able to know if it is the first time the Classloader is wanted.
      * @return is the static Class loader initialized.
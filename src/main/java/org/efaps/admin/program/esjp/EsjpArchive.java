@@ -0,0 +1,281 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.program.esjp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.ci.CIAdminProgram;
+import org.efaps.db.Checkout;
+import org.efaps.db.Instance;
+import org.efaps.db.MultiPrintQuery;
+import org.efaps.db.QueryBuilder;
+import org.efaps.util.EFapsException;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of all compiled ESJP classes, used by the {@link EFapsClassLoader}
+ * instead of reading every class on its own from the eFaps database. The
+ * snapshot is stored as jar file in the temp folder and is read in one pass.
+ * The version of the snapshot is a hash over the names, ids and modification
+ * dates of the compiled classes, so the jar is only written again if the
+ * compiled classes changed. Activated by "core.esjp.archive.active" (defaults
+ * to false).
+ *
+ * @author The eFaps Team
+ */
+public final class EsjpArchive
+{
+
+    /**
+     * Name of the manifest attribute containing the version.
+     */
+    private static final Attributes.Name VERSION = new Attributes.Name("eFaps-ESJP-Version");
+
+    /**
+     * Name of the jar file.
+     */
+    private static final String FILENAME = "eFaps-ESJP.jar";
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(EsjpArchive.class);
+
+    /**
+     * Is the archive active.
+     */
+    private static Boolean ACTIVE;
+
+    /**
+     * The current archive.
+     */
+    private static volatile EsjpArchive ARCHIVE;
+
+    /**
+     * Bytecode by binary name of the class.
+     */
+    private final Map<String, byte[]> classes;
+
+    /**
+     * Instantiates a new archive.
+     *
+     * @param _classes bytecode by binary name of the class
+     */
+    private EsjpArchive(final Map<String, byte[]> _classes)
+    {
+        classes = _classes;
+    }
+
+    /**
+     * Gets the bytecode of a class.
+     *
+     * @param _className binary name of the class
+     * @return the bytecode, <code>null</code> if not found
+     */
+    public byte[] getClassData(final String _className)
+    {
+        return classes.get(_className);
+    }
+
+    /**
+     * Gets the current archive, reading or writing it if necessary.
+     *
+     * @param _folder folder the jar file is stored in
+     * @return the archive
+     * @throws EFapsException on error
+     */
+    public static EsjpArchive get(final File _folder)
+        throws EFapsException
+    {
+        EsjpArchive ret = EsjpArchive.ARCHIVE;
+        if (ret == null) {
+            synchronized (EsjpArchive.class) {
+                ret = EsjpArchive.ARCHIVE;
+                if (ret == null) {
+                    ret = EsjpArchive.load(new File(_folder, EsjpArchive.FILENAME));
+                    EsjpArchive.ARCHIVE = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Drop the current archive, e.g. because the ESJPs were compiled.
+     *
+     * @param _folder folder the jar file is stored in
+     */
+    public static synchronized void reset(final File _folder)
+    {
+        EsjpArchive.ARCHIVE = null;
+        final File file = new File(_folder, EsjpArchive.FILENAME);
+        if (file.exists() && !file.delete()) {
+            EsjpArchive.LOG.warn("Could not delete ESJP archive '{}'", file);
+        }
+    }
+
+    /**
+     * Load the archive from the jar file if its version is the current one,
+     * else read the classes from the eFaps database and write the jar file.
+     *
+     * @param _file the jar file
+     * @return the archive
+     * @throws EFapsException on error
+     */
+    private static EsjpArchive load(final File _file)
+        throws EFapsException
+    {
+        final long start = System.currentTimeMillis();
+        final Map<String, Instance> name2instance = new TreeMap<>();
+        final StringBuilder versionBldr = new StringBuilder();
+        final QueryBuilder queryBldr = new QueryBuilder(CIAdminProgram.Javaclass);
+        final MultiPrintQuery multi = queryBldr.getPrint();
+        multi.addAttribute(CIAdminProgram.Javaclass.Name, CIAdminProgram.Javaclass.Modified);
+        multi.executeWithoutAccessCheck();
+        final Map<String, String> name2version = new TreeMap<>();
+        while (multi.next()) {
+            final String name = multi.getAttribute(CIAdminProgram.Javaclass.Name);
+            final DateTime modified = multi.getAttribute(CIAdminProgram.Javaclass.Modified);
+            name2instance.put(name, multi.getCurrentInstance());
+            name2version.put(name, multi.getCurrentInstance().getId() + ":"
+                            + (modified == null ? "" : modified.getMillis()));
+        }
+        name2version.forEach((name, value) -> versionBldr.append(name).append(':').append(value).append('\n'));
+        final String version = DigestUtils.sha256Hex(versionBldr.toString());
+
+        Map<String, byte[]> classes = EsjpArchive.read(_file, version);
+        if (classes == null) {
+            classes = new HashMap<>();
+            for (final Map.Entry<String, Instance> entry : name2instance.entrySet()) {
+                try (InputStream in = new Checkout(entry.getValue()).executeWithoutAccessCheck()) {
+                    classes.put(entry.getKey(), in.readAllBytes());
+                } catch (final IOException e) {
+                    throw new EFapsException(EsjpArchive.class, "load", e);
+                }
+            }
+            EsjpArchive.write(_file, version, classes);
+            EsjpArchive.LOG.info("Wrote ESJP archive '{}' with {} classes in {}ms", _file, classes.size(),
+                            System.currentTimeMillis() - start);
+        } else {
+            EsjpArchive.LOG.info("Read ESJP archive '{}' with {} classes in {}ms", _file, classes.size(),
+                            System.currentTimeMillis() - start);
+        }
+        return new EsjpArchive(classes);
+    }
+
+    /**
+     * Read the classes from the jar file.
+     *
+     * @param _file the jar file
+     * @param _version the current version
+     * @return the classes, <code>null</code> if the file does not exist, can
+     *         not be read or is not of the current version
+     */
+    private static Map<String, byte[]> read(final File _file,
+                                            final String _version)
+    {
+        Map<String, byte[]> ret = null;
+        if (_file.exists()) {
+            try (JarFile jar = new JarFile(_file)) {
+                final Manifest manifest = jar.getManifest();
+                if (manifest != null && _version.equals(manifest.getMainAttributes().get(EsjpArchive.VERSION))) {
+                    ret = new HashMap<>();
+                    final Enumeration<JarEntry> entries = jar.entries();
+                    while (entries.hasMoreElements()) {
+                        final JarEntry entry = entries.nextElement();
+                        if (entry.getName().endsWith(".class")) {
+                            try (InputStream in = jar.getInputStream(entry)) {
+                                ret.put(entry.getName().substring(0, entry.getName().length() - 6).replace('/', '.'),
+                                                in.readAllBytes());
+                            }
+                        }
+                    }
+                } else {
+                    EsjpArchive.LOG.debug("ESJP archive '{}' is outdated", _file);
+                }
+            } catch (final IOException e) {
+                EsjpArchive.LOG.warn("Could not read ESJP archive '{}'", _file, e);
+                ret = null;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Write the classes to the jar file. The jar is written to a temporary
+     * file first and moved afterwards, so that a jar file is always
+     * complete.
+     *
+     * @param _file the jar file
+     * @param _version the version
+     * @param _classes the classes
+     */
+    private static void write(final File _file,
+                              final String _version,
+                              final Map<String, byte[]> _classes)
+    {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(EsjpArchive.VERSION, _version);
+        try {
+            final File tmp = File.createTempFile("eFaps-ESJP", ".tmp", _file.getParentFile());
+            try (OutputStream out = Files.newOutputStream(tmp.toPath());
+                 JarOutputStream jar = new JarOutputStream(out, manifest)) {
+                for (final Map.Entry<String, byte[]> entry : _classes.entrySet()) {
+                    jar.putNextEntry(new JarEntry(entry.getKey().replace('.', '/') + ".class"));
+                    jar.write(entry.getValue());
+                    jar.closeEntry();
+                }
+            }
+            Files.move(tmp.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            EsjpArchive.LOG.warn("Could not write ESJP archive '{}'", _file, e);
+        }
+    }
+
+    /**
+     * Is the archive active.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        if (EsjpArchive.ACTIVE == null) {
+            EsjpArchive.ACTIVE = ConfigProvider.getConfig()
+                            .getOptionalValue("core.esjp.archive.active", Boolean.class).orElse(false);
+        }
+        return EsjpArchive.ACTIVE;
+    }
+}
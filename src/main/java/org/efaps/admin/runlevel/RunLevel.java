@@ -22,18 +22,31 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.access.user.AccessMatrix;
 import org.efaps.admin.common.Quartz;
+import org.efaps.admin.index.IndexPipeline;
+import org.efaps.admin.index.SearcherManagers;
 import org.efaps.admin.program.esjp.Listener;
+import org.efaps.admin.user.Person;
 import org.efaps.db.Context;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
 import org.efaps.util.EFapsException;
 import org.efaps.util.cache.AbstractCache;
 import org.efaps.util.cache.CacheReloadException;
+import org.efaps.util.cache.CacheSnapshot;
 import org.efaps.util.cache.InfinispanCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +98,7 @@ public final class RunLevel
                                                             .column(0, "CLASS")
                                                             .column(0, "METHOD")
                                                             .column(0, "PARAMETER")
+                                                            .column(0, "PRIORITY")
                                                             .from("T_RUNLEVELDEF", 0);
 
     /**
@@ -97,6 +111,21 @@ public final class RunLevel
      */
     private static final Map<Long, RunLevel> ALL_RUNLEVELS = new HashMap<>();
 
+    /**
+     * Duration in milliseconds of the last execution by cache method.
+     */
+    private static final Map<String, Long> DURATIONS = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Number of threads used to execute the cache methods.
+     */
+    private static Integer THREADS;
+
+    /**
+     * Cache methods that can be executed in parallel.
+     */
+    private static List<String> INDEPENDENT;
+
     /**
      * All cache initialize methods for this RunLevel are stored in this instance
      * variable. They are ordered by the priority.
@@ -166,6 +195,11 @@ public final class RunLevel
      */
     public static void stop()
     {
+        IndexPipeline.stop();
+        SearcherManagers.close();
+        if (CacheSnapshot.isActive()) {
+            CacheSnapshot.export();
+        }
         InfinispanCache.stop();
         Quartz.shutDown();
     }
@@ -201,7 +235,11 @@ public final class RunLevel
     }
 
     /**
-     * Execute the current RunLevel. (Load all defined Caches).
+     * Execute the current RunLevel. (Load all defined Caches). Cache methods
+     * are executed one after the other. Consecutive methods with the same
+     * priority that are declared as independent in "core.runlevel.parallel"
+     * are executed in parallel if "core.runlevel.threads" is set to more than
+     * one thread.
      *
      * @throws EFapsException on error
      */
@@ -209,7 +247,40 @@ public final class RunLevel
         throws EFapsException
     {
         LOG.info("Executing RunLevels");
-        RunLevel.RUNLEVEL.executeMethods();
+        final long start = System.currentTimeMillis();
+        RunLevel.DURATIONS.clear();
+        final ExecutorService executor = RunLevel.getThreads() > 1
+                        ? Executors.newFixedThreadPool(RunLevel.getThreads(), runnable -> {
+                            final Thread thread = new Thread(runnable, "eFaps-RunLevel");
+                            thread.setDaemon(true);
+                            return thread;
+                        })
+                        : null;
+        try {
+            RunLevel.RUNLEVEL.executeMethods(executor);
+            if (CacheSnapshot.isActive()) {
+                RunLevel.timed(CacheSnapshot.class.getName() + ".load", CacheSnapshot::load);
+            }
+            final List<Callable<Void>> preloads = new ArrayList<>();
+            if (Person.isPreload()) {
+                preloads.add(() -> {
+                    RunLevel.timed(Person.class.getName() + ".preload", Person::preload);
+                    return null;
+                });
+            }
+            if (AccessMatrix.isActive()) {
+                preloads.add(() -> {
+                    RunLevel.timed(AccessMatrix.class.getName() + ".preload", AccessMatrix::preload);
+                    return null;
+                });
+            }
+            RunLevel.call(executor, preloads);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        LOG.info("Executed RunLevels in {}ms", System.currentTimeMillis() - start);
         final List<String> allInitializer = RunLevel.RUNLEVEL.getAllInitializers();
         for (final AbstractCache<?> cache : AbstractCache.getCaches()) {
             final String initiliazer = cache.getInitializer();
@@ -241,21 +312,164 @@ public final class RunLevel
 
     /**
      * All cache initialize methods stored in {@link #cacheMethods} are called.
+     * The methods of the parent are called first, then the methods are
+     * called in the order of their priority. Consecutive methods with the
+     * same priority that are all declared as independent are called in
+     * parallel if an executor is given, all other methods are called alone.
      *
+     * @param _executor executor for the parallel calls, <code>null</code> to
+     *            call all methods one after the other
      * @see #cacheMethods
      * @throws EFapsException on error
      */
-    protected void executeMethods()
+    protected void executeMethods(final ExecutorService _executor)
         throws EFapsException
     {
         if (parent != null) {
-            parent.executeMethods();
+            parent.executeMethods(_executor);
         }
+        final List<String> independent = RunLevel.getIndependent();
+        List<Callable<Void>> group = new ArrayList<>();
+        Integer priority = null;
+        boolean parallel = false;
         for (final CacheMethod cacheMethod : cacheMethods) {
-            cacheMethod.callMethod();
+            final boolean declared = cacheMethod.priority != null && independent.contains(cacheMethod.getKey());
+            if (!parallel || !declared || !cacheMethod.priority.equals(priority)) {
+                RunLevel.call(_executor, group);
+                group = new ArrayList<>();
+                priority = cacheMethod.priority;
+                parallel = declared;
+            }
+            group.add(() -> {
+                RunLevel.timed(cacheMethod.getKey(), cacheMethod::callMethod);
+                return null;
+            });
+        }
+        RunLevel.call(_executor, group);
+    }
+
+    /**
+     * Call the given tasks. If an executor is given and there is more than
+     * one task, the tasks are executed in parallel, each with its own
+     * Context.
+     *
+     * @param _executor executor for the parallel calls, <code>null</code> to
+     *            call the tasks one after the other
+     * @param _tasks the tasks
+     * @throws EFapsException on error
+     */
+    private static void call(final ExecutorService _executor,
+                             final List<Callable<Void>> _tasks)
+        throws EFapsException
+    {
+        if (_executor == null || _tasks.size() < 2) {
+            for (final Callable<Void> task : _tasks) {
+                try {
+                    task.call();
+                } catch (final EFapsException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new EFapsException(RunLevel.class, "call", e);
+                }
+            }
+        } else {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (final Callable<Void> task : _tasks) {
+                futures.add(_executor.submit(() -> {
+                    Context.begin(null, Context.Inheritance.Local);
+                    boolean commit = false;
+                    try {
+                        task.call();
+                        commit = true;
+                    } finally {
+                        if (commit) {
+                            Context.commit();
+                        } else {
+                            Context.rollback();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            try {
+                for (final Future<Void> future : futures) {
+                    future.get();
+                }
+            } catch (final ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                if (e.getCause() instanceof final EFapsException eFapsException) {
+                    throw eFapsException;
+                }
+                throw new EFapsException(RunLevel.class, "call", e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                throw new EFapsException(RunLevel.class, "call", e);
+            }
+        }
+    }
+
+    /**
+     * Execute the given method and register its duration.
+     *
+     * @param _key key the duration is registered for
+     * @param _method the method
+     * @throws EFapsException on error
+     */
+    private static void timed(final String _key,
+                              final Timed _method)
+        throws EFapsException
+    {
+        final long start = System.currentTimeMillis();
+        _method.execute();
+        final long duration = System.currentTimeMillis() - start;
+        RunLevel.DURATIONS.merge(_key, duration, Long::sum);
+        LOG.info("  Finished {} in {}ms", _key, duration);
+    }
+
+    /**
+     * Gets the durations in milliseconds of the last execution by cache
+     * method.
+     *
+     * @return the durations
+     */
+    public static Map<String, Long> getDurations()
+    {
+        synchronized (RunLevel.DURATIONS) {
+            return new LinkedHashMap<>(RunLevel.DURATIONS);
         }
     }
 
+    /**
+     * Gets the number of threads used to execute the cache methods.
+     *
+     * @return the number of threads
+     */
+    private static int getThreads()
+    {
+        if (RunLevel.THREADS == null) {
+            RunLevel.THREADS = ConfigProvider.getConfig()
+                            .getOptionalValue("core.runlevel.threads", Integer.class).orElse(1);
+        }
+        return RunLevel.THREADS;
+    }
+
+    /**
+     * Gets the cache methods declared as independent of the other declared
+     * methods with the same priority, as "className.methodName".
+     *
+     * @return the independent cache methods
+     */
+    private static List<String> getIndependent()
+    {
+        if (RunLevel.INDEPENDENT == null) {
+            RunLevel.INDEPENDENT = ConfigProvider.getConfig()
+                            .getOptionalValues("core.runlevel.parallel", String.class)
+                            .orElse(Collections.emptyList());
+        }
+        return RunLevel.INDEPENDENT;
+    }
+
     /**
      * Reads the id and the parent id of this RunLevel. All defined methods for
      * this run level are loaded. If a parent id is defined, the parent is
@@ -303,13 +517,17 @@ public final class RunLevel
                 //private static final String SQL_DEF_POST  = " order by PRIORITY";
 
                 while (rs.next()) {
+                    final long priorityTmp = rs.getLong(4);
+                    final Integer priority = rs.wasNull() ? null : (int) priorityTmp;
                     if (rs.getString(3) != null) {
                         cacheMethods.add(new CacheMethod(rs.getString(1).trim(),
                                                               rs.getString(2).trim(),
-                                                              rs.getString(3).trim()));
+                                                              rs.getString(3).trim(),
+                                                              priority));
                     } else {
                         cacheMethods.add(new CacheMethod(rs.getString(1).trim(),
-                                                              rs.getString(2).trim()));
+                                                              rs.getString(2).trim(),
+                                                              priority));
                     }
                 }
                 rs.close();
@@ -372,12 +590,18 @@ public final class RunLevel
          */
         private final String parameter;
 
+        /**
+         * Priority of the method, <code>null</code> if unknown.
+         */
+        private final Integer priority;
+
         @Generated("SparkTools")
         private CacheMethod(Builder builder)
         {
             this.className = builder.className;
             this.methodName = builder.methodName;
             this.parameter = builder.parameter;
+            this.priority = builder.priority;
         }
 
         /**
@@ -386,12 +610,14 @@ public final class RunLevel
          *
          * @param _className   name of the class
          * @param _methodName  name of the method
-         * @see #CacheMethod(String,String,String)
+         * @param _priority    priority of the method
+         * @see #CacheMethod(String,String,String,Integer)
          */
         private CacheMethod(final String _className,
-                            final String _methodName)
+                            final String _methodName,
+                            final Integer _priority)
         {
-            this(_className, _methodName, null);
+            this(_className, _methodName, null, _priority);
         }
 
         /**
@@ -401,14 +627,27 @@ public final class RunLevel
          * @param _className    Name of the Class
          * @param _methodName   Name of the Method
          * @param _parameter    Value of the Parameter
+         * @param _priority     priority of the method
          */
         private CacheMethod(final String _className,
                             final String _methodName,
-                            final String _parameter)
+                            final String _parameter,
+                            final Integer _priority)
         {
             className = _className;
             methodName = _methodName;
             parameter = _parameter;
+            priority = _priority;
+        }
+
+        /**
+         * Gets the key of the method.
+         *
+         * @return "className.methodName"
+         */
+        public String getKey()
+        {
+            return className + "." + methodName;
         }
 
         /**
@@ -488,6 +727,7 @@ public final class RunLevel
             private String className;
             private String methodName;
             private String parameter;
+            private Integer priority;
 
             private Builder()
             {
@@ -511,10 +751,32 @@ public final class RunLevel
                 return this;
             }
 
+            public Builder withPriority(Integer priority)
+            {
+                this.priority = priority;
+                return this;
+            }
+
             public CacheMethod build()
             {
                 return new CacheMethod(this);
             }
         }
     }
+
+    /**
+     * A method that is timed by {@link RunLevel#timed(String, Timed)}.
+     */
+    @FunctionalInterface
+    private interface Timed
+    {
+
+        /**
+         * Execute the method.
+         *
+         * @throws EFapsException on error
+         */
+        void execute()
+            throws EFapsException;
+    }
 }
@@ -21,17 +21,24 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.admin.EFapsSystemConfiguration;
 import org.efaps.admin.KernelSettings;
 import org.efaps.admin.common.SystemConfiguration;
@@ -46,6 +53,7 @@ import org.efaps.db.Update.Status;
 import org.efaps.db.transaction.ConnectionResource;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
+import org.efaps.db.wrapper.SQLSelect.IdList;
 import org.efaps.jaas.AppAccessHandler;
 import org.efaps.util.ChronologyType;
 import org.efaps.util.DateTimeUtil;
@@ -268,6 +276,20 @@ public final class Person
      */
     private static String UUIDCACHE = Person.class.getName() + ".UUID";
 
+    /**
+     * Must the active persons be preloaded.
+     *
+     * @see #isPreload()
+     */
+    private static Boolean PRELOAD;
+
+    /**
+     * Executor refreshing the preloaded persons.
+     *
+     * @see #preload()
+     */
+    private static ScheduledExecutorService PRELOADER;
+
     /**
      * Logging instance used to give logging information of this class.
      */
@@ -1207,8 +1229,7 @@ public final class Person
             final Set<UUID> roleUUIDs = AppAccessHandler.getLoginRoles();
             for (final Long roleId : roleIds) {
                 final Role role = Role.get(roleId);
-                if (!AppAccessHandler.excludeMode()
-                                || AppAccessHandler.excludeMode() && roleUUIDs.contains(role.getUUID())) {
+                if (Person.isLoginRole(role, roleUUIDs)) {
                     ret.add(role);
                 }
             }
@@ -1224,6 +1245,20 @@ public final class Person
         return ret;
     }
 
+    /**
+     * Can the given role be assigned to a person. In exclude mode of the
+     * {@link AppAccessHandler} only the login roles are assigned.
+     *
+     * @param _role role to check
+     * @param _loginRoles uuids of the login roles
+     * @return true, if the role can be assigned
+     */
+    private static boolean isLoginRole(final Role _role,
+                                       final Set<UUID> _loginRoles)
+    {
+        return !AppAccessHandler.excludeMode() || _loginRoles.contains(_role.getUUID());
+    }
+
     /**
      * The depending roles for the user are set for the given JAAS system. All
      * roles are added to the loaded roles in the cache of this person.
@@ -1645,6 +1680,337 @@ public final class Person
         return cache.get(_name);
     }
 
+    /**
+     * Returns for given parameter <i>_ids</i> the instances of class
+     * {@link Person}. All persons that are not cached yet are read together
+     * with their memberships by a few set based statements instead of the
+     * statements per person used by {@link #get(long)}.
+     *
+     * @param _ids ids to search in the cache
+     * @throws EFapsException on error
+     * @return map of id to instance of class {@link Person}, ids for which no
+     *         person was found are not contained
+     */
+    public static Map<Long, Person> get(final Collection<Long> _ids)
+        throws EFapsException
+    {
+        final var cache = InfinispanCache.get().<Long, Person>getCache(Person.IDCACHE);
+        final Set<Long> missing = new LinkedHashSet<>();
+        for (final Long id : _ids) {
+            if (!cache.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        final Map<Long, Person> loaded = missing.isEmpty()
+                        ? Collections.emptyMap()
+                        : Person.readPersonsFromDB(new ArrayList<>(missing));
+        final Map<Long, Person> ret = new LinkedHashMap<>();
+        for (final Long id : _ids) {
+            final Person person = loaded.containsKey(id) ? loaded.get(id) : cache.get(id);
+            if (person != null) {
+                ret.put(id, person);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Read all active persons with their memberships into the caches, e.g.
+     * to avoid that the first logins after a restart read every person on
+     * its own.
+     *
+     * @return number of preloaded persons
+     * @throws EFapsException on error
+     */
+    public static int preload()
+        throws EFapsException
+    {
+        final long start = System.currentTimeMillis();
+        final Map<Long, Person> persons = Person.readPersonsFromDB(null);
+        Person.LOG.info("Preloaded {} Persons in {}ms", persons.size(), System.currentTimeMillis() - start);
+        Person.scheduleRefresh();
+        return persons.size();
+    }
+
+    /**
+     * Schedule the refresh of the preloaded persons. The persons are cached
+     * for 15 minutes only, so that changes of their roles, groups etc. are
+     * taken over. To keep them in the cache they are read again with the
+     * set based statements before they expire. The interval in minutes is
+     * set by "core.user.preload.interval" (defaults to 10, must be lower
+     * than 15).
+     */
+    private static synchronized void scheduleRefresh()
+    {
+        if (Person.PRELOADER == null) {
+            final long interval = Math.min(14, ConfigProvider.getConfig()
+                            .getOptionalValue("core.user.preload.interval", Long.class).orElse(10L));
+            Person.PRELOADER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "eFaps-PersonPreload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Person.PRELOADER.scheduleWithFixedDelay(() -> {
+                try {
+                    Context.begin(null, Context.Inheritance.Local);
+                    boolean commit = false;
+                    try {
+                        final int count = Person.readPersonsFromDB(null).size();
+                        Person.LOG.debug("Refreshed {} preloaded Persons", count);
+                        commit = true;
+                    } finally {
+                        if (commit) {
+                            Context.commit();
+                        } else {
+                            Context.rollback();
+                        }
+                    }
+                } catch (final EFapsException | RuntimeException e) {
+                    Person.LOG.error("Could not refresh the preloaded Persons", e);
+                }
+            }, interval, interval, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Must the active persons be preloaded on execution of the RunLevel. Set
+     * by "core.user.preload.active" (defaults to false).
+     *
+     * @return true, if preload is active
+     */
+    public static boolean isPreload()
+    {
+        if (Person.PRELOAD == null) {
+            Person.PRELOAD = ConfigProvider.getConfig()
+                            .getOptionalValue("core.user.preload.active", Boolean.class).orElse(false);
+        }
+        return Person.PRELOAD;
+    }
+
+    /**
+     * Read the persons with their attributes, roles, groups, companies and
+     * associations using one statement each (per chunk of ids) and put them
+     * into the caches. The related Roles, Groups, Companies and Associations
+     * are loaded into their caches also.
+     *
+     * @param _ids ids of the persons to read, <code>null</code> to read all
+     *            active persons
+     * @return map of id to person
+     * @throws EFapsException on error
+     */
+    @SuppressFBWarnings("SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE")
+    private static Map<Long, Person> readPersonsFromDB(final List<Long> _ids)
+        throws EFapsException
+    {
+        final Map<Long, Person> ret = new LinkedHashMap<>();
+        final Map<Long, Set<Long>> roles = new HashMap<>();
+        final Map<Long, Set<Long>> allRoles = new HashMap<>();
+        final Map<Long, Set<Long>> groups = new HashMap<>();
+        final Map<Long, Set<Long>> allGroups = new HashMap<>();
+        final Map<Long, Set<Long>> companies = new HashMap<>();
+        final Map<Long, Set<Long>> associations = new HashMap<>();
+        Connection con = null;
+        try {
+            con = Context.getConnection();
+            final SQLSelect select = new SQLSelect()
+                            .column(0, "ID")
+                            .column(0, "UUID")
+                            .column(0, "NAME")
+                            .column(0, "STATUS");
+            for (final AttrName attrName : Person.AttrName.values()) {
+                select.column(0, attrName.sqlColumn);
+            }
+            select.from("V_USERPERSON", 0);
+            if (_ids == null) {
+                select.addPart(SQLPart.WHERE).addColumnPart(0, "STATUS").addPart(SQLPart.EQUAL)
+                                .addBooleanValue(true);
+            }
+            Person.executeQuery(con, select, _ids, rs -> {
+                final Person person = new Person(rs.getLong(1), rs.getString(2), rs.getString(3).trim(),
+                                rs.getBoolean(4));
+                int idx = 5;
+                for (final AttrName attrName : Person.AttrName.values()) {
+                    final String tmp = rs.getString(idx++);
+                    person.setAttrValue(attrName, tmp == null ? null : tmp.trim());
+                }
+                ret.put(person.getId(), person);
+            });
+            final List<Long> ids = _ids == null ? new ArrayList<>(ret.keySet()) : _ids;
+            Person.readMembershipsFromDB(con, "V_USERPERSON2ROLE", ids, roles, allRoles);
+            Person.readMembershipsFromDB(con, "V_USERPERSON2GROUP", ids, groups, allGroups);
+            Person.readMembershipsFromDB(con, "V_USERPERSON2COMPANY", ids, companies, null);
+
+            // an association belongs to a person if the person has its group and its role
+            final Set<Long> assocGroupIds = new HashSet<>();
+            allGroups.values().forEach(assocGroupIds::addAll);
+            final Map<Long, List<long[]>> group2assoc = new HashMap<>();
+            final SQLSelect assocSelect = new SQLSelect()
+                            .column(0, "GROUPID")
+                            .column(0, "ROLEID")
+                            .column(0, "ID")
+                            .from("T_USERASSOC", 0);
+            Person.executeQuery(con, assocSelect, new ArrayList<>(assocGroupIds), "GROUPID", rs -> group2assoc
+                            .computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+                            .add(new long[] { rs.getLong(2), rs.getLong(3) }));
+            for (final Map.Entry<Long, Set<Long>> entry : allGroups.entrySet()) {
+                final Set<Long> personRoles = allRoles.getOrDefault(entry.getKey(), Collections.emptySet());
+                for (final Long groupId : entry.getValue()) {
+                    for (final long[] assoc : group2assoc.getOrDefault(groupId, Collections.emptyList())) {
+                        if (personRoles.contains(assoc[0])) {
+                            associations.computeIfAbsent(entry.getKey(), id -> new HashSet<>()).add(assoc[1]);
+                        }
+                    }
+                }
+            }
+            con.commit();
+        } catch (final SQLException e) {
+            Person.LOG.error("bulk read of persons is not possible", e);
+            throw new EFapsException(Person.class, "readPersonsFromDB.SQLException", e);
+        } finally {
+            try {
+                if (con != null && !con.isClosed()) {
+                    con.close();
+                }
+            } catch (final SQLException e) {
+                throw new CacheReloadException("could not read persons", e);
+            }
+        }
+        // only the login roles are assigned in exclude mode, like getRolesFromDB does
+        final Set<UUID> roleUUIDs = AppAccessHandler.getLoginRoles();
+        final Set<Long> roleIds = new HashSet<>();
+        roles.values().forEach(roleIds::addAll);
+        final Set<Long> loginRoleIds = new HashSet<>();
+        for (final Long roleId : roleIds) {
+            if (Person.isLoginRole(Role.get(roleId), roleUUIDs)) {
+                loginRoleIds.add(roleId);
+            }
+        }
+        final Set<Long> groupIds = new HashSet<>();
+        groups.values().forEach(groupIds::addAll);
+        for (final Long groupId : groupIds) {
+            Group.get(groupId);
+        }
+        final Set<Long> companyIds = new HashSet<>();
+        companies.values().forEach(companyIds::addAll);
+        for (final Long companyId : companyIds) {
+            Company.get(companyId);
+        }
+        final Set<Long> associationIds = new HashSet<>();
+        associations.values().forEach(associationIds::addAll);
+        for (final Long associationId : associationIds) {
+            Association.get(associationId);
+        }
+        for (final Person person : ret.values()) {
+            roles.getOrDefault(person.getId(), Collections.emptySet()).stream()
+                            .filter(loginRoleIds::contains)
+                            .forEach(person.roles::add);
+            person.groups.addAll(groups.getOrDefault(person.getId(), Collections.emptySet()));
+            person.companies.addAll(companies.getOrDefault(person.getId(), Collections.emptySet()));
+            person.associations.addAll(associations.getOrDefault(person.getId(), Collections.emptySet()));
+            Person.cachePerson(person);
+        }
+        Person.LOG.debug("read from DB {} Persons", ret.size());
+        return ret;
+    }
+
+    /**
+     * Read the relations of the given persons to roles, groups or companies.
+     *
+     * @param _con connection to be used
+     * @param _view view of the relation
+     * @param _ids ids of the persons
+     * @param _active map the relations to active user objects are added to
+     * @param _all map all relations are added to, may be <code>null</code>
+     * @throws SQLException on error
+     */
+    private static void readMembershipsFromDB(final Connection _con,
+                                              final String _view,
+                                              final List<Long> _ids,
+                                              final Map<Long, Set<Long>> _active,
+                                              final Map<Long, Set<Long>> _all)
+        throws SQLException
+    {
+        final SQLSelect select = new SQLSelect()
+                        .column(0, "USERABSTRACTFROM")
+                        .column(0, "USERABSTRACTTO")
+                        .column(1, "STATUS")
+                        .from(_view, 0)
+                        .innerJoin("T_USERABSTRACT", 1, "ID", 0, "USERABSTRACTTO");
+        Person.executeQuery(_con, select, _ids, "USERABSTRACTFROM", rs -> {
+            final long personId = rs.getLong(1);
+            final long userObjectId = rs.getLong(2);
+            if (rs.getBoolean(3)) {
+                _active.computeIfAbsent(personId, id -> new HashSet<>()).add(userObjectId);
+            }
+            if (_all != null) {
+                _all.computeIfAbsent(personId, id -> new HashSet<>()).add(userObjectId);
+            }
+        });
+    }
+
+    /**
+     * Execute the given select restricted to the given ids of persons.
+     *
+     * @param _con connection to be used
+     * @param _select select to be executed
+     * @param _ids ids the column "ID" is restricted to, <code>null</code>
+     *            for no restriction
+     * @param _handler handler for the rows
+     * @throws SQLException on error
+     */
+    private static void executeQuery(final Connection _con,
+                                     final SQLSelect _select,
+                                     final List<Long> _ids,
+                                     final RowHandler _handler)
+        throws SQLException
+    {
+        Person.executeQuery(_con, _select, _ids, "ID", _handler);
+    }
+
+    /**
+     * Execute the given select restricted to the given ids. If the ids are
+     * split into chunks (see
+     * {@link org.efaps.db.databases.AbstractDatabase#getIdListStrategy()})
+     * one statement per chunk is executed.
+     *
+     * @param _con connection to be used
+     * @param _select select to be executed
+     * @param _ids ids the column is restricted to, <code>null</code> for no
+     *            restriction
+     * @param _column column the ids are compared with
+     * @param _handler handler for the rows
+     * @throws SQLException on error
+     */
+    private static void executeQuery(final Connection _con,
+                                     final SQLSelect _select,
+                                     final List<Long> _ids,
+                                     final String _column,
+                                     final RowHandler _handler)
+        throws SQLException
+    {
+        if (_ids == null || !_ids.isEmpty()) {
+            if (_ids != null) {
+                _select.addPart(SQLPart.WHERE).addColumnPart(0, _column).addIdListPart(_ids);
+            }
+            final Optional<IdList> idList = _select.getIdListPart();
+            final int chunks = idList.isPresent() ? idList.get().getChunkCount() : 1;
+            try (Statement stmt = _con.createStatement()) {
+                for (int i = 0; i < chunks; i++) {
+                    if (idList.isPresent()) {
+                        idList.get().setChunk(i);
+                    }
+                    final String sql = _select.getSQL();
+                    Person.LOG.debug("Executing SQL: {}", sql);
+                    try (ResultSet rs = stmt.executeQuery(sql)) {
+                        while (rs.next()) {
+                            _handler.handle(rs);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Reset a person. Meaning ti will be removed from all Caches.
      *
@@ -1930,4 +2296,21 @@ public final class Person
         ret.assignToJAASSystem(_jaasSystem, _jaasKey);
         return ret;
     }
+
+    /**
+     * Handles one row of a ResultSet.
+     */
+    @FunctionalInterface
+    private interface RowHandler
+    {
+
+        /**
+         * Handle the current row.
+         *
+         * @param _rs the ResultSet positioned on the row
+         * @throws SQLException on error
+         */
+        void handle(ResultSet _rs)
+            throws SQLException;
+    }
 }
@@ -38,6 +38,7 @@ import org.efaps.beans.valueparser.ParseException;
 import org.efaps.beans.valueparser.ValueParser;
 import org.efaps.ci.CIAttribute;
 import org.efaps.ci.CIMsgPhrase;
+import org.efaps.db.print.LinkFromPlanner;
 import org.efaps.db.print.OneSelect;
 import org.efaps.db.print.Phrase;
 import org.efaps.db.transaction.ConnectionResource;
@@ -843,7 +844,9 @@ public abstract class AbstractPrintQuery
             if (getInstanceList().size() > 0) {
                 ret = executeOneCompleteStmt(createSQLStatement(), this.allSelects);
             }
-            if (ret) {
+            if (ret && LinkFromPlanner.isActive()) {
+                LinkFromPlanner.execute(this.allSelects);
+            } else if (ret) {
                 for (final OneSelect onesel : this.allSelects) {
                     if (onesel.getFromSelect() != null) {
                         onesel.getFromSelect().execute(onesel);
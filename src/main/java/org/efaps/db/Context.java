@@ -201,6 +201,11 @@ public final class Context
      */
     private final String requestId;
 
+    /**
+     * Cache for the results of statements during this context.
+     */
+    private final RequestCache requestCache = new RequestCache();
+
     /** The connections. */
     private ConnectionResource connectionResource;
 
@@ -286,7 +291,8 @@ public final class Context
     public void close()
     {
         Context.LOG.debug("close context for {}", person);
-        QueryCache.cleanByKey(getRequestId());
+        QueryCache.cleanRequest(getRequestId());
+        requestCache.clear();
         if (getThreadLocal().get() != null && getThreadLocal().get() == this) {
             getThreadLocal().set(null);
         }
@@ -418,6 +424,16 @@ public final class Context
         return requestId;
     }
 
+    /**
+     * Getter method for the instance variable {@link #requestCache}.
+     *
+     * @return value of instance variable {@link #requestCache}
+     */
+    public RequestCache getRequestCache()
+    {
+        return requestCache;
+    }
+
     /**
      * Returns true if request attributes maps one or more keys to the specified
      * object. More formally, returns <i>true</i> if and only if the request
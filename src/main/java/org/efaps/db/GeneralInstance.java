@@ -18,13 +18,19 @@ package org.efaps.db;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.efaps.admin.EFapsSystemConfiguration;
 import org.efaps.admin.KernelSettings;
+import org.efaps.admin.datamodel.Type;
 import org.efaps.db.store.AbstractStoreResource;
 import org.efaps.db.store.JCRStoreResource;
 import org.efaps.db.store.JDBCStoreResource;
@@ -242,4 +248,120 @@ public final class GeneralInstance
         }
         return ret;
     }
+
+    /**
+     * Bulk variant of {@link #getDeleteDefintion(Instance, ConnectionResource)}.
+     * The ids of the GeneralInstances are retrieved with one query per type
+     * and chunk instead of one query per instance.
+     *
+     * @param instances instances the DeleteDefintions are wanted for
+     * @param connection Connection to be used
+     * @param chunkSize maximum number of instance ids per query
+     * @return List of DeleteDefintion
+     * @throws EFapsException on error
+     */
+    public static List<DeleteDefintion> getDeleteDefintions(final Collection<Instance> instances,
+                                                            final ConnectionResource connection,
+                                                            final int chunkSize)
+        throws EFapsException
+    {
+        final List<DeleteDefintion> ret = new ArrayList<>();
+        final Map<Type, List<Instance>> type2instances = instances.stream()
+                        .filter(instance -> instance.isValid() && instance.getType().isGeneralInstance()
+                                        && !instance.getType().isHistory())
+                        .collect(Collectors.groupingBy(Instance::getType, LinkedHashMap::new, Collectors.toList()));
+        for (final Entry<Type, List<Instance>> entry : type2instances.entrySet()) {
+            final Map<Long, Instance> id2instance = new LinkedHashMap<>();
+            entry.getValue().forEach(instance -> id2instance.put(instance.getId(), instance));
+            final List<Long> ids = new ArrayList<>(id2instance.keySet());
+            for (int i = 0; i < ids.size(); i = i + chunkSize) {
+                final List<Long> chunk = ids.subList(i, Math.min(i + chunkSize, ids.size()));
+                final String sql = new SQLSelect()
+                                .column(GeneralInstance.IDCOLUMN)
+                                .column(GeneralInstance.EXSYSIDCOLUMN)
+                                .column(GeneralInstance.EXIDCOLUMN)
+                                .column(GeneralInstance.ISIDCOLUMN)
+                                .from(GeneralInstance.TABLENAME, 0)
+                                .addPart(SQLPart.WHERE)
+                                .addColumnPart(0, GeneralInstance.ISTYPECOLUMN).addPart(SQLPart.EQUAL)
+                                .addValuePart(entry.getKey().getId())
+                                .addPart(SQLPart.AND)
+                                .addColumnPart(0, GeneralInstance.ISIDCOLUMN).addPart(SQLPart.IN)
+                                .addPart(SQLPart.PARENTHESIS_OPEN)
+                                .addValuePart(chunk.stream().map(String::valueOf)
+                                                .collect(Collectors.joining(SQLPart.COMMA.getDefaultValue())))
+                                .addPart(SQLPart.PARENTHESIS_CLOSE)
+                                .getSQL();
+                try (Statement stmt = connection.createStatement()) {
+                    final ResultSet rs = stmt.executeQuery(sql);
+                    while (rs.next()) {
+                        final Instance instance = id2instance.get(rs.getLong(4));
+                        if (instance != null) {
+                            instance.setGeneralId(rs.getLong(1));
+                            instance.setExchangeSystemId(rs.getLong(2));
+                            instance.setExchangeId(rs.getLong(3));
+                            instance.setGeneralised(true);
+                        }
+                    }
+                    rs.close();
+                } catch (final SQLException e) {
+                    GeneralInstance.LOG.error("getDeleteDefintions", e);
+                    throw new EFapsException(GeneralInstance.class, "getDeleteDefintions", e);
+                }
+            }
+            final boolean store = entry.getKey().getStoreId() > 0;
+            for (final Instance instance : entry.getValue()) {
+                final long id = instance.getGeneralId();
+                if (id > 0) {
+                    if (store) {
+                        ret.add(new DeleteDefintion(JDBCStoreResource.TABLENAME_STORE, "ID", id));
+                        ret.add(new DeleteDefintion(JCRStoreResource.TABLENAME_STORE, "ID", id));
+                        ret.add(new DeleteDefintion(AbstractStoreResource.TABLENAME_STORE, "ID", id));
+                    }
+                    ret.add(new DeleteDefintion(GeneralInstance.TABLENAME, "ID", id));
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Bulk variant of {@link #insert(Instance, ConnectionResource)} using JDBC
+     * batching.
+     *
+     * @param instances Instances the GeneralInstances will be created for.
+     * @param connection Connection the insert will be executed in
+     * @throws EFapsException on error
+     */
+    public static void insert(final List<Instance> instances,
+                              final ConnectionResource connection)
+        throws EFapsException
+    {
+        final List<Instance> generalInstances = instances.stream()
+                        .filter(instance -> instance.isValid() && instance.getType().isGeneralInstance())
+                        .collect(Collectors.toList());
+        if (!generalInstances.isEmpty()) {
+            try {
+                final List<SQLInsert> inserts = new ArrayList<>();
+                for (final Instance instance : generalInstances) {
+                    final SQLInsert insert = Context.getDbType().newInsert(GeneralInstance.TABLENAME,
+                                    GeneralInstance.IDCOLUMN,
+                                    true);
+                    insert.column(GeneralInstance.ISTYPECOLUMN, instance.getType().getId());
+                    insert.column(GeneralInstance.ISIDCOLUMN, instance.getId());
+                    insert.column(GeneralInstance.EXIDCOLUMN, instance.getExchangeId(false));
+                    insert.column(GeneralInstance.EXSYSIDCOLUMN, instance.getExchangeSystemId(false));
+                    inserts.add(insert);
+                }
+                final List<Long> ids = SQLInsert.executeBatch(connection, inserts);
+                for (int i = 0; i < generalInstances.size(); i++) {
+                    generalInstances.get(i).setGeneralId(ids.get(i));
+                    generalInstances.get(i).setGeneralised(true);
+                }
+            } catch (final SQLException e) {
+                GeneralInstance.LOG.error("executeBatch", e);
+                throw new EFapsException(GeneralInstance.class, "create", e);
+            }
+        }
+    }
 }
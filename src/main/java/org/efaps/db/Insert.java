@@ -28,6 +28,7 @@ import java.util.UUID;
 import org.apache.commons.collections4.iterators.ReverseListIterator;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.efaps.admin.access.AccessTypeEnums;
+import org.efaps.admin.access.user.AccessMatrix;
 import org.efaps.admin.datamodel.Attribute;
 import org.efaps.admin.datamodel.AttributeType;
 import org.efaps.admin.datamodel.SQLTable;
@@ -236,6 +237,7 @@ public class Insert
                 }
             }
             Queue.registerUpdate(getInstance());
+            AccessMatrix.registerUpdate(getInstance());
         } finally {
 
         }
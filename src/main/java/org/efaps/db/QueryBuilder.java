@@ -28,7 +28,6 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.efaps.admin.datamodel.Attribute;
@@ -241,28 +240,16 @@ public class QueryBuilder
         final List<Type> allType = new ArrayList<>();
         if (types.isEmpty()) {
             final Type type = Type.get(typeUUID);
-            if (type.isAbstract()) {
-                final List<Type> childTypes = type.getChildTypes()
-                                .stream()
-                                .filter(t -> !t.isAbstract())
-                                .collect(Collectors.toList());
-                allType.addAll(childTypes);
-            } else {
-                allType.add(type);
+            for (final long typeId : type.getMetadata().getConcreteTypeIds()) {
+                allType.add(Type.get(typeId));
             }
         }
         for (final UUID type : types) {
             allType.add(Type.get(type));
         }
         for (final Type type : _type) {
-            if (type.isAbstract()) {
-                final List<Type> childTypes = type.getChildTypes()
-                                .stream()
-                                .filter(t -> !t.isAbstract())
-                                .collect(Collectors.toList());
-                allType.addAll(childTypes);
-            } else {
-                allType.add(type);
+            for (final long typeId : type.getMetadata().getConcreteTypeIds()) {
+                allType.add(Type.get(typeId));
             }
         }
 
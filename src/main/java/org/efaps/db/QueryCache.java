@@ -15,6 +15,9 @@
  */
 package org.efaps.db;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.util.cache.InfinispanCache;
 import org.efaps.util.cache.NoOpCache;
@@ -51,6 +54,13 @@ public final class QueryCache
      */
     private static NoOpQueryCache NOOP;
 
+    /**
+     * Keys entries were added for by this JVM, so that
+     * {@link #cleanRequest(String)} only queries the cache if there is
+     * something to clean.
+     */
+    private static final Set<String> KEYS = ConcurrentHashMap.newKeySet();
+
     private static boolean INIT;
 
     private static boolean ACTIVE;
@@ -75,6 +85,7 @@ public final class QueryCache
         } else {
             final var sqlCache = InfinispanCache.get().<QueryKey, Object>getCache(QueryCache.CACHE);
             sqlCache.clear();
+            QueryCache.KEYS.clear();
             if (!INIT) {
                 INIT = true;
                 //sqlCache.addListener(new CacheLogListener(QueryCache.LOG));
@@ -88,6 +99,7 @@ public final class QueryCache
     public static void cleanByKey(final String _key)
     {
         if (ACTIVE) {
+            QueryCache.KEYS.remove(_key);
             final var cache = get();
             if (!cache.isEmpty()) {
                 final var query = cache.query("DELETE FROM org.efaps.db.QueryValue q WHERE q.key = :key");
@@ -98,6 +110,19 @@ public final class QueryCache
         }
     }
 
+    /**
+     * Clean the entries of a request. Other than {@link #cleanByKey(String)}
+     * the cache is only queried if entries were added for the request.
+     *
+     * @param _requestId id of the request
+     */
+    public static void cleanRequest(final String _requestId)
+    {
+        if (QueryCache.KEYS.contains(_requestId)) {
+            QueryCache.cleanByKey(_requestId);
+        }
+    }
+
     /**
      * @param _cacheDef cacheDefinition
      * @param _querykey QueryKey
@@ -117,6 +142,7 @@ public final class QueryCache
             } else {
                 cache.put(_querykey, _object);
             }
+            QueryCache.KEYS.add(_querykey.getKey());
             LOG.debug("Added entry for {}", _querykey);
         }
     }
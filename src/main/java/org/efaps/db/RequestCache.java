@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache for the results of statements that belongs to one {@link Context}
+ * and is dropped when the context is closed. Used for statements flagged
+ * with <code>REQCACHED</code>, that are only cached for the current request
+ * and therefore do not need the {@link QueryCache}, that is shared and
+ * serializes its entries. Counts the hits and misses per statement.
+ *
+ * @author The eFaps Team
+ */
+public final class RequestCache
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(RequestCache.class);
+
+    /**
+     * Cached rows by statement.
+     */
+    private final Map<String, List<Object[]>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Hits and misses by statement.
+     */
+    private final Map<String, Statistic> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the cached rows of a statement.
+     *
+     * @param _stmt the statement including its parameters
+     * @return the rows, <code>null</code> if not cached
+     */
+    public List<Object[]> get(final String _stmt)
+    {
+        final List<Object[]> ret = entries.get(_stmt);
+        final Statistic statistic = statistics.computeIfAbsent(_stmt, stmt -> new Statistic());
+        if (ret == null) {
+            statistic.misses.increment();
+        } else {
+            statistic.hits.increment();
+        }
+        return ret;
+    }
+
+    /**
+     * Cache the rows of a statement.
+     *
+     * @param _stmt the statement including its parameters
+     * @param _rows the rows
+     */
+    public void put(final String _stmt,
+                    final List<Object[]> _rows)
+    {
+        entries.put(_stmt, _rows);
+    }
+
+    /**
+     * Gets the number of hits for a statement.
+     *
+     * @param _stmt the statement including its parameters
+     * @return the number of hits
+     */
+    public long getHits(final String _stmt)
+    {
+        final Statistic statistic = statistics.get(_stmt);
+        return statistic == null ? 0 : statistic.hits.sum();
+    }
+
+    /**
+     * Gets the number of misses for a statement.
+     *
+     * @param _stmt the statement including its parameters
+     * @return the number of misses
+     */
+    public long getMisses(final String _stmt)
+    {
+        final Statistic statistic = statistics.get(_stmt);
+        return statistic == null ? 0 : statistic.misses.sum();
+    }
+
+    /**
+     * Drop all entries and counters.
+     */
+    public void clear()
+    {
+        if (RequestCache.LOG.isDebugEnabled()) {
+            statistics.forEach((stmt, statistic) -> RequestCache.LOG.debug("{} hits, {} misses for: {}",
+                            statistic.hits.sum(), statistic.misses.sum(), stmt));
+        }
+        entries.clear();
+        statistics.clear();
+    }
+
+    /**
+     * Hits and misses of one statement.
+     */
+    private static final class Statistic
+    {
+
+        /** The hits. */
+        private final LongAdder hits = new LongAdder();
+
+        /** The misses. */
+        private final LongAdder misses = new LongAdder();
+    }
+}
@@ -152,14 +152,8 @@ public class Update
     protected void addAlwaysUpdateAttributes()
         throws EFapsException
     {
-        final Iterator<?> iter = getInstance().getType().getAttributes().entrySet().iterator();
-        while (iter.hasNext()) {
-            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) iter.next();
-            final Attribute attr = (Attribute) entry.getValue();
-            final AttributeType attrType = attr.getAttributeType();
-            if (attrType.isAlwaysUpdate()) {
-                addInternal(attr, false, (Object[]) null);
-            }
+        for (final Attribute attr : getInstance().getType().getMetadata().getUpdateAttributes()) {
+            addInternal(attr, false, (Object[]) null);
         }
     }
 
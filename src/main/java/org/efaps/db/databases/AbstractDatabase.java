@@ -116,6 +116,20 @@ public abstract class AbstractDatabase<T extends AbstractDatabase<?>>
         BOOLEAN,
     }
 
+    /**
+     * The enumeration defines how a list of ids is passed to the database
+     * (e.g. "where ID in (...)" for a list print).
+     */
+    public enum IdListStrategy
+    {
+        /** all ids as literals in one in clause. */
+        LITERAL,
+        /** all ids as one bound array parameter. */
+        ARRAY,
+        /** ids split in chunks of at most {@link AbstractDatabase#getMaxExpressions()}. */
+        CHUNKED,
+    }
+
     /**
      * The map stores the mapping between the column types used in eFaps and the
      * database specific column types.
@@ -584,6 +598,32 @@ public abstract class AbstractDatabase<T extends AbstractDatabase<?>>
                                       String _name)
         throws SQLException;
 
+    /**
+     * Method to reserve a block of next values from a given sequence in this
+     * database. The values are reserved in the database, so no other caller
+     * gets them, also not on another node. The values are not necessarily
+     * consecutive and the block can be smaller than <code>_size</code>. The
+     * default implementation calls
+     * {@link #nextSequence(ConnectionResource, String)} for each value.
+     *
+     * @param _con SQL connection
+     * @param _name name of the sequence
+     * @param _size number of values
+     * @return the values in ascending order, at least one
+     * @throws SQLException on error
+     */
+    public long[] nextSequenceBlock(final ConnectionResource _con,
+                                    final String _name,
+                                    final int _size)
+        throws SQLException
+    {
+        final long[] ret = new long[_size];
+        for (int i = 0; i < _size; i++) {
+            ret[i] = nextSequence(_con, _name);
+        }
+        return ret;
+    }
+
     /**
      * Method to define current value for sequence <code>_name</code>. The next
      * time the value for sequence <code>_name</code> will return
@@ -1027,6 +1067,47 @@ public abstract class AbstractDatabase<T extends AbstractDatabase<?>>
         return -1;
     }
 
+    /**
+     * The strategy used to pass a list of ids to the database. Databases that
+     * have a maximum number of expressions chunk the list, all others pass
+     * it as one list. {@link IdListStrategy#ARRAY} is only used for bind
+     * parameters, as literal the ids are passed as one list.
+     *
+     * @return strategy for lists of ids
+     */
+    public IdListStrategy getIdListStrategy()
+    {
+        return getMaxExpressions() > 0 ? IdListStrategy.CHUNKED : IdListStrategy.LITERAL;
+    }
+
+    /**
+     * The SQL type name of the elements of an array used to bind a list of
+     * ids as one parameter.
+     *
+     * @return SQL type name
+     * @see #getIdListStrategy()
+     */
+    public String getIdArrayType()
+    {
+        return "bigint";
+    }
+
+    /**
+     * Append the comparison of a column against a list of ids as bound array
+     * parameter. E.g. "= ANY (?)".
+     *
+     * @param _cmd the StringBuilder to append to
+     * @see #getIdListStrategy()
+     */
+    public void appendIdArrayComparison(final StringBuilder _cmd)
+    {
+        _cmd.append(getSQLPart(SQLPart.EQUAL)).append(" ")
+            .append(getSQLPart(SQLPart.ANY)).append(" ")
+            .append(getSQLPart(SQLPart.PARENTHESIS_OPEN))
+            .append(getSQLPart(SQLPart.PARAMETER))
+            .append(getSQLPart(SQLPart.PARENTHESIS_CLOSE));
+    }
+
     /**
      * A new id for given column of a SQL table is returned (e.g. with
      * sequences). This abstract class always throws a SQLException, because for
@@ -1109,6 +1190,18 @@ public abstract class AbstractDatabase<T extends AbstractDatabase<?>>
         return true;
     }
 
+    /**
+     * Returns <i>true</i> if the database executes more than one select
+     * statement separated by semicolon with one call and returns one result
+     * set for each of them.
+     *
+     * @return <i>false</i> by default
+     */
+    public boolean supportsMultipleResultSets()
+    {
+        return false;
+    }
+
     /**
      * @param _name name of the constraint as defined
      * @return name as used by the database
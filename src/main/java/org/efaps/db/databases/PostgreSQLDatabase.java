@@ -428,6 +428,15 @@ public class PostgreSQLDatabase
         return true;
     }
 
+    /**
+     * @return always <i>true</i> because supported by PostgreSQL database
+     */
+    @Override
+    public boolean supportsMultipleResultSets()
+    {
+        return true;
+    }
+
     /**
      * <p>Creates sequence <code>_name</code> in PostgreSQL. As name of the
      * sequence the lower case of <code>_name</code> is used.</p>
@@ -551,6 +560,64 @@ public class PostgreSQLDatabase
         return ret;
     }
 
+    /**
+     * Reserves the block with one <code>NEXTVAL</code> on a sequence that
+     * increments by the size of the block (hi/lo): the returned value and the
+     * following values up to the increment belong to the caller, the next
+     * <code>NEXTVAL</code> of any node starts after them. The increment of
+     * the sequence is read in the same statement. If it differs from
+     * <code>_size</code>, the values of the current increment are returned
+     * and the sequence is altered to increment by <code>_size</code>.
+     *
+     * @param _con SQL connection
+     * @param _name name of the sequence
+     * @param _size number of values
+     * @return the values in ascending order
+     * @throws SQLException on error
+     */
+    @Override
+    @SuppressFBWarnings("SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE")
+    public long[] nextSequenceBlock(final ConnectionResource _con,
+                                    final String _name,
+                                    final int _size)
+        throws SQLException
+    {
+        final long hi;
+        final long increment;
+        final String cmd = new StringBuilder()
+                .append("SELECT NEXTVAL('\"").append(_name.toLowerCase()).append("\"'), increment_by")
+                .append(" FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?")
+                .toString();
+        final PreparedStatement stmt = _con.prepareStatement(cmd);
+        try {
+            stmt.setString(1, _name.toLowerCase());
+            final ResultSet resultset = stmt.executeQuery();
+            if (resultset.next()) {
+                hi = resultset.getLong(1);
+                increment = Math.max(1, resultset.getLong(2));
+            } else {
+                throw new SQLException("fetching " + _size + " values from sequence '" + _name + "' failed");
+            }
+            resultset.close();
+        } finally {
+            stmt.close();
+        }
+        if (increment != _size) {
+            final Statement alter = _con.createStatement();
+            try {
+                alter.execute("ALTER SEQUENCE \"" + _name.toLowerCase() + "\" INCREMENT BY " + _size);
+            } finally {
+                alter.close();
+            }
+            PostgreSQLDatabase.LOG.info("Sequence '{}' increments by {}", _name, _size);
+        }
+        final long[] ret = new long[(int) Math.min(increment, _size)];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = hi + i;
+        }
+        return ret;
+    }
+
     /**
      * <p>Defines new <code>_value</code> for sequence <code>_name</code>.
      * Because it could be that the new <code>_value</code> is lower than the
@@ -702,4 +769,26 @@ public class PostgreSQLDatabase
     {
         return PostgreSQLDatabase.ROWPROCESSOR;
     }
+
+    /**
+     * PostgreSQL binds a list of ids as one array parameter
+     * ("ID = any (?)") so that the statement is independent of the number
+     * of ids.
+     *
+     * @return {@link IdListStrategy#ARRAY}
+     */
+    @Override
+    public IdListStrategy getIdListStrategy()
+    {
+        return IdListStrategy.ARRAY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIdArrayType()
+    {
+        return "int8";
+    }
 }
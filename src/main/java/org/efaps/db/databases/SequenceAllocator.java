@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.databases;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.efaps.db.transaction.ConnectionResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands out values of database sequences from blocks that are reserved with
+ * one round trip by
+ * {@link AbstractDatabase#nextSequenceBlock(ConnectionResource, String, int)}.
+ * The blocks are reserved in the database (for PostgreSQL the sequence
+ * increments by the block size), so the nodes of a cluster never hand out
+ * the same value. Values of a reserved block that are not used before the
+ * JVM stops are lost. Sequences that must not have such gaps must be used
+ * with a block size of one, which does not reserve anything.
+ * {@link #reset(String)} only drops the block of the local JVM: after the
+ * sequence was set to a new value, the other nodes still hand out the rest
+ * of their current block.
+ *
+ * @author The eFaps Team
+ */
+public final class SequenceAllocator
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SequenceAllocator.class);
+
+    /**
+     * Reserved blocks by name of the sequence.
+     */
+    private static final Map<String, Block> BLOCKS = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new sequence allocator.
+     */
+    private SequenceAllocator()
+    {
+    }
+
+    /**
+     * Get the next value of the given sequence.
+     *
+     * @param _db the database
+     * @param _con SQL connection used if a new block must be reserved
+     * @param _name name of the sequence
+     * @param _blockSize number of values reserved at once
+     * @return the next value
+     * @throws SQLException on error
+     */
+    public static long next(final AbstractDatabase<?> _db,
+                            final ConnectionResource _con,
+                            final String _name,
+                            final int _blockSize)
+        throws SQLException
+    {
+        final long ret;
+        if (_blockSize > 1) {
+            ret = SequenceAllocator.BLOCKS.computeIfAbsent(_name, name -> new Block()).next(_db, _con, _name,
+                            _blockSize);
+        } else {
+            ret = _db.nextSequence(_con, _name);
+        }
+        return ret;
+    }
+
+    /**
+     * Drop the reserved values of the given sequence, e.g. because the
+     * sequence was set to a new value. Only the block of the local JVM is
+     * dropped.
+     *
+     * @param _name name of the sequence
+     */
+    public static void reset(final String _name)
+    {
+        SequenceAllocator.BLOCKS.remove(_name);
+    }
+
+    /**
+     * The reserved values of one sequence.
+     */
+    private static final class Block
+    {
+
+        /** The reserved values. */
+        private long[] values = new long[0];
+
+        /** Index of the next value. */
+        private int idx;
+
+        /**
+         * @param _db the database
+         * @param _con SQL connection
+         * @param _name name of the sequence
+         * @param _blockSize number of values reserved at once
+         * @return the next value
+         * @throws SQLException on error
+         */
+        private synchronized long next(final AbstractDatabase<?> _db,
+                                       final ConnectionResource _con,
+                                       final String _name,
+                                       final int _blockSize)
+            throws SQLException
+        {
+            if (idx >= values.length) {
+                values = _db.nextSequenceBlock(_con, _name, _blockSize);
+                idx = 0;
+                LOG.debug("Reserved {} values for sequence '{}'", values.length, _name);
+            }
+            return values[idx++];
+        }
+    }
+}
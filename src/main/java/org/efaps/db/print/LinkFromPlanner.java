@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.print;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.dbutils.handlers.ArrayListHandler;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.db.Context;
+import org.efaps.db.transaction.ConnectionResource;
+import org.efaps.util.EFapsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the {@link LinkFromSelect LinkFromSelects} of a print level by
+ * level instead of one after the other. All statements of a level are
+ * created first, identical statements are executed only once and, if the
+ * database supports it, all statements of a level are sent with one round
+ * trip. A chain of <code>linkfrom</code> selects therefore needs one round
+ * trip per nesting level, independent of the number of selects. Activated by
+ * "core.print.linkfrom.planner" (defaults to false).
+ *
+ * @author The eFaps Team
+ */
+public final class LinkFromPlanner
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(LinkFromPlanner.class);
+
+    /**
+     * Is the planner active.
+     */
+    private static Boolean ACTIVE;
+
+    /**
+     * Instantiates a new planner.
+     */
+    private LinkFromPlanner()
+    {
+    }
+
+    /**
+     * Execute the LinkFromSelects of the given selects and of all nested
+     * levels.
+     *
+     * @param _oneSelects the selects of the main query
+     * @throws EFapsException on error
+     */
+    public static void execute(final List<OneSelect> _oneSelects)
+        throws EFapsException
+    {
+        List<Step> level = new ArrayList<>();
+        for (final OneSelect onesel : _oneSelects) {
+            if (onesel.getFromSelect() != null) {
+                level.add(new Step(onesel.getFromSelect(), onesel));
+            }
+        }
+        int depth = 0;
+        while (!level.isEmpty()) {
+            depth++;
+            final Map<Step, String> step2sql = new LinkedHashMap<>();
+            final Map<String, List<Object[]>> sql2rows = new LinkedHashMap<>();
+            for (final Step step : level) {
+                final String sql = step.fromSelect().createSQLStatement(step.parent());
+                step2sql.put(step, sql);
+                final List<Object[]> cached = step.fromSelect().getCachedRows(sql);
+                if (cached != null || !sql2rows.containsKey(sql)) {
+                    sql2rows.put(sql, cached);
+                }
+            }
+            LinkFromPlanner.fetch(sql2rows);
+            LOG.debug("Executed linkfrom level {} with {} selects in {} statements", depth, level.size(),
+                            sql2rows.size());
+
+            final List<Step> next = new ArrayList<>();
+            for (final Map.Entry<Step, String> entry : step2sql.entrySet()) {
+                final LinkFromSelect fromSelect = entry.getKey().fromSelect();
+                final List<Object[]> rows = sql2rows.get(entry.getValue());
+                fromSelect.cacheRows(entry.getValue(), rows);
+                if (fromSelect.setResult(rows)) {
+                    for (final OneSelect onesel : fromSelect.getAllSelects()) {
+                        if (onesel.getFromSelect() != null && !onesel.getFromSelect().equals(fromSelect)) {
+                            next.add(new Step(onesel.getFromSelect(), onesel));
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+    }
+
+    /**
+     * Fetch the rows for all statements that do not have rows yet.
+     *
+     * @param _sql2rows mapping of statement to rows
+     * @throws EFapsException on error
+     */
+    private static void fetch(final Map<String, List<Object[]>> _sql2rows)
+        throws EFapsException
+    {
+        final List<String> sqls = new ArrayList<>();
+        _sql2rows.forEach((sql, rows) -> {
+            if (rows == null) {
+                sqls.add(sql);
+            }
+        });
+        if (!sqls.isEmpty()) {
+            try {
+                final ConnectionResource con = Context.getThreadContext().getConnectionResource();
+                final ArrayListHandler handler = new ArrayListHandler(Context.getDbType().getRowProcessor());
+                final Statement stmt = con.createStatement();
+                try {
+                    if (sqls.size() > 1 && Context.getDbType().supportsMultipleResultSets()) {
+                        final String sql = String.join(";\n", sqls);
+                        LOG.debug("Executing SQL: {}", sql);
+                        boolean isResultSet = stmt.execute(sql);
+                        for (final String current : sqls) {
+                            while (!isResultSet) {
+                                if (stmt.getUpdateCount() == -1) {
+                                    throw new SQLException("Missing result for: " + current);
+                                }
+                                isResultSet = stmt.getMoreResults();
+                            }
+                            final ResultSet rs = stmt.getResultSet();
+                            _sql2rows.put(current, handler.handle(rs));
+                            rs.close();
+                            isResultSet = stmt.getMoreResults();
+                        }
+                    } else {
+                        for (final String sql : sqls) {
+                            LOG.debug("Executing SQL: {}", sql);
+                            final ResultSet rs = stmt.executeQuery(sql);
+                            _sql2rows.put(sql, handler.handle(rs));
+                            rs.close();
+                        }
+                    }
+                } finally {
+                    stmt.close();
+                }
+            } catch (final SQLException e) {
+                throw new EFapsException(LinkFromPlanner.class, "fetch", e);
+            }
+        }
+    }
+
+    /**
+     * Is the planner active.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        if (LinkFromPlanner.ACTIVE == null) {
+            LinkFromPlanner.ACTIVE = ConfigProvider.getConfig()
+                            .getOptionalValue("core.print.linkfrom.planner", Boolean.class).orElse(false);
+        }
+        return LinkFromPlanner.ACTIVE;
+    }
+
+    /**
+     * One LinkFromSelect and the select it gets its ids from.
+     *
+     * @param fromSelect the LinkFromSelect
+     * @param parent the select it gets its ids from
+     */
+    private record Step(LinkFromSelect fromSelect,
+                        OneSelect parent)
+    {
+    }
+}
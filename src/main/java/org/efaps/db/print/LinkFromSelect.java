@@ -170,7 +170,7 @@ public class LinkFromSelect
      * @return String containing the SQL statement
      * @throws EFapsException on error
      */
-    private String createSQLStatement(final OneSelect _parentOnesel)
+    String createSQLStatement(final OneSelect _parentOnesel)
         throws EFapsException
     {
         final Attribute attr = this.type.getAttribute(this.attrName);
@@ -276,20 +276,8 @@ public class LinkFromSelect
         ConnectionResource con = null;
         try {
             LinkFromSelect.LOG.debug("Executing SQLL: {}", _complStmt);
-            List<Object[]> rows = null;
-            boolean cached = false;
-            if (isCacheEnabled()) {
-                final QueryKey querykey = QueryKey.get(getKey(), _complStmt);
-                final var cache = QueryCache.get();
-                if (cache.containsKey(querykey)) {
-                    final var queryValue = cache.get(querykey);
-                    if (queryValue.getContent() instanceof List) {
-                        rows = (List<Object[]>) queryValue.getContent();
-                    }
-                    cached = true;
-                }
-            }
-            if (!cached) {
+            List<Object[]> rows = getCachedRows(_complStmt);
+            if (rows == null) {
                 con = Context.getThreadContext().getConnectionResource();
                 final Statement stmt = con.createStatement();
 
@@ -298,25 +286,94 @@ public class LinkFromSelect
                 rows = handler.handle(rs);
                 rs.close();
                 stmt.close();
-                if (isCacheEnabled()) {
-                    final var querykey = QueryKey.get(getKey(), _complStmt);
-                    final var queryvalue = QueryValue.get(getKey(), rows);
-                    final var cache = QueryCache.get();
-                    cache.put(querykey, queryvalue);
-                }
-            }
-            for (final Object[] row : rows) {
-                for (final OneSelect onesel : _oneSelects) {
-                    onesel.addObject(row);
-                }
-                ret = true;
+                cacheRows(_complStmt, rows);
             }
+            ret = addRows(rows, _oneSelects);
         } catch (final SQLException e) {
             throw new EFapsException(InstanceQuery.class, "executeOneCompleteStmt", e);
         }
         return ret;
     }
 
+    /**
+     * Gets the rows for the given statement from the QueryCache.
+     *
+     * @param _complStmt the statement
+     * @return the rows, <code>null</code> if not cached
+     */
+    @SuppressWarnings("unchecked")
+    List<Object[]> getCachedRows(final String _complStmt)
+    {
+        List<Object[]> ret = null;
+        if (isCacheEnabled()) {
+            final QueryKey querykey = QueryKey.get(getKey(), _complStmt);
+            final var cache = QueryCache.get();
+            if (cache.containsKey(querykey)) {
+                final var queryValue = cache.get(querykey);
+                ret = queryValue.getContent() instanceof List ? (List<Object[]>) queryValue.getContent()
+                                : new ArrayList<>();
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Put the rows for the given statement into the QueryCache.
+     *
+     * @param _complStmt the statement
+     * @param _rows the rows
+     */
+    void cacheRows(final String _complStmt,
+                   final List<Object[]> _rows)
+    {
+        if (isCacheEnabled()) {
+            final var querykey = QueryKey.get(getKey(), _complStmt);
+            final var queryvalue = QueryValue.get(getKey(), _rows);
+            final var cache = QueryCache.get();
+            cache.put(querykey, queryvalue);
+        }
+    }
+
+    /**
+     * Add the rows to the given selects.
+     *
+     * @param _rows the rows
+     * @param _oneSelects the selects
+     * @return true if there was at least one row
+     * @throws SQLException on error
+     */
+    boolean addRows(final List<Object[]> _rows,
+                    final List<OneSelect> _oneSelects)
+        throws SQLException
+    {
+        boolean ret = false;
+        for (final Object[] row : _rows) {
+            for (final OneSelect onesel : _oneSelects) {
+                onesel.addObject(row);
+            }
+            ret = true;
+        }
+        return ret;
+    }
+
+    /**
+     * Set the result of an execution done by the {@link LinkFromPlanner}.
+     *
+     * @param _rows the rows
+     * @return true if there was at least one row
+     * @throws EFapsException on error
+     */
+    boolean setResult(final List<Object[]> _rows)
+        throws EFapsException
+    {
+        try {
+            this.hasResult = addRows(_rows, getAllSelects());
+        } catch (final SQLException e) {
+            throw new EFapsException(LinkFromSelect.class, "setResult", e);
+        }
+        return this.hasResult;
+    }
+
     /**
      * Getter method for instance variable {@link #oneSelect}.
      *
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.stmt;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.efaps.admin.event.EventType;
+import org.efaps.db.Instance;
+import org.efaps.db.stmt.runner.StmtRunner;
+import org.efaps.db.stmt.update.BatchInsert;
+import org.efaps.db.stmt.update.Insert;
+import org.efaps.eql2.IInsertStatement;
+import org.efaps.eql2.StmtFlag;
+import org.efaps.util.EFapsException;
+
+/**
+ * Insert of many objects at once. The events are executed per object as for
+ * the {@link InsertStmt}, the objects that are not handled by an
+ * INSERT_OVERRIDE event are written to the database using JDBC batching.
+ */
+public class BatchInsertStmt
+    extends AbstractStmt
+{
+
+    /** The insert statements. */
+    private final List<IInsertStatement> insertStmts = new ArrayList<>();
+
+    /**
+     * Instantiates a new batch insert stmt.
+     *
+     * @param _flags the flags
+     */
+    private BatchInsertStmt(final StmtFlag... _flags)
+    {
+        super(_flags);
+    }
+
+    /**
+     * Execute.
+     *
+     * @return the created instances in the order of the given statements
+     * @throws EFapsException the e faps exception
+     */
+    public List<Instance> execute()
+        throws EFapsException
+    {
+        final List<Insert> inserts = new ArrayList<>();
+        for (final IInsertStatement insertStmt : insertStmts) {
+            inserts.add(new Insert(insertStmt));
+        }
+        final BatchInsert batchInsert = new BatchInsert(EnumSet.copyOf(getFlags()));
+        if (has(StmtFlag.TRIGGEROFF)) {
+            batchInsert.getInserts().addAll(inserts);
+        } else {
+            for (final Insert insert : inserts) {
+                insert.executeEvents(EventType.INSERT_PRE);
+                if (!insert.executeEvents(EventType.INSERT_OVERRIDE)) {
+                    batchInsert.getInserts().add(insert);
+                }
+            }
+        }
+        if (!batchInsert.getInserts().isEmpty()) {
+            StmtRunner.get().execute(batchInsert);
+        }
+        final List<Instance> ret = new ArrayList<>();
+        for (final Insert insert : inserts) {
+            if (!has(StmtFlag.TRIGGEROFF)) {
+                insert.executeEvents(EventType.INSERT_POST);
+            }
+            ret.add(insert.getInstance());
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the.
+     *
+     * @param _insertStmts the insert statements
+     * @param _flags the flags
+     * @return the batch insert stmt
+     */
+    public static BatchInsertStmt get(final Collection<IInsertStatement> _insertStmts,
+                                      final StmtFlag... _flags)
+    {
+        final BatchInsertStmt ret = new BatchInsertStmt(_flags);
+        ret.insertStmts.addAll(_insertStmts);
+        return ret;
+    }
+
+    /**
+     * Gets the batch insert stmt for the given insert stmts. The flags of the
+     * first insert stmt are used for the batch.
+     *
+     * @param _insertStmts the insert stmts
+     * @return the batch insert stmt
+     */
+    public static BatchInsertStmt get(final InsertStmt... _insertStmts)
+    {
+        final StmtFlag[] flags = _insertStmts.length == 0 ? new StmtFlag[0]
+                        : _insertStmts[0].getFlags().toArray(new StmtFlag[0]);
+        final BatchInsertStmt ret = new BatchInsertStmt(flags);
+        for (final InsertStmt insertStmt : _insertStmts) {
+            ret.insertStmts.add((IInsertStatement) insertStmt.getEQLStmt());
+        }
+        return ret;
+    }
+}
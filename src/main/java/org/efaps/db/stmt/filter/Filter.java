@@ -41,6 +41,7 @@ import org.efaps.admin.datamodel.attributetype.LinkType;
 import org.efaps.admin.datamodel.attributetype.LongType;
 import org.efaps.admin.datamodel.attributetype.ModifiedType;
 import org.efaps.admin.datamodel.attributetype.StatusType;
+import org.efaps.admin.datamodel.attributetype.StringType;
 import org.efaps.db.Instance;
 import org.efaps.db.stmt.AbstractFlagged;
 import org.efaps.db.stmt.selection.elements.LinktoElement;
@@ -420,6 +421,7 @@ public class Filter
                                 .comparison(element.getComparison())
                                 .values(new LinkedHashSet<>(values))
                                 .escape(!noEscape)
+                                .text(attrType instanceof StringType)
                                 .connection(Connection.OR));
                 group.add(new Criteria()
                                 .tableIndex(tableIdx.getIdx())
@@ -434,6 +436,7 @@ public class Filter
                                 .comparison(element.getComparison())
                                 .values(new LinkedHashSet<>(values))
                                 .escape(!noEscape)
+                                .text(attrType instanceof StringType)
                                 .connection(connection)
                                 .setMain(false);
             }
@@ -15,35 +15,37 @@
  */
 package org.efaps.db.stmt.runner;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.apache.commons.dbutils.RowProcessor;
 import org.apache.commons.dbutils.handlers.ArrayListHandler;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.admin.access.user.AccessCache;
+import org.efaps.admin.access.user.AccessMatrix;
 import org.efaps.admin.datamodel.Attribute;
-import org.efaps.admin.datamodel.AttributeType;
 import org.efaps.admin.datamodel.SQLTable;
 import org.efaps.admin.datamodel.Type;
+import org.efaps.admin.datamodel.TypeMetadata;
 import org.efaps.admin.index.Queue;
 import org.efaps.db.Context;
 import org.efaps.db.GeneralInstance;
-import org.efaps.db.ICacheDefinition;
 import org.efaps.db.Instance;
-import org.efaps.db.QueryCache;
-import org.efaps.db.QueryKey;
-import org.efaps.db.QueryValue;
 import org.efaps.db.stmt.delete.AbstractDelete;
 import org.efaps.db.stmt.filter.AbstractCriterion;
 import org.efaps.db.stmt.filter.AssociationCriterion;
@@ -63,6 +65,7 @@ import org.efaps.db.stmt.selection.elements.ICriterion;
 import org.efaps.db.stmt.selection.elements.IOrderable;
 import org.efaps.db.stmt.update.AbstractObjectUpdate;
 import org.efaps.db.stmt.update.AbstractUpdate;
+import org.efaps.db.stmt.update.BatchInsert;
 import org.efaps.db.stmt.update.Insert;
 import org.efaps.db.stmt.update.ListUpdate;
 import org.efaps.db.stmt.update.ObjectUpdate;
@@ -74,6 +77,7 @@ import org.efaps.db.wrapper.SQLDelete.DeleteDefintion;
 import org.efaps.db.wrapper.SQLInsert;
 import org.efaps.db.wrapper.SQLPart;
 import org.efaps.db.wrapper.SQLSelect;
+import org.efaps.db.wrapper.SQLSelect.IdList;
 import org.efaps.db.wrapper.SQLSelect.SQLSelectPart;
 import org.efaps.db.wrapper.SQLUpdate;
 import org.efaps.db.wrapper.SQLWhere;
@@ -108,6 +112,18 @@ public class SQLRunner
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(SQLRunner.class);
 
+    /** Must prints be executed as prepared statements with bind parameters. */
+    private static Boolean PREPARED;
+
+    /** Fetch size used to stream the results of prints, 0 to deactivate. */
+    private static Integer FETCHSIZE;
+
+    /** Must deletes of many objects be executed grouped by table. */
+    private static Boolean BATCH;
+
+    /** Maximum number of ids per grouped statement. */
+    private static Integer BATCHSIZE;
+
     /** The print. */
     private IRunnable runnable;
 
@@ -117,17 +133,22 @@ public class SQLRunner
     /** The updatemap. */
     private final Map<SQLTable, AbstractSQLInsertUpdate<?>> updatemap = new LinkedHashMap<>();
 
+    /** One runner per insert of a batch insert. */
+    private final List<SQLRunner> batchRunners = new ArrayList<>();
+
     @Override
     public void prepare(final IRunnable _runnable)
         throws EFapsException
     {
         LOG.trace("Preparing: {}", this);
         runnable = _runnable;
-        sqlSelect = new SQLSelect();
+        sqlSelect = new SQLSelect().parameterized(isPrepared());
         if (isCount()) {
             prepareCount((CountQuery) _runnable);
         } else if (isPrint()) {
             preparePrint((AbstractPrint) _runnable);
+        } else if (isBatchInsert()) {
+            prepareBatchInsert();
         } else if (isInsert()) {
             prepareInsert();
         } else if (isDelete()) {
@@ -157,6 +178,16 @@ public class SQLRunner
         }
     }
 
+    private void prepareBatchInsert()
+        throws EFapsException
+    {
+        for (final Insert insert : ((BatchInsert) runnable).getInserts()) {
+            final SQLRunner runner = new SQLRunner();
+            runner.prepare(insert);
+            batchRunners.add(runner);
+        }
+    }
+
     private void prepareInsert()
         throws EFapsException
     {
@@ -171,28 +202,27 @@ public class SQLRunner
                                final Instance... _instances)
         throws EFapsException
     {
-        final Iterator<?> iter = type.getAttributes().entrySet().iterator();
-        while (iter.hasNext()) {
-            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) iter.next();
-            final Attribute attr = (Attribute) entry.getValue();
-            final AttributeType attrType = attr.getAttributeType();
-            if (_instances.length == 0 && attrType.isCreateUpdate() || attrType.isAlwaysUpdate()) {
-                try {
-                    final SQLTable sqlTable = attr.getTable();
-                    if (_instances.length == 0) {
-                        final SQLInsert sqlInsert = getSQLInsert(sqlTable);
-                        attr.prepareDBInsert(sqlInsert);
-                    } else {
-                        final SQLUpdate sqlUpdate = getSQLUpdate(type, sqlTable);
-                        attr.prepareDBUpdate(sqlUpdate);
-                    }
-                } catch (final SQLException e) {
-                    throw new EFapsException(SQLRunner.class, "prepareInsert", e);
-                }
+        final TypeMetadata metadata = type.getMetadata();
+        // if an attribute is in another table it must be added
+        if (_instances.length == 0) {
+            for (final SQLTable sqlTable : metadata.getTables()) {
+                getSQLInsert(sqlTable);
             }
-            // if the attribute is in another table it must be added
-            if (_instances.length == 0 && !updatemap.containsKey(attr.getTable())) {
-                getSQLInsert(attr.getTable());
+        }
+        final List<Attribute> attrs = _instances.length == 0 ? metadata.getCreateAttributes()
+                        : metadata.getUpdateAttributes();
+        for (final Attribute attr : attrs) {
+            try {
+                final SQLTable sqlTable = attr.getTable();
+                if (_instances.length == 0) {
+                    final SQLInsert sqlInsert = getSQLInsert(sqlTable);
+                    attr.prepareDBInsert(sqlInsert);
+                } else {
+                    final SQLUpdate sqlUpdate = getSQLUpdate(type, sqlTable);
+                    attr.prepareDBUpdate(sqlUpdate);
+                }
+            } catch (final SQLException e) {
+                throw new EFapsException(SQLRunner.class, "prepareInsert", e);
             }
         }
 
@@ -387,6 +417,11 @@ public class SQLRunner
         return runnable instanceof Insert;
     }
 
+    private boolean isBatchInsert()
+    {
+        return runnable instanceof BatchInsert;
+    }
+
     private boolean isDelete()
     {
         return runnable instanceof AbstractDelete;
@@ -516,12 +551,9 @@ public class SQLRunner
             sqlSelect.addPart(SQLPart.AND);
         }
         sqlSelect.addColumnPart(0, "ID")
-                        .addPart(SQLPart.IN)
-                        .addPart(SQLPart.PARENTHESIS_OPEN)
-                        .addValuePart(_print.getInstances().stream()
-                                        .map(instance -> String.valueOf(instance.getId()))
-                                        .collect(Collectors.joining(SQLPart.COMMA.getDefaultValue())))
-                        .addPart(SQLPart.PARENTHESIS_CLOSE);
+                        .addIdListPart(_print.getInstances().stream()
+                                        .map(Instance::getId)
+                                        .collect(Collectors.toList()));
     }
 
     @Override
@@ -530,7 +562,9 @@ public class SQLRunner
     {
         LOG.trace("Executing: {}", this);
         if (isPrint()) {
-            executeSQLStmt((ISelectionProvider) runnable, sqlSelect.getSQL());
+            executePrint();
+        } else if (isBatchInsert()) {
+            executeBatchInserts();
         } else if (isInsert()) {
             executeInserts();
         } else if (isDelete()) {
@@ -541,12 +575,56 @@ public class SQLRunner
     }
 
     /**
-     * Execute the inserts.
+     * Execute the print. If the ids of a list print are split into chunks
+     * (see {@link org.efaps.db.databases.AbstractDatabase#getIdListStrategy()})
+     * one statement per chunk is executed and the results are added to the
+     * selects one after the other. If the statement has an order or a limit,
+     * the chunks are combined with "or" in one statement instead, because
+     * the order and the limit must be applied to all ids.
+     *
+     * @throws EFapsException the e faps exception
+     */
+    private void executePrint()
+        throws EFapsException
+    {
+        final Optional<IdList> idList = sqlSelect.getIdListPart();
+        int chunks = idList.isPresent() ? idList.get().getChunkCount() : 1;
+        if (chunks > 1 && (sqlSelect.hasOrder() || sqlSelect.hasLimit())) {
+            idList.get().setCombined(true);
+            chunks = 1;
+        }
+        for (int i = 0; i < chunks; i++) {
+            if (idList.isPresent()) {
+                idList.get().setChunk(i);
+            }
+            final String sql = sqlSelect.getSQL();
+            executeSQLStmt((ISelectionProvider) runnable, sql, sqlSelect.getParameters());
+        }
+    }
+
+    /**
+     * Execute the deletes.
      *
      * @throws EFapsException the e faps exception
      */
     private void executeDeletes()
         throws EFapsException
+    {
+        final AbstractDelete delete = (AbstractDelete) runnable;
+        if (isBatch() && delete.getInstances().size() > 1) {
+            executeGroupedDeletes();
+        } else {
+            executeSingleDeletes();
+        }
+    }
+
+    /**
+     * Execute the deletes one instance after the other.
+     *
+     * @throws EFapsException the e faps exception
+     */
+    private void executeSingleDeletes()
+        throws EFapsException
     {
         final AbstractDelete delete = (AbstractDelete) runnable;
         for (final Instance instance : delete.getInstances()) {
@@ -588,6 +666,59 @@ public class SQLRunner
         }
     }
 
+    /**
+     * Execute the deletes for all instances grouped by table. The general
+     * instances are resolved in bulk and every table is cleaned with
+     * "delete ... where ID in (...)" statements.
+     *
+     * @throws EFapsException the e faps exception
+     */
+    private void executeGroupedDeletes()
+        throws EFapsException
+    {
+        final AbstractDelete delete = (AbstractDelete) runnable;
+        final Context context = Context.getThreadContext();
+        final ConnectionResource con = context.getConnectionResource();
+        for (final Instance instance : delete.getInstances()) {
+            if (instance.getType().hasStore()) {
+                context.getStoreResource(instance, Resource.StoreEvent.DELETE).delete();
+            }
+        }
+        try {
+            delete.triggerListeners();
+
+            final List<DeleteDefintion> defs = new ArrayList<>();
+            defs.addAll(GeneralInstance.getDeleteDefintions(delete.getInstances(), con, getBatchSize()));
+            final Map<Type, List<Instance>> types = delete.getInstances().stream()
+                            .collect(Collectors.groupingBy(Instance::getType, LinkedHashMap::new,
+                                            Collectors.toList()));
+            for (final Entry<Type, List<Instance>> entry : types.entrySet()) {
+                final SQLTable mainTable = entry.getKey().getMainTable();
+                for (final SQLTable curTable : entry.getKey().getTables()) {
+                    if (!curTable.equals(mainTable) && !curTable.isReadOnly()) {
+                        for (final Instance instance : entry.getValue()) {
+                            defs.add(new DeleteDefintion(curTable.getSqlTable(), curTable.getSqlColId(),
+                                            instance.getId()));
+                        }
+                    }
+                }
+                for (final Instance instance : entry.getValue()) {
+                    defs.add(new DeleteDefintion(mainTable.getSqlTable(), mainTable.getSqlColId(),
+                                    instance.getId(), SQLDelete.MAINLEVEL));
+                }
+            }
+            final SQLDelete sqlDelete = Context.getDbType().newDelete(defs.toArray(new DeleteDefintion[defs
+                            .size()]));
+            sqlDelete.executeGrouped(con, getBatchSize());
+            for (final Instance instance : delete.getInstances()) {
+                AccessCache.registerUpdate(instance);
+                Queue.registerUpdate(instance);
+            }
+        } catch (final SQLException e) {
+            throw new EFapsException(getClass(), "executeGroupedDeletes.SQLException", e);
+        }
+    }
+
     /**
      * Execute the update.
      *
@@ -646,11 +777,76 @@ public class SQLRunner
             GeneralInstance.insert(insert.getInstance(), con);
             insert.triggerListeners();
             Queue.registerUpdate(insert.getInstance());
+            AccessMatrix.registerUpdate(insert.getInstance());
         } catch (final SQLException e) {
             throw new EFapsException(SQLRunner.class, "executeOneCompleteStmt", e);
         }
     }
 
+    /**
+     * Execute the inserts of a batch insert. The tables are processed level
+     * by level (main table first) and the inserts of one level that render
+     * the same SQL are executed as one JDBC batch.
+     *
+     * @throws EFapsException the e faps exception
+     */
+    private void executeBatchInserts()
+        throws EFapsException
+    {
+        try {
+            final ConnectionResource con = Context.getThreadContext().getConnectionResource();
+            final Map<SQLRunner, Long> ids = new LinkedHashMap<>();
+            int level = 0;
+            boolean more = true;
+            while (more) {
+                more = false;
+                final Map<String, List<SQLRunner>> sql2runners = new LinkedHashMap<>();
+                final Map<SQLRunner, SQLInsert> runner2insert = new LinkedHashMap<>();
+                for (final SQLRunner runner : batchRunners) {
+                    if (runner.updatemap.size() > level) {
+                        more = true;
+                        final Entry<SQLTable, AbstractSQLInsertUpdate<?>> entry = new ArrayList<>(
+                                        runner.updatemap.entrySet()).get(level);
+                        final SQLInsert sqlInsert = (SQLInsert) entry.getValue();
+                        if (ids.containsKey(runner)) {
+                            sqlInsert.column(entry.getKey().getSqlColId(), ids.get(runner));
+                        }
+                        if (entry.getKey().getSqlColType() != null) {
+                            sqlInsert.column(entry.getKey().getSqlColType(),
+                                            ((Insert) runner.runnable).getType().getId());
+                        }
+                        sql2runners.computeIfAbsent(sqlInsert.getSQL(), sql -> new ArrayList<>()).add(runner);
+                        runner2insert.put(runner, sqlInsert);
+                    }
+                }
+                for (final List<SQLRunner> runners : sql2runners.values()) {
+                    final List<Long> created = SQLInsert.executeBatch(con, runners.stream()
+                                    .map(runner2insert::get)
+                                    .collect(Collectors.toList()));
+                    if (level == 0) {
+                        for (int i = 0; i < created.size(); i++) {
+                            final SQLRunner runner = runners.get(i);
+                            ids.put(runner, created.get(i));
+                            ((Insert) runner.runnable).evaluateInstance(created.get(i));
+                        }
+                    }
+                }
+                level++;
+            }
+            final List<Instance> instances = batchRunners.stream()
+                            .map(runner -> ((Insert) runner.runnable).getInstance())
+                            .collect(Collectors.toList());
+            GeneralInstance.insert(instances, con);
+            for (final SQLRunner runner : batchRunners) {
+                ((Insert) runner.runnable).triggerListeners();
+            }
+            instances.forEach(Queue::registerUpdate);
+            instances.forEach(AccessMatrix::registerUpdate);
+        } catch (final SQLException e) {
+            throw new EFapsException(SQLRunner.class, "executeBatchInserts", e);
+        }
+    }
+
     /**
      * Execute SQL stmt.
      *
@@ -659,25 +855,63 @@ public class SQLRunner
      * @return true, if successful
      * @throws EFapsException the e faps exception
      */
-    @SuppressWarnings("unchecked")
     protected boolean executeSQLStmt(final ISelectionProvider _sqlProvider,
                                      final String _complStmt)
         throws EFapsException
     {
-        SQLRunner.LOG.debug("SQL-Statement: {}", _complStmt);
+        return executeSQLStmt(_sqlProvider, _complStmt, Collections.emptyList());
+    }
 
+    /**
+     * Execute SQL stmt. If parameters are given the statement is executed as
+     * a prepared statement taken from the statement cache of the connection.
+     *
+     * @param _sqlProvider the sql provider
+     * @param _complStmt the compl stmt
+     * @param _parameters values for the bind parameters
+     * @return true, if successful
+     * @throws EFapsException the e faps exception
+     */
+    protected boolean executeSQLStmt(final ISelectionProvider _sqlProvider,
+                                     final String _complStmt,
+                                     final List<Object> _parameters)
+        throws EFapsException
+    {
+        SQLRunner.LOG.debug("SQL-Statement: {}, Parameters: {}", _complStmt, _parameters);
+        final boolean ret;
+        if (getFetchSize() > 0 && !runnable.has(StmtFlag.REQCACHED)) {
+            ret = executeStreamed(_sqlProvider, _complStmt, _parameters);
+        } else {
+            ret = executeMaterialized(_sqlProvider, _complStmt, _parameters);
+        }
+        return ret;
+    }
+
+    /**
+     * Execute the SQL stmt reading the complete result before it is pushed
+     * into the selects. Used if the result must be cached.
+     *
+     * @param _sqlProvider the sql provider
+     * @param _complStmt the compl stmt
+     * @param _parameters values for the bind parameters
+     * @return true, if successful
+     * @throws EFapsException the e faps exception
+     */
+    protected boolean executeMaterialized(final ISelectionProvider _sqlProvider,
+                                          final String _complStmt,
+                                          final List<Object> _parameters)
+        throws EFapsException
+    {
         boolean ret = false;
         List<Object[]> rows = new ArrayList<>();
 
+        final String cacheKey = _parameters.isEmpty() ? _complStmt
+                        : _complStmt + Arrays.deepToString(_parameters.toArray());
         boolean cached = false;
         if (runnable.has(StmtFlag.REQCACHED)) {
-            final QueryKey querykey = QueryKey.get(Context.getThreadContext().getRequestId(), _complStmt);
-            final var cache = QueryCache.get();
-            if (cache.containsKey(querykey)) {
-                final var queryValue = cache.get(querykey);
-                if (queryValue.getContent() instanceof List) {
-                    rows = (List<Object[]>) queryValue.getContent();
-                }
+            final List<Object[]> cachedRows = Context.getThreadContext().getRequestCache().get(cacheKey);
+            if (cachedRows != null) {
+                rows = cachedRows;
                 cached = true;
             }
         }
@@ -685,42 +919,180 @@ public class SQLRunner
             ConnectionResource con = null;
             try {
                 con = Context.getThreadContext().getConnectionResource();
-                final Statement stmt = con.createStatement();
-                final ResultSet rs = stmt.executeQuery(_complStmt);
                 final ArrayListHandler handler = new ArrayListHandler(Context.getDbType().getRowProcessor());
-                rows = handler.handle(rs);
-                rs.close();
-                stmt.close();
+                if (_parameters.isEmpty()) {
+                    final Statement stmt = con.createStatement();
+                    final ResultSet rs = stmt.executeQuery(_complStmt);
+                    rows = handler.handle(rs);
+                    rs.close();
+                    stmt.close();
+                } else {
+                    final PreparedStatement stmt = con.prepareCachedStatement(_complStmt);
+                    bindParameters(stmt, _parameters);
+                    final ResultSet rs = stmt.executeQuery();
+                    rows = handler.handle(rs);
+                    rs.close();
+                }
             } catch (final SQLException e) {
-                LOG.error("SQL Statment threw error: {}", _complStmt);
+                LOG.error("SQL Statment threw error: {}, Parameters: {}", _complStmt, _parameters);
                 throw new EFapsException(SQLRunner.class, "executeOneCompleteStmt", e);
             }
             if (runnable.has(StmtFlag.REQCACHED)) {
-                final ICacheDefinition cacheDefinition = new ICacheDefinition()
-                {
-
-                    @Override
-                    public long getLifespan()
-                    {
-                        return 5;
-                    }
-
-                    @Override
-                    public TimeUnit getLifespanUnit()
-                    {
-                        return TimeUnit.MINUTES;
-                    }
-                };
-                QueryCache.put(cacheDefinition, QueryKey.get(Context.getThreadContext().getRequestId(), _complStmt),
-                                QueryValue.get(Context.getThreadContext().getRequestId(), rows));
+                Context.getThreadContext().getRequestCache().put(cacheKey, rows);
             }
         }
+        final Collection<Select> selects = _sqlProvider.getSelection().getAllSelects();
         for (final Object[] row : rows) {
-            for (final Select select : _sqlProvider.getSelection().getAllSelects()) {
+            for (final Select select : selects) {
                 select.addObject(row);
             }
             ret = true;
         }
         return ret;
     }
+
+    /**
+     * Execute the SQL stmt using a forward only cursor with a fetch size.
+     * The rows are pushed directly into the selects without materializing
+     * the complete result first. Requires the connection to be in non auto
+     * commit mode (as ensured by {@link ConnectionResource}), else e.g.
+     * PostgreSQL ignores the fetch size.
+     *
+     * @param _sqlProvider the sql provider
+     * @param _complStmt the compl stmt
+     * @param _parameters values for the bind parameters
+     * @return true, if successful
+     * @throws EFapsException the e faps exception
+     */
+    protected boolean executeStreamed(final ISelectionProvider _sqlProvider,
+                                      final String _complStmt,
+                                      final List<Object> _parameters)
+        throws EFapsException
+    {
+        boolean ret = false;
+        final RowProcessor rowProcessor = Context.getDbType().getRowProcessor();
+        final Collection<Select> selects = _sqlProvider.getSelection().getAllSelects();
+        Statement stmt = null;
+        try {
+            final ConnectionResource con = Context.getThreadContext().getConnectionResource();
+            final ResultSet rs;
+            if (_parameters.isEmpty()) {
+                stmt = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                stmt.setFetchSize(getFetchSize());
+                rs = stmt.executeQuery(_complStmt);
+            } else {
+                final PreparedStatement pstmt = con.prepareCachedStatement(_complStmt);
+                pstmt.setFetchSize(getFetchSize());
+                bindParameters(pstmt, _parameters);
+                rs = pstmt.executeQuery();
+            }
+            try (rs) {
+                while (rs.next()) {
+                    final Object[] row = rowProcessor.toArray(rs);
+                    for (final Select select : selects) {
+                        select.addObject(row);
+                    }
+                    ret = true;
+                }
+            }
+        } catch (final SQLException e) {
+            LOG.error("SQL Statment threw error: {}, Parameters: {}", _complStmt, _parameters);
+            throw new EFapsException(SQLRunner.class, "executeStreamed", e);
+        } finally {
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (final SQLException e) {
+                    LOG.warn("Could not close statement", e);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Bind the parameters to the statement.
+     *
+     * @param _stmt the statement
+     * @param _parameters values for the bind parameters
+     * @throws SQLException on error
+     */
+    protected void bindParameters(final PreparedStatement _stmt,
+                                  final List<Object> _parameters)
+        throws SQLException
+    {
+        int idx = 1;
+        for (final Object parameter : _parameters) {
+            if (parameter instanceof final Long[] ids) {
+                _stmt.setArray(idx++, _stmt.getConnection().createArrayOf(Context.getDbType().getIdArrayType(),
+                                ids));
+            } else {
+                _stmt.setObject(idx++, parameter);
+            }
+        }
+    }
+
+    /**
+     * Must prints be executed as prepared statements with bind parameters.
+     * Can be activated by "core.sql.prepared.active", defaults to false.
+     *
+     * @return true, if prepared statements must be used
+     */
+    protected static boolean isPrepared()
+    {
+        if (PREPARED == null) {
+            PREPARED = ConfigProvider.getConfig().getOptionalValue("core.sql.prepared.active", Boolean.class)
+                            .orElse(false);
+        }
+        return PREPARED;
+    }
+
+    /**
+     * Gets the fetch size used to stream the results of prints. Can be
+     * configured by "core.sql.stream.fetchSize", defaults to 0 meaning that
+     * the results are read completely before being evaluated.
+     *
+     * @return the fetch size
+     */
+    protected static int getFetchSize()
+    {
+        if (FETCHSIZE == null) {
+            FETCHSIZE = ConfigProvider.getConfig().getOptionalValue("core.sql.stream.fetchSize", Integer.class)
+                            .orElse(0);
+        }
+        return FETCHSIZE;
+    }
+
+    /**
+     * Must deletes of many objects be executed grouped by table. Can be
+     * activated by "core.sql.batch.active", defaults to false.
+     *
+     * @return true, if batching is activated
+     */
+    protected static boolean isBatch()
+    {
+        if (BATCH == null) {
+            BATCH = ConfigProvider.getConfig().getOptionalValue("core.sql.batch.active", Boolean.class)
+                            .orElse(false);
+        }
+        return BATCH;
+    }
+
+    /**
+     * Gets the maximum number of ids per grouped statement. Can be configured
+     * by "core.sql.batch.size", defaults to 1000. Limited by the maximum
+     * number of expressions supported by the database.
+     *
+     * @return the batch size
+     */
+    protected static int getBatchSize()
+    {
+        if (BATCHSIZE == null) {
+            final int size = ConfigProvider.getConfig().getOptionalValue("core.sql.batch.size", Integer.class)
+                            .orElse(1000);
+            final int max = Context.getDbType().getMaxExpressions();
+            BATCHSIZE = max > 0 ? Math.min(size, max) : size;
+        }
+        return BATCHSIZE;
+    }
 }
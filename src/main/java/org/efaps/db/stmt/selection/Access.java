@@ -15,11 +15,14 @@
  */
 package org.efaps.db.stmt.selection;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.collections4.MultiMapUtils;
 import org.apache.commons.collections4.MultiValuedMap;
@@ -44,8 +47,8 @@ public class Access
     /** The access type. */
     private final AccessType accessType;
 
-    /** The access map. */
-    private final Map<Instance, Boolean> accessMap = new HashMap<>();
+    /** The instances with access. */
+    private final Set<Instance> granted = new HashSet<>();
 
     /** The init. */
     private boolean init;
@@ -76,7 +79,11 @@ public class Access
         if (!init) {
             init = true;
             for (final Entry<Type, Collection<Instance>> entry : instanceMap.asMap().entrySet()) {
-                accessMap.putAll(entry.getKey().checkAccess(entry.getValue(), accessType));
+                final List<Instance> instances = new ArrayList<>(entry.getValue());
+                final BitSet access = entry.getKey().evalAccess(instances, accessType);
+                for (int i = access.nextSetBit(0); i >= 0; i = access.nextSetBit(i + 1)) {
+                    granted.add(instances.get(i));
+                }
             }
         }
     }
@@ -94,7 +101,7 @@ public class Access
         } catch (final EFapsException e) {
             LOG.error("Problems while evaluation access.", e);
         }
-        return accessMap.containsKey(_instance) ? accessMap.get(_instance) : false;
+        return granted.contains(_instance);
     }
 
     /**
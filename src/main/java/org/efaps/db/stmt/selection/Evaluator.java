@@ -597,6 +597,9 @@ public final class Evaluator
         throws EFapsException
     {
         final Collection<Map<String, ?>> ret = new ArrayList<>();
+        // the MsgPhrases are formatted for all rows at once
+        final Map<String, List<Object[]>> msgPhraseRows = new LinkedHashMap<>();
+        final Map<String, List<Map<String, Object>>> msgPhraseMaps = new LinkedHashMap<>();
         while (next()) {
             final Map<String, Object> map = new LinkedHashMap<>();
             int idx = 1;
@@ -645,12 +648,19 @@ public final class Evaluator
                 }
             }
             for (final Entry<String, Object[]> entry : msgphrases.entrySet()) {
-                final MsgPhrase msgPhrase = helper.getMsgPhrases().get(entry.getKey());
-                final String value = msgPhrase.format(entry.getValue());
-                map.put(entry.getKey(), value);
+                msgPhraseRows.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(entry.getValue());
+                msgPhraseMaps.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).add(map);
             }
             ret.add(map);
         }
+        for (final Entry<String, List<Object[]>> entry : msgPhraseRows.entrySet()) {
+            final MsgPhrase msgPhrase = helper.getMsgPhrases().get(entry.getKey());
+            final List<String> values = msgPhrase.formatAll(entry.getValue());
+            final List<Map<String, Object>> maps = msgPhraseMaps.get(entry.getKey());
+            for (int i = 0; i < values.size(); i++) {
+                maps.get(i).put(entry.getKey(), values.get(i));
+            }
+        }
         return ret;
     }
 
@@ -92,8 +92,8 @@ public abstract class AbstractGenInstElement<T>
             final TableIdx tableidx = getJoinGenInstTableIdx(sqlSelect);
             criteria.add(TypeCriterion.of(tableidx, GeneralInstance.ISTYPECOLUMN, getType().getId()));
 
-            for (final Type childType : getType().getChildTypes()) {
-                criteria.add(TypeCriterion.of(tableidx, GeneralInstance.ISTYPECOLUMN, childType.getId()));
+            for (final long childTypeId : getType().getMetadata().getDescendantTypeIds()) {
+                criteria.add(TypeCriterion.of(tableidx, GeneralInstance.ISTYPECOLUMN, childTypeId));
             }
         }
     }
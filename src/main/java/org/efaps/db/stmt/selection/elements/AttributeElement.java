@@ -15,11 +15,11 @@
  */
 package org.efaps.db.stmt.selection.elements;
 
-import java.util.Collections;
 import java.util.EnumSet;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.efaps.admin.datamodel.Attribute;
+import org.efaps.admin.datamodel.AttributeDecoder;
 import org.efaps.admin.datamodel.SQLTable;
 import org.efaps.db.wrapper.SQLOrder;
 import org.efaps.db.wrapper.SQLSelect;
@@ -43,6 +43,9 @@ public class AttributeElement
     /** The attribute. */
     private Attribute attribute;
 
+    /** The decoder for the values, bound when the statement is prepared. */
+    private AttributeDecoder decoder;
+
     public AttributeElement(final EnumSet<StmtFlag> flags)
     {
         super(flags);
@@ -96,6 +99,7 @@ public class AttributeElement
                 }
             }
         }
+        decoder = attribute.getDecoder(has(StmtFlag.EVENTOFF));
     }
 
     @Override
@@ -111,7 +115,10 @@ public class AttributeElement
                 ((Object[]) ret)[i] = _row[colIdxs[i]];
             }
         }
-        return callAuxillary(attribute.value(Collections.singletonList(ret), has(StmtFlag.EVENTOFF)));
+        if (decoder == null) {
+            decoder = attribute.getDecoder(has(StmtFlag.EVENTOFF));
+        }
+        return callAuxillary(decoder.decode(ret));
     }
 
     @Override
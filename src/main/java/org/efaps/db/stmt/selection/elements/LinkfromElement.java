@@ -135,12 +135,7 @@ public class LinkfromElement
                 final var inner = new SQLSelect();
                 SQLWhere where = null;
                 if (((SQLTable) getTable()).getSqlColType() != null) {
-                    final var values = new HashSet<String>();
-                    final var type = getAttribute().getParent();
-                    values.add(String.valueOf(type.getId()));
-                    if (type.hasChildren()) {
-                        type.getChildTypes().stream().forEach(child -> values.add(String.valueOf(child.getId())));
-                    }
+                    final var values = new HashSet<>(getAttribute().getParent().getMetadata().getTypeIdValues());
                     where = inner.getWhere();
                     where.addCriteria(joinTableidx.getIdx(),
                                     Collections.singletonList(((SQLTable) getTable()).getSqlColType()),
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.stmt.update;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.efaps.db.stmt.runner.AbstractRunnable;
+import org.efaps.eql2.StmtFlag;
+
+/**
+ * Runnable for a list of inserts that are executed together using JDBC
+ * batching.
+ */
+public class BatchInsert
+    extends AbstractRunnable
+{
+
+    /** The inserts. */
+    private final List<Insert> inserts = new ArrayList<>();
+
+    /**
+     * Instantiates a new batch insert.
+     *
+     * @param _flags the flags
+     */
+    public BatchInsert(final EnumSet<StmtFlag> _flags)
+    {
+        super(_flags);
+    }
+
+    /**
+     * Gets the inserts.
+     *
+     * @return the inserts
+     */
+    public List<Insert> getInserts()
+    {
+        return inserts;
+    }
+}
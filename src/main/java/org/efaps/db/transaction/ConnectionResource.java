@@ -19,10 +19,16 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.transaction.xa.XAException;
 import javax.transaction.xa.Xid;
 
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.util.EFapsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,11 +47,30 @@ public class ConnectionResource
      */
     private static final Logger LOG = LoggerFactory.getLogger(ConnectionResource.class);
 
+    /**
+     * Maximum number of prepared statements kept open per connection.
+     */
+    private static Integer STMTCACHESIZE;
+
     /**
      * Stores the SQL connection of this connection resource.
      */
     private Connection connection = null;
 
+    /**
+     * Prepared statements by physical connection, so that they survive the
+     * commit and can be used by the next transaction that gets the same
+     * connection from the pool.
+     */
+    private static final Map<Connection, Statements> STATEMENTS = Collections
+                    .synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Generation of the prepared statements, increased if the data model
+     * changed.
+     */
+    private static final AtomicLong GENERATION = new AtomicLong();
+
     /**
      * Instantiates a new connection resource.
      *
@@ -116,6 +141,100 @@ public class ConnectionResource
         return getConnection().prepareStatement(_sql);
     }
 
+    /**
+     * Creates the statement.
+     *
+     * @param _resultSetType the result set type
+     * @param _resultSetConcurrency the result set concurrency
+     * @return the statement
+     * @throws SQLException the SQL exception
+     */
+    public Statement createStatement(final int _resultSetType,
+                                     final int _resultSetConcurrency)
+        throws SQLException
+    {
+        return getConnection().createStatement(_resultSetType, _resultSetConcurrency);
+    }
+
+    /**
+     * Get a prepared statement for the given SQL from the statement cache of
+     * the physical connection. If not cached yet, the statement is prepared
+     * on the physical connection and added to the cache, so that it is not
+     * closed if the connection is given back to the pool. The returned
+     * statement must not be closed by the caller, it is closed if it is
+     * evicted from the cache or the data model changed.
+     *
+     * @param _sql the sql with placeholders
+     * @return the prepared statement
+     * @throws SQLException the SQL exception
+     */
+    public PreparedStatement prepareCachedStatement(final String _sql)
+        throws SQLException
+    {
+        final Connection physical = getPhysicalConnection();
+        Statements statements = ConnectionResource.STATEMENTS.get(physical);
+        if (statements == null) {
+            ConnectionResource.removeClosed();
+            statements = new Statements();
+            ConnectionResource.STATEMENTS.put(physical, statements);
+        }
+        statements.validate();
+        PreparedStatement ret = statements.get(_sql);
+        if (ret == null || ret.isClosed()) {
+            ret = physical.prepareStatement(_sql);
+            statements.put(_sql, ret);
+        } else {
+            ret.clearParameters();
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the physical connection behind the connection of the pool.
+     *
+     * @return the physical connection
+     */
+    private Connection getPhysicalConnection()
+    {
+        Connection ret = getConnection();
+        try {
+            if (ret.isWrapperFor(Connection.class)) {
+                ret = ret.unwrap(Connection.class);
+            }
+        } catch (final SQLException e) {
+            ConnectionResource.LOG.debug("Could not unwrap connection", e);
+        }
+        return ret;
+    }
+
+    /**
+     * Remove the statements of the physical connections that were closed,
+     * e.g. because the pool retired them.
+     */
+    private static void removeClosed()
+    {
+        ConnectionResource.STATEMENTS.keySet().removeIf(con -> {
+            boolean closed;
+            try {
+                closed = con.isClosed();
+            } catch (final SQLException e) {
+                closed = true;
+            }
+            return closed;
+        });
+    }
+
+    /**
+     * Drop the cached prepared statements of all connections. Must be called
+     * if the data model changed, e.g. by DDL or a changed type. The
+     * statements are closed with the next use of their connection.
+     */
+    public static void invalidateStatements()
+    {
+        ConnectionResource.LOG.debug("Invalidated cached statements, generation {}",
+                        ConnectionResource.GENERATION.incrementAndGet());
+    }
+
     /**
      * Prepare statement.
      *
@@ -274,4 +393,81 @@ public class ConnectionResource
         ConnectionResource.LOG.debug("setTransactionTimout");
         return true;
     }
+
+    /**
+     * Close a statement and log eventual errors.
+     *
+     * @param _stmt statement to close
+     */
+    private static void closeQuietly(final Statement _stmt)
+    {
+        try {
+            _stmt.close();
+        } catch (final SQLException e) {
+            ConnectionResource.LOG.warn("Could not close cached statement", e);
+        }
+    }
+
+    /**
+     * Gets the size of the statement cache. Can be configured by
+     * "core.sql.stmtCache.size", defaults to 100.
+     *
+     * @return the size of the statement cache
+     */
+    private static int getStmtCacheSize()
+    {
+        if (STMTCACHESIZE == null) {
+            STMTCACHESIZE = ConfigProvider.getConfig().getOptionalValue("core.sql.stmtCache.size", Integer.class)
+                            .orElse(100);
+        }
+        return STMTCACHESIZE;
+    }
+
+    /**
+     * Prepared statements of one physical connection, key is the SQL with
+     * the placeholders. Least recently used statements are closed on
+     * overflow. A physical connection is used by one transaction at a time.
+     */
+    private static final class Statements
+        extends LinkedHashMap<String, PreparedStatement>
+    {
+
+        /** The Constant serialVersionUID. */
+        private static final long serialVersionUID = 1L;
+
+        /** Generation of the statements. */
+        private long generation = ConnectionResource.GENERATION.get();
+
+        /**
+         * Instantiates new statements.
+         */
+        private Statements()
+        {
+            super(16, 0.75f, true);
+        }
+
+        /**
+         * Close all statements if the data model changed since they were
+         * prepared.
+         */
+        private void validate()
+        {
+            final long current = ConnectionResource.GENERATION.get();
+            if (generation != current) {
+                values().forEach(ConnectionResource::closeQuietly);
+                clear();
+                generation = current;
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> _eldest)
+        {
+            final boolean ret = size() > getStmtCacheSize();
+            if (ret) {
+                closeQuietly(_eldest.getValue());
+            }
+            return ret;
+        }
+    }
 }
@@ -15,9 +15,21 @@
  */
 package org.efaps.db.wrapper;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.efaps.db.Context;
 import org.efaps.db.transaction.ConnectionResource;
 import org.slf4j.Logger;
@@ -53,6 +65,11 @@ public class SQLDelete
      */
     private static final Logger LOG = LoggerFactory.getLogger(SQLDelete.class);
 
+    /**
+     * Level used for the deletes of the main table of a type.
+     */
+    public static final int MAINLEVEL = 1;
+
     /**
      * List of deletets that will be executed.
      */
@@ -118,6 +135,65 @@ public class SQLDelete
     }
 
 
+    /**
+     * Executes the deletes grouped by table and id column. For each group
+     * statements like "delete from TABLE where ID in (?,?,...)" are executed,
+     * containing at most <code>_chunkSize</code> ids. The groups are executed
+     * ordered by their level, so that all child and secondary tables are
+     * cleaned before any main table is touched. Groups with the same level
+     * are executed in the order of their first appearance in the definitions.
+     *
+     * @param _con Connection the delete will be executed in
+     * @param _chunkSize maximum number of ids for one statement
+     * @throws SQLException on error during deletion
+     */
+    public void executeGrouped(final ConnectionResource _con,
+                               final int _chunkSize)
+        throws SQLException
+    {
+        final Map<Pair<String, String>, Set<Long>> groups = new LinkedHashMap<>();
+        final Map<Pair<String, String>, Integer> levels = new HashMap<>();
+        for (final DeleteDefintion def : getDefinitions()) {
+            final Pair<String, String> key = Pair.of(def.getTablename(), def.getIdColumn());
+            groups.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(def.getId());
+            levels.merge(key, def.getLevel(), Math::max);
+        }
+        final List<Entry<Pair<String, String>, Set<Long>>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort(Comparator.comparing(entry -> levels.get(entry.getKey())));
+        for (final Entry<Pair<String, String>, Set<Long>> entry : entries) {
+            final List<Long> ids = new ArrayList<>(entry.getValue());
+            for (int i = 0; i < ids.size(); i = i + _chunkSize) {
+                final List<Long> chunk = ids.subList(i, Math.min(i + _chunkSize, ids.size()));
+                final StringBuilder cmd = new StringBuilder();
+                cmd.append(Context.getDbType().getSQLPart(SQLPart.DELETE)).append(" ")
+                    .append(Context.getDbType().getSQLPart(SQLPart.FROM)).append(" ")
+                    .append(Context.getDbType().getTableQuote())
+                    .append(entry.getKey().getLeft())
+                    .append(Context.getDbType().getTableQuote()).append(" ")
+                    .append(Context.getDbType().getSQLPart(SQLPart.WHERE)).append(" ")
+                    .append(Context.getDbType().getColumnQuote())
+                    .append(entry.getKey().getRight())
+                    .append(Context.getDbType().getColumnQuote()).append(" ")
+                    .append(Context.getDbType().getSQLPart(SQLPart.IN))
+                    .append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_OPEN))
+                    .append(chunk.stream().map(id -> Context.getDbType().getSQLPart(SQLPart.PARAMETER))
+                                    .collect(Collectors.joining(Context.getDbType().getSQLPart(SQLPart.COMMA))))
+                    .append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_CLOSE));
+                SQLDelete.LOG.debug("{} with {}", cmd, chunk);
+                final PreparedStatement stmt = _con.prepareStatement(cmd.toString());
+                try {
+                    int idx = 1;
+                    for (final Long id : chunk) {
+                        stmt.setLong(idx++, id);
+                    }
+                    stmt.executeUpdate();
+                } finally {
+                    stmt.close();
+                }
+            }
+        }
+    }
+
     /**
      * Defintion of a Delete.
      */
@@ -139,6 +215,13 @@ public class SQLDelete
          */
         private final Long id;
 
+        /**
+         * Level of the delete. On grouped execution the tables with a lower
+         * level are deleted first, e.g. the child tables (0) before the main
+         * table ({@link SQLDelete#MAINLEVEL}).
+         */
+        private final int level;
+
         /**
          * @param _tableName array with name of the tables
          * @param _idColumn array with name of the id column
@@ -148,6 +231,21 @@ public class SQLDelete
                                final String _idColumn,
                                final Long _id)
         {
+            this(_tableName, _idColumn, _id, 0);
+        }
+
+        /**
+         * @param _tableName array with name of the tables
+         * @param _idColumn array with name of the id column
+         * @param _id array with ids to be deleted
+         * @param _level level of the delete
+         */
+        public DeleteDefintion(final String _tableName,
+                               final String _idColumn,
+                               final Long _id,
+                               final int _level)
+        {
+            this.level = _level;
             this.tablename = _tableName;
             this.idColumn = _idColumn;
             this.id = _id;
@@ -182,6 +280,16 @@ public class SQLDelete
         {
             return this.id;
         }
+
+        /**
+         * Getter method for the instance variable {@link #level}.
+         *
+         * @return value of instance variable {@link #level}
+         */
+        public int getLevel()
+        {
+            return this.level;
+        }
     }
 
 }
@@ -19,6 +19,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.efaps.db.Context;
 import org.efaps.db.transaction.ConnectionResource;
@@ -90,6 +92,46 @@ public class SQLInsert
             this.column(getIdColumn(), ret);
         }
 
+        final String cmd = getSQL();
+        SQLInsert.LOG.debug("Executing SQL: {}", cmd);
+
+        final PreparedStatement stmt = prepare(_con, cmd);
+        bind(stmt);
+
+        try {
+            final int rows = stmt.executeUpdate();
+            if (rows == 0) {
+                throw new SQLException("Object for SQL table '" + getTableName()
+                        + "' does not exists and was not inserted.");
+            }
+
+            // if auto generated get new id
+            if (this.newId && supGenKey) {
+                final ResultSet resultset = stmt.getGeneratedKeys();
+                if (resultset.next()) {
+                    ret = resultset.getLong(1);
+                }
+                resultset.close();
+            }
+        } finally  {
+            stmt.close();
+        }
+
+        if (this.newId && SQLInsert.LOG.isDebugEnabled()) {
+            SQLInsert.LOG.debug("new generated id " + ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the SQL statement for this insert. The values are represented
+     * by placeholders.
+     *
+     * @return SQL statement
+     */
+    public String getSQL()
+    {
         final StringBuilder cmd = new StringBuilder()
             .append(Context.getDbType().getSQLPart(SQLPart.INSERT))
             .append(" ")
@@ -136,51 +178,109 @@ public class SQLInsert
             .append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_OPEN))
             .append(val)
             .append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_CLOSE));
+        return cmd.toString();
+    }
 
-        SQLInsert.LOG.debug("Executing SQL: {}", cmd.toString());
-
-        final PreparedStatement stmt;
-        if (this.newId && supGenKey) {
+    /**
+     * Prepare the statement, depending on the database with retrieval of
+     * the generated keys.
+     *
+     * @param _con SQL connection
+     * @param _sql SQL statement
+     * @return the prepared statement
+     * @throws SQLException on error
+     */
+    protected PreparedStatement prepare(final ConnectionResource _con,
+                                        final String _sql)
+        throws SQLException
+    {
+        final PreparedStatement ret;
+        if (this.newId && Context.getDbType().supportsGetGeneratedKeys()) {
             if (Context.getDbType().supportsMultiGeneratedKeys()) {
-                stmt = _con.prepareStatement(cmd.toString(), new String[]{ getIdColumn() });
+                ret = _con.prepareStatement(_sql, new String[]{ getIdColumn() });
             } else {
-                stmt = _con.prepareStatement(cmd.toString(), Statement.RETURN_GENERATED_KEYS);
+                ret = _con.prepareStatement(_sql, Statement.RETURN_GENERATED_KEYS);
             }
         } else {
-            stmt = _con.prepareStatement(cmd.toString());
+            ret = _con.prepareStatement(_sql);
         }
+        return ret;
+    }
 
+    /**
+     * Set the values of this insert to the statement.
+     *
+     * @param _stmt statement the values will be set to
+     * @throws SQLException on error
+     */
+    protected void bind(final PreparedStatement _stmt)
+        throws SQLException
+    {
         int index = 1;
         for (final AbstractColumnWithValue<?> col : getColumnWithValues())  {
             if (SQLInsert.LOG.isDebugEnabled()) {
                 SQLInsert.LOG.debug("    " + index + " = " + col.getValue());
             }
-            col.set(index++, stmt);
+            col.set(index++, _stmt);
         }
+    }
 
-        try {
-            final int rows = stmt.executeUpdate();
-            if (rows == 0) {
-                throw new SQLException("Object for SQL table '" + getTableName()
-                        + "' does not exists and was not inserted.");
+    /**
+     * Executes a list of inserts using JDBC batching. All inserts must render
+     * the same SQL statement (see {@link #getSQL()}).
+     *
+     * @param _con SQL connection
+     * @param _inserts the inserts to be executed
+     * @return the new generated ids in the order of the given inserts if a new
+     *         id must be created, else an empty list
+     * @throws SQLException if the insert failed
+     */
+    public static List<Long> executeBatch(final ConnectionResource _con,
+                                          final List<SQLInsert> _inserts)
+        throws SQLException
+    {
+        final List<Long> ret = new ArrayList<>();
+        if (!_inserts.isEmpty()) {
+            final SQLInsert first = _inserts.get(0);
+            final boolean supGenKey = Context.getDbType().supportsGetGeneratedKeys();
+            if (first.newId && !supGenKey) {
+                for (final SQLInsert insert : _inserts) {
+                    final long id = Context.getDbType().getNewId(_con, insert.getTableName(), insert.getIdColumn());
+                    insert.column(insert.getIdColumn(), id);
+                    ret.add(id);
+                }
             }
+            final String cmd = first.getSQL();
+            SQLInsert.LOG.debug("Executing batch of {} for SQL: {}", _inserts.size(), cmd);
 
-            // if auto generated get new id
-            if (this.newId && supGenKey) {
-                final ResultSet resultset = stmt.getGeneratedKeys();
-                if (resultset.next()) {
-                    ret = resultset.getLong(1);
+            final PreparedStatement stmt = first.prepare(_con, cmd);
+            try {
+                for (final SQLInsert insert : _inserts) {
+                    insert.bind(stmt);
+                    stmt.addBatch();
                 }
-                resultset.close();
+                final int[] rows = stmt.executeBatch();
+                for (final int row : rows) {
+                    if (row == 0 || Statement.EXECUTE_FAILED == row) {
+                        throw new SQLException("Object for SQL table '" + first.getTableName()
+                                        + "' was not inserted.");
+                    }
+                }
+                if (first.newId && supGenKey) {
+                    final ResultSet resultset = stmt.getGeneratedKeys();
+                    while (resultset.next()) {
+                        ret.add(resultset.getLong(1));
+                    }
+                    resultset.close();
+                    if (ret.size() != _inserts.size()) {
+                        throw new SQLException("Could not retrieve the generated keys for SQL table '"
+                                        + first.getTableName() + "'.");
+                    }
+                }
+            } finally {
+                stmt.close();
             }
-        } finally  {
-            stmt.close();
         }
-
-        if (this.newId && SQLInsert.LOG.isDebugEnabled()) {
-            SQLInsert.LOG.debug("new generated id " + ret);
-        }
-
         return ret;
     }
 }
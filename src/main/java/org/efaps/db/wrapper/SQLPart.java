@@ -30,6 +30,8 @@ public enum SQLPart
     ALL("all"),
     /** and. */
     AND("and"),
+    /** any. */
+    ANY("any"),
     /** asc. */
     ASC("asc"),
     /** ,. */
@@ -79,6 +81,8 @@ public enum SQLPart
     OR("or"),
     /** order by. */
     ORDERBY("order by"),
+    /** ?. */
+    PARAMETER("?"),
     /** ). */
     PARENTHESIS_CLOSE(")"),
     /** (. */
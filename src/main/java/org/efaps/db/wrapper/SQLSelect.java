@@ -17,11 +17,14 @@ package org.efaps.db.wrapper;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.efaps.db.Context;
+import org.efaps.db.databases.AbstractDatabase.IdListStrategy;
 import org.efaps.db.search.section.AbstractQSection;
 import org.efaps.db.stmt.filter.AbstractCriterion;
 import org.efaps.db.wrapper.SQLWhere.Criteria;
@@ -78,6 +81,20 @@ public class SQLSelect
 
     private boolean squash;
     private boolean count;
+
+    /**
+     * Must the values be rendered as bind parameters ("?") instead of
+     * literals.
+     */
+    private boolean parameterized;
+
+    /**
+     * Ordered values for the bind parameters of the last rendered statement.
+     *
+     * @see #getSQL()
+     */
+    private final List<Object> parameters = new ArrayList<>();
+
     /**
      * Instantiates a new SQL select.
      */
@@ -337,6 +354,7 @@ public class SQLSelect
      */
     public String getSQL()
     {
+        parameters.clear();
         final StringBuilder cmd = new StringBuilder().append(" ")
                         .append(Context.getDbType().getSQLPart(SQLPart.SELECT)).append(" ");
         if (distinct) {
@@ -365,7 +383,14 @@ public class SQLSelect
         cmd.append(" ");
         boolean whereAdded = false;
         for (final SQLSelectPart part : parts) {
-            part.appendSQL(cmd);
+            if (parameterized && part instanceof final Parameter parameter) {
+                cmd.append(Context.getDbType().getSQLPart(SQLPart.PARAMETER));
+                parameters.add(parameter.getValue());
+            } else if (parameterized && part instanceof final IdList idList) {
+                idList.appendSQL(cmd, parameters);
+            } else {
+                part.appendSQL(cmd);
+            }
             cmd.append(" ");
             whereAdded = whereAdded || !whereAdded && SQLPart.WHERE.equals(part.sqlpart);
         }
@@ -398,7 +423,7 @@ public class SQLSelect
     {
         if (limit > 0) {
             final var limiterTablePrefix = "L";
-            final var limiter = new SQLSelect(limiterTablePrefix);
+            final var limiter = new SQLSelect(limiterTablePrefix).parameterized(parameterized);
             final var maintable = this.getFromTables().get(0);
             limiter.column(maintable.getTableIndex(), "ID");
             limiter.addTablePart(maintable.getTableName(), maintable.getTableIndex());
@@ -435,6 +460,7 @@ public class SQLSelect
                             .append("ID").append(SQLPart.SPACE).append(SQLPart.IN).append(SQLPart.SPACE)
                             .append(SQLPart.PARENTHESIS_OPEN);
             cmd.append(limiter.getSQL());
+            parameters.addAll(limiter.getParameters());
             if (order != null) {
                 order.appendSQL(limiterTablePrefix, cmd);
             }
@@ -467,6 +493,49 @@ public class SQLSelect
         return this;
     }
 
+    /**
+     * Must the values of this SQLSelect be rendered as bind parameters.
+     *
+     * @param _parameterized parameterized
+     * @return this
+     */
+    public SQLSelect parameterized(final boolean _parameterized)
+    {
+        parameterized = _parameterized;
+        return this;
+    }
+
+    /**
+     * Checks if is parameterized.
+     *
+     * @return true, if is parameterized
+     */
+    public boolean isParameterized()
+    {
+        return parameterized;
+    }
+
+    /**
+     * Gets the values for the bind parameters in the order they appear in the
+     * statement returned by the last call of {@link #getSQL()}.
+     *
+     * @return the parameters
+     */
+    public List<Object> getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Register a value for a bind parameter while rendering.
+     *
+     * @param _value value to be bound
+     */
+    protected void bind(final Object _value)
+    {
+        parameters.add(_value);
+    }
+
     /**
      * @param _section Sectin o to be added
      * @throws EFapsException on error
@@ -539,6 +608,53 @@ public class SQLSelect
         return this;
     }
 
+    /**
+     * Add a value that will be rendered as bind parameter if this SQLSelect
+     * is parameterized, else as literal value.
+     *
+     * @param _value value to be added as part
+     * @return this
+     */
+    public SQLSelect addParameterPart(final Object _value)
+    {
+        parts.add(new Parameter(_value));
+        return this;
+    }
+
+    /**
+     * Add the comparison against a list of ids (e.g. "in ( 1,2,3 )"). How
+     * the list is rendered is defined by
+     * {@link org.efaps.db.databases.AbstractDatabase#getIdListStrategy()}.
+     * If the current part is a column, the column becomes part of the id
+     * list, so that the chunks of the list can be combined.
+     *
+     * @param _ids ids to be added as part
+     * @return this
+     */
+    public SQLSelect addIdListPart(final Collection<Long> _ids)
+    {
+        Column column = null;
+        if (getCurrentPart() instanceof final Column current) {
+            column = current;
+            parts.remove(parts.size() - 1);
+        }
+        parts.add(new IdList(column, _ids));
+        return this;
+    }
+
+    /**
+     * Gets the id list part if one was added.
+     *
+     * @return the id list part
+     */
+    public Optional<IdList> getIdListPart()
+    {
+        return parts.stream()
+                        .filter(IdList.class::isInstance)
+                        .map(IdList.class::cast)
+                        .findFirst();
+    }
+
     /**
      * @param _value add the value that must be escaped
      * @return this
@@ -583,6 +699,7 @@ public class SQLSelect
         select.parts.addAll(parts);
         select.fromTables.addAll(fromTables);
         select.distinct = distinct;
+        select.parameterized = parameterized;
         return select;
     }
 
@@ -645,6 +762,16 @@ public class SQLSelect
         return this.order != null;
     }
 
+    /**
+     * Has the select a limit or an offset.
+     *
+     * @return true, if a limit or an offset is set
+     */
+    public boolean hasLimit()
+    {
+        return this.limit > 0 || this.offset > 0;
+    }
+
     public void limit(final Integer limit)
     {
         this.limit = limit == null ? 0 : limit;
@@ -1042,6 +1169,253 @@ public class SQLSelect
         }
     }
 
+    /**
+     * Value that is rendered as bind parameter for a parameterized SQLSelect.
+     */
+    public static class Parameter
+        extends Value
+    {
+
+        /**
+         * Value.
+         */
+        private final Object value;
+
+        /**
+         * @param _value Value
+         */
+        public Parameter(final Object _value)
+        {
+            super(_value);
+            value = _value;
+        }
+
+        /**
+         * Gets the value.
+         *
+         * @return the value
+         */
+        public Object getValue()
+        {
+            return value;
+        }
+    }
+
+    /**
+     * Comparison against a list of ids. If the database chunks lists of ids
+     * only the ids of the current chunk are rendered.
+     */
+    public static class IdList
+        extends SQLSelectPart
+    {
+
+        /**
+         * Column the ids are compared with, <code>null</code> if the column
+         * is a part of its own.
+         */
+        private final Column column;
+
+        /**
+         * Ids.
+         */
+        private final List<Long> ids;
+
+        /**
+         * Index of the current chunk.
+         */
+        private int chunk;
+
+        /**
+         * Render all chunks combined with "or" in one statement.
+         */
+        private boolean combined;
+
+        /**
+         * @param _ids ids
+         */
+        public IdList(final Collection<Long> _ids)
+        {
+            this(null, _ids);
+        }
+
+        /**
+         * @param _column column the ids are compared with
+         * @param _ids ids
+         */
+        public IdList(final Column _column,
+                      final Collection<Long> _ids)
+        {
+            column = _column;
+            ids = new ArrayList<>(_ids);
+        }
+
+        /**
+         * Render all chunks in one statement, e.g.
+         * "( T0.ID in ( 1,2 ) or T0.ID in ( 3,4 ) )", so that an order or a
+         * limit of the statement is applied to all ids. Without a column all
+         * ids are rendered in one list.
+         *
+         * @param _combined combine the chunks
+         */
+        public void setCombined(final boolean _combined)
+        {
+            combined = _combined;
+        }
+
+        /**
+         * Gets the number of chunks the ids are split into.
+         *
+         * @return the number of chunks
+         */
+        public int getChunkCount()
+        {
+            final int size = getChunkSize();
+            return size > 0 && ids.size() > size ? (ids.size() + size - 1) / size : 1;
+        }
+
+        /**
+         * Sets the chunk to be rendered.
+         *
+         * @param _chunk index of the chunk
+         */
+        public void setChunk(final int _chunk)
+        {
+            chunk = _chunk;
+        }
+
+        /**
+         * Gets the ids of the current chunk.
+         *
+         * @return the ids of the current chunk
+         */
+        public List<Long> getCurrentIds()
+        {
+            final int size = getChunkSize();
+            final List<Long> ret;
+            if (size > 0 && ids.size() > size) {
+                ret = ids.subList(chunk * size, Math.min((chunk + 1) * size, ids.size()));
+            } else {
+                ret = ids;
+            }
+            return ret;
+        }
+
+        /**
+         * @return the maximum number of ids in one chunk, -1 for no limit
+         */
+        protected int getChunkSize()
+        {
+            return IdListStrategy.CHUNKED.equals(Context.getDbType().getIdListStrategy())
+                            ? Context.getDbType().getMaxExpressions() : -1;
+        }
+
+        /**
+         * Gets the lists of ids to be rendered, one list per chunk if
+         * combined, else the current chunk.
+         *
+         * @return the lists of ids
+         */
+        private List<List<Long>> getLists()
+        {
+            final List<List<Long>> ret = new ArrayList<>();
+            final int size = getChunkSize();
+            if (combined && (column == null || size < 1)) {
+                ret.add(ids);
+            } else if (combined) {
+                for (int i = 0; i < ids.size(); i = i + size) {
+                    ret.add(ids.subList(i, Math.min(i + size, ids.size())));
+                }
+            } else {
+                ret.add(getCurrentIds());
+            }
+            return ret;
+        }
+
+        @Override
+        public void appendSQL(final StringBuilder _cmd)
+        {
+            appendLists(_cmd, list -> list.stream()
+                            .map(String::valueOf)
+                            .collect(Collectors.joining(Context.getDbType().getSQLPart(SQLPart.COMMA))));
+        }
+
+        /**
+         * Append the ids as bind parameters.
+         *
+         * @param _cmd StringBuilder to append to
+         * @param _parameters list the values for the parameters are added to
+         */
+        public void appendSQL(final StringBuilder _cmd,
+                              final List<Object> _parameters)
+        {
+            if (IdListStrategy.ARRAY.equals(Context.getDbType().getIdListStrategy())) {
+                if (column != null) {
+                    column.appendSQL(_cmd);
+                    _cmd.append(" ");
+                }
+                Context.getDbType().appendIdArrayComparison(_cmd);
+                _parameters.add(getCurrentIds().toArray(new Long[0]));
+            } else {
+                appendLists(_cmd, list -> {
+                    _parameters.addAll(list);
+                    return list.stream()
+                                    .map(id -> Context.getDbType().getSQLPart(SQLPart.PARAMETER))
+                                    .collect(Collectors.joining(" " + Context.getDbType().getSQLPart(SQLPart.COMMA)
+                                                    + " "));
+                });
+            }
+        }
+
+        /**
+         * Append the comparison for the lists of ids.
+         *
+         * @param _cmd StringBuilder to append to
+         * @param _renderer renders the content of one list
+         */
+        private void appendLists(final StringBuilder _cmd,
+                                 final Function<List<Long>, String> _renderer)
+        {
+            final List<List<Long>> lists = getLists();
+            final boolean or = lists.size() > 1;
+            if (or) {
+                _cmd.append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_OPEN)).append(" ");
+            }
+            boolean first = true;
+            for (final List<Long> list : lists) {
+                if (first) {
+                    first = false;
+                } else {
+                    _cmd.append(" ").append(Context.getDbType().getSQLPart(SQLPart.OR)).append(" ");
+                }
+                if (column != null) {
+                    column.appendSQL(_cmd);
+                    _cmd.append(" ");
+                }
+                appendIn(_cmd).append(_renderer.apply(list))
+                    .append(" ").append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_CLOSE));
+            }
+            if (or) {
+                _cmd.append(" ").append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_CLOSE));
+            }
+        }
+
+        /**
+         * @param _cmd StringBuilder to append to
+         * @return the StringBuilder
+         */
+        private StringBuilder appendIn(final StringBuilder _cmd)
+        {
+            return _cmd.append(Context.getDbType().getSQLPart(SQLPart.IN)).append(" ")
+                            .append(Context.getDbType().getSQLPart(SQLPart.PARENTHESIS_OPEN)).append(" ");
+        }
+
+        @Override
+        public String toString()
+        {
+            return ids.toString();
+        }
+    }
+
     /**
      * Value to be escaped.
      */
@@ -21,6 +21,7 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.efaps.db.wrapper.SQLSelect.EscapedValue;
 import org.efaps.db.wrapper.SQLSelect.SQLSelectPart;
@@ -33,6 +34,9 @@ import org.efaps.eql2.Connection;
 public class SQLWhere
 {
 
+    /** Pattern for values that can be bound as Long. */
+    private static final Pattern INTEGRAL = Pattern.compile("-?\\d{1,18}");
+
     /** The criterias. */
     private final List<Section> sections = new ArrayList<>();
 
@@ -263,7 +267,11 @@ public class SQLWhere
                             } else {
                                 new SQLSelect.SQLSelectPart(SQLPart.COMMA).appendSQL(_cmd);
                             }
-                            if (criteria.escape) {
+                            final Object parameter = evalParameter(criteria, value);
+                            if (parameter != null) {
+                                new SQLSelect.SQLSelectPart(SQLPart.PARAMETER).appendSQL(_cmd);
+                                sqlSelect.bind(parameter);
+                            } else if (criteria.escape) {
                                 new EscapedValue(value).appendSQL(_cmd);
                             } else {
                                 new SQLSelect.Value(value).appendSQL(_cmd);
@@ -278,6 +286,34 @@ public class SQLWhere
         }
     }
 
+    /**
+     * Evaluate the value to be bound as parameter for a value of a criteria.
+     * Only escaped values of text columns (bound as String) and plain
+     * integral numbers (bound as Long) are bound, all other values are
+     * rendered as literals. A String bound to a column that is not text (e.g.
+     * a number or timestamp) is not converted by the database.
+     *
+     * @param _criteria the criteria the value belongs to
+     * @param _value the value
+     * @return the value to be bound or <code>null</code> if the value must be
+     *         rendered as literal
+     */
+    protected Object evalParameter(final Criteria _criteria,
+                                   final String _value)
+    {
+        Object ret = null;
+        if (sqlSelect != null && sqlSelect.isParameterized() && _value != null) {
+            if (_criteria.escape) {
+                if (_criteria.text) {
+                    ret = _value;
+                }
+            } else if (INTEGRAL.matcher(_value).matches()) {
+                ret = Long.valueOf(_value);
+            }
+        }
+        return ret;
+    }
+
     public interface Section
     {
 
@@ -321,6 +357,7 @@ public class SQLWhere
         private Comparison comparison;
         private Set<String> values;
         private boolean escape;
+        private boolean text;
         private Connection connection;
         private boolean main;
 
@@ -403,6 +440,17 @@ public class SQLWhere
             return this;
         }
 
+        public boolean isText()
+        {
+            return text;
+        }
+
+        public Criteria text(final boolean _text)
+        {
+            text = _text;
+            return this;
+        }
+
         public Criteria connection(final Connection _connection)
         {
             connection = _connection;
@@ -21,6 +21,7 @@ import org.efaps.admin.datamodel.Type;
 import org.efaps.ci.CIType;
 import org.efaps.db.Instance;
 import org.efaps.db.stmt.AbstractStmt;
+import org.efaps.db.stmt.BatchInsertStmt;
 import org.efaps.db.stmt.CIPrintStmt;
 import org.efaps.db.stmt.CountStmt;
 import org.efaps.db.stmt.DeleteStmt;
@@ -111,7 +112,8 @@ public final class EQL
     }
 
     /**
-     * Parses the stmt.
+     * Parses the stmt. If the {@link StatementCache} is active, the parsed
+     * statement is taken from there.
      *
      * @param _stmt the stmt
      * @return the abstract stmt
@@ -119,7 +121,12 @@ public final class EQL
     public static AbstractStmt getStatement(final CharSequence _stmt)
     {
         AbstractStmt ret = null;
-        final IStatement<?> stmt = parse(_stmt);
+        final IStatement<?> stmt;
+        if (StatementCache.isActive()) {
+            stmt = StatementCache.get(_stmt, text -> parse(text));
+        } else {
+            stmt = parse(_stmt);
+        }
         if (stmt instanceof IPrintStatement) {
             ret = PrintStmt.get((IPrintStatement<?>) stmt, null);
         } else if (stmt instanceof IDeleteStatement) {
@@ -138,6 +145,20 @@ public final class EQL
         return ret;
     }
 
+    /**
+     * Combines the given inserts into one {@link BatchInsertStmt}, so that
+     * the objects are written to the database using JDBC batching.
+     *
+     * @param _inserts the inserts
+     * @return the batch insert stmt
+     */
+    public static BatchInsertStmt batchInsert(final Insert... _inserts)
+    {
+        return BatchInsertStmt.get(Arrays.stream(_inserts)
+                        .map(Insert::stmt)
+                        .toArray(InsertStmt[]::new));
+    }
+
     public static EQLBuilder builder()
     {
         return new EQLBuilder(EQL2.eql());
@@ -0,0 +1,480 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.eql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.eql2.IStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache for parsed EQL statements. The string literals and the
+ * unquoted numbers and oids of a statement are lifted out, so that all
+ * statements with the same shape share one parsed template. On a hit a copy of the template is returned with the
+ * literals put back, which is much cheaper than parsing. Statements whose
+ * literals can not be put back reliably are parsed every time. The cache is
+ * dropped if the Type or Attribute caches are initialized. Activated by
+ * "core.eql.stmtCache.active" (defaults to false), the size is set by
+ * "core.eql.stmtCache.size" (defaults to 500).
+ *
+ * @author The eFaps Team
+ */
+public final class StatementCache
+{
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(StatementCache.class);
+
+    /**
+     * Marker for a statement that can not be cached.
+     */
+    private static final Template UNCACHEABLE = new Template(null, 0);
+
+    /**
+     * Characters that separate an unquoted number from the text around it.
+     */
+    private static final String SEPARATORS = "(),=<>!";
+
+    /**
+     * Counts the hits.
+     */
+    private static final AtomicLong HITS = new AtomicLong();
+
+    /**
+     * Counts the misses.
+     */
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    /**
+     * Is the cache active.
+     */
+    private static Boolean ACTIVE;
+
+    /**
+     * The templates by normalized statement.
+     */
+    private static volatile Map<String, Template> TEMPLATES;
+
+    /**
+     * Instantiates a new statement cache.
+     */
+    private StatementCache()
+    {
+    }
+
+    /**
+     * Get the parsed statement.
+     *
+     * @param _stmt the statement
+     * @param _parser the parser
+     * @return the parsed statement
+     */
+    public static IStatement<?> get(final CharSequence _stmt,
+                                    final Function<CharSequence, IStatement<?>> _parser)
+    {
+        final Normalized normalized = StatementCache.normalize(_stmt);
+        IStatement<?> ret = null;
+        if (normalized != null) {
+            final Map<String, Template> templates = StatementCache.getTemplates();
+            final Template template = templates.get(normalized.template());
+            if (template == null) {
+                StatementCache.MISSES.incrementAndGet();
+                final IStatement<?> parsed = _parser.apply(normalized.template());
+                if (parsed instanceof EObject) {
+                    final Template candidate = new Template(parsed, normalized.values().size());
+                    ret = candidate.instantiate(normalized.values());
+                    // only keep templates the literals can be put back into
+                    templates.put(normalized.template(), ret == null ? StatementCache.UNCACHEABLE : candidate);
+                }
+            } else {
+                StatementCache.HITS.incrementAndGet();
+                ret = template.instantiate(normalized.values());
+            }
+        }
+        if (ret == null) {
+            ret = _parser.apply(_stmt);
+        }
+        return ret;
+    }
+
+    /**
+     * Collapse the whitespace outside of literals and replace the literals
+     * by placeholders. Unquoted numbers and oids are replaced by numeric
+     * placeholders, so that the template still parses the same way.
+     *
+     * @param _stmt the statement
+     * @return the normalized statement, <code>null</code> if the statement
+     *         could not be normalized
+     */
+    static Normalized normalize(final CharSequence _stmt)
+    {
+        final StringBuilder template = new StringBuilder();
+        final List<String> values = new ArrayList<>();
+        boolean space = false;
+        int i = 0;
+        while (i < _stmt.length()) {
+            final char c = _stmt.charAt(i);
+            if (c == '\'' || c == '"') {
+                final int end = StatementCache.indexOf(_stmt, c, i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                final String value = _stmt.subSequence(i + 1, end).toString();
+                if (value.indexOf('\\') > -1) {
+                    // escaped values are converted by the parser, keep them
+                    template.append(_stmt, i, end + 1);
+                } else {
+                    template.append(c).append(StatementCache.placeholder(values.size())).append(c);
+                    values.add(value);
+                }
+                space = false;
+                i = end + 1;
+            } else if (Character.isDigit(c) && (space || template.length() == 0
+                            || StatementCache.SEPARATORS.indexOf(template.charAt(template.length() - 1)) > -1)
+                            && StatementCache.numberEnd(_stmt, i) > i) {
+                final int end = StatementCache.numberEnd(_stmt, i);
+                if (space && template.length() > 0) {
+                    template.append(' ');
+                }
+                final String value = _stmt.subSequence(i, end).toString();
+                final String placeholder = StatementCache.numberPlaceholder(values.size());
+                template.append(value.indexOf('.') > -1 ? placeholder + "." + placeholder : placeholder);
+                values.add(value);
+                space = false;
+                i = end;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+            } else {
+                if (space && template.length() > 0) {
+                    template.append(' ');
+                }
+                space = false;
+                template.append(c);
+                i++;
+            }
+        }
+        return new Normalized(template.toString(), values);
+    }
+
+    /**
+     * Find the closing quote.
+     *
+     * @param _stmt the statement
+     * @param _quote the quote
+     * @param _start the start
+     * @return the index of the closing quote, -1 if not found
+     */
+    private static int indexOf(final CharSequence _stmt,
+                               final char _quote,
+                               final int _start)
+    {
+        int ret = -1;
+        for (int i = _start; i < _stmt.length(); i++) {
+            final char c = _stmt.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == _quote) {
+                ret = i;
+                break;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Find the end of an unquoted number or oid.
+     *
+     * @param _stmt the statement
+     * @param _start the start
+     * @return the index after the number, -1 if there is no number
+     */
+    private static int numberEnd(final CharSequence _stmt,
+                                 final int _start)
+    {
+        int ret = _start;
+        while (ret < _stmt.length() && Character.isDigit(_stmt.charAt(ret))) {
+            ret++;
+        }
+        if (ret + 1 < _stmt.length() && _stmt.charAt(ret) == '.' && Character.isDigit(_stmt.charAt(ret + 1))) {
+            ret++;
+            while (ret < _stmt.length() && Character.isDigit(_stmt.charAt(ret))) {
+                ret++;
+            }
+        }
+        if (ret < _stmt.length() && !Character.isWhitespace(_stmt.charAt(ret))
+                        && StatementCache.SEPARATORS.indexOf(_stmt.charAt(ret)) < 0) {
+            ret = -1;
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the placeholder for an unquoted number. The index is enclosed by
+     * eights, so that the placeholder is a number also.
+     *
+     * @param _idx index of the literal
+     * @return the placeholder
+     */
+    private static String numberPlaceholder(final int _idx)
+    {
+        return "8" + _idx + "8";
+    }
+
+    /**
+     * Gets the placeholder for a literal.
+     *
+     * @param _idx index of the literal
+     * @return the placeholder
+     */
+    private static String placeholder(final int _idx)
+    {
+        return "%%" + _idx + "%%";
+    }
+
+    /**
+     * Gets the templates.
+     *
+     * @return the templates
+     */
+    private static Map<String, Template> getTemplates()
+    {
+        Map<String, Template> ret = StatementCache.TEMPLATES;
+        if (ret == null) {
+            synchronized (StatementCache.class) {
+                ret = StatementCache.TEMPLATES;
+                if (ret == null) {
+                    final int maxSize = ConfigProvider.getConfig()
+                                    .getOptionalValue("core.eql.stmtCache.size", Integer.class).orElse(500);
+                    ret = Collections.synchronizedMap(new LinkedHashMap<String, Template>(16, 0.75f, true)
+                    {
+
+                        /** The Constant serialVersionUID. */
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        protected boolean removeEldestEntry(final Map.Entry<String, Template> _eldest)
+                        {
+                            return size() > maxSize;
+                        }
+                    });
+                    StatementCache.TEMPLATES = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Drop all cached statements.
+     */
+    public static void invalidate()
+    {
+        StatementCache.TEMPLATES = null;
+        LOG.debug("Invalidated StatementCache, hits: {}, misses: {}", StatementCache.HITS.get(),
+                        StatementCache.MISSES.get());
+    }
+
+    /**
+     * Gets the number of hits.
+     *
+     * @return the hits
+     */
+    public static long getHits()
+    {
+        return StatementCache.HITS.get();
+    }
+
+    /**
+     * Gets the number of misses.
+     *
+     * @return the misses
+     */
+    public static long getMisses()
+    {
+        return StatementCache.MISSES.get();
+    }
+
+    /**
+     * Is the cache active.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        if (StatementCache.ACTIVE == null) {
+            StatementCache.ACTIVE = ConfigProvider.getConfig()
+                            .getOptionalValue("core.eql.stmtCache.active", Boolean.class).orElse(false);
+        }
+        return StatementCache.ACTIVE;
+    }
+
+    /**
+     * A statement with placeholders and the literals.
+     *
+     * @param template the statement with placeholders
+     * @param values the literals
+     */
+    record Normalized(String template,
+                      List<String> values)
+    {
+    }
+
+    /**
+     * A parsed statement with placeholders.
+     *
+     * @param statement the parsed statement, <code>null</code> if not
+     *            cacheable
+     * @param literals number of literals
+     */
+    private record Template(IStatement<?> statement,
+                            int literals)
+    {
+
+        /**
+         * Copy the statement and put the literals back.
+         *
+         * @param _values the literals
+         * @return the statement, <code>null</code> if not all literals could
+         *         be put back
+         */
+        private IStatement<?> instantiate(final List<String> _values)
+        {
+            IStatement<?> ret = null;
+            if (statement != null) {
+                final EObject copy = EcoreUtil.copy((EObject) statement);
+                int replaced = StatementCache.Template.replace(copy, _values);
+                final TreeIterator<EObject> iter = copy.eAllContents();
+                while (iter.hasNext()) {
+                    replaced = replaced + StatementCache.Template.replace(iter.next(), _values);
+                }
+                if (replaced == literals) {
+                    ret = (IStatement<?>) copy;
+                } else {
+                    LOG.debug("Could not put back {} literals, {} found", literals, replaced);
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Replace the placeholders in the string attributes of the given
+         * object.
+         *
+         * @param _eObject the object
+         * @param _values the literals
+         * @return the number of replaced placeholders
+         */
+        @SuppressWarnings("unchecked")
+        private static int replace(final EObject _eObject,
+                                   final List<String> _values)
+        {
+            int ret = 0;
+            for (final EAttribute attribute : _eObject.eClass().getEAllAttributes()) {
+                if (String.class.equals(attribute.getEAttributeType().getInstanceClass())
+                                && _eObject.eIsSet(attribute)) {
+                    if (attribute.isMany()) {
+                        final ListIterator<String> iter = ((List<String>) _eObject.eGet(attribute)).listIterator();
+                        while (iter.hasNext()) {
+                            final String value = StatementCache.Template.value(iter.next(), _values);
+                            if (value != null) {
+                                iter.set(value);
+                                ret++;
+                            }
+                        }
+                    } else {
+                        final String value = StatementCache.Template.value((String) _eObject.eGet(attribute),
+                                        _values);
+                        if (value != null) {
+                            _eObject.eSet(attribute, value);
+                            ret++;
+                        }
+                    }
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Get the literal for a placeholder.
+         *
+         * @param _current the current value
+         * @param _values the literals
+         * @return the literal, <code>null</code> if the value is not a
+         *         placeholder
+         */
+        private static String value(final String _current,
+                                    final List<String> _values)
+        {
+            String ret = null;
+            if (_current != null && _current.startsWith("%%") && _current.endsWith("%%") && _current.length() > 4) {
+                ret = StatementCache.Template.get(_current.substring(2, _current.length() - 2), _values);
+            } else if (_current != null && _current.startsWith("8") && _current.endsWith("8")
+                            && _current.length() > 2) {
+                final int dot = _current.indexOf('.');
+                if (dot < 0) {
+                    final String value = StatementCache.Template.get(_current.substring(1, _current.length() - 1),
+                                    _values);
+                    if (value != null && value.indexOf('.') < 0) {
+                        ret = value;
+                    }
+                } else if (dot > 2 && _current.substring(0, dot).equals(_current.substring(dot + 1))) {
+                    final String value = StatementCache.Template.get(_current.substring(1, dot - 1), _values);
+                    // only an oid can be put back for an oid placeholder
+                    if (value != null && value.indexOf('.') > -1) {
+                        ret = value;
+                    }
+                }
+            }
+            return ret;
+        }
+
+        /**
+         * Get the literal for the index of a placeholder.
+         *
+         * @param _idx the index
+         * @param _values the literals
+         * @return the literal, <code>null</code> if the index is not valid
+         */
+        private static String get(final String _idx,
+                                  final List<String> _values)
+        {
+            String ret = null;
+            if (!_idx.isEmpty() && _idx.length() < 10 && _idx.chars().allMatch(Character::isDigit)) {
+                final int i = Integer.parseInt(_idx);
+                if (i < _values.size()) {
+                    ret = _values.get(i);
+                }
+            }
+            return ret;
+        }
+    }
+}
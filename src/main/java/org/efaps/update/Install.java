@@ -22,21 +22,29 @@ import java.net.URL;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import org.apache.commons.collections4.MultiMapUtils;
 import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.MapContext;
 import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.admin.EFapsSystemConfiguration;
 import org.efaps.admin.KernelSettings;
 import org.efaps.ci.CIAdminCommon;
@@ -95,6 +103,21 @@ public class Install
     /** The updateables. */
     private final MultiValuedMap<String, String> updateables = MultiMapUtils.newSetValuedHashMap();
 
+    /**
+     * Durations of the executed life cycle steps in milliseconds.
+     */
+    private final Map<UpdateLifecycle, Long> stepDurations = new LinkedHashMap<>();
+
+    /**
+     * Executor for the parallel updates.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Number of workers for the parallel updates.
+     */
+    private static Integer THREADS;
+
     /**
      * Standard Constructor.
      */
@@ -159,34 +182,28 @@ public class Install
         }
 
         // loop through all life cycle steps
-        for (final UpdateLifecycle step : getUpdateLifecycles()) {
-            if (!_ignoredSteps.contains(step)) {
-                if (Install.LOG.isInfoEnabled()) {
-                    Install.LOG.info("..Running Lifecycle step " + step);
-                }
-                for (final Map.Entry<String, List<IUpdate>> entry : cache.entrySet()) {
-                    final List<IUpdate> updates = entry.getValue();
-                    Collections.sort(updates,
-                                    (_update0,
-                                     _update1) -> String.valueOf(_update0.getInstallFile().getUrl()).compareTo(
-                                                     String.valueOf(_update1.getInstallFile().getUrl())));
-                    for (final IUpdate update : updates) {
-                        try {
-                            updateables.putAll(update.updateInDB(jexlContext, step,
-                                            evaluateProfiles(update.getFileApplication(), _profiles)));
-                            if (!bigTrans) {
-                                Context.commit();
-                                Context.begin(user);
-                            }
-                        } catch (final EFapsException e) {
-                            throw new InstallationException("Transaction start failed", e);
-                        }
-
+        try {
+            for (final UpdateLifecycle step : getUpdateLifecycles()) {
+                if (!_ignoredSteps.contains(step)) {
+                    if (Install.LOG.isInfoEnabled()) {
+                        Install.LOG.info("..Running Lifecycle step " + step);
                     }
+                    final long start = System.currentTimeMillis();
+                    for (final Map.Entry<String, List<IUpdate>> entry : cache.entrySet()) {
+                        final List<IUpdate> updates = entry.getValue();
+                        Collections.sort(updates,
+                                        (_update0,
+                                         _update1) -> String.valueOf(_update0.getInstallFile().getUrl()).compareTo(
+                                                         String.valueOf(_update1.getInstallFile().getUrl())));
+                        execute(step, updates, update -> jexlContext, _profiles, bigTrans, user);
+                    }
+                    registerDuration(step, start);
+                } else if (Install.LOG.isInfoEnabled()) {
+                    Install.LOG.info("..Skipped Lifecycle step " + step);
                 }
-            } else if (Install.LOG.isInfoEnabled()) {
-                Install.LOG.info("..Skipped Lifecycle step " + step);
             }
+        } finally {
+            shutdownExecutor();
         }
         return updateables;
     }
@@ -235,42 +252,248 @@ public class Install
         final Map<String, Integer> versions = getLatestVersions();
 
         // loop through all life cycle steps
-        for (final UpdateLifecycle step : getUpdateLifecycles()) {
-            if (Install.LOG.isInfoEnabled()) {
-                Install.LOG.info("..Running Lifecycle step " + step);
+        try {
+            for (final UpdateLifecycle step : getUpdateLifecycles()) {
+                if (Install.LOG.isInfoEnabled()) {
+                    Install.LOG.info("..Running Lifecycle step " + step);
+                }
+                final long start = System.currentTimeMillis();
+                for (final Map.Entry<String, List<IUpdate>> entry : cache.entrySet()) {
+                    execute(step, entry.getValue(), update -> {
+                        final Integer latestVersion;
+                        if (update.getFileApplication() == null) {
+                            latestVersion = 1;
+                        } else {
+                            latestVersion = versions.get(update.getFileApplication());
+                        }
+                        // initialize JexlContext (used to evaluate version)
+                        final JexlContext jexlContext = new MapContext();
+                        if (latestVersion == null && !(update instanceof DefaultEmptyUpdate)) {
+                            Install.LOG.warn("Could not find any version for {} with Application {}",
+                                            update.getInstallFile(), update.getFileApplication());
+                        } else {
+                            jexlContext.set("version", latestVersion);
+                            jexlContext.set("latest", latestVersion);
+                        }
+                        return jexlContext;
+                    }, _profiles, bigTrans, user);
+                }
+                registerDuration(step, start);
             }
-            for (final Map.Entry<String, List<IUpdate>> entry : cache.entrySet()) {
-                for (final IUpdate update : entry.getValue()) {
-                    final Integer latestVersion;
-                    if (update.getFileApplication() == null) {
-                        latestVersion = 1;
-                    } else {
-                        latestVersion = versions.get(update.getFileApplication());
-                    }
-                    // initialize JexlContext (used to evaluate version)
-                    final JexlContext jexlContext = new MapContext();
-                    if (latestVersion == null && !(update instanceof DefaultEmptyUpdate)) {
-                        Install.LOG.warn("Could not find any version for {} with Application {}",
-                                        update.getInstallFile(), update.getFileApplication());
-                    } else {
-                        jexlContext.set("version", latestVersion);
-                        jexlContext.set("latest", latestVersion);
+        } finally {
+            shutdownExecutor();
+        }
+        return updateables;
+    }
+
+    /**
+     * Execute the updates of one group of a life cycle step. The updates are
+     * executed one after the other, except "core.install.threads" is set to
+     * more than one and the database does not use one big transaction. In
+     * that case the updates are executed by workers, each update in its own
+     * Context. Updates for the same object (same UUID, or same file if the
+     * update has no UUID) are executed by the same worker in the given order.
+     * The groups themselves (e.g. all Types, all Forms) and the life cycle
+     * steps are still executed one after the other, so that every update
+     * finds the objects it links to.
+     *
+     * @param _step current step of the update life cycle
+     * @param _updates updates to be executed
+     * @param _jexlContext function to get the JexlContext for an update
+     * @param _profiles profiles to be applied
+     * @param _bigTrans is the install done in one big transaction
+     * @param _user name of the user
+     * @throws InstallationException on error
+     */
+    private void execute(final UpdateLifecycle _step,
+                         final List<IUpdate> _updates,
+                         final Function<IUpdate, JexlContext> _jexlContext,
+                         final Set<Profile> _profiles,
+                         final boolean _bigTrans,
+                         final String _user)
+        throws InstallationException
+    {
+        final Map<String, List<IUpdate>> chains = new LinkedHashMap<>();
+        for (final IUpdate update : _updates) {
+            final String key = update instanceof final AbstractUpdate abstractUpdate
+                            && abstractUpdate.getUUID() != null
+                                            ? abstractUpdate.getUUID()
+                                            : String.valueOf(update.getInstallFile().getUrl());
+            chains.computeIfAbsent(key, k -> new ArrayList<>()).add(update);
+        }
+        if (_bigTrans || chains.size() < 2 || Install.getThreads() < 2) {
+            for (final IUpdate update : _updates) {
+                try {
+                    updateInDB(update, _step, _jexlContext.apply(update), _profiles);
+                    if (!_bigTrans) {
+                        Context.commit();
+                        Context.begin(_user);
                     }
+                } catch (final EFapsException e) {
+                    throw new InstallationException("Transaction start failed", e);
+                }
+            }
+        } else {
+            executeParallel(_step, chains.values(), _jexlContext, _profiles, _user);
+        }
+    }
+
+    /**
+     * Execute chains of updates in parallel. The Context of the current
+     * thread is committed before and started again afterwards.
+     *
+     * @param _step current step of the update life cycle
+     * @param _chains chains of updates, the updates of a chain are executed
+     *            in order
+     * @param _jexlContext function to get the JexlContext for an update
+     * @param _profiles profiles to be applied
+     * @param _user name of the user
+     * @throws InstallationException on error
+     */
+    private void executeParallel(final UpdateLifecycle _step,
+                                 final Collection<List<IUpdate>> _chains,
+                                 final Function<IUpdate, JexlContext> _jexlContext,
+                                 final Set<Profile> _profiles,
+                                 final String _user)
+        throws InstallationException
+    {
+        try {
+            Context.commit();
+        } catch (final EFapsException e) {
+            throw new InstallationException("Transaction commit failed", e);
+        }
+        InstallationException error = null;
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (final List<IUpdate> chain : _chains) {
+            futures.add(getExecutor().submit(() -> {
+                for (final IUpdate update : chain) {
+                    Context.begin(_user, Context.Inheritance.Local);
+                    boolean commit = false;
                     try {
-                        // and create
-                        updateables.putAll(update.updateInDB(jexlContext, step,
-                                        evaluateProfiles(update.getFileApplication(), _profiles)));
-                        if (!bigTrans) {
+                        updateInDB(update, _step, _jexlContext.apply(update), _profiles);
+                        commit = true;
+                    } finally {
+                        if (commit) {
                             Context.commit();
-                            Context.begin(user);
+                        } else {
+                            Context.rollback();
                         }
-                    } catch (final EFapsException e) {
-                        throw new InstallationException("Transaction start failed", e);
                     }
                 }
+                return null;
+            }));
+        }
+        try {
+            for (final Future<Void> future : futures) {
+                future.get();
             }
+        } catch (final ExecutionException e) {
+            error = e.getCause() instanceof final InstallationException installationException
+                            ? installationException
+                            : new InstallationException("Update failed in Lifecycle step " + _step, e.getCause());
+            futures.forEach(future -> future.cancel(true));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new InstallationException("Interrupted in Lifecycle step " + _step, e);
+            futures.forEach(future -> future.cancel(true));
         }
-        return updateables;
+        try {
+            Context.begin(_user);
+        } catch (final EFapsException e) {
+            throw new InstallationException("Transaction start failed", e);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Execute one update and register the updateables.
+     *
+     * @param _update update to be executed
+     * @param _step current step of the update life cycle
+     * @param _jexlContext context used to evaluate JEXL expressions
+     * @param _profiles profiles to be applied
+     * @throws EFapsException on error
+     * @throws InstallationException on error
+     */
+    private void updateInDB(final IUpdate _update,
+                            final UpdateLifecycle _step,
+                            final JexlContext _jexlContext,
+                            final Set<Profile> _profiles)
+        throws EFapsException, InstallationException
+    {
+        final MultiValuedMap<String, String> result = _update.updateInDB(_jexlContext, _step,
+                        evaluateProfiles(_update.getFileApplication(), _profiles));
+        synchronized (updateables) {
+            updateables.putAll(result);
+        }
+    }
+
+    /**
+     * Register the duration of a life cycle step.
+     *
+     * @param _step the life cycle step
+     * @param _start start of the step in milliseconds
+     */
+    private void registerDuration(final UpdateLifecycle _step,
+                                  final long _start)
+    {
+        final long duration = System.currentTimeMillis() - _start;
+        stepDurations.merge(_step, duration, Long::sum);
+        Install.LOG.info("..Finished Lifecycle step {} in {}ms", _step, duration);
+    }
+
+    /**
+     * Gets the durations of the executed life cycle steps in milliseconds.
+     *
+     * @return the durations by life cycle step
+     */
+    public Map<UpdateLifecycle, Long> getStepDurations()
+    {
+        return stepDurations;
+    }
+
+    /**
+     * Gets the executor for the parallel updates.
+     *
+     * @return the executor
+     */
+    private ExecutorService getExecutor()
+    {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Install.getThreads(), runnable -> {
+                final Thread thread = new Thread(runnable, "eFaps-Install");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Shut down the executor for the parallel updates, if one was started.
+     */
+    private void shutdownExecutor()
+    {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Gets the number of workers for the parallel updates.
+     *
+     * @return the number of workers
+     */
+    private static int getThreads()
+    {
+        if (Install.THREADS == null) {
+            Install.THREADS = ConfigProvider.getConfig()
+                            .getOptionalValue("core.install.threads", Integer.class).orElse(1);
+        }
+        return Install.THREADS;
     }
 
     /**
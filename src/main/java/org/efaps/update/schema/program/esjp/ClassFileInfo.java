@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.update.schema.program.esjp;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Information read from the constant pool and the fields of a compiled
+ * class: the names of all referenced classes and a hash over the compile
+ * time constants of the class. Constants are inlined by the compiler into the
+ * classes using them, so a changed constant can not be found by the
+ * references.
+ *
+ * @author The eFaps Team
+ */
+final class ClassFileInfo
+{
+
+    /**
+     * Pattern for a class in a descriptor or signature.
+     */
+    private static final Pattern DESCRIPTOR = Pattern.compile("L([\\w/$]+)[;<]");
+
+    /**
+     * Binary names of the referenced classes.
+     */
+    private final Set<String> references = new HashSet<>();
+
+    /**
+     * Hash over the compile time constants that are not private.
+     */
+    private final String constantsHash;
+
+    /**
+     * Instantiates a new class file info.
+     *
+     * @param _references binary names of the referenced classes
+     * @param _constants the constants
+     */
+    private ClassFileInfo(final Set<String> _references,
+                          final CharSequence _constants)
+    {
+        references.addAll(_references);
+        constantsHash = _constants.length() == 0 ? "" : DigestUtils.sha256Hex(_constants.toString());
+    }
+
+    /**
+     * Gets the binary names of the referenced classes.
+     *
+     * @return the references
+     */
+    public Set<String> getReferences()
+    {
+        return references;
+    }
+
+    /**
+     * Gets the hash over the compile time constants that are not private.
+     *
+     * @return the hash, empty string if the class has no such constants
+     */
+    public String getConstantsHash()
+    {
+        return constantsHash;
+    }
+
+    /**
+     * Read the given class file.
+     *
+     * @param _bytes the bytes of the class file
+     * @return the class file info
+     * @throws IOException if the class file could not be read
+     */
+    public static ClassFileInfo read(final byte[] _bytes)
+        throws IOException
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(_bytes));
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        final int count = in.readUnsignedShort();
+        final Object[] pool = new Object[count];
+        final Set<Integer> classIdx = new HashSet<>();
+        for (int i = 1; i < count; i++) {
+            final int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1:
+                    pool[i] = in.readUTF();
+                    break;
+                case 3:
+                    pool[i] = in.readInt();
+                    break;
+                case 4:
+                    pool[i] = in.readFloat();
+                    break;
+                case 5:
+                    pool[i++] = in.readLong();
+                    break;
+                case 6:
+                    pool[i++] = in.readDouble();
+                    break;
+                case 7:
+                    classIdx.add(in.readUnsignedShort());
+                    break;
+                case 8:
+                    pool[i] = new StringRef(in.readUnsignedShort());
+                    break;
+                case 16:
+                case 19:
+                case 20:
+                    in.readUnsignedShort();
+                    break;
+                case 15:
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    in.readInt();
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        final Set<String> references = new HashSet<>();
+        for (final Integer idx : classIdx) {
+            final String name = (String) pool[idx];
+            if (name.startsWith("[")) {
+                ClassFileInfo.addDescriptor(references, name);
+            } else {
+                references.add(name.replace('/', '.'));
+            }
+        }
+        for (final Object entry : pool) {
+            if (entry instanceof final String utf8) {
+                ClassFileInfo.addDescriptor(references, utf8);
+            }
+        }
+
+        // access flags, this class, super class and interfaces
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        final int interfaces = in.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++) {
+            in.readUnsignedShort();
+        }
+        final StringBuilder constants = new StringBuilder();
+        final int fields = in.readUnsignedShort();
+        for (int i = 0; i < fields; i++) {
+            final int access = in.readUnsignedShort();
+            final String name = (String) pool[in.readUnsignedShort()];
+            final String descriptor = (String) pool[in.readUnsignedShort()];
+            final int attributes = in.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                final String attribute = (String) pool[in.readUnsignedShort()];
+                final int length = in.readInt();
+                if ("ConstantValue".equals(attribute) && (access & 0x0002) == 0) {
+                    Object value = pool[in.readUnsignedShort()];
+                    if (value instanceof final StringRef ref) {
+                        value = pool[ref.idx()];
+                    }
+                    constants.append(name).append(':').append(descriptor).append('=').append(value).append('\n');
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        }
+        return new ClassFileInfo(references, constants);
+    }
+
+    /**
+     * Add the classes of a descriptor or signature.
+     *
+     * @param _references set the binary names are added to
+     * @param _value the value to search in
+     */
+    private static void addDescriptor(final Set<String> _references,
+                                      final String _value)
+    {
+        final Matcher matcher = ClassFileInfo.DESCRIPTOR.matcher(_value);
+        while (matcher.find()) {
+            _references.add(matcher.group(1).replace('/', '.'));
+        }
+    }
+
+    /**
+     * Reference from a string constant to its value.
+     *
+     * @param idx index of the value in the constant pool
+     */
+    private record StringRef(int idx)
+    {
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.update.schema.program.esjp;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * State of the last compilation of the ESJPs used by the incremental
+ * compilation of the {@link ESJPCompiler}: the hash of the compiler options
+ * and class path, the hash of every compiled source, the ESJPs every source
+ * depends on and for every compiled class its id in the database, the hash
+ * of its bytecode and the hash of its constants. The state is stored as
+ * properties file.
+ *
+ * @author The eFaps Team
+ */
+final class CompileState
+{
+
+    /**
+     * Logging instance used in this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CompileState.class);
+
+    /**
+     * Prefix for the key of a source.
+     */
+    private static final String SOURCE = "source.";
+
+    /**
+     * Prefix for the key of the dependencies of a source.
+     */
+    private static final String DEPENDS = "depends.";
+
+    /**
+     * Prefix for the key of a class.
+     */
+    private static final String CLASS = "class.";
+
+    /**
+     * Key of the hash of the compiler options.
+     */
+    private static final String OPTIONS = "options";
+
+    /**
+     * Hash of the compiler options and the class path entries.
+     */
+    private String optionsHash;
+
+    /**
+     * Hash by name of the source.
+     */
+    private final Map<String, String> sourceHashes = new HashMap<>();
+
+    /**
+     * ESJPs a source depends on by name of the source.
+     */
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    /**
+     * Compiled classes by binary name.
+     */
+    private final Map<String, ClassEntry> classes = new HashMap<>();
+
+    /**
+     * File the state is stored in.
+     */
+    private final Path file;
+
+    /**
+     * Instantiates a new compile state.
+     *
+     * @param _file file the state is stored in
+     */
+    private CompileState(final Path _file)
+    {
+        file = _file;
+    }
+
+    /**
+     * Gets the hash of the compiler options and the class path entries.
+     *
+     * @return the hash, <code>null</code> if not known
+     */
+    public String getOptionsHash()
+    {
+        return optionsHash;
+    }
+
+    /**
+     * Sets the hash of the compiler options and the class path entries.
+     *
+     * @param _optionsHash the hash
+     */
+    public void setOptionsHash(final String _optionsHash)
+    {
+        optionsHash = _optionsHash;
+    }
+
+    /**
+     * Gets the hash of the given source.
+     *
+     * @param _name name of the source
+     * @return the hash, <code>null</code> if not known
+     */
+    public String getSourceHash(final String _name)
+    {
+        return sourceHashes.get(_name);
+    }
+
+    /**
+     * Gets the names of all known sources.
+     *
+     * @return the source names
+     */
+    public Set<String> getSourceNames()
+    {
+        return sourceHashes.keySet();
+    }
+
+    /**
+     * Gets the compiled class.
+     *
+     * @param _className binary name of the class
+     * @return the class entry, <code>null</code> if not known
+     */
+    public ClassEntry getClass(final String _className)
+    {
+        return classes.get(_className);
+    }
+
+    /**
+     * Checks if the known classes are exactly the given classes stored in
+     * the database. If not, the state does not belong to the database or the
+     * classes were compiled by someone else.
+     *
+     * @param _class2id the class names with their ids from the database
+     * @return true, if matches
+     */
+    public boolean matches(final Map<String, Long> _class2id)
+    {
+        boolean ret = !classes.isEmpty() && classes.size() == _class2id.size();
+        for (final Map.Entry<String, ClassEntry> entry : classes.entrySet()) {
+            if (!ret) {
+                break;
+            }
+            ret = Long.valueOf(entry.getValue().id()).equals(_class2id.get(entry.getKey()));
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the given sources and all sources depending on them directly or
+     * indirectly.
+     *
+     * @param _names names of the sources
+     * @return the names of the sources including the dependents
+     */
+    public Set<String> getWithDependents(final Collection<String> _names)
+    {
+        final Map<String, Set<String>> dependents = new HashMap<>();
+        for (final Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            for (final String dependency : entry.getValue()) {
+                dependents.computeIfAbsent(dependency, name -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        final Set<String> ret = new HashSet<>(_names);
+        final Deque<String> queue = new ArrayDeque<>(_names);
+        while (!queue.isEmpty()) {
+            for (final String dependent : dependents.getOrDefault(queue.poll(), Set.of())) {
+                if (ret.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Register a compiled source.
+     *
+     * @param _name name of the source
+     * @param _hash hash of the source
+     * @param _dependencies ESJPs the source depends on
+     */
+    public void putSource(final String _name,
+                          final String _hash,
+                          final Set<String> _dependencies)
+    {
+        sourceHashes.put(_name, _hash);
+        dependencies.put(_name, _dependencies);
+    }
+
+    /**
+     * Remove a source.
+     *
+     * @param _name name of the source
+     */
+    public void removeSource(final String _name)
+    {
+        sourceHashes.remove(_name);
+        dependencies.remove(_name);
+    }
+
+    /**
+     * Register a compiled class.
+     *
+     * @param _className binary name of the class
+     * @param _entry the class entry
+     */
+    public void putClass(final String _className,
+                         final ClassEntry _entry)
+    {
+        classes.put(_className, _entry);
+    }
+
+    /**
+     * Remove a class.
+     *
+     * @param _className binary name of the class
+     */
+    public void removeClass(final String _className)
+    {
+        classes.remove(_className);
+    }
+
+    /**
+     * Remove all sources and classes.
+     */
+    public void clear()
+    {
+        optionsHash = null;
+        sourceHashes.clear();
+        dependencies.clear();
+        classes.clear();
+    }
+
+    /**
+     * Store the state.
+     */
+    public void store()
+    {
+        final Properties props = new Properties();
+        if (optionsHash != null) {
+            props.setProperty(CompileState.OPTIONS, optionsHash);
+        }
+        sourceHashes.forEach((name, hash) -> props.setProperty(CompileState.SOURCE + name, hash));
+        dependencies.forEach((name, deps) -> props.setProperty(CompileState.DEPENDS + name, String.join(",", deps)));
+        classes.forEach((name, entry) -> props.setProperty(CompileState.CLASS + name,
+                        entry.id() + "," + entry.hash() + "," + entry.constantsHash()));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                props.store(out, "eFaps ESJP compile state");
+            }
+        } catch (final IOException e) {
+            CompileState.LOG.warn("Could not store ESJP compile state in '{}'", file, e);
+        }
+    }
+
+    /**
+     * Load the state from the given file. If the file does not exist or can
+     * not be read an empty state is returned.
+     *
+     * @param _file file the state is stored in
+     * @return the state
+     */
+    public static CompileState load(final Path _file)
+    {
+        final CompileState ret = new CompileState(_file);
+        if (Files.isReadable(_file)) {
+            final Properties props = new Properties();
+            try (InputStream in = Files.newInputStream(_file)) {
+                props.load(in);
+                for (final String key : props.stringPropertyNames()) {
+                    final String value = props.getProperty(key);
+                    if (key.equals(CompileState.OPTIONS)) {
+                        ret.optionsHash = value;
+                    } else if (key.startsWith(CompileState.SOURCE)) {
+                        ret.sourceHashes.put(key.substring(CompileState.SOURCE.length()), value);
+                    } else if (key.startsWith(CompileState.DEPENDS)) {
+                        ret.dependencies.put(key.substring(CompileState.DEPENDS.length()), value.isEmpty()
+                                        ? new HashSet<>()
+                                        : Arrays.stream(value.split(",")).collect(Collectors.toSet()));
+                    } else if (key.startsWith(CompileState.CLASS)) {
+                        final String[] values = value.split(",", -1);
+                        ret.classes.put(key.substring(CompileState.CLASS.length()),
+                                        new ClassEntry(Long.parseLong(values[0]), values[1], values[2]));
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                CompileState.LOG.warn("Could not read ESJP compile state from '{}'", _file, e);
+                ret.clear();
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Evaluate the hash of the given compiler options. For the entries of the
+     * class path the size and the time of the last modification are included
+     * also, so that a replaced jar with the same name changes the hash.
+     *
+     * @param _options the compiler options
+     * @return the hash
+     */
+    static String hashOptions(final List<String> _options)
+    {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < _options.size(); i++) {
+            text.append(_options.get(i)).append('\n');
+            if ("-classpath".equals(_options.get(i)) && i + 1 < _options.size()) {
+                for (final String entry : _options.get(i + 1).split(File.pathSeparator)) {
+                    final File file = new File(entry);
+                    if (!entry.isEmpty() && file.exists()) {
+                        text.append(entry).append(',').append(file.length()).append(',')
+                                        .append(file.lastModified()).append('\n');
+                    }
+                }
+            }
+        }
+        return DigestUtils.sha256Hex(text.toString());
+    }
+
+    /**
+     * A compiled class.
+     *
+     * @param id id of the class in the database
+     * @param hash hash of the bytecode
+     * @param constantsHash hash of the constants
+     */
+    record ClassEntry(long id,
+                      String hash,
+                      String constantsHash)
+    {
+    }
+}
@@ -23,11 +23,13 @@ import java.io.OutputStream;
 import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,8 +45,11 @@ import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 import javax.tools.ToolProvider;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.SystemUtils;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.efaps.admin.datamodel.Type;
+import org.efaps.admin.program.esjp.EFapsClassLoader;
 import org.efaps.admin.program.esjp.EsjpScanner;
 import org.efaps.ci.CIAdminProgram;
 import org.efaps.db.Checkin;
@@ -62,7 +67,10 @@ import org.slf4j.LoggerFactory;
 /**
  * The class is used to compile all checked in ESJP programs. Because the
  * dependencies of a class are not known, all ESJP programs stored in eFaps are
- * compiled.
+ * compiled. If "core.esjp.compile.incremental" is set to true, the hashes of
+ * the sources and the dependencies read from the compiled classes are kept in
+ * a {@link CompileState}, and only the changed ESJPs and the ESJPs depending
+ * on them are compiled and stored.
  *
  * @author The eFaps Team
  */
@@ -112,6 +120,21 @@ public class ESJPCompiler
      */
     private final List<String> classPathElements;
 
+    /**
+     * Names of the ESJPs compiled by the current compile run.
+     */
+    private Set<String> compiling = new HashSet<>();
+
+    /**
+     * Is the incremental compilation active.
+     */
+    private static Boolean INCREMENTAL;
+
+    /**
+     * Standard file manager reused by the incremental compilation.
+     */
+    private static StandardJavaFileManager STANDARDFILEMANAGER;
+
     /**
      * The constructor initialize the two type instances {@link #esjpType} and
      * {@link #classType}.
@@ -201,41 +224,255 @@ public class ESJPCompiler
                 optionList.addAll(Arrays.asList("-g", _debug));
             }
 
+            final CompileState state = ESJPCompiler.isIncremental()
+                            ? CompileState.load(ESJPCompiler.getStateFile())
+                            : null;
+            final String optionsHash = CompileState.hashOptions(optionList);
+            boolean validState = state != null && state.matches(this.class2id);
+            if (state != null && !validState) {
+                ESJPCompiler.LOG.info("    No valid compile state found, compiling all ESJPs");
+                state.clear();
+            } else if (validState && !optionsHash.equals(state.getOptionsHash())) {
+                ESJPCompiler.LOG.info("    Compiler options or class path changed, compiling all ESJPs");
+                validState = false;
+                state.clear();
+            }
+            compileSources(compiler, optionList, evalSources(state, validState));
+            if (validState && this.compiling.size() < this.name2Source.size() && isConstantChanged(state)) {
+                ESJPCompiler.LOG.info("    Constants of ESJPs changed, compiling all ESJPs");
+                compileSources(compiler, optionList, new HashSet<>(this.name2Source.keySet()));
+            }
+
+            // store all compiled ESJP's
+            for (final ESJPCompiler.StoreObject obj : this.classFiles.values()) {
+                if (validState && obj.isUnchanged(state)) {
+                    obj.id = this.class2id.remove(obj.className);
+                } else {
+                    obj.write();
+                }
+            }
+
+            // delete not needed compiled ESJP classes
+            for (final Map.Entry<String, Long> entry : this.class2id.entrySet()) {
+                final String sourceName = ESJPCompiler.getSourceName(entry.getKey());
+                if (!validState || this.compiling.contains(sourceName) || !this.name2Source.containsKey(sourceName)) {
+                    try {
+                        new Delete(this.classType, entry.getValue()).executeWithoutAccessCheck();
+                    } catch (final EFapsException e) {
+                        throw new InstallationException("Could not delete ESJP class with id " + entry.getValue(),
+                                        e);
+                    }
+                    if (state != null) {
+                        state.removeClass(entry.getKey());
+                    }
+                }
+            }
+            if (state != null) {
+                state.setOptionsHash(optionsHash);
+                updateState(state);
+            }
+            EFapsClassLoader.reset();
+        }
+    }
+
+    /**
+     * Compile the given ESJPs.
+     *
+     * @param _compiler compiler to be used
+     * @param _optionList options for the compiler
+     * @param _names names of the ESJPs to compile
+     * @throws InstallationException if the compile failed
+     */
+    private void compileSources(final JavaCompiler _compiler,
+                                final List<String> _optionList,
+                                final Set<String> _names)
+        throws InstallationException
+    {
+        this.compiling = _names;
+        this.classFiles.clear();
+        final List<SourceObject> sources = _names.stream()
+                        .map(this.name2Source::get)
+                        .sorted(Comparator.comparing(SourceObject::getJavaName))
+                        .collect(Collectors.toList());
+        if (sources.isEmpty()) {
+            ESJPCompiler.LOG.info("    All ESJPs are up to date");
+        } else {
             // logging of compiling classes
             if (ESJPCompiler.LOG.isInfoEnabled()) {
-                final List<SourceObject> ls = new ArrayList<>(this.name2Source.values());
-                Collections.sort(ls, Comparator.comparing(SourceObject::getJavaName));
                 ESJPCompiler.LOG.info("    Compiling ESJPs '{}'",
-                                ls.stream().map(SourceObject::getJavaName).collect(Collectors.joining("\n    ")));
+                                sources.stream().map(SourceObject::getJavaName).collect(Collectors.joining("\n    ")));
             }
 
-            final FileManager fm = new FileManager(compiler.getStandardFileManager(null, null, null));
-            final boolean noErrors = compiler.getTask(new ErrorWriter(),
+            final FileManager fm = new FileManager(ESJPCompiler.getStandardFileManager(_compiler));
+            final boolean noErrors = _compiler.getTask(new ErrorWriter(),
                             fm,
                             null,
-                            optionList,
+                            _optionList,
                             null,
-                            this.name2Source.values())
+                            sources)
                             .call();
 
             if (!noErrors) {
                 throw new InstallationException("error");
             }
+        }
+    }
 
-            // store all compiled ESJP's
-            for (final ESJPCompiler.StoreObject obj : this.classFiles.values()) {
-                obj.write();
+    /**
+     * Evaluate the ESJPs that must be compiled. Without a valid state all
+     * ESJPs are compiled, else the ESJPs with a changed source and all
+     * ESJPs depending on them or on removed ESJPs.
+     *
+     * @param _state state of the last compilation
+     * @param _validState is the state valid
+     * @return names of the ESJPs to compile
+     * @throws InstallationException if a source could not be read
+     */
+    private Set<String> evalSources(final CompileState _state,
+                                    final boolean _validState)
+        throws InstallationException
+    {
+        final Set<String> ret;
+        if (_validState) {
+            final Set<String> changed = new HashSet<>();
+            for (final SourceObject source : this.name2Source.values()) {
+                if (!source.getHash().equals(_state.getSourceHash(source.getJavaName()))) {
+                    changed.add(source.getJavaName());
+                }
             }
+            for (final String name : _state.getSourceNames()) {
+                if (!this.name2Source.containsKey(name)) {
+                    changed.add(name);
+                }
+            }
+            ret = _state.getWithDependents(changed);
+            ret.retainAll(this.name2Source.keySet());
+            ESJPCompiler.LOG.info("    {} changed ESJPs, {} ESJPs to compile", changed.size(), ret.size());
+        } else {
+            ret = new HashSet<>(this.name2Source.keySet());
+        }
+        return ret;
+    }
 
-            // delete not needed compiled ESJP classes
-            for (final Long id : this.class2id.values()) {
-                try {
-                    new Delete(this.classType, id).executeWithoutAccessCheck();
-                } catch (final EFapsException e) {
-                    throw new InstallationException("Could not delete ESJP class with id " + id, e);
+    /**
+     * Checks if the constants of one of the compiled classes changed. The
+     * compiler inlines constants, so in that case the dependents can not be
+     * known.
+     *
+     * @param _state state of the last compilation
+     * @return true, if changed
+     * @throws InstallationException if a class could not be read
+     */
+    private boolean isConstantChanged(final CompileState _state)
+        throws InstallationException
+    {
+        boolean ret = false;
+        for (final ESJPCompiler.StoreObject obj : this.classFiles.values()) {
+            final CompileState.ClassEntry entry = _state.getClass(obj.className);
+            final String constantsHash = obj.getInfo().getConstantsHash();
+            if (entry == null ? !constantsHash.isEmpty() : !entry.constantsHash().equals(constantsHash)) {
+                ret = true;
+                break;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Update the state with the compiled ESJPs and store it.
+     *
+     * @param _state state to be updated
+     * @throws InstallationException if a source or a class could not be read
+     */
+    private void updateState(final CompileState _state)
+        throws InstallationException
+    {
+        for (final String name : new HashSet<>(_state.getSourceNames())) {
+            if (!this.name2Source.containsKey(name)) {
+                _state.removeSource(name);
+            }
+        }
+        final Map<String, Set<String>> dependencies = new HashMap<>();
+        for (final ESJPCompiler.StoreObject obj : this.classFiles.values()) {
+            final String sourceName = ESJPCompiler.getSourceName(obj.className);
+            final Set<String> sourceDeps = dependencies.computeIfAbsent(sourceName, name -> new HashSet<>());
+            for (final String reference : obj.getInfo().getReferences()) {
+                final String dependency = ESJPCompiler.getSourceName(reference);
+                if (!dependency.equals(sourceName) && this.name2Source.containsKey(dependency)) {
+                    sourceDeps.add(dependency);
                 }
             }
+            if (obj.id != null) {
+                _state.putClass(obj.className, new CompileState.ClassEntry(obj.id, obj.getHash(),
+                                obj.getInfo().getConstantsHash()));
+            }
+        }
+        for (final String name : this.compiling) {
+            _state.putSource(name, this.name2Source.get(name).getHash(),
+                            dependencies.getOrDefault(name, new HashSet<>()));
+        }
+        _state.store();
+    }
+
+    /**
+     * Gets the name of the ESJP source for the given class.
+     *
+     * @param _className binary name of the class
+     * @return the name of the source
+     */
+    private static String getSourceName(final String _className)
+    {
+        return _className.replaceAll(".class$", "").replaceAll("\\$.*", "");
+    }
+
+    /**
+     * Is the incremental compilation active. Set by
+     * "core.esjp.compile.incremental" (defaults to false).
+     *
+     * @return true, if incremental
+     */
+    private static boolean isIncremental()
+    {
+        if (ESJPCompiler.INCREMENTAL == null) {
+            ESJPCompiler.INCREMENTAL = ConfigProvider.getConfig()
+                            .getOptionalValue("core.esjp.compile.incremental", Boolean.class).orElse(false);
         }
+        return ESJPCompiler.INCREMENTAL;
+    }
+
+    /**
+     * Gets the file the state of the incremental compilation is stored in.
+     * Set by "core.esjp.compile.stateFile" (defaults to
+     * "efaps-esjp-compile.properties" in the temp directory).
+     *
+     * @return the state file
+     */
+    private static Path getStateFile()
+    {
+        return Paths.get(ConfigProvider.getConfig().getOptionalValue("core.esjp.compile.stateFile", String.class)
+                        .orElse(System.getProperty("java.io.tmpdir") + "/efaps-esjp-compile.properties"));
+    }
+
+    /**
+     * Gets the standard file manager. For the incremental compilation the
+     * file manager is created once and reused, so that the class path must
+     * not be read again for every compilation.
+     *
+     * @param _compiler the compiler
+     * @return the standard file manager
+     */
+    private static synchronized StandardJavaFileManager getStandardFileManager(final JavaCompiler _compiler)
+    {
+        final StandardJavaFileManager ret;
+        if (ESJPCompiler.isIncremental()) {
+            if (ESJPCompiler.STANDARDFILEMANAGER == null) {
+                ESJPCompiler.STANDARDFILEMANAGER = _compiler.getStandardFileManager(null, null, null);
+            }
+            ret = ESJPCompiler.STANDARDFILEMANAGER;
+        } else {
+            ret = _compiler.getStandardFileManager(null, null, null);
+        }
+        return ret;
     }
 
     /**
@@ -437,7 +674,9 @@ public class ESJPCompiler
                                       final JavaFileObject _javaFileObject)
         {
             final String ret;
-            if (StandardLocation.SOURCE_PATH.getName().equals(_location.getName())) {
+            if (_javaFileObject instanceof final ESJPCompiler.ClassObject classObject) {
+                ret = classObject.className;
+            } else if (StandardLocation.SOURCE_PATH.getName().equals(_location.getName())) {
                 ret = new StringBuilder()
                                 .append(_javaFileObject.getName())
                                 .append(JavaFileObject.Kind.CLASS.extension)
@@ -487,12 +726,31 @@ public class ESJPCompiler
                                 .entrySet()) {
 
                     if (entry.getKey().startsWith(_packageName)
-                                    && entry.getKey().substring(pckLength + 1).indexOf('.') < 0) {
+                                    && entry.getKey().substring(pckLength + 1).indexOf('.') < 0
+                                    && ESJPCompiler.this.compiling.contains(entry.getKey())) {
 
                         pckObjs.add(entry.getValue());
                     }
                 }
                 rt = pckObjs;
+            } else if (StandardLocation.CLASS_PATH.getName().equals(_location.getName())
+                            && _kinds.contains(JavaFileObject.Kind.CLASS)
+                            && ESJPCompiler.this.compiling.size() < ESJPCompiler.this.name2Source.size()) {
+                // the already compiled ESJPs that are not compiled again
+                final List<JavaFileObject> pckObjs = new ArrayList<>();
+                for (final JavaFileObject fileObject : super.list(_location, _packageName, _kinds, _recurse)) {
+                    pckObjs.add(fileObject);
+                }
+                for (final Map.Entry<String, Long> entry : ESJPCompiler.this.class2id.entrySet()) {
+                    final int idx = entry.getKey().lastIndexOf('.');
+                    final String pckName = idx < 0 ? "" : entry.getKey().substring(0, idx);
+                    if ((_recurse ? pckName.startsWith(_packageName) : pckName.equals(_packageName))
+                                    && !ESJPCompiler.this.compiling.contains(
+                                                    ESJPCompiler.getSourceName(entry.getKey()))) {
+                        pckObjs.add(new ESJPCompiler.ClassObject(entry.getKey(), entry.getValue()));
+                    }
+                }
+                rt = pckObjs;
             } else {
                 rt = super.list(_location, _packageName, _kinds, _recurse);
             }
@@ -518,6 +776,11 @@ public class ESJPCompiler
          */
         private final long id;
 
+        /**
+         * Source code of the ESJP.
+         */
+        private CharSequence content;
+
         /**
          * Initializes the source object.
          *
@@ -546,6 +809,9 @@ public class ESJPCompiler
         public CharSequence getCharContent(final boolean ignoreEncodingErrors)
             throws IOException
         {
+            if (this.content != null) {
+                return this.content;
+            }
             final StringBuilder ret = new StringBuilder();
             try {
                 final Checkout checkout = new Checkout(Instance.get(ESJPCompiler.this.esjpType, this.id));
@@ -563,9 +829,26 @@ public class ESJPCompiler
             } catch (final EFapsException e) {
                 throw new IOException("could not checkout class '" + this.javaName + "'", e);
             }
+            this.content = ret;
             return ret;
         }
 
+        /**
+         * Gets the hash of the source code.
+         *
+         * @return the hash
+         * @throws InstallationException if the source could not be read
+         */
+        public String getHash()
+            throws InstallationException
+        {
+            try {
+                return DigestUtils.sha256Hex(getCharContent(true).toString());
+            } catch (final IOException e) {
+                throw new InstallationException("Could not read ESJP " + this.javaName, e);
+            }
+        }
+
         /**
          * Getter method for the instance variable {@link #javaName}.
          *
@@ -596,6 +879,16 @@ public class ESJPCompiler
          */
         private final ByteArrayOutputStream out = new ByteArrayOutputStream();
 
+        /**
+         * Id of the stored class, <code>null</code> if not stored.
+         */
+        private Long id;
+
+        /**
+         * Information read from the compiled class.
+         */
+        private ClassFileInfo info;
+
         /**
          * Initializes this store object.
          *
@@ -622,6 +915,48 @@ public class ESJPCompiler
             return this.out;
         }
 
+        /**
+         * Gets the hash of the compiled class.
+         *
+         * @return the hash
+         */
+        public String getHash()
+        {
+            return DigestUtils.sha256Hex(this.out.toByteArray());
+        }
+
+        /**
+         * Gets the information read from the compiled class.
+         *
+         * @return the class file info
+         * @throws InstallationException if the class could not be read
+         */
+        public ClassFileInfo getInfo()
+            throws InstallationException
+        {
+            if (this.info == null) {
+                try {
+                    this.info = ClassFileInfo.read(this.out.toByteArray());
+                } catch (final IOException e) {
+                    throw new InstallationException("Could not read compiled ESJP class " + this.className, e);
+                }
+            }
+            return this.info;
+        }
+
+        /**
+         * Checks if the compiled class is the same as the stored one.
+         *
+         * @param _state state of the last compilation
+         * @return true, if unchanged
+         */
+        public boolean isUnchanged(final CompileState _state)
+        {
+            final CompileState.ClassEntry entry = _state.getClass(this.className);
+            return entry != null && ESJPCompiler.this.class2id.containsKey(this.className)
+                            && entry.hash().equals(getHash());
+        }
+
         /**
          * The compiled class in <i>_resourceData</i> is stored with the name
          * <i>_resourceName</i> in the eFaps database (checked in). If the class
@@ -655,6 +990,7 @@ public class ESJPCompiler
                 checkin.executeWithoutAccessCheck(this.className,
                                 new ByteArrayInputStream(this.out.toByteArray()),
                                 this.out.toByteArray().length);
+                this.id = instance.getId();
                 // CHECKSTYLE:OFF
             } catch (final Exception e) {
                 // CHECKSTYLE:ON
@@ -662,4 +998,55 @@ public class ESJPCompiler
             }
         }
     }
+
+    /**
+     * An already compiled ESJP class that is read from the eFaps database if
+     * the compiler needs it.
+     */
+    private final class ClassObject
+        extends SimpleJavaFileObject
+    {
+
+        /**
+         * Binary name of the class.
+         */
+        private final String className;
+
+        /**
+         * Used internal id in eFaps.
+         */
+        private final long id;
+
+        /**
+         * Initializes the class object.
+         *
+         * @param _className binary name of the class
+         * @param _id id used from eFaps within database
+         */
+        private ClassObject(final String _className,
+                            final long _id)
+        {
+            super(URI.create("efaps:/" + _className.replace('.', '/') + JavaFileObject.Kind.CLASS.extension),
+                            JavaFileObject.Kind.CLASS);
+            this.className = _className;
+            this.id = _id;
+        }
+
+        /**
+         * Returns the compiled class from the eFaps database.
+         *
+         * @return input stream of the compiled class
+         * @throws IOException if the class could not be read
+         */
+        @Override
+        public InputStream openInputStream()
+            throws IOException
+        {
+            try {
+                return new Checkout(Instance.get(ESJPCompiler.this.classType, this.id)).executeWithoutAccessCheck();
+            } catch (final EFapsException e) {
+                throw new IOException("could not checkout class '" + this.className + "'", e);
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.text.ExtendedMessageFormat;
@@ -47,6 +48,17 @@ public final class MsgFormat
      */
     private static final Logger LOG = LoggerFactory.getLogger(MsgFormat.class);
 
+    /**
+     * Maximum number of compiled formats kept in {@link #FORMATS}.
+     */
+    private static final int MAXFORMATS = 2000;
+
+    /**
+     * Compiled formats by locale and pattern. A MessageFormat is not thread
+     * safe, therefore only clones of the cached formats are handed out.
+     */
+    private static final Map<String, ExtendedMessageFormat> FORMATS = new ConcurrentHashMap<>();
+
     /**
      * Is the instance initialized.
      */
@@ -125,6 +137,9 @@ public final class MsgFormat
     }
 
     /**
+     * The pattern is parsed only once per locale, further calls get a clone
+     * of the compiled format.
+     *
      * @param _pattern pattern to apply
      * @param _locale Locale
      * @return ExtendedMessageFormat
@@ -134,6 +149,15 @@ public final class MsgFormat
                                                   final Locale _locale)
         throws EFapsException
     {
-        return new ExtendedMessageFormat(_pattern, _locale, MsgFormat.get().registry);
+        final String key = _locale + "|" + _pattern;
+        ExtendedMessageFormat format = MsgFormat.FORMATS.get(key);
+        if (format == null) {
+            format = new ExtendedMessageFormat(_pattern, _locale, MsgFormat.get().registry);
+            if (MsgFormat.FORMATS.size() >= MsgFormat.MAXFORMATS) {
+                MsgFormat.FORMATS.clear();
+            }
+            MsgFormat.FORMATS.put(key, format);
+        }
+        return (ExtendedMessageFormat) format.clone();
     }
 }
@@ -0,0 +1,530 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.util.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.efaps.admin.datamodel.SQLTable;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.ci.CIAdminCommon;
+import org.efaps.ci.CIAdminEvent;
+import org.efaps.ci.CIType;
+import org.efaps.db.Context;
+import org.efaps.util.EFapsException;
+import org.infinispan.Cache;
+import org.infinispan.protostream.ProtobufUtil;
+import org.infinispan.protostream.SerializationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot of the caches of the admin objects (Types, Attributes,
+ * SQLTables, Status, AccessSets, EventDefinitions, UI objects etc., but not
+ * users, SystemConfigurations and DBProperties), so that a node does not
+ * have to read them one by one from the database after a start. The values are marshalled with the adapters of the
+ * {@link LibraryInitializer}. The snapshot is written to a file when the
+ * RunLevel is stopped and is read with one pass from the memory mapped file
+ * when the RunLevel is executed, but only if its version is the version of
+ * the database. Caches with values that can not be marshalled are not part
+ * of the snapshot and are read from the database as before. The version is
+ * a hash over the number of rows and the highest id of the tables of the
+ * admin objects ("core.cache.snapshot.tables", extended by the tables of the
+ * event definitions, message phrases and associations) and the last modification of
+ * an admin object, so changes that do not touch these columns are not
+ * detected. Activated by "core.cache.snapshot.active" (defaults to false, not
+ * used for clustered caches), the file is set by "core.cache.snapshot.file"
+ * (defaults to "eFaps-Cache.snapshot" in the temp folder).
+ *
+ * @author The eFaps Team
+ */
+public final class CacheSnapshot
+{
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(CacheSnapshot.class);
+
+    /**
+     * Marks the file as snapshot.
+     */
+    private static final int MAGIC = 0x45464150;
+
+    /**
+     * Format of the file, must be changed if the layout of the file changes.
+     */
+    private static final int FORMAT = 1;
+
+    /**
+     * Prefix of the caches that belong to the snapshot.
+     */
+    private static final String PREFIX = "org.efaps.admin.";
+
+    /**
+     * Prefixes of the caches that do not belong to the snapshot, because
+     * they contain data or their changes are not covered by the version.
+     */
+    private static final List<String> EXCLUDED = List.of("org.efaps.admin.access.user.", "org.efaps.admin.index.",
+                    "org.efaps.admin.user.", "org.efaps.admin.common.SystemConfiguration",
+                    "org.efaps.admin.dbproperty.");
+
+    /**
+     * Tables the version is calculated for.
+     */
+    private static final List<String> TABLES = List.of("T_CMABSTRACT", "T_CMABSTRACT2ABSTRACT", "T_CMPROPERTY",
+                    "T_DMSTATUS", "T_DMDIM", "T_DMUOM", "T_ACCESSSET", "T_ACCESSTYPE", "T_ACCESSSET2TYPE",
+                    "T_ACCESSSET2DMTYPE", "T_ACCESSSET2STATUS", "T_ACCESSSET2USER", "T_UIACCESS", "T_CMASSOC",
+                    "T_CMASSOCDEF", "T_CMASSOCMAP");
+
+    /**
+     * Types whose tables are added to the tables the version is calculated
+     * for, because their table is defined by the data model.
+     */
+    private static final List<CIType> TYPES = List.of(CIAdminEvent.Definition, CIAdminCommon.MsgPhrase,
+                    CIAdminCommon.MsgPhraseConfigAbstract, CIAdminCommon.MsgPhraseArgument,
+                    CIAdminCommon.MsgPhraseLabel, CIAdminCommon.AssociationAbstract,
+                    CIAdminCommon.AssociationDefinition, CIAdminCommon.AssociationDefault);
+
+    /**
+     * Key tag for a Long.
+     */
+    private static final byte LONGKEY = 1;
+
+    /**
+     * Key tag for a String.
+     */
+    private static final byte STRINGKEY = 2;
+
+    /**
+     * Key tag for a UUID.
+     */
+    private static final byte UUIDKEY = 3;
+
+    /**
+     * Is the snapshot active.
+     */
+    private static Boolean ACTIVE;
+
+    /**
+     * The file of the snapshot.
+     */
+    private static Path FILE;
+
+    /**
+     * Tables the version is calculated for.
+     */
+    private static List<String> VERSIONTABLES;
+
+    /**
+     * Version of the database evaluated on the last load, <code>null</code>
+     * if not evaluated.
+     */
+    private static String VERSION;
+
+    /**
+     * Context to marshall the admin objects.
+     */
+    private static SerializationContext SERIALIZATIONCONTEXT;
+
+    /**
+     * Instantiates a new cache snapshot.
+     */
+    private CacheSnapshot()
+    {
+    }
+
+    /**
+     * Load the snapshot into the caches if its version is the version of
+     * the database. The version of the database is remembered for the next
+     * {@link #export()}.
+     *
+     * @return true, if the snapshot was loaded
+     * @throws EFapsException on error
+     */
+    public static synchronized boolean load()
+        throws EFapsException
+    {
+        final long start = System.currentTimeMillis();
+        boolean ret = false;
+        if (CacheSnapshot.isActive()) {
+            CacheSnapshot.VERSION = CacheSnapshot.evalVersion();
+        }
+        if (CacheSnapshot.VERSION != null && Files.isReadable(CacheSnapshot.FILE)) {
+            try (FileChannel channel = FileChannel.open(CacheSnapshot.FILE, StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                final Map<String, Map<Object, Object>> caches = CacheSnapshot.read(buffer, CacheSnapshot.VERSION);
+                if (caches != null) {
+                    int count = 0;
+                    for (final Map.Entry<String, Map<Object, Object>> entry : caches.entrySet()) {
+                        InfinispanCache.get().<Object, Object>initCache(entry.getKey()).putAll(entry.getValue());
+                        count = count + entry.getValue().size();
+                    }
+                    ret = true;
+                    CacheSnapshot.LOG.info("Loaded cache snapshot '{}' with {} entries in {} caches in {}ms",
+                                    CacheSnapshot.FILE, count, caches.size(), System.currentTimeMillis() - start);
+                } else {
+                    CacheSnapshot.LOG.info("Cache snapshot '{}' is outdated", CacheSnapshot.FILE);
+                }
+            } catch (final IOException | RuntimeException e) {
+                CacheSnapshot.LOG.warn("Could not read cache snapshot '{}'", CacheSnapshot.FILE, e);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Write the current content of the caches of the admin objects to the
+     * snapshot with the version evaluated on the last {@link #load()}. The
+     * file is written to a temporary file first and moved afterwards, so that
+     * the snapshot is always complete.
+     */
+    public static synchronized void export()
+    {
+        if (CacheSnapshot.isActive() && CacheSnapshot.VERSION != null) {
+            final long start = System.currentTimeMillis();
+            try {
+                final Map<String, List<byte[][]>> caches = CacheSnapshot.marshall();
+                final File tmp = File.createTempFile("eFaps-Cache", ".tmp",
+                                CacheSnapshot.FILE.toAbsolutePath().getParent().toFile());
+                final int count;
+                try (DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                    count = CacheSnapshot.write(out, CacheSnapshot.VERSION, caches);
+                }
+                Files.move(tmp.toPath(), CacheSnapshot.FILE, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                CacheSnapshot.LOG.info("Wrote cache snapshot '{}' with {} entries in {} caches in {}ms",
+                                CacheSnapshot.FILE, count, caches.size(), System.currentTimeMillis() - start);
+            } catch (final IOException | RuntimeException e) {
+                CacheSnapshot.LOG.warn("Could not write cache snapshot '{}'", CacheSnapshot.FILE, e);
+            }
+        }
+    }
+
+    /**
+     * Write the snapshot with the given version.
+     *
+     * @param _out the output
+     * @param _version the version
+     * @param _caches the marshalled key and value by cache name
+     * @return the number of written entries
+     * @throws IOException on error
+     */
+    static int write(final DataOutputStream _out,
+                     final String _version,
+                     final Map<String, List<byte[][]>> _caches)
+        throws IOException
+    {
+        int ret = 0;
+        _out.writeInt(CacheSnapshot.MAGIC);
+        _out.writeInt(CacheSnapshot.FORMAT);
+        CacheSnapshot.writeString(_out, _version);
+        _out.writeInt(_caches.size());
+        for (final Map.Entry<String, List<byte[][]>> entry : _caches.entrySet()) {
+            CacheSnapshot.writeString(_out, entry.getKey());
+            _out.writeInt(entry.getValue().size());
+            for (final byte[][] keyValue : entry.getValue()) {
+                _out.write(keyValue[0]);
+                _out.writeInt(keyValue[1].length);
+                _out.write(keyValue[1]);
+            }
+            ret = ret + entry.getValue().size();
+        }
+        return ret;
+    }
+
+    /**
+     * Marshall the entries of the caches of the admin objects. A cache with
+     * a key or value that can not be marshalled is left out.
+     *
+     * @return the marshalled key and value by cache name
+     * @throws IOException on error
+     */
+    private static Map<String, List<byte[][]>> marshall()
+        throws IOException
+    {
+        final Map<String, List<byte[][]>> ret = new LinkedHashMap<>();
+        final var container = InfinispanCache.get().getContainer();
+        for (final String cacheName : container.getCacheNames()) {
+            if (cacheName.startsWith(CacheSnapshot.PREFIX)
+                            && CacheSnapshot.EXCLUDED.stream().noneMatch(cacheName::startsWith)) {
+                final Cache<Object, Object> cache = container.getCache(cacheName, false);
+                if (cache != null && !cache.isEmpty()) {
+                    final List<byte[][]> entries = CacheSnapshot.marshall(cache);
+                    if (entries == null) {
+                        CacheSnapshot.LOG.debug("Cache '{}' can not be part of the snapshot", cacheName);
+                    } else {
+                        ret.put(cacheName, entries);
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Marshall the entries of a cache. The key is written with a tag for
+     * its class (Long, String or UUID) followed by its string
+     * representation.
+     *
+     * @param _entries the entries of the cache
+     * @return the marshalled keys and values, <code>null</code> if a key or
+     *         value can not be marshalled
+     * @throws IOException on error
+     */
+    static List<byte[][]> marshall(final Map<Object, Object> _entries)
+        throws IOException
+    {
+        final SerializationContext ctx = CacheSnapshot.getSerializationContext();
+        List<byte[][]> ret = new ArrayList<>();
+        for (final Map.Entry<Object, Object> entry : _entries.entrySet()) {
+            final byte tag;
+            if (entry.getKey() instanceof Long) {
+                tag = CacheSnapshot.LONGKEY;
+            } else if (entry.getKey() instanceof String) {
+                tag = CacheSnapshot.STRINGKEY;
+            } else if (entry.getKey() instanceof UUID) {
+                tag = CacheSnapshot.UUIDKEY;
+            } else {
+                tag = 0;
+            }
+            if (tag == 0 || entry.getValue() == null || !ctx.canMarshall(entry.getValue().getClass())) {
+                ret = null;
+                break;
+            }
+            final byte[] key = entry.getKey().toString().getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer keyBuffer = ByteBuffer.allocate(key.length + 5);
+            keyBuffer.put(tag).putInt(key.length).put(key);
+            ret.add(new byte[][] { keyBuffer.array(), ProtobufUtil.toWrappedByteArray(ctx, entry.getValue()) });
+        }
+        return ret;
+    }
+
+    /**
+     * Read the snapshot from the buffer if it is a snapshot of the given
+     * version.
+     *
+     * @param _buffer the buffer
+     * @param _version the version
+     * @return the entries by cache name, <code>null</code> if the buffer does
+     *         not contain a snapshot of the given version
+     * @throws IOException on error
+     */
+    static Map<String, Map<Object, Object>> read(final ByteBuffer _buffer,
+                                                 final String _version)
+        throws IOException
+    {
+        Map<String, Map<Object, Object>> ret = null;
+        if (_buffer.getInt() == CacheSnapshot.MAGIC && _buffer.getInt() == CacheSnapshot.FORMAT
+                        && _version.equals(CacheSnapshot.readString(_buffer))) {
+            ret = CacheSnapshot.readCaches(_buffer);
+        }
+        return ret;
+    }
+
+    /**
+     * Read the caches from the buffer.
+     *
+     * @param _buffer the buffer positioned after the version
+     * @return the entries by cache name
+     * @throws IOException on error
+     */
+    private static Map<String, Map<Object, Object>> readCaches(final ByteBuffer _buffer)
+        throws IOException
+    {
+        final SerializationContext ctx = CacheSnapshot.getSerializationContext();
+        final Map<String, Map<Object, Object>> ret = new LinkedHashMap<>();
+        final int caches = _buffer.getInt();
+        for (int i = 0; i < caches; i++) {
+            final String cacheName = CacheSnapshot.readString(_buffer);
+            final int size = _buffer.getInt();
+            final Map<Object, Object> entries = new HashMap<>(size * 4 / 3 + 1);
+            for (int j = 0; j < size; j++) {
+                final byte tag = _buffer.get();
+                final String keyStr = CacheSnapshot.readString(_buffer);
+                final Object key = switch (tag) {
+                    case CacheSnapshot.LONGKEY -> Long.valueOf(keyStr);
+                    case CacheSnapshot.UUIDKEY -> UUID.fromString(keyStr);
+                    default -> keyStr;
+                };
+                final byte[] value = new byte[_buffer.getInt()];
+                _buffer.get(value);
+                entries.put(key, ProtobufUtil.fromWrappedByteArray(ctx, value));
+            }
+            ret.put(cacheName, entries);
+        }
+        return ret;
+    }
+
+    /**
+     * Evaluate the version of the database.
+     *
+     * @return the version
+     * @throws EFapsException on error
+     */
+    private static String evalVersion()
+        throws EFapsException
+    {
+        final StringBuilder bldr = new StringBuilder()
+                        .append(CacheSnapshot.class.getPackage().getImplementationVersion()).append('\n');
+        Connection con = null;
+        try {
+            con = Context.getConnection();
+            try (Statement stmt = con.createStatement()) {
+                for (final String table : CacheSnapshot.getVersionTables()) {
+                    final String sql = "select count(*), max(ID)"
+                                    + ("T_CMABSTRACT".equals(table) ? ", max(MODIFIED)" : "") + " from " + table;
+                    try (ResultSet rs = stmt.executeQuery(sql)) {
+                        if (rs.next()) {
+                            bldr.append(table).append(':').append(rs.getLong(1)).append(':').append(rs.getLong(2));
+                            if ("T_CMABSTRACT".equals(table)) {
+                                bldr.append(':').append(rs.getTimestamp(3));
+                            }
+                            bldr.append('\n');
+                        }
+                    }
+                }
+            }
+            con.commit();
+        } catch (final SQLException e) {
+            throw new EFapsException(CacheSnapshot.class, "evalVersion", e);
+        } finally {
+            try {
+                if (con != null && !con.isClosed()) {
+                    con.close();
+                }
+            } catch (final SQLException e) {
+                CacheSnapshot.LOG.warn("Could not close connection", e);
+            }
+        }
+        return DigestUtils.sha256Hex(bldr.toString());
+    }
+
+    /**
+     * Gets the tables the version is calculated for, the configured tables
+     * and the tables of the {@link #TYPES}.
+     *
+     * @return the tables
+     * @throws EFapsException on error
+     */
+    private static Set<String> getVersionTables()
+        throws EFapsException
+    {
+        final Set<String> ret = new TreeSet<>(CacheSnapshot.VERSIONTABLES);
+        for (final CIType ciType : CacheSnapshot.TYPES) {
+            final Type type = ciType.getType();
+            if (type != null) {
+                for (final SQLTable table : type.getTables()) {
+                    ret.add(table.getSqlTable());
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the context to marshall the admin objects.
+     *
+     * @return the serialization context
+     */
+    private static SerializationContext getSerializationContext()
+    {
+        if (CacheSnapshot.SERIALIZATIONCONTEXT == null) {
+            final SerializationContext ctx = ProtobufUtil.newSerializationContext();
+            final LibraryInitializer initializer = new LibraryInitializerImpl();
+            initializer.registerSchema(ctx);
+            initializer.registerMarshallers(ctx);
+            CacheSnapshot.SERIALIZATIONCONTEXT = ctx;
+        }
+        return CacheSnapshot.SERIALIZATIONCONTEXT;
+    }
+
+    /**
+     * Write a string.
+     *
+     * @param _out the output
+     * @param _value the value
+     * @throws IOException on error
+     */
+    private static void writeString(final DataOutputStream _out,
+                                    final String _value)
+        throws IOException
+    {
+        final byte[] bytes = _value.getBytes(StandardCharsets.UTF_8);
+        _out.writeInt(bytes.length);
+        _out.write(bytes);
+    }
+
+    /**
+     * Read a string.
+     *
+     * @param _buffer the buffer
+     * @return the string
+     */
+    private static String readString(final ByteBuffer _buffer)
+    {
+        final byte[] bytes = new byte[_buffer.getInt()];
+        _buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Is the snapshot active.
+     *
+     * @return true, if active
+     */
+    public static boolean isActive()
+    {
+        if (CacheSnapshot.ACTIVE == null) {
+            final Config config = ConfigProvider.getConfig();
+            CacheSnapshot.FILE = Path.of(config.getOptionalValue("core.cache.snapshot.file", String.class)
+                            .orElse(new File(System.getProperty("java.io.tmpdir"), "eFaps-Cache.snapshot")
+                                            .getPath()));
+            CacheSnapshot.VERSIONTABLES = config.getOptionalValues("core.cache.snapshot.tables", String.class)
+                            .orElse(CacheSnapshot.TABLES);
+            CacheSnapshot.ACTIVE = config.getOptionalValue("core.cache.snapshot.active", Boolean.class)
+                            .orElse(false)
+                            && !config.getOptionalValue("core.cache.cluster.active", Boolean.class).orElse(false);
+        }
+        return CacheSnapshot.ACTIVE;
+    }
+}
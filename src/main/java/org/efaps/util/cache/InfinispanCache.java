@@ -298,6 +298,7 @@ public final class InfinispanCache
         if (InfinispanCache.CACHEINSTANCE != null) {
             InfinispanCache.CACHEINSTANCE.clearAll();
         }
+        NearCache.invalidateAll();
     }
 
     /**
@@ -329,5 +330,6 @@ public final class InfinispanCache
         if (InfinispanCache.CACHEINSTANCE != null) {
             InfinispanCache.CACHEINSTANCE.terminate();
         }
+        NearCache.invalidateAll();
     }
 }
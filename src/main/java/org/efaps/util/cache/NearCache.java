@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.util.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.Cache;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntriesEvicted;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryExpired;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryInvalidated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntriesEvictedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local read path in front of an Infinispan cache for admin objects
+ * (e.g. Type, AccessType, Status). A hit is served from a per JVM map
+ * without touching {@link InfinispanCache}, which is only consulted on a
+ * miss. If an entry of the Infinispan cache changes (modified, removed,
+ * invalidated, evicted or expired) only its key is removed. The map is a
+ * generation that is replaced atomically on {@link InfinispanCache#clear()}
+ * and if the Infinispan cache itself is replaced. Readers that loaded a value
+ * from an outdated generation add it to that generation only, and a value
+ * loaded while an invalidation happened is not kept, so a concurrent
+ * invalidation is never lost.
+ *
+ * @param <K> Key
+ * @param <V> Value
+ */
+public final class NearCache<K, V>
+{
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(NearCache.class);
+
+    /**
+     * All near caches by name of the Infinispan cache.
+     */
+    private static final Map<String, NearCache<?, ?>> CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * Name of the Infinispan cache.
+     */
+    private final String cacheName;
+
+    /**
+     * Counts the invalidations, used to detect an invalidation during a load.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Current generation.
+     */
+    private volatile Map<K, V> generation = new ConcurrentHashMap<>();
+
+    /**
+     * The Infinispan cache the listener is registered to.
+     */
+    private volatile Cache<K, V> bound;
+
+    /**
+     * @param _cacheName name of the Infinispan cache
+     */
+    private NearCache(final String _cacheName)
+    {
+        cacheName = _cacheName;
+    }
+
+    /**
+     * Get the value for the key. On a miss the loader is called with the
+     * Infinispan cache.
+     *
+     * @param <E> exception thrown by the loader
+     * @param _key key
+     * @param _loader loader used on a miss
+     * @return the value, <code>null</code> if not found
+     * @throws E on error of the loader
+     */
+    public <E extends Exception> V get(final K _key,
+                                       final Loader<K, V, E> _loader)
+        throws E
+    {
+        final Map<K, V> current = generation;
+        V ret = current.get(_key);
+        if (ret == null) {
+            final long before = version.get();
+            ret = _loader.load(bind(), _key);
+            if (ret != null) {
+                current.put(_key, ret);
+                // an invalidation during the load might concern the loaded value
+                if (version.get() != before) {
+                    current.remove(_key, ret);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Replace the current generation by an empty one.
+     */
+    public void invalidate()
+    {
+        generation = new ConcurrentHashMap<>();
+        LOG.trace("Invalidated NearCache '{}' to version {}", cacheName, version.incrementAndGet());
+    }
+
+    /**
+     * Remove the given key from the current generation. The version is
+     * increased first, so that a value for the key loaded concurrently is
+     * not kept.
+     *
+     * @param _key key to be removed
+     */
+    public void invalidate(final K _key)
+    {
+        version.incrementAndGet();
+        generation.remove(_key);
+        LOG.trace("Invalidated key '{}' of NearCache '{}'", _key, cacheName);
+    }
+
+    /**
+     * Get the Infinispan cache and register the listener if it was not done
+     * yet for the current instance.
+     *
+     * @return the Infinispan cache
+     */
+    private Cache<K, V> bind()
+    {
+        final Cache<K, V> cache = InfinispanCache.get().<K, V>getCache(cacheName);
+        if (cache != bound) {
+            synchronized (this) {
+                if (cache != bound) {
+                    invalidate();
+                    cache.addListener(new InvalidationListener());
+                    bound = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Gets the near cache for the Infinispan cache with the given name.
+     *
+     * @param <K> Key
+     * @param <V> Value
+     * @param _cacheName name of the Infinispan cache
+     * @return the near cache
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> NearCache<K, V> get(final String _cacheName)
+    {
+        return (NearCache<K, V>) CACHES.computeIfAbsent(_cacheName, NearCache::new);
+    }
+
+    /**
+     * Invalidate all near caches.
+     */
+    public static void invalidateAll()
+    {
+        CACHES.values().forEach(NearCache::invalidate);
+    }
+
+    /**
+     * Loads a value from the Infinispan cache.
+     *
+     * @param <K> Key
+     * @param <V> Value
+     * @param <E> exception thrown
+     */
+    @FunctionalInterface
+    public interface Loader<K, V, E extends Exception>
+    {
+
+        /**
+         * @param _cache the Infinispan cache
+         * @param _key key
+         * @return the value, <code>null</code> if not found
+         * @throws E on error
+         */
+        V load(Cache<K, V> _cache,
+               K _key)
+            throws E;
+    }
+
+    /**
+     * Invalidates the affected keys of the near cache on changes of the
+     * Infinispan cache. Created entries are ignored, because the near cache
+     * can not contain a value for them.
+     */
+    @Listener
+    public class InvalidationListener
+    {
+
+        /**
+         * @param _event event of the Infinispan cache
+         */
+        @CacheEntryModified
+        public void onModified(final CacheEntryModifiedEvent<K, V> _event)
+        {
+            if (!_event.isPre() && !_event.isCreated()) {
+                invalidate(_event.getKey());
+            }
+        }
+
+        /**
+         * @param _event event of the Infinispan cache
+         */
+        @CacheEntryRemoved
+        @CacheEntryInvalidated
+        @CacheEntryExpired
+        public void onRemoved(final CacheEntryEvent<K, V> _event)
+        {
+            if (!_event.isPre()) {
+                invalidate(_event.getKey());
+            }
+        }
+
+        /**
+         * @param _event event of the Infinispan cache
+         */
+        @CacheEntriesEvicted
+        public void onEvicted(final CacheEntriesEvictedEvent<K, V> _event)
+        {
+            if (!_event.isPre()) {
+                _event.getEntries().keySet().forEach(NearCache.this::invalidate);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.access.user;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.efaps.admin.access.user.AccessMatrix.Relation;
+import org.efaps.db.Context;
+import org.efaps.test.AbstractTest;
+import org.efaps.util.EFapsException;
+import org.testng.annotations.Test;
+
+/**
+ * The Class AccessMatrixTest.
+ */
+public class AccessMatrixTest
+    extends AbstractTest
+{
+
+    @Test
+    public void testEval()
+    {
+        final long set1 = nextLong();
+        final long set2 = nextLong();
+        final long set3 = nextLong();
+        final long user1 = nextLong();
+        final long user2 = nextLong();
+        final long type1 = nextLong();
+        final long type2 = nextLong();
+        final AccessMatrix matrix = AccessMatrix.empty()
+                        .with(Relation.USER, Arrays.asList(new long[] { set1, user1 }, new long[] { set2, user2 },
+                                        new long[] { set3, user2 }))
+                        .with(Relation.TYPE, Arrays.asList(new long[] { set1, type1 }, new long[] { set2, type1 },
+                                        new long[] { set3, type2 }))
+                        .with(Relation.ACCESSTYPE, Arrays.asList(new long[] { set1, 1L }, new long[] { set1, 2L },
+                                        new long[] { set2, 3L }, new long[] { set3, 4L }))
+                        .with(Relation.STATUS, Arrays.asList(new long[] { set2, 10L }));
+
+        assertEquals(matrix.getIds(Relation.ACCESSTYPE, matrix.getAccessSets(Set.of(user1), type1)),
+                        Set.of(1L, 2L));
+        assertEquals(matrix.getIds(Relation.ACCESSTYPE, matrix.getAccessSets(Set.of(user1, user2), type1)),
+                        Set.of(1L, 2L, 3L));
+        assertEquals(matrix.getIds(Relation.ACCESSTYPE, matrix.getAccessSets(Set.of(user2), type2)),
+                        Set.of(4L));
+        assertEquals(matrix.getIds(Relation.STATUS, matrix.getAccessSets(Set.of(user2), type1)),
+                        Set.of(10L));
+        assertTrue(matrix.getAccessSets(Set.of(user1), type2).isEmpty());
+        assertTrue(matrix.getAccessSets(Set.of(user1), nextLong()).isEmpty());
+    }
+
+    @Test
+    public void testReloadRelation()
+    {
+        final long set1 = nextLong();
+        final long set2 = nextLong();
+        final long user = nextLong();
+        final long type = nextLong();
+        final AccessMatrix matrix = AccessMatrix.empty()
+                        .with(Relation.USER, Collections.singletonList(new long[] { set1, user }))
+                        .with(Relation.TYPE, Arrays.asList(new long[] { set1, type }, new long[] { set2, type }))
+                        .with(Relation.ACCESSTYPE, Arrays.asList(new long[] { set1, 1L }, new long[] { set2, 2L }))
+                        .with(Relation.STATUS, Collections.emptyList());
+        final AccessMatrix reloaded = matrix.with(Relation.USER,
+                        Collections.singletonList(new long[] { set2, user }));
+
+        assertEquals(matrix.getIds(Relation.ACCESSTYPE, matrix.getAccessSets(Set.of(user), type)), Set.of(1L));
+        assertEquals(reloaded.getIds(Relation.ACCESSTYPE, reloaded.getAccessSets(Set.of(user), type)),
+                        Set.of(2L));
+    }
+
+    @Test
+    public void testInvalidationOnCommit()
+        throws EFapsException
+    {
+        AccessMatrix.reset();
+        AccessMatrix.registerUpdate(EnumSet.of(Relation.USER));
+        assertFalse(AccessMatrix.isDirty(Relation.USER));
+        Context.commit();
+        assertTrue(AccessMatrix.isDirty(Relation.USER));
+        Context.begin("Administrator");
+    }
+
+    @Test
+    public void testNoInvalidationOnRollback()
+        throws EFapsException
+    {
+        AccessMatrix.reset();
+        AccessMatrix.registerUpdate(EnumSet.of(Relation.STATUS));
+        AccessMatrix.registerUpdate(EnumSet.of(Relation.TYPE));
+        Context.rollback();
+        assertFalse(AccessMatrix.isDirty(Relation.STATUS));
+        assertFalse(AccessMatrix.isDirty(Relation.TYPE));
+        Context.begin("Administrator");
+    }
+
+    @Test
+    public void testInvalidationWithoutTransaction()
+        throws EFapsException
+    {
+        AccessMatrix.reset();
+        Context.commit();
+        AccessMatrix.registerUpdate(EnumSet.of(Relation.ACCESSTYPE));
+        assertTrue(AccessMatrix.isDirty(Relation.ACCESSTYPE));
+        Context.begin("Administrator");
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.admin.access.user;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.efaps.admin.access.AccessType;
+import org.efaps.admin.access.AccessTypeEnums;
+import org.efaps.admin.datamodel.Type;
+import org.efaps.db.Instance;
+import org.efaps.mock.MockResult;
+import org.efaps.mock.Mocks;
+import org.efaps.mock.esjp.AccessCheck;
+import org.efaps.test.AbstractTest;
+import org.efaps.util.EFapsException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import acolyte.jdbc.RowLists;
+
+/**
+ * The Class BulkAccessTest.
+ */
+public class BulkAccessTest
+    extends AbstractTest
+{
+
+    /**
+     * Reset the settings.
+     */
+    @AfterMethod
+    public void resetSettings()
+    {
+        BulkAccess.configure(false, Collections.emptyList());
+    }
+
+    @Test
+    public void testMixedTypes()
+        throws EFapsException
+    {
+        BulkAccess.configure(true, Collections.singletonList(AccessCheck.class.getName()));
+        final AccessType accessType = accessType();
+        final Type parentType = Type.get(Mocks.AccessType.getId());
+        final Instance parent1 = Instance.get(parentType, 1L);
+        final Instance parent2 = Instance.get(parentType, 2L);
+        final Instance child1 = Instance.get(Type.get(Mocks.AccessChildType.getId()), 3L);
+        final Instance child2 = Instance.get(Type.get(Mocks.AccessChildType.getId()), 4L);
+        final Key key = Key.get4Instance(parent1);
+        AccessCache.getPermissionCache().put(key, new PermissionSet()
+                        .setPersonId(key.getPersonId())
+                        .setTypeId(parentType.getId())
+                        .addAccessTypeId(accessType.getId()));
+        // the event of the parent type is replaced by the PermissionSet
+        AccessCheck.RESULTS.put(parent1, false);
+        // the child type has its own event, that is not replaced
+        AccessCheck.RESULTS.put(child1, false);
+
+        final List<Instance> instances = Arrays.asList(parent1, child1, parent2, child2);
+        assertTrue(BulkAccess.isApplicable(instances));
+        assertFalse(BulkAccess.isApplicable(Type.get(Mocks.AccessChildType.getId())));
+
+        final BitSet access = parentType.evalAccess(instances, accessType);
+        assertEquals(access, BitSet.valueOf(new long[] { 0b1101 }));
+        final Map<Instance, Boolean> map = parentType.checkAccess(instances, accessType);
+        assertEquals(map, Map.of(parent1, true, child1, false, parent2, true, child2, true));
+    }
+
+    @Test
+    public void testFallback()
+        throws EFapsException
+    {
+        BulkAccess.configure(true, Collections.singletonList("org.efaps.esjp.admin.access.SimpleAccessCheckOnType"));
+        final AccessType accessType = accessType();
+        final Type type = Type.get(Mocks.AccessType.getId());
+        final Instance inst1 = Instance.get(type, 1L);
+        final Instance inst2 = Instance.get(type, 2L);
+        final Instance child = Instance.get(Type.get(Mocks.AccessChildType.getId()), 3L);
+        AccessCheck.RESULTS.put(inst2, false);
+        AccessCheck.RESULTS.put(child, false);
+
+        final List<Instance> instances = Arrays.asList(inst1, inst2, child);
+        assertFalse(BulkAccess.isApplicable(instances));
+
+        // every instance is checked by the event of its type
+        assertEquals(BulkAccess.check(instances, accessType), BitSet.valueOf(new long[] { 0b001 }));
+        assertEquals(type.evalAccess(Arrays.asList(inst1, inst2), accessType), BitSet.valueOf(new long[] { 0b01 }));
+    }
+
+    @Test
+    public void testInactive()
+        throws EFapsException
+    {
+        BulkAccess.configure(false, Collections.singletonList(AccessCheck.class.getName()));
+        final Instance inst = Instance.get(Type.get(Mocks.AccessType.getId()), 1L);
+        assertFalse(BulkAccess.isActive());
+        assertFalse(BulkAccess.isApplicable(Type.get(Mocks.AccessType.getId())));
+        assertFalse(BulkAccess.isApplicable(Collections.singletonList(inst)));
+    }
+
+    /**
+     * Get an access type.
+     *
+     * @return the access type
+     * @throws EFapsException on error
+     */
+    private static AccessType accessType()
+        throws EFapsException
+    {
+        final long id = nextLong();
+        MockResult.builder()
+            .withSql("select ID,UUID,NAME from T_ACCESSTYPE T0 where T0.ID = ?")
+            .withResult(RowLists.rowList3(Long.class, String.class, String.class)
+                        .append(id, AccessTypeEnums.READ.uuid.toString(), "READ")
+                        .asResult())
+            .build();
+        return AccessType.getAccessType(id);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.databases;
+
+import static org.testng.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.efaps.db.transaction.ConnectionResource;
+import org.efaps.mock.db.MockDatabase;
+import org.testng.annotations.Test;
+
+/**
+ * The Class SequenceAllocatorTest.
+ */
+public class SequenceAllocatorTest
+{
+
+    @Test
+    public void testBlockExhaustionAndRefill()
+        throws SQLException
+    {
+        final SequenceDatabase db = new SequenceDatabase(10);
+        final String name = "seq" + UUID.randomUUID();
+        final List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            values.add(SequenceAllocator.next(db, null, name, 3));
+        }
+        // the first block has the old increment, then the blocks have three values
+        assertEquals(values, Arrays.asList(10L, 11L, 12L, 13L, 14L, 15L, 16L, 17L));
+        assertEquals(db.fetches, 4);
+        assertEquals(db.increment, 3);
+    }
+
+    @Test
+    public void testBlocksOfTwoNodes()
+        throws SQLException
+    {
+        final SequenceDatabase db = new SequenceDatabase(1);
+        final String name = "seq" + UUID.randomUUID();
+        db.increment = 3;
+        final long first = SequenceAllocator.next(db, null, name, 3);
+        // another node reserves the next block in the meantime
+        final long[] other = db.nextSequenceBlock(null, name, 3);
+        final List<Long> values = new ArrayList<>();
+        values.add(first);
+        for (int i = 0; i < 4; i++) {
+            values.add(SequenceAllocator.next(db, null, name, 3));
+        }
+        assertEquals(Arrays.stream(other).boxed().toList(), Arrays.asList(4L, 5L, 6L));
+        assertEquals(values, Arrays.asList(1L, 2L, 3L, 7L, 8L));
+    }
+
+    @Test
+    public void testReset()
+        throws SQLException
+    {
+        final SequenceDatabase db = new SequenceDatabase(1);
+        final String name = "seq" + UUID.randomUUID();
+        db.increment = 5;
+        assertEquals(SequenceAllocator.next(db, null, name, 5), 1L);
+        assertEquals(SequenceAllocator.next(db, null, name, 5), 2L);
+        db.value = 100;
+        SequenceAllocator.reset(name);
+        assertEquals(SequenceAllocator.next(db, null, name, 5), 100L);
+        assertEquals(db.fetches, 2);
+    }
+
+    /**
+     * Database with a sequence that reserves blocks like a sequence with an
+     * increment.
+     */
+    private static final class SequenceDatabase
+        extends MockDatabase
+    {
+
+        /** Next value of the sequence. */
+        private long value;
+
+        /** Increment of the sequence. */
+        private int increment = 1;
+
+        /** Number of fetched blocks. */
+        private int fetches;
+
+        /**
+         * Instantiates a new sequence database.
+         *
+         * @param _value first value of the sequence
+         */
+        private SequenceDatabase(final long _value)
+        {
+            value = _value;
+        }
+
+        @Override
+        public long[] nextSequenceBlock(final ConnectionResource _con,
+                                        final String _name,
+                                        final int _size)
+        {
+            fetches++;
+            final long[] ret = new long[Math.min(increment, _size)];
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = value + i;
+            }
+            value = value + increment;
+            increment = _size;
+            return ret;
+        }
+    }
+}
@@ -20,11 +20,16 @@ import static org.easymock.EasyMock.eq;
 import static org.powermock.api.easymock.PowerMock.createMock;
 import static org.powermock.api.easymock.PowerMock.replay;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
 
 import org.efaps.admin.datamodel.Attribute;
 import org.efaps.db.stmt.selection.elements.NameElement;
+import org.efaps.db.wrapper.SQLSelect;
 import org.efaps.db.wrapper.SQLWhere.Criteria;
 import org.efaps.db.wrapper.TableIndexer.TableIdx;
+import org.efaps.eql2.Comparison;
 import org.efaps.eql2.IWhereElement;
 import org.efaps.eql2.StmtFlag;
 import org.efaps.mock.Mocks;
@@ -141,4 +146,38 @@ public class FilterTest
         assertEquals(convertedValue, "2026-03-10T08:49:42.969-05:00");
     }
 
+
+    @Test
+    public void testParameterizedIntegerIsLiteral()
+        throws EFapsException
+    {
+        final Attribute attr = Attribute.get(Mocks.AllAttrIntegerAttribute.getId());
+        final var factory = org.efaps.eql2.impl.Eql2Factory.init();
+        final IWhereElement element = factory.createWhereElement();
+        element.addValue("5");
+
+        final Criteria section = (Criteria) new Filter().attribute(null, attr, null, element, new TableIdx(), false);
+        section.comparison(Comparison.EQUAL);
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0);
+        select.getWhere().section(section);
+        assertTrue(select.getSQL().trim().endsWith("= '5'"));
+        assertTrue(select.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testParameterizedStringIsBound()
+        throws EFapsException
+    {
+        final Attribute attr = Attribute.get(Mocks.AllAttrStringAttribute.getId());
+        final var factory = org.efaps.eql2.impl.Eql2Factory.init();
+        final IWhereElement element = factory.createWhereElement();
+        element.addValue("It's");
+
+        final Criteria section = (Criteria) new Filter().attribute(null, attr, null, element, new TableIdx(), false);
+        section.comparison(Comparison.EQUAL);
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0);
+        select.getWhere().section(section);
+        assertTrue(select.getSQL().trim().endsWith("= ?"));
+        assertEquals(select.getParameters(), Arrays.asList("It's"));
+    }
 }
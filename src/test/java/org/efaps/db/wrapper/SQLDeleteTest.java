@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.wrapper;
+
+import static org.testng.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.efaps.db.Context;
+import org.efaps.db.wrapper.SQLDelete.DeleteDefintion;
+import org.efaps.test.AbstractTest;
+import org.efaps.test.RecordingVerify;
+import org.efaps.util.EFapsException;
+import org.testng.annotations.Test;
+
+/**
+ * The Class SQLDeleteTest.
+ */
+public class SQLDeleteTest
+    extends AbstractTest
+{
+
+    @Test
+    public void testGroupedMainTableLast()
+        throws EFapsException, SQLException
+    {
+        final List<String> executed = new ArrayList<>();
+        final String sqlChild = "delete from T_CHILD where ID in(?)";
+        final String sqlMain = "delete from T_MAIN where ID in(?,?)";
+        final RecordingVerify verifyChild = RecordingVerify.builder().withSql(sqlChild).withLog(executed).build();
+        final RecordingVerify verifyMain = RecordingVerify.builder().withSql(sqlMain).withLog(executed).build();
+
+        // a parent type instance followed by a child type instance
+        new SQLDelete(new DeleteDefintion("T_MAIN", "ID", 4L, SQLDelete.MAINLEVEL),
+                        new DeleteDefintion("T_CHILD", "ID", 5L),
+                        new DeleteDefintion("T_MAIN", "ID", 5L, SQLDelete.MAINLEVEL))
+                            .executeGrouped(Context.getThreadContext().getConnectionResource(), 100);
+        verifyChild.verify();
+        verifyMain.verify();
+        assertEquals(executed, Arrays.asList(sqlChild, sqlMain));
+    }
+
+    @Test
+    public void testGroupedSameLevelKeepsOrder()
+        throws EFapsException, SQLException
+    {
+        final List<String> executed = new ArrayList<>();
+        final String sqlFirst = "delete from T_FIRST where ID in(?,?)";
+        final String sqlSecond = "delete from T_SECOND where ID in(?)";
+        final RecordingVerify verifyFirst = RecordingVerify.builder().withSql(sqlFirst).withLog(executed).build();
+        final RecordingVerify verifySecond = RecordingVerify.builder().withSql(sqlSecond).withLog(executed).build();
+
+        new SQLDelete(new DeleteDefintion("T_FIRST", "ID", 4L),
+                        new DeleteDefintion("T_SECOND", "ID", 4L),
+                        new DeleteDefintion("T_FIRST", "ID", 5L))
+                            .executeGrouped(Context.getThreadContext().getConnectionResource(), 100);
+        verifyFirst.verify();
+        verifySecond.verify();
+        assertEquals(executed, Arrays.asList(sqlFirst, sqlSecond));
+    }
+}
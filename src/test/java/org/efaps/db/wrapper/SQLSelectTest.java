@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.db.wrapper;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.efaps.eql2.Comparison;
+import org.efaps.eql2.Connection;
+import org.efaps.test.AbstractTest;
+import org.testng.annotations.Test;
+
+/**
+ * The Class SQLSelectTest.
+ */
+public class SQLSelectTest
+    extends AbstractTest
+{
+
+    @Test
+    public void testLiteral()
+    {
+        final SQLSelect select = new SQLSelect().column(0, "ID").from("T_DEMO", 0);
+        select.getWhere().addCriteria(0, "ID", Comparison.EQUAL, "4", Connection.AND);
+        assertEquals(select.getSQL().trim(), "select T0.ID from T_DEMO T0 where T0.ID = 4");
+        assertTrue(select.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testParameterized()
+    {
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0);
+        select.getWhere().addCriteria(0, "ID", Comparison.EQUAL, "4", Connection.AND);
+        assertEquals(select.getSQL().trim(), "select T0.ID from T_DEMO T0 where T0.ID = ?");
+        assertEquals(select.getParameters(), Arrays.asList(4L));
+    }
+
+    @Test
+    public void testParameterizedEscaped()
+    {
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0);
+        select.getWhere().addCriteria(0, Arrays.asList("NAME"), Comparison.LIKE,
+                        Collections.singleton("It's%"), true, Connection.AND).text(true);
+        assertEquals(select.getSQL().trim(), "select T0.ID from T_DEMO T0 where T0.NAME like ?");
+        assertEquals(select.getParameters(), Arrays.asList("It's%"));
+    }
+
+    @Test
+    public void testParameterizedEscapedNotText()
+    {
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0);
+        select.getWhere().addCriteria(0, Arrays.asList("CREATED"), Comparison.GREATER,
+                        Collections.singleton("2026-03-10T13:49:42.969Z"), true, Connection.AND);
+        assertEquals(select.getSQL().trim(),
+                        "select T0.ID from T_DEMO T0 where T0.CREATED > '2026-03-10T13:49:42.969Z'");
+        assertTrue(select.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testParameterPart()
+    {
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0)
+                        .addPart(SQLPart.WHERE).addColumnPart(0, "ID").addPart(SQLPart.IN)
+                        .addPart(SQLPart.PARENTHESIS_OPEN)
+                        .addParameterPart(1L).addPart(SQLPart.COMMA).addParameterPart(2L)
+                        .addPart(SQLPart.PARENTHESIS_CLOSE);
+        assertEquals(select.getSQL().trim(), "select T0.ID from T_DEMO T0 where T0.ID in ( ? , ? )");
+        assertEquals(select.getParameters(), Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    public void testIdListLiteral()
+    {
+        final SQLSelect select = new SQLSelect().column(0, "ID").from("T_DEMO", 0)
+                        .addPart(SQLPart.WHERE).addColumnPart(0, "ID").addIdListPart(Arrays.asList(1L, 2L));
+        assertEquals(select.getSQL().trim(), "select T0.ID from T_DEMO T0 where T0.ID in ( 1,2 )");
+        assertTrue(select.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testIdListArray()
+    {
+        final SQLSelect select = new SQLSelect().parameterized(true).column(0, "ID").from("T_DEMO", 0)
+                        .addPart(SQLPart.WHERE).addColumnPart(0, "ID").addIdListPart(Arrays.asList(1L, 2L));
+        assertEquals(select.getSQL().trim(), "select T0.ID from T_DEMO T0 where T0.ID = any (?)");
+        assertEquals(select.getParameters().size(), 1);
+        assertEquals((Long[]) select.getParameters().get(0), new Long[] { 1L, 2L });
+    }
+
+    @Test
+    public void testIdListChunk()
+    {
+        final SQLSelect.IdList idList = chunkedIdList();
+        assertEquals(idList.getChunkCount(), 2);
+        idList.setChunk(1);
+        final StringBuilder cmd = new StringBuilder();
+        idList.appendSQL(cmd);
+        assertEquals(cmd.toString(), "T0.ID in ( 3 )");
+    }
+
+    @Test
+    public void testIdListCombined()
+    {
+        final SQLSelect.IdList idList = chunkedIdList();
+        idList.setCombined(true);
+        final StringBuilder cmd = new StringBuilder();
+        idList.appendSQL(cmd);
+        assertEquals(cmd.toString(), "( T0.ID in ( 1,2 ) or T0.ID in ( 3 ) )");
+    }
+
+    @Test
+    public void testHasLimit()
+    {
+        final SQLSelect select = new SQLSelect().column(0, "ID").from("T_DEMO", 0);
+        assertFalse(select.hasLimit());
+        select.limit(10);
+        assertTrue(select.hasLimit());
+        select.limit(null);
+        select.offset(5);
+        assertTrue(select.hasLimit());
+    }
+
+    /**
+     * Id list for the column T0.ID with chunks of two ids.
+     *
+     * @return the id list
+     */
+    private SQLSelect.IdList chunkedIdList()
+    {
+        return new SQLSelect.IdList(new SQLSelect.Column("T", 0, "ID"), Arrays.asList(1L, 2L, 3L))
+        {
+
+            @Override
+            protected int getChunkSize()
+            {
+                return 2;
+            }
+        };
+    }
+}
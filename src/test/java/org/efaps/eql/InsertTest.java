@@ -35,6 +35,7 @@ import org.efaps.mock.datamodel.Company.CompanyBuilder;
 import org.efaps.mock.esjp.AccessCheck;
 import org.efaps.mock.esjp.TriggerEvent;
 import org.efaps.test.AbstractTest;
+import org.efaps.test.RecordingVerify;
 import org.efaps.test.SQLVerify;
 import org.efaps.util.EFapsException;
 import org.testng.annotations.Test;
@@ -238,4 +239,26 @@ public class InsertTest
         verify.verify();
     }
 
+    @Test
+    public void testBatchInsert()
+        throws EFapsException
+    {
+        final String sql = String.format("insert into %s (%s,ID)values(?,?)",
+                        Mocks.SimpleTypeSQLTable.getSqlTableName(),
+                        Mocks.TestAttribute.getSQLColumnName());
+        final RecordingVerify verify = RecordingVerify.builder().withSql(sql).build();
+        final List<Instance> instances = EQL.batchInsert(
+                        EQL.builder().insert(CI.SimpleType).set(CI.SimpleType.TestAttr, "First Value"),
+                        EQL.builder().insert(CI.SimpleType).set(CI.SimpleType.TestAttr, "Second Value"))
+                        .execute();
+        verify.verify();
+
+        final List<List<Parameter>> executed = verify.getExecutions();
+        assertEquals(executed.size(), 2);
+        assertEquals(executed.get(0).get(0).getValue(), "First Value");
+        assertEquals(executed.get(1).get(0).getValue(), "Second Value");
+        assertEquals(instances.size(), 2);
+        assertEquals(instances.get(0).getType(), CI.SimpleType.getType());
+        assertEquals(instances.get(1).getType(), CI.SimpleType.getType());
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.eql;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.efaps.eql.StatementCache.Normalized;
+import org.efaps.eql2.EQL2;
+import org.efaps.eql2.IStatement;
+import org.efaps.test.AbstractTest;
+import org.testng.annotations.Test;
+
+/**
+ * The Class StatementCacheTest.
+ */
+public class StatementCacheTest
+    extends AbstractTest
+{
+
+    @Test
+    public void testNormalizeWhitespace()
+    {
+        final Normalized normalized = StatementCache.normalize("  print  query\n\ttype Demo   select attribute[Name] ");
+        assertEquals(normalized.template(), "print query type Demo select attribute[Name]");
+        assertTrue(normalized.values().isEmpty());
+    }
+
+    @Test
+    public void testNormalizeQuoteInLiteral()
+    {
+        final Normalized normalized = StatementCache.normalize(
+                        "print query type Demo where attribute[Name] in (\"it's\",'say \"A\"') select attribute[Name]");
+        assertEquals(normalized.template(),
+                        "print query type Demo where attribute[Name] in (\"%%0%%\",'%%1%%') select attribute[Name]");
+        assertEquals(normalized.values(), Arrays.asList("it's", "say \"A\""));
+    }
+
+    @Test
+    public void testNormalizePlaceholderInLiteral()
+    {
+        final Normalized normalized = StatementCache.normalize(
+                        "print query type Demo where attribute[Name] in (\"%%1%%\",\"50%%\") select attribute[Name]");
+        assertEquals(normalized.template(),
+                        "print query type Demo where attribute[Name] in (\"%%0%%\",\"%%1%%\") select attribute[Name]");
+        assertEquals(normalized.values(), Arrays.asList("%%1%%", "50%%"));
+    }
+
+    @Test
+    public void testNormalizeKeepsEscapedLiteral()
+    {
+        final Normalized normalized = StatementCache.normalize(
+                        "print query type Demo where attribute[Name] = \"A\\\"B\" select attribute[Name]");
+        assertEquals(normalized.template(),
+                        "print query type Demo where attribute[Name] = \"A\\\"B\" select attribute[Name]");
+        assertTrue(normalized.values().isEmpty());
+    }
+
+    @Test
+    public void testNormalizeUnclosedLiteral()
+    {
+        assertNull(StatementCache.normalize(
+                        "print query type Demo where attribute[Name] = \"A select attribute[Name]"));
+    }
+
+    @Test
+    public void testNormalizeOnlyLiteralsDiffer()
+    {
+        final Normalized first = StatementCache.normalize(
+                        "print query type Demo where attribute[Name] = \"A\" select attribute[Name]");
+        final Normalized second = StatementCache.normalize(
+                        "print query type Demo  where attribute[Name] = \"B\" select attribute[Name]");
+        assertEquals(first.template(), second.template());
+        assertEquals(first.values(), Collections.singletonList("A"));
+        assertEquals(second.values(), Collections.singletonList("B"));
+    }
+
+    @Test
+    public void testNormalizeNumbers()
+    {
+        final Normalized normalized = StatementCache.normalize(
+                        "print obj 123.4 select attribute[Name2], linkto[Link].oid where attribute[Size] == 56");
+        assertEquals(normalized.template(),
+                        "print obj 808.808 select attribute[Name2], linkto[Link].oid where attribute[Size] == 818");
+        assertEquals(normalized.values(), Arrays.asList("123.4", "56"));
+    }
+
+    @Test
+    public void testNormalizeKeepsNumbersInNames()
+    {
+        final Normalized normalized = StatementCache.normalize(
+                        "print query type Demo12 where attribute[Name] in (1,2a) select attribute[Name]");
+        assertEquals(normalized.template(),
+                        "print query type Demo12 where attribute[Name] in (808,2a) select attribute[Name]");
+        assertEquals(normalized.values(), Collections.singletonList("1"));
+    }
+
+    @Test
+    public void testGetOnlyOidsDiffer()
+    {
+        final String first = "print obj " + nextLong() + ".1 select attribute[Name]";
+        final String second = "print obj " + nextLong() + ".2 select attribute[Name]";
+        final String third = "print obj " + nextLong() + ".3 select attribute[Name]";
+        final String template = "print obj 808.808 select attribute[Name]";
+        final List<CharSequence> parsed = new ArrayList<>();
+
+        final IStatement<?> firstStmt = StatementCache.get(first, text -> parse(text, parsed));
+        final IStatement<?> secondStmt = StatementCache.get(second, text -> parse(text, parsed));
+        final IStatement<?> thirdStmt = StatementCache.get(third, text -> parse(text, parsed));
+
+        // all oids share one template, that is parsed only once
+        assertEquals(parsed.stream().filter(template::equals).count(), 1L);
+        assertTrue(EcoreUtil.equals((EObject) firstStmt, (EObject) EQL2.parse(first)));
+        assertTrue(EcoreUtil.equals((EObject) secondStmt, (EObject) EQL2.parse(second)));
+        assertTrue(EcoreUtil.equals((EObject) thirdStmt, (EObject) EQL2.parse(third)));
+    }
+
+    @Test
+    public void testGetOnlyLiteralsDiffer()
+    {
+        final String type = "Demo" + nextLong();
+        final String first = String.format("print query type %s where attribute[Name] in (\"A\",\"%%%%1%%%%\") "
+                        + "select attribute[Name]", type);
+        final String second = String.format("print query type %s where attribute[Name] in (\"it's\",\"B\") "
+                        + "select attribute[Name]", type);
+        final List<CharSequence> parsed = new ArrayList<>();
+        final long hits = StatementCache.getHits();
+
+        final IStatement<?> firstStmt = StatementCache.get(first, text -> parse(text, parsed));
+        final IStatement<?> secondStmt = StatementCache.get(second, text -> parse(text, parsed));
+
+        // only the template was parsed, the second statement is a copy of it
+        assertEquals(parsed.size(), 1);
+        assertEquals(StatementCache.getHits(), hits + 1);
+        assertTrue(EcoreUtil.equals((EObject) firstStmt, (EObject) EQL2.parse(first)));
+        assertTrue(EcoreUtil.equals((EObject) secondStmt, (EObject) EQL2.parse(second)));
+    }
+
+    @Test
+    public void testGetUncacheable()
+    {
+        final String type = "Demo" + nextLong();
+        final String first = String.format("print query type %s where attribute[Name] = \"A\" "
+                        + "select attribute[Name]", type);
+        final String second = String.format("print query type %s where attribute[Name] = \"B\" "
+                        + "select attribute[Name]", type);
+        final List<CharSequence> parsed = new ArrayList<>();
+        // a parser that loses the placeholder, so the literal can not be put back
+        final String lost = String.format("print query type %s select attribute[Name]", type);
+
+        final IStatement<?> firstStmt = StatementCache.get(first, text -> parse(text.toString().contains("%%")
+                        ? lost : text, parsed));
+        final IStatement<?> secondStmt = StatementCache.get(second, text -> parse(text.toString().contains("%%")
+                        ? lost : text, parsed));
+
+        // the template is parsed once, afterwards every statement is parsed
+        assertEquals(parsed, Arrays.asList(lost, first, second));
+        assertTrue(EcoreUtil.equals((EObject) firstStmt, (EObject) EQL2.parse(first)));
+        assertTrue(EcoreUtil.equals((EObject) secondStmt, (EObject) EQL2.parse(second)));
+    }
+
+    /**
+     * Parse and remember the parsed text.
+     *
+     * @param _text the text
+     * @param _parsed the parsed texts
+     * @return the statement
+     */
+    private static IStatement<?> parse(final CharSequence _text,
+                                       final List<CharSequence> _parsed)
+    {
+        _parsed.add(_text);
+        return EQL2.parse(_text);
+    }
+}
@@ -27,6 +27,7 @@ import org.efaps.mock.datamodel.SQLTable;
 import org.efaps.mock.datamodel.StatusGroup;
 import org.efaps.mock.datamodel.Type;
 import org.efaps.mock.esjp.AccessCheck;
+import org.efaps.mock.esjp.ChildAccessCheck;
 import org.efaps.mock.esjp.TriggerEvent;
 import org.efaps.test.AbstractTest;
 
@@ -388,6 +389,20 @@ public interface Mocks
                     .withMethod("execute")
                     .build();
 
+    Type AccessChildType = Type.builder()
+                    .withId(AbstractTest.nextLong())
+                    .withName("AccessChildType")
+                    .withParentTypeId(AccessType.getId())
+                    .build();
+
+    EventDefinition AccessChildTypeEvent = EventDefinition.builder()
+                    .withObjectLink(AccessChildType.getId())
+                    .withInstId(AbstractTest.nextLong())
+                    .withTypeId(IDataModel.Admin_DataModel_TypeAccessCheckEvent.getId())
+                    .withESJP(ChildAccessCheck.class.getName())
+                    .withMethod("execute")
+                    .build();
+
     Type AccessType2 = Type.builder()
                     .withId(AbstractTest.nextLong())
                     .withName("AccessType2")
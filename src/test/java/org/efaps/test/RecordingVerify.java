@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Verify that records every execution of the SQL, e.g. for statements that
+ * are executed more than once or for the order of several statements.
+ */
+public class RecordingVerify
+    implements IVerify
+{
+
+    /** The sql. */
+    private final String sql;
+
+    /** Parameters of each execution of the SQL. */
+    private final List<List<Parameter>> executions = new ArrayList<>();
+
+    /** Log the SQL is added to on each execution, may be <code>null</code>. */
+    private final List<String> log;
+
+    /**
+     * Instantiates a new recording verify.
+     *
+     * @param _recordingVerifyBuilder the recording verify builder
+     */
+    public RecordingVerify(final RecordingVerifyBuilder _recordingVerifyBuilder)
+    {
+        this.sql = _recordingVerifyBuilder.sql;
+        this.log = _recordingVerifyBuilder.log;
+    }
+
+    @Override
+    public String getSql()
+    {
+        return this.sql;
+    }
+
+    @Override
+    public void execute(final List<Parameter> _sqlParameters)
+    {
+        this.executions.add(_sqlParameters);
+        if (this.log != null) {
+            this.log.add(this.sql);
+        }
+    }
+
+    @Override
+    public void verify()
+    {
+        EFapsQueryHandler.get().unregister(getSql());
+    }
+
+    /**
+     * Gets the parameters of each execution of the SQL.
+     *
+     * @return the parameters of each execution of the SQL
+     */
+    public List<List<Parameter>> getExecutions()
+    {
+        return this.executions;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new StringBuilder()
+                        .append(RecordingVerify.class.getSimpleName())
+                        .append(" ")
+                        .append("sql: ")
+                        .append(this.sql)
+                        .toString();
+    }
+
+    /**
+     * Builder.
+     *
+     * @return the recording verify builder
+     */
+    public static RecordingVerifyBuilder builder()
+    {
+        return new RecordingVerifyBuilder();
+    }
+
+    /**
+     * The Class RecordingVerifyBuilder.
+     */
+    public static class RecordingVerifyBuilder
+    {
+
+        /** The sql. */
+        private String sql;
+
+        /** The log. */
+        private List<String> log;
+
+        /**
+         * With sql.
+         *
+         * @param _sql the sql
+         * @return the recording verify builder
+         */
+        public RecordingVerifyBuilder withSql(final String _sql)
+        {
+            this.sql = _sql;
+            return this;
+        }
+
+        /**
+         * With a log the SQL is added to on each execution.
+         *
+         * @param _log the log
+         * @return the recording verify builder
+         */
+        public RecordingVerifyBuilder withLog(final List<String> _log)
+        {
+            this.log = _log;
+            return this;
+        }
+
+        /**
+         * Builds and registers the verify.
+         *
+         * @return the recording verify
+         */
+        public RecordingVerify build()
+        {
+            final RecordingVerify ret = new RecordingVerify(this);
+            EFapsQueryHandler.get().register(ret);
+            return ret;
+        }
+    }
+}
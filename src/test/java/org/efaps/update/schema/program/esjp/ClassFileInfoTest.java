@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.update.schema.program.esjp;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+/**
+ * The Class ClassFileInfoTest.
+ */
+public class ClassFileInfoTest
+{
+
+    @Test
+    public void testReferences()
+        throws IOException
+    {
+        final Map<String, byte[]> classes = MemoryCompiler.compile(Map.of(
+                        "demo.A", """
+                            package demo;
+                            public class A {
+                                private B b;
+                                public java.util.List<C> list() { return null; }
+                                public Object array() { return new D[0]; }
+                                public void call() { E.run(); }
+                            }""",
+                        "demo.B", "package demo; public class B {}",
+                        "demo.C", "package demo; public class C {}",
+                        "demo.D", "package demo; public class D {}",
+                        "demo.E", "package demo; public class E { public static void run() {} }"));
+        final Set<String> references = ClassFileInfo.read(classes.get("demo.A")).getReferences();
+
+        // field descriptor, generic signature, array and method call
+        assertTrue(references.containsAll(Set.of("demo.B", "demo.C", "demo.D", "demo.E")), references.toString());
+        assertTrue(references.contains("java.util.List"), references.toString());
+        assertTrue(references.contains("java.lang.Object"), references.toString());
+        assertFalse(references.stream().anyMatch(name -> name.contains("/") || name.startsWith("[")),
+                        references.toString());
+        assertEquals(ClassFileInfo.read(classes.get("demo.B")).getReferences(),
+                        Set.of("demo.B", "java.lang.Object"));
+    }
+
+    @Test
+    public void testConstantsHash()
+        throws IOException
+    {
+        final String first = constantsHash("""
+                        package demo;
+                        public class Constants {
+                            public static final String NAME = "a";
+                            public static final int SIZE = 5;
+                            private static final long SECRET = 1L;
+                        }""");
+        final String otherValue = constantsHash("""
+                        package demo;
+                        public class Constants {
+                            public static final String NAME = "b";
+                            public static final int SIZE = 5;
+                            private static final long SECRET = 1L;
+                        }""");
+        final String otherPrivate = constantsHash("""
+                        package demo;
+                        public class Constants {
+                            public static final String NAME = "a";
+                            public static final int SIZE = 5;
+                            private static final long SECRET = 2L;
+                        }""");
+        final String none = constantsHash("""
+                        package demo;
+                        public class Constants {
+                            public static String NAME = "a";
+                        }""");
+
+        assertFalse(first.isEmpty());
+        assertNotEquals(otherValue, first);
+        // private constants can not be inlined into other classes
+        assertEquals(otherPrivate, first);
+        assertEquals(none, "");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testNoClassFile()
+        throws IOException
+    {
+        ClassFileInfo.read(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+    }
+
+    /**
+     * Compile the class demo.Constants and get its constants hash.
+     *
+     * @param _source the source
+     * @return the constants hash
+     * @throws IOException on error
+     */
+    private static String constantsHash(final String _source)
+        throws IOException
+    {
+        return ClassFileInfo.read(MemoryCompiler.compile(Map.of("demo.Constants", _source)).get("demo.Constants"))
+                        .getConstantsHash();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.update.schema.program.esjp;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.efaps.update.schema.program.esjp.CompileState.ClassEntry;
+import org.testng.annotations.Test;
+
+/**
+ * The Class CompileStateTest.
+ */
+public class CompileStateTest
+{
+
+    @Test
+    public void testWithDependents()
+        throws IOException
+    {
+        final Map<String, String> sources = Map.of(
+                        "demo.Base", "package demo; public class Base { public static final int SIZE = 1; }",
+                        "demo.Child", "package demo; public class Child extends Base {}",
+                        "demo.User", "package demo; public class User { public Child child() { return null; } }",
+                        "demo.Inlined", "package demo; public class Inlined { int size = Base.SIZE; }",
+                        "demo.Other", "package demo; public class Other {}");
+        final CompileState state = CompileState.load(Files.createTempDirectory("esjp").resolve("state.properties"));
+        for (final Map.Entry<String, byte[]> entry : MemoryCompiler.compile(sources).entrySet()) {
+            final Set<String> dependencies = new HashSet<>();
+            for (final String reference : ClassFileInfo.read(entry.getValue()).getReferences()) {
+                if (!reference.equals(entry.getKey()) && sources.containsKey(reference)) {
+                    dependencies.add(reference);
+                }
+            }
+            state.putSource(entry.getKey(), "hash", dependencies);
+        }
+
+        assertEquals(state.getWithDependents(List.of("demo.Base")), Set.of("demo.Base", "demo.Child", "demo.User"));
+        assertEquals(state.getWithDependents(List.of("demo.User")), Set.of("demo.User"));
+        assertEquals(state.getWithDependents(List.of("demo.Other", "demo.Child")),
+                        Set.of("demo.Other", "demo.Child", "demo.User"));
+        // the inlined constant is not a reference, it is covered by the constants hash
+        assertFalse(state.getWithDependents(List.of("demo.Base")).contains("demo.Inlined"));
+    }
+
+    @Test
+    public void testWithDependentsCycle()
+        throws IOException
+    {
+        final CompileState state = CompileState.load(Files.createTempDirectory("esjp").resolve("state.properties"));
+        state.putSource("demo.A", "a", Set.of("demo.B"));
+        state.putSource("demo.B", "b", Set.of("demo.A"));
+        state.putSource("demo.C", "c", Set.of("demo.B"));
+        assertEquals(state.getWithDependents(List.of("demo.A")), Set.of("demo.A", "demo.B", "demo.C"));
+    }
+
+    @Test
+    public void testStoreAndLoad()
+        throws IOException
+    {
+        final Path file = Files.createTempDirectory("esjp").resolve("sub").resolve("state.properties");
+        final CompileState state = CompileState.load(file);
+        state.setOptionsHash("options");
+        state.putSource("demo.A", "hashA", Set.of("demo.B"));
+        state.putSource("demo.B", "hashB", Set.of());
+        state.putClass("demo.A", new ClassEntry(4, "classA", "constA"));
+        state.putClass("demo.A$1", new ClassEntry(5, "classA1", ""));
+        state.store();
+
+        final CompileState loaded = CompileState.load(file);
+        assertEquals(loaded.getOptionsHash(), "options");
+        assertEquals(loaded.getSourceNames(), Set.of("demo.A", "demo.B"));
+        assertEquals(loaded.getSourceHash("demo.A"), "hashA");
+        assertEquals(loaded.getClass("demo.A"), new ClassEntry(4, "classA", "constA"));
+        assertEquals(loaded.getClass("demo.A$1"), new ClassEntry(5, "classA1", ""));
+        assertEquals(loaded.getWithDependents(List.of("demo.B")), Set.of("demo.A", "demo.B"));
+        assertTrue(loaded.matches(Map.of("demo.A", 4L, "demo.A$1", 5L)));
+        assertFalse(loaded.matches(Map.of("demo.A", 4L, "demo.A$1", 6L)));
+        assertFalse(loaded.matches(Map.of("demo.A", 4L)));
+    }
+
+    @Test
+    public void testHashOptions()
+        throws IOException
+    {
+        final Path jar = Files.createTempDirectory("esjp").resolve("lib.jar");
+        Files.writeString(jar, "first");
+        final List<String> options = List.of("-classpath", jar.toString(), "-encoding", "UTF-8");
+        final String hash = CompileState.hashOptions(options);
+
+        assertEquals(CompileState.hashOptions(options), hash);
+        assertNotEquals(CompileState.hashOptions(List.of("-classpath", jar.toString(), "-encoding", "UTF-8",
+                        "-g", "lines")), hash);
+        // same path, other content
+        Files.writeString(jar, "second jar");
+        assertNotEquals(CompileState.hashOptions(options), hash);
+    }
+
+    @Test
+    public void testLoadInvalid()
+        throws IOException
+    {
+        final Path file = Files.createTempDirectory("esjp").resolve("state.properties");
+        Files.writeString(file, "source.demo.A=hashA\nclass.demo.A=noid,hash,const\n");
+        final CompileState state = CompileState.load(file);
+        assertTrue(state.getSourceNames().isEmpty());
+        assertNull(state.getClass("demo.A"));
+        assertFalse(state.matches(Map.of()));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.update.schema.program.esjp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles java sources in memory for the tests.
+ */
+final class MemoryCompiler
+{
+
+    /**
+     * Instantiates a new memory compiler.
+     */
+    private MemoryCompiler()
+    {
+    }
+
+    /**
+     * Compile the given sources.
+     *
+     * @param _sources the sources by binary class name
+     * @return the bytes of the compiled classes by binary class name
+     */
+    static Map<String, byte[]> compile(final Map<String, String> _sources)
+    {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final Map<String, ByteArrayOutputStream> outputs = new HashMap<>();
+        final StandardJavaFileManager standard = compiler.getStandardFileManager(null, null, null);
+        final JavaFileManager manager = new ForwardingJavaFileManager<>(standard)
+        {
+
+            @Override
+            public JavaFileObject getJavaFileForOutput(final Location _location,
+                                                       final String _className,
+                                                       final JavaFileObject.Kind _kind,
+                                                       final FileObject _sibling)
+            {
+                return new SimpleJavaFileObject(URI.create("mem:///" + _className.replace('.', '/')
+                                + _kind.extension), _kind)
+                {
+
+                    @Override
+                    public OutputStream openOutputStream()
+                    {
+                        return outputs.computeIfAbsent(_className, name -> new ByteArrayOutputStream());
+                    }
+                };
+            }
+        };
+        final List<JavaFileObject> units = new ArrayList<>();
+        _sources.forEach((className, code) -> units.add(new SimpleJavaFileObject(URI.create("mem:///"
+                        + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                        JavaFileObject.Kind.SOURCE)
+        {
+
+            @Override
+            public CharSequence getCharContent(final boolean _ignoreEncodingErrors)
+            {
+                return code;
+            }
+        }));
+        if (!compiler.getTask(null, manager, null, null, null, units).call()) {
+            throw new IllegalStateException("Could not compile " + _sources.keySet());
+        }
+        final Map<String, byte[]> ret = new HashMap<>();
+        outputs.forEach((className, out) -> ret.put(className, out.toByteArray()));
+        return ret;
+    }
+}
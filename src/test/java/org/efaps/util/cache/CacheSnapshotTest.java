@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.util.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.efaps.db.GenInstInfo;
+import org.testng.annotations.Test;
+
+/**
+ * The Class CacheSnapshotTest.
+ */
+public class CacheSnapshotTest
+{
+
+    @Test
+    public void testRoundTrip()
+        throws IOException
+    {
+        final UUID uuid = UUID.randomUUID();
+        final Map<Object, Object> entries = new HashMap<>();
+        entries.put(12L, info(1));
+        entries.put("12", info(2));
+        entries.put(uuid, info(3));
+        final Map<String, List<byte[][]>> caches = new LinkedHashMap<>();
+        caches.put("org.efaps.admin.Demo", CacheSnapshot.marshall(entries));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            assertEquals(CacheSnapshot.write(out, "v1", caches), 3);
+        }
+        final Map<String, Map<Object, Object>> read = CacheSnapshot.read(ByteBuffer.wrap(bytes.toByteArray()),
+                        "v1");
+
+        assertEquals(read.keySet(), caches.keySet());
+        final Map<Object, Object> readEntries = read.get("org.efaps.admin.Demo");
+        assertEquals(readEntries.size(), 3);
+        // the keys keep their class
+        assertEquals(readEntries.get(12L), info(1));
+        assertEquals(readEntries.get("12"), info(2));
+        assertEquals(readEntries.get(uuid), info(3));
+        assertTrue(readEntries.get(12L) instanceof GenInstInfo);
+    }
+
+    @Test
+    public void testOtherVersion()
+        throws IOException
+    {
+        final Map<Object, Object> entries = new HashMap<>();
+        entries.put(1L, info(1));
+        final Map<String, List<byte[][]>> caches = new LinkedHashMap<>();
+        caches.put("org.efaps.admin.Demo", CacheSnapshot.marshall(entries));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            CacheSnapshot.write(out, "v1", caches);
+        }
+        assertNull(CacheSnapshot.read(ByteBuffer.wrap(bytes.toByteArray()), "v2"));
+    }
+
+    @Test
+    public void testUnsupportedKey()
+        throws IOException
+    {
+        final Map<Object, Object> entries = new HashMap<>();
+        entries.put(1, info(1));
+        assertNull(CacheSnapshot.marshall(entries));
+    }
+
+    @Test
+    public void testUnsupportedValue()
+        throws IOException
+    {
+        final Map<Object, Object> entries = new HashMap<>();
+        entries.put(1L, new Object());
+        assertNull(CacheSnapshot.marshall(entries));
+    }
+
+    /**
+     * Create a marshallable value.
+     *
+     * @param _id the id
+     * @return the value
+     */
+    private static GenInstInfo info(final long _id)
+    {
+        final GenInstInfo ret = new GenInstInfo();
+        ret.setGeneralId(_id);
+        ret.setExchangeId(_id + 1);
+        ret.setExchangeSystemId(_id + 2);
+        return ret;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2003 - 2024 The eFaps Team (-)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.efaps.util.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.efaps.test.AbstractTest;
+import org.infinispan.Cache;
+import org.testng.annotations.Test;
+
+/**
+ * The Class NearCacheTest.
+ */
+public class NearCacheTest
+    extends AbstractTest
+{
+
+    @Test
+    public void testHit()
+    {
+        final String name = NearCacheTest.class.getName() + nextLong();
+        final Cache<String, String> cache = InfinispanCache.get().initCache(name);
+        cache.put("a", "1");
+        final NearCache<String, String> near = NearCache.get(name);
+        final AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(near.get("a", (c, key) -> load(c, key, loads)), "1");
+        assertEquals(near.get("a", (c, key) -> load(c, key, loads)), "1");
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testCreatedKeepsEntries()
+    {
+        final String name = NearCacheTest.class.getName() + nextLong();
+        final Cache<String, String> cache = InfinispanCache.get().initCache(name);
+        cache.put("a", "1");
+        final NearCache<String, String> near = NearCache.get(name);
+        final AtomicInteger loads = new AtomicInteger();
+        near.get("a", (c, key) -> load(c, key, loads));
+
+        cache.put("b", "2");
+        assertEquals(near.get("a", (c, key) -> load(c, key, loads)), "1");
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    public void testModifiedInvalidatesKey()
+    {
+        final String name = NearCacheTest.class.getName() + nextLong();
+        final Cache<String, String> cache = InfinispanCache.get().initCache(name);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        final NearCache<String, String> near = NearCache.get(name);
+        final AtomicInteger loads = new AtomicInteger();
+        near.get("a", (c, key) -> load(c, key, loads));
+        near.get("b", (c, key) -> load(c, key, loads));
+
+        cache.put("a", "3");
+        assertEquals(near.get("a", (c, key) -> load(c, key, loads)), "3");
+        assertEquals(loads.get(), 3);
+        // the other key is still served from the near cache
+        assertEquals(near.get("b", (c, key) -> load(c, key, loads)), "2");
+        assertEquals(loads.get(), 3);
+    }
+
+    @Test
+    public void testRemovedInvalidatesKey()
+    {
+        final String name = NearCacheTest.class.getName() + nextLong();
+        final Cache<String, String> cache = InfinispanCache.get().initCache(name);
+        cache.put("a", "1");
+        final NearCache<String, String> near = NearCache.get(name);
+        final AtomicInteger loads = new AtomicInteger();
+        near.get("a", (c, key) -> load(c, key, loads));
+
+        cache.remove("a");
+        assertNull(near.get("a", (c, key) -> load(c, key, loads)));
+    }
+
+    @Test
+    public void testInvalidatedDuringLoad()
+    {
+        final String name = NearCacheTest.class.getName() + nextLong();
+        final Cache<String, String> cache = InfinispanCache.get().initCache(name);
+        cache.put("a", "1");
+        final NearCache<String, String> near = NearCache.get(name);
+        final AtomicInteger loads = new AtomicInteger();
+        // the value is changed after it was read by the loader
+        assertEquals(near.get("a", (c, key) -> {
+            final String ret = load(c, key, loads);
+            c.put(key, "2");
+            return ret;
+        }), "1");
+        assertEquals(near.get("a", (c, key) -> load(c, key, loads)), "2");
+        assertEquals(loads.get(), 2);
+    }
+
+    /**
+     * Load from the cache and count.
+     *
+     * @param _cache the cache
+     * @param _key the key
+     * @param _loads the counter
+     * @return the value
+     */
+    private static String load(final Cache<String, String> _cache,
+                               final String _key,
+                               final AtomicInteger _loads)
+    {
+        _loads.incrementAndGet();
+        return _cache.get(_key);
+    }
+}